@@ -1,6 +1,6 @@
 package main
 /*
- * Copyright (c) 2017, 2020, Oracle and/or its affiliates.
+ * Copyright (c) 2017, 2026, Oracle and/or its affiliates.
  *
  * Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
  */
@@ -16,6 +16,9 @@ import (
 	"fmt"
 	"os"
 	"io"
+	"strconv"
+	"strings"
+	"time"
 )
 
 func main() {
@@ -40,10 +43,18 @@ const empty_configuration = `{"timestamp":0, "configuration":""}`
 const port_flag = "port"
 const db_flag = "db"
 
+// Query parameters with which a GET request may wait for a configuration newer than the one it has
+const after_param = "after"
+const wait_param = "wait"
+
+const defaultWaitSeconds = 30
+const maxWaitSeconds = 60
+
 var (
-	rw                   sync.RWMutex
-	latest_timestamp     int
-	latest_configuration []byte
+	rw                    sync.RWMutex
+	latest_timestamp      int
+	latest_configuration  []byte
+	configuration_changed = make(chan struct{})
 
 	serverAddress string
 
@@ -114,12 +125,15 @@ func readCommandLine() {
   A handler for HTTP requests.
   A PUT request updates the latest configuration if its timestamp is higher than
       the latest timestamp, and is otherwise ignored.
-  A GET request unconditionally returns the latest configuration
+  A GET request returns the latest configuration, with an ETag derived from its timestamp.
+      If the request includes a matching If-None-Match header, it receives a 304 status and no body instead.
+      If the request includes an 'after' parameter, the reply is held until a configuration with a higher
+      timestamp is recorded, or until 'wait' seconds have passed, in which case it receives a 304 status.
  */
 func handler(writer http.ResponseWriter, request *http.Request) {
 	switch request.Method {
 	case "GET":
-		writer.Write(getConfiguration())
+		handleGetRequest(writer, request)
 	case "PUT":
 		contents, err := ioutil.ReadAll(request.Body)
 		if err != nil {
@@ -130,6 +144,82 @@ func handler(writer http.ResponseWriter, request *http.Request) {
 	}
 }
 
+func handleGetRequest(writer http.ResponseWriter, request *http.Request) {
+	after, wait, waitRequested := getWaitParameters(request)
+	var timestamp int
+	var configuration []byte
+	if waitRequested {
+		timestamp, configuration = awaitConfiguration(request, after, wait)
+	} else {
+		timestamp, configuration, _ = getLatest()
+	}
+
+	etag := entityTag(timestamp)
+	writer.Header().Set("ETag", etag)
+	if (waitRequested && timestamp <= after) || matchesEntityTag(request.Header.Get("If-None-Match"), etag) {
+		writer.WriteHeader(http.StatusNotModified)
+	} else {
+		writer.Write(configuration)
+	}
+}
+
+// Returns the timestamp after which a configuration is wanted, and the time to wait for it.
+// The final result is false if the request did not ask to wait.
+func getWaitParameters(request *http.Request) (int, time.Duration, bool) {
+	query := request.URL.Query()
+	after, err := strconv.Atoi(query.Get(after_param))
+	if err != nil {
+		return 0, 0, false
+	}
+
+	waitSeconds, err := strconv.Atoi(query.Get(wait_param))
+	if err != nil {
+		waitSeconds = defaultWaitSeconds
+	} else if waitSeconds > maxWaitSeconds {
+		waitSeconds = maxWaitSeconds
+	} else if waitSeconds < 0 {
+		waitSeconds = 0
+	}
+	return after, time.Duration(waitSeconds) * time.Second, true
+}
+
+// Waits until a configuration with a timestamp higher than 'after' is recorded, the wait expires,
+// or the client goes away, and returns the latest configuration at that time.
+func awaitConfiguration(request *http.Request, after int, wait time.Duration) (int, []byte) {
+	timestamp, configuration, changed := getLatest()
+	if timestamp > after {
+		return timestamp, configuration
+	}
+
+	timer := time.NewTimer(wait)
+	defer timer.Stop()
+	for timestamp <= after {
+		select {
+		case <-changed:
+			timestamp, configuration, changed = getLatest()
+		case <-timer.C:
+			return timestamp, configuration
+		case <-request.Context().Done():
+			return timestamp, configuration
+		}
+	}
+	return timestamp, configuration
+}
+
+func entityTag(timestamp int) string {
+	return fmt.Sprintf("\"%d\"", timestamp)
+}
+
+func matchesEntityTag(ifNoneMatch string, etag string) bool {
+	for _, tag := range strings.Split(ifNoneMatch, ",") {
+		tag = strings.TrimSpace(tag)
+		if tag == etag || tag == "*" {
+			return true
+		}
+	}
+	return false
+}
+
 func reportError(writer http.ResponseWriter, err error, errorCode int) {
 	writer.Write([]byte(err.Error()))
 	writer.WriteHeader(errorCode)
@@ -158,9 +248,12 @@ func putConfiguration(configuration []byte) error {
 	return nil
 }
 
+// Must be called while holding the write lock. Wakes any requests waiting for a new configuration.
 func recordNewConfiguration(config config, configuration []byte) {
 	latest_timestamp = config.Timestamp
 	latest_configuration = configuration
+	close(configuration_changed)
+	configuration_changed = make(chan struct{})
 
 	file, err := createFile(*dbFlag)
 	reportWriteError(err)
@@ -183,3 +276,11 @@ func getConfiguration() []byte {
 
 	return latest_configuration
 }
+
+// Returns the latest timestamp and configuration, along with a channel which will be closed when they change.
+func getLatest() (int, []byte, chan struct{}) {
+	defer rw.RUnlock()
+	rw.RLock()
+
+	return latest_timestamp, latest_configuration, configuration_changed
+}
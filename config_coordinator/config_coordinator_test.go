@@ -1,6 +1,6 @@
 package main
 /*
- * Copyright (c) 2017, 2020, Oracle and/or its affiliates.
+ * Copyright (c) 2017, 2026, Oracle and/or its affiliates.
  *
  * Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
  */
@@ -12,6 +12,8 @@ import (
 	"io"
 	"os"
 	"fmt"
+	"net/http"
+	"time"
 )
 
 const timestamp_2 = 2000
@@ -148,6 +150,111 @@ func doRequest(method, contents string) []byte {
 	return recorder.Body.Bytes()
 }
 
+func doConditionalGetRequest(url string, ifNoneMatch string) *httptest.ResponseRecorder {
+	recorder := httptest.NewRecorder()
+	request := httptest.NewRequest("GET", url, nil)
+	if ifNoneMatch != "" {
+		request.Header.Set("If-None-Match", ifNoneMatch)
+	}
+
+	handler(recorder, request)
+
+	return recorder
+}
+
+// Tests that an http GET request reports the timestamp of the configuration as its entity tag
+func TestHttpGetReturnsETag(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_2)
+
+	response := doConditionalGetRequest("http://configurations:8999", "")
+
+	if response.Header().Get("ETag") != `"2000"` {
+		t.Errorf("Expected ETag %s but found <%s>", `"2000"`, response.Header().Get("ETag"))
+	}
+}
+
+// Tests that an http GET request with a matching If-None-Match header receives no configuration
+func TestHttpGetWithMatchingETag_returnsNotModified(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_2)
+
+	response := doConditionalGetRequest("http://configurations:8999", `"2000"`)
+
+	if response.Code != http.StatusNotModified {
+		t.Errorf("Expected status %d but found %d", http.StatusNotModified, response.Code)
+	} else if response.Body.Len() != 0 {
+		t.Errorf("Expected no body but found <%s>", response.Body.String())
+	}
+}
+
+// Tests that an http GET request with an outdated If-None-Match header receives the latest configuration
+func TestHttpGetWithOutdatedETag_returnsConfiguration(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_2)
+
+	response := doConditionalGetRequest("http://configurations:8999", `"1"`)
+
+	if response.Body.String() != configuration_2 {
+		t.Errorf("Expected %s but found <%s>", configuration_2, response.Body.String())
+	}
+}
+
+// Tests that a request to wait for a newer configuration returns at once if there already is one
+func TestHttpWaitWhenNewerConfigurationPresent_returnsIt(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_2)
+
+	response := doConditionalGetRequest("http://configurations:8999/?after=1&wait=30", `"1"`)
+
+	if response.Body.String() != configuration_2 {
+		t.Errorf("Expected %s but found <%s>", configuration_2, response.Body.String())
+	}
+}
+
+// Tests that a request to wait for a newer configuration returns no configuration if none arrives in time
+func TestHttpWaitWithNoNewerConfiguration_returnsNotModified(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_2)
+
+	response := doConditionalGetRequest("http://configurations:8999/?after=2000&wait=0", "")
+
+	if response.Code != http.StatusNotModified {
+		t.Errorf("Expected status %d but found %d", http.StatusNotModified, response.Code)
+	}
+}
+
+// Tests that a request waiting for a newer configuration returns it as soon as it is recorded
+func TestHttpWaitingRequest_returnsNewConfigurationWhenPut(t *testing.T) {
+	tearDown := setUp()
+	defer tearDown()
+
+	doPutRequest(configuration_1)
+	go func() {
+		time.Sleep(10 * time.Millisecond)
+		doPutRequest(configuration_2)
+	}()
+
+	start := time.Now()
+	response := doConditionalGetRequest("http://configurations:8999/?after=1&wait=30", `"1"`)
+
+	if response.Body.String() != configuration_2 {
+		t.Errorf("Expected %s but found <%s>", configuration_2, response.Body.String())
+	} else if time.Since(start) > 5*time.Second {
+		t.Errorf("Waiting request was not woken by the update")
+	}
+}
+
 // Tests that an http PUT request which specifies an earlier timestamp is ignored
 func TestHttpDontOverrideLatest(t *testing.T) {
 	tearDown := setUp()
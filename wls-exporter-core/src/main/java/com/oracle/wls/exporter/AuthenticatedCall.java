@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -19,9 +19,11 @@ import com.oracle.wls.exporter.domain.QueryType;
 
 import static com.oracle.wls.exporter.WebAppConstants.AUTHENTICATION_CHALLENGE_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.COOKIE_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.RETRY_AFTER_HEADER;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 
 /**
  * A base context which performs authentication by forwarding all pertinent headers between the client
@@ -59,6 +61,10 @@ public abstract class AuthenticatedCall {
         return urlBuilder.createUrl(QueryType.RUNTIME_URL_PATTERN);
     }
 
+    WebClientFactory getWebClientFactory() {
+        return webClientFactory;
+    }
+
     String getQueryUrl(MBeanSelector selector) {
         return urlBuilder.createUrl(selector.getQueryType().getUrlPattern());
     }
@@ -78,7 +84,7 @@ public abstract class AuthenticatedCall {
 
     private void manageCookies(WebClient webClient) {
         synchronized (COOKIES) {
-            getCookies(context.getAuthenticationHeader()).forEach(c -> webClient.addHeader(COOKIE_HEADER, c));
+            getCookies(getCredentialsKey()).forEach(c -> webClient.addHeader(COOKIE_HEADER, c));
             webClient.onSetCookieReceivedDo(this::handleNewCookie);
             webClient.onSetCookieReceivedDo(c -> webClient.addHeader(COOKIE_HEADER, c));
         }
@@ -100,9 +106,21 @@ public abstract class AuthenticatedCall {
         if (context.getAuthenticationHeader() == null) return;
 
         final Cookie cookie = new Cookie(cookieHeader);
-        COOKIES
-              .computeIfAbsent(context.getAuthenticationHeader(), h -> new ArrayList<>())
-              .add(cookie);
+        synchronized (COOKIES) {
+            COOKIES
+                  .computeIfAbsent(getCredentialsKey(), h -> new ArrayList<>())
+                  .add(cookie);
+        }
+    }
+
+    /**
+     * Returns a key which identifies both the credentials of this call and the server to which they are presented.
+     * Cookies, and metrics shared between scrapes, are only reused with the same key.
+     */
+    String getCredentialsKey() {
+        final String target = context.getTarget();
+        final String credentials = context.getAuthenticationHeader();
+        return target == null ? credentials : target + ' ' + Optional.ofNullable(credentials).orElse("");
     }
 
     private static class Cookie {
@@ -148,6 +166,9 @@ public abstract class AuthenticatedCall {
         } catch (AuthenticationChallengeException e) {
             context.setResponseHeader(AUTHENTICATION_CHALLENGE_HEADER, e.getChallenge());
             context.sendError(HTTP_UNAUTHORIZED, "Authentication required");
+        } catch (RestRequestRejectedException e) {
+            context.setResponseHeader(RETRY_AFTER_HEADER, Integer.toString(e.getRetryAfterSeconds()));
+            context.sendError(HTTP_UNAVAILABLE, e.getMessage());
         } catch (ServerErrorException e) {
             final int status = e.getStatus();
             context.sendError(status, e.getMessage());
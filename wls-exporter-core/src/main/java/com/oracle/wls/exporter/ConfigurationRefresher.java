@@ -0,0 +1,113 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the configuration coordinator in the background when query synchronization is configured, so that
+ * scrapes never wait on it. Each poll retrieves the latest shared configuration and, if it is newer than
+ * the one in use, parses and installs it on the refresher thread; scrapes simply use whatever is installed.
+ *
+ * <p>Polls start no more often than once per interval, except that a poll which finds a new configuration
+ * is followed at once by another. As a poll to a coordinator which supports waiting lasts for the interval
+ * unless a change arrives first, the coordinator is then always being watched.
+ */
+public class ConfigurationRefresher {
+
+  private static final String THREAD_NAME = "wls-exporter-config-sync";
+
+  /** The longest time for which stopping waits for a poll in progress to complete. */
+  static final long STOP_TIMEOUT_SECONDS = 5;
+
+  private static ScheduledExecutorService scheduler;
+
+  private ConfigurationRefresher() {
+    // no-op
+  }
+
+  /**
+   * Starts polling with the specified updater, replacing any earlier polling.
+   * @param updater the updater which retrieves the shared configuration
+   * @param intervalSeconds the minimum time, in seconds, from the start of one poll which finds no change to the next
+   */
+  static synchronized void start(ConfigurationUpdaterImpl updater, long intervalSeconds) {
+    stop();
+    scheduler = createScheduler();
+    new Poll(scheduler, updater, TimeUnit.SECONDS.toNanos(Math.max(1, intervalSeconds))).schedule(0);
+  }
+
+  /**
+   * Stops any polling and releases its thread, once a poll in progress, if any, completes.
+   */
+  public static synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      awaitTermination(scheduler);
+      scheduler = null;
+    }
+  }
+
+  // A poll in progress may still report an error or install a configuration, and must not do so once stopped.
+  private static void awaitTermination(ScheduledExecutorService scheduler) {
+    try {
+      scheduler.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    return new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * A poll of the coordinator, which schedules the next when complete.
+   */
+  private static class Poll implements Runnable {
+    private final ScheduledExecutorService executor;
+    private final ConfigurationUpdaterImpl updater;
+    private final long intervalNanos;
+
+    Poll(ScheduledExecutorService executor, ConfigurationUpdaterImpl updater, long intervalNanos) {
+      this.executor = executor;
+      this.updater = updater;
+      this.intervalNanos = intervalNanos;
+    }
+
+    void schedule(long delayNanos) {
+      try {
+        executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        // polling has been stopped
+      }
+    }
+
+    @Override
+    public void run() {
+      final long startTime = System.nanoTime();
+      final boolean changed = refresh();
+      schedule(changed ? 0 : Math.max(0, intervalNanos - (System.nanoTime() - startTime)));
+    }
+
+    // A failure must not escape, as that would end polling.
+    private boolean refresh() {
+      try {
+        final boolean changed = updater.refresh();
+        LiveConfiguration.updateConfiguration();
+        return changed;
+      } catch (RuntimeException e) {
+        updater.logError(e);
+        return false;
+      }
+    }
+  }
+}
@@ -1,27 +1,42 @@
-// Copyright (c) 2017, 2020, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.IOException;
 import java.time.Clock;
-import java.time.Instant;
 
 import com.google.gson.Gson;
 import com.oracle.wls.exporter.domain.QuerySyncConfiguration;
 
+import static com.oracle.wls.exporter.WebAppConstants.IF_NONE_MATCH_HEADER;
+
 /**
- * An object to manage interactions with the configuration repeater over HTTP.
+ * An object to manage interactions with the configuration repeater over HTTP. The latest shared configuration
+ * is retrieved only when {@link #refresh()} is called, normally by the {@link ConfigurationRefresher};
+ * the other methods report what was last retrieved, and so never wait on the repeater.
+ *
+ * <p>Once a configuration has been retrieved, each refresh asks the repeater to hold the request until a newer
+ * one is shared, for up to the refresh interval, and to reply with no body if there is none. An idle exporter
+ * thus neither downloads nor parses anything, while a new configuration arrives as soon as it is shared.
+ * A repeater which does not support this simply returns the latest configuration at once.
  *
  * @author Russell Gold
  */
 class ConfigurationUpdaterImpl implements ConfigurationUpdater {
+    /** The query parameter which asks the repeater for a configuration newer than the specified timestamp. */
+    static final String AFTER_PARAMETER = "after";
+
+    /** The query parameter which specifies how long, in seconds, the repeater may wait for a newer configuration. */
+    static final String WAIT_PARAMETER = "wait";
+
+    private static final Gson GSON = new Gson();
+
     private WebClientFactory factory;
     private Clock clock;
-    private ConfigurationUpdate latest;
+    private volatile ConfigurationUpdate latest;
     private String repeaterUrl;
     private long refreshInterval;
-    private Instant nextUpdateTime;
     private ErrorLog errorLog = new ErrorLog();
 
     /**
@@ -64,30 +79,73 @@ class ConfigurationUpdaterImpl implements ConfigurationUpdater {
         this.refreshInterval = refreshInterval;
     }
 
+    /**
+     * Records a problem encountered while refreshing the configuration.
+     * @param throwable the problem
+     */
+    void logError(Throwable throwable) {
+        errorLog.log(throwable);
+    }
+
     @Override
     public long getLatestConfigurationTimestamp() {
-        getLatestConfiguration();
-        return latest == null ? 0 : latest.getTimestamp();
+        final ConfigurationUpdate update = latest;
+        return update == null ? 0 : update.getTimestamp();
+    }
+
+    /**
+     * Retrieves the latest shared configuration from the repeater, waiting for one newer than that already
+     * retrieved, if any.
+     * @return true if a newer configuration was retrieved
+     */
+    boolean refresh() {
+        return retrieve(latest);
     }
 
-    private void getLatestConfiguration() {
-        if (nextUpdateTime != null && nextUpdateTime.isAfter(clock.instant())) return;
+    private boolean retrieve(ConfigurationUpdate current) {
         try {
-            WebClient client = factory.createClient().withUrl(repeaterUrl);
-            latest = new Gson().fromJson(client.doGetRequest(), ConfigurationUpdate.class);
-            nextUpdateTime = clock.instant().plusSeconds(refreshInterval);
+            final String response = createRetrievalClient(current).doGetRequest();
+            if (isNotModified(response)) return false;
+
+            latest = GSON.fromJson(response, ConfigurationUpdate.class);
+            return latest != null && (current == null || latest.getTimestamp() > current.getTimestamp());
         } catch (IOException | WebClientException e) {
             errorLog.log(e);
             latest = null;
+            return false;
         }
     }
 
+    private WebClient createRetrievalClient(ConfigurationUpdate current) {
+        if (current == null) return factory.createClient().withUrl(repeaterUrl);
+
+        final WebClient client = factory.createClient().withUrl(getWaitUrl(current.getTimestamp()));
+        client.addHeader(IF_NONE_MATCH_HEADER, toEntityTag(current.getTimestamp()));
+        return client;
+    }
+
+    private String getWaitUrl(long timestamp) {
+        return repeaterUrl + (repeaterUrl.contains("?") ? '&' : '?')
+              + AFTER_PARAMETER + '=' + timestamp + '&' + WAIT_PARAMETER + '=' + refreshInterval;
+    }
+
+    // The repeater identifies each version of the configuration by its timestamp.
+    private String toEntityTag(long timestamp) {
+        return "\"" + timestamp + '"';
+    }
+
+    // A 304 (Not Modified) response has no body.
+    private boolean isNotModified(String response) {
+        return response == null || response.isEmpty();
+    }
+
     @Override
     public void shareConfiguration(String configuration) {
         try {
             WebClient client = factory.createClient().withUrl(repeaterUrl);
 
             client.doPutRequest(createUpdate(configuration));
+            retrieve(null);
         } catch (IOException | WebClientException e) {
             errorLog.log(e);
         }
@@ -99,7 +157,6 @@ class ConfigurationUpdaterImpl implements ConfigurationUpdater {
 
     @Override
     public ConfigurationUpdate getUpdate() {
-        getLatestConfiguration();
         return latest;
     }
 
@@ -0,0 +1,49 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests sent to the REST API and the connections opened to send them, so that the extent
+ * to which connections are reused may be reported. Not all web client implementations can observe
+ * the opening of connections; those which cannot leave that count at zero.
+ */
+class ConnectionStatistics {
+
+  private static final AtomicLong requestsSent = new AtomicLong();
+  private static final AtomicLong connectionsOpened = new AtomicLong();
+
+  private ConnectionStatistics() {
+    // no-op
+  }
+
+  // For unit testing only
+  static void clear() {
+    requestsSent.set(0);
+    connectionsOpened.set(0);
+  }
+
+  static void recordRequest() {
+    requestsSent.incrementAndGet();
+  }
+
+  static void recordConnection() {
+    connectionsOpened.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of requests sent to the REST API since the exporter started.
+   */
+  static long getRequestsSent() {
+    return requestsSent.get();
+  }
+
+  /**
+   * Returns the number of connections opened to the REST API since the exporter started.
+   */
+  static long getConnectionsOpened() {
+    return connectionsOpened.get();
+  }
+}
@@ -1,68 +1,506 @@
-// Copyright (c) 2021, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.JMException;
+import javax.management.JMRuntimeException;
+import javax.management.MBeanServer;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.oracle.wls.exporter.domain.CombinedQuery;
+import com.oracle.wls.exporter.domain.ExporterConfig;
+import com.oracle.wls.exporter.domain.LabelValues;
 import com.oracle.wls.exporter.domain.MBeanSelector;
+import com.oracle.wls.exporter.domain.MBeanServerReader;
+import com.oracle.wls.exporter.domain.QueryType;
 
-import static com.oracle.wls.exporter.domain.MapUtils.isNullOrEmptyString;
+import static com.oracle.wls.exporter.WebAppConstants.SCRAPE_TIMEOUT_HEADER;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 
 public class ExporterCall extends AuthenticatedCall {
 
+  /** The fraction of the client's scrape timeout in which queries must complete. The rest is left to send metrics. */
+  static final double DEADLINE_FRACTION = 0.9;
+
+  /** The challenge sent to a client which must be authenticated before metrics are read in-process. */
+  static final String IN_PROCESS_CHALLENGE = "Basic realm=\"weblogic\"";
+
+  private final boolean backgroundCollection;
+
+  // The time, as given by System.nanoTime(), by which queries must complete; zero if the client set no timeout.
+  private final long deadlineNanos;
+
+  // The position of each selector among the queries, which identifies it in the metrics describing its collection.
+  private final Map<MBeanSelector, Integer> queryIndexes = new IdentityHashMap<>();
+
+  // The configuration in use when metrics rendering began, used throughout even if replaced meanwhile.
+  private ExporterConfig configuration;
+
+  // The failure of each selector whose keys could not be discovered, and whose mbeans therefore cannot be requested.
+  private Map<MBeanSelector, IOException> keyDiscoveryFailures = Collections.emptyMap();
+
+  // False once any query has been reported as not collected. Queries may be reported on several threads.
+  private volatile boolean allQueriesCollected = true;
+
   public ExporterCall(WebClientFactory webClientFactory, InvocationContext context) {
+    this(webClientFactory, context, false);
+  }
+
+  private ExporterCall(WebClientFactory webClientFactory, InvocationContext context, boolean backgroundCollection) {
     super(webClientFactory, context);
+    this.backgroundCollection = backgroundCollection;
+    this.deadlineNanos = backgroundCollection ? 0 : getDeadline(context);
+  }
+
+  // Prometheus tells the exporter how long it will wait for the scrape, so a query which cannot complete by then
+  // is abandoned, and the metrics already collected are sent.
+  private static long getDeadline(InvocationContext context) {
+    final double timeoutSeconds = parseTimeout(context.getRequestHeader(SCRAPE_TIMEOUT_HEADER));
+    if (timeoutSeconds <= 0) return 0;
+
+    return System.nanoTime() + (long) (timeoutSeconds * DEADLINE_FRACTION * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  private static double parseTimeout(String headerValue) {
+    try {
+      return headerValue == null ? 0 : Double.parseDouble(headerValue.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private boolean hasDeadline() {
+    return deadlineNanos != 0;
+  }
+
+  private boolean isPastDeadline() {
+    return hasDeadline() && System.nanoTime() - deadlineNanos >= 0;
+  }
+
+  // Returns the time left before the deadline, or zero if there is none.
+  private long getRemainingMillis() {
+    return hasDeadline() ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime())) : 0;
+  }
+
+  /**
+   * Creates a call which collects metrics for a snapshot, rather than in response to a scrape.
+   * @param webClientFactory the factory for the clients which will send queries
+   * @param context the context into which metrics will be rendered
+   */
+  static ExporterCall createBackgroundCall(WebClientFactory webClientFactory, InvocationContext context) {
+    return new ExporterCall(webClientFactory, context, true);
   }
 
   @Override
   protected void invoke(WebClient webClient, InvocationContext context) throws IOException {
-    LiveConfiguration.updateConfiguration();
-    try (OutputStream responseStream = context.getResponseStream();
-         MetricsStream metricsStream = new MetricsStream(getInstanceName(), responseStream)) {
-      if (!LiveConfiguration.hasQueries())
+    if (!backgroundCollection && isConfiguredServer(context) && SnapshotCollector.sendSnapshot(context)) return;
+
+    if (backgroundCollection)
+      collectSnapshot(webClient, context);
+    else
+      sendMetrics(webClient, context);
+  }
+
+  // Snapshots are only collected from the configured server, rather than from targets named by clients.
+  private boolean isConfiguredServer(InvocationContext context) {
+    return context.getTarget() == null;
+  }
+
+  private void collectSnapshot(WebClient webClient, InvocationContext context) throws IOException {
+    try (OutputStream responseStream = context.getResponseStream()) {
+      renderMetrics(webClient, context, responseStream);
+    }
+  }
+
+  private void sendMetrics(WebClient webClient, InvocationContext context) throws IOException {
+    try (OutputStream responseStream = ResponseCompression.getResponseStream(context, LiveConfiguration.getCompressionLevel())) {
+      ScrapeCoalescer.writeMetrics(getCredentialsKey(), LiveConfiguration.getCoalesceWindow(), getRemainingMillis(),
+            responseStream, out -> renderMetrics(webClient, context, out));
+    }
+  }
+
+  // Returns true only if every query reported its metrics as collected, so that they may be shared with other scrapes
+  // and snapshot collection may begin. Partial metrics are sent to this scrape alone.
+  private boolean renderMetrics(WebClient webClient, InvocationContext context, OutputStream out) throws IOException {
+    configuration = LiveConfiguration.getConfig(context.getTarget());
+    try (MetricsStream metricsStream = new MetricsStream(getInstanceName(), out)) {
+      if (!LiveConfiguration.hasQueries(configuration)) {
         metricsStream.println("# No configuration defined.");
-      else {
-        displayMetrics(webClient, metricsStream);
+        return false;
+      } else if (!displayMetrics(webClient, context, metricsStream) || !allQueriesCollected) {
+        return false;
+      } else {
+        if (!backgroundCollection && isConfiguredServer(context))
+          SnapshotCollector.startCollecting(getWebClientFactory(), context);
+        return true;
       }
     }
   }
 
-  private void displayMetrics(WebClient webClient, MetricsStream metricsStream) throws IOException {
+  // Returns true if the metrics were displayed, false if the REST API could not be reached.
+  private boolean displayMetrics(WebClient webClient, InvocationContext context, MetricsStream metricsStream) throws IOException {
     try {
-      for (MBeanSelector selector : LiveConfiguration.getQueries())
-        displayMetrics(webClient, metricsStream, selector);
+      final MBeanSelector[] selectors = configuration.getEffectiveQueries();
+      for (int i = 0; i < selectors.length; i++)
+        queryIndexes.put(selectors[i], i);
+      final MBeanServer localServer = getLocalMBeanServer();
+      if (localServer != null)
+        metricsStream.printMetrics(collectInProcess(context, localServer, selectors));
+      else
+        metricsStream.printMetrics(collectFromRestApi(webClient, selectors));
       metricsStream.printPlatformMetrics();
+      return true;
     } catch (RestPortConnectionException e) {
       reportFailure(e);
       webClient.setRetryNeeded();
+      return false;
+    }
+  }
+
+  // Only the local server's own runtime and configuration mbeans may be read in-process. Outside WebLogic Server,
+  // there is no local mbean server, and the REST API is used instead. So is it for background collection, which has
+  // no client identity with which to read mbeans, and instead presents the client's credentials to the REST API.
+  private MBeanServer getLocalMBeanServer() {
+    return configuration.useInProcessCollection() && !configuration.useDomainRuntime() && !backgroundCollection
+          ? LocalMBeanServer.getServer() : null;
+  }
+
+  // Reads the selected mbeans directly from the local mbean server, on the scraping thread and with the identity
+  // of the client, and scrapes them just as a REST response would be. As the REST API is not asked to authenticate
+  // the client, the container must do so, and a client which it cannot identify is challenged.
+  private List<MetricsBuffer> collectInProcess(InvocationContext context, MBeanServer server, MBeanSelector[] selectors) {
+    if (!context.authenticate()) throw new AuthenticationChallengeException(IN_PROCESS_CHALLENGE);
+
+    final MBeanServerReader reader = new MBeanServerReader(server);
+    final List<MetricsBuffer> buffers = new ArrayList<>();
+    for (MBeanSelector selector : selectors)
+      buffers.add(collectInProcess(reader, selector));
+    return buffers;
+  }
+
+  private MetricsBuffer collectInProcess(MBeanServerReader reader, MBeanSelector selector) {
+    final MetricsBuffer buffer = new MetricsBuffer();
+    final long startNanos = System.nanoTime();
+    boolean collected = false;
+    try {
+      configuration.scrapeMetrics(selector, reader.read(selector)).forEach(buffer::printMetric);
+      collected = true;
+    } catch (JMException | JMRuntimeException | SecurityException e) {
+      buffer.println(withCommentMarkers("Unable to read mbeans from the local mbean server: " + e));
     }
+    printCollectionMetrics(buffer, selector, null, collected, startNanos);
+    return buffer;
+  }
+
+  // A scrape which the REST query limiter admits may send all its queries, so that its metrics are complete.
+  private List<MetricsBuffer> collectFromRestApi(WebClient webClient, MBeanSelector[] selectors) throws IOException {
+    RestRequestLimiter.admit(getQueryUrl(selectors[0]));
+    discoverKeys(webClient, selectors);
+    if (configuration.useDomainRuntime())
+      return collectDomainMetrics(webClient, selectors);
+    else if (configuration.combineQueries())
+      return collectCombinedMetrics(webClient, selectors);
+    else if (configuration.getQueryConcurrency() > 1)
+      return collectMetricsConcurrently(selectors);
+    else
+      return collectMetrics(webClient, selectors);
   }
 
-  private void displayMetrics(WebClient webClient, MetricsStream metricsStream, MBeanSelector selector) throws IOException {
+  // Key queries must complete by the scrape deadline, as must any other. Once it has passed, no keys are discovered,
+  // and the selectors report that they were not queried.
+  private void discoverKeys(WebClient webClient, MBeanSelector[] selectors) {
+    if (isPastDeadline()) return;
+
+    webClient.setRequestTimeout(getRemainingMillis());
+    keyDiscoveryFailures = KeyDiscovery.discoverKeys(this, webClient, selectors,
+          TimeUnit.SECONDS.toMillis(configuration.getServerTimeout()));
+  }
+
+  private List<MetricsBuffer> collectMetrics(WebClient webClient, MBeanSelector[] selectors) throws IOException {
+    final List<MetricsBuffer> buffers = new ArrayList<>();
+    for (MBeanSelector selector : selectors)
+      buffers.add(collectMetrics(webClient, selector, getQueryUrl(selector)));
+    return buffers;
+  }
+
+  // Sends a single request for each query type, and prints the metrics of each selector in configuration order.
+  private List<MetricsBuffer> collectCombinedMetrics(WebClient webClient, MBeanSelector[] selectors) throws IOException {
+    final Map<MBeanSelector, MetricsBuffer> buffers = new IdentityHashMap<>();
+    for (CombinedQuery query : CombinedQuery.plan(selectors))
+      collectMetrics(webClient, query, buffers);
+
+    final List<MetricsBuffer> result = new ArrayList<>();
+    for (MBeanSelector selector : selectors)
+      result.add(buffers.get(selector));
+    return result;
+  }
+
+  // A combined request which the REST API rejects is sent again as separate requests,
+  // so that only the selectors responsible lose their metrics. A combination including a selector
+  // whose keys could not be discovered is sent as separate requests from the start.
+  private void collectMetrics(WebClient webClient, CombinedQuery query, Map<MBeanSelector, MetricsBuffer> buffers) throws IOException {
+    final List<MBeanSelector> selectors = query.getSelectors();
+    final String url = getQueryUrl(selectors.get(0));
+    if (selectors.size() == 1 || isPastDeadline() || selectors.stream().anyMatch(keyDiscoveryFailures::containsKey)) {
+      for (MBeanSelector selector : selectors)
+        buffers.put(selector, collectMetrics(webClient, selector, url));
+      return;
+    }
+
+    final long startNanos = System.nanoTime();
     try {
-      Map<String, Object> metrics = getMetrics(webClient, selector);
-      if (!metrics.isEmpty())
-        sort(metrics).forEach(metricsStream::printMetric);
+      webClient.setRequestTimeout(getRemainingMillis());
+      final List<Map<String, Object>> metrics = RestRequestLimiter.send(url, query.getRequest(),
+            () -> webClient.withUrl(url).doPostRequest(query.getRequest(), body -> scrapeMetrics(query, url, body)));
+      for (int i = 0; i < selectors.size(); i++)
+        buffers.put(selectors.get(i), toMetricsBuffer(selectors.get(i), metrics.get(i), startNanos));
     } catch (RestQueryException e) {
-      reportProblem(metricsStream, selector);
+      WlsRestExchanges.addExchange(url, query.getRequest(), e.toString());
+      for (MBeanSelector selector : selectors)
+        buffers.put(selector, collectMetrics(webClient, selector, url));
     } catch (AuthenticationChallengeException e) {  // don't add a message for this case
       throw e;
-    } catch (IOException | RuntimeException e) {
-      WlsRestExchanges.addExchange(getQueryUrl(selector), selector.getRequest(), e.toString());
+    } catch (IOException e) {
+      WlsRestExchanges.addExchange(url, query.getRequest(), e.toString());
+      for (MBeanSelector selector : selectors)
+        buffers.put(selector, createFailureBuffer(selector, null, e, startNanos));
+    } catch (RuntimeException e) {
+      WlsRestExchanges.addExchange(url, query.getRequest(), e.toString());
       throw e;
     }
   }
 
-  private void reportProblem(MetricsStream metricsStream, MBeanSelector selector) {
-    metricsStream.println(withCommentMarkers(getProblem(selector) + "\n" + selector.getPrintableRequest()));
+  private MetricsBuffer toMetricsBuffer(MBeanSelector selector, Map<String, Object> metrics, long startNanos) {
+    final MetricsBuffer buffer = new MetricsBuffer();
+    metrics.forEach(buffer::printMetric);
+    printCollectionMetrics(buffer, selector, null, true, startNanos);
+    return buffer;
+  }
+
+  // A query which fails to complete loses only its own metrics.
+  private MetricsBuffer createFailureBuffer(MBeanSelector selector, String serverName, IOException failure, long startNanos) {
+    final MetricsBuffer buffer = new MetricsBuffer();
+    buffer.println(withCommentMarkers("Query failed with " + failure + "; its metrics are omitted."));
+    printCollectionMetrics(buffer, selector, serverName, false, startNanos);
+    return buffer;
+  }
+
+  // Reports whether the metrics of a query were collected, and how long it took. Metrics collected from
+  // each server in a domain are described separately.
+  private void printCollectionMetrics(MetricsBuffer buffer, MBeanSelector selector, String serverName,
+                                     boolean collected, long startNanos) {
+    final String qualifier = getCollectionQualifier(selector, serverName);
+    if (!collected) allQueriesCollected = false;
+    buffer.printCollectionMetric("wls_exporter_query_up" + qualifier, collected ? 1 : 0);
+    buffer.printCollectionMetric("wls_exporter_query_duration_seconds" + qualifier,
+          (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1));
+  }
+
+  private String getCollectionQualifier(MBeanSelector selector, String serverName) {
+    final StringBuilder sb = new StringBuilder("{instance=\"").append(LabelValues.escape(getInstanceName()))
+          .append("\",query=\"").append(queryIndexes.get(selector))
+          .append("\",path=\"").append(LabelValues.escape(selector.getPath())).append('"');
+    if (serverName != null) sb.append(",server=\"").append(LabelValues.escape(serverName)).append('"');
+    return sb.append('}').toString();
+  }
+
+  // Collects the metrics of each server in the domain with its own task on the shared selector executor,
+  // so that a server which does not respond in time loses only its own metrics. Configuration queries are run first.
+  private List<MetricsBuffer> collectDomainMetrics(WebClient webClient, MBeanSelector[] selectors) throws IOException {
+    final List<MetricsBuffer> buffers = new ArrayList<>();
+    final List<MBeanSelector> domainSelectors = new ArrayList<>();
+    for (MBeanSelector selector : selectors)
+      if (selector.getQueryType() == QueryType.DOMAIN_RUNTIME)
+        domainSelectors.add(selector);
+      else
+        buffers.add(collectMetrics(webClient, selector, getQueryUrl(selector)));
+
+    final ExecutorService executor = SelectorExecutor.acquireExecutor(configuration.getQueryConcurrency());
+    final Map<String, Future<List<MetricsBuffer>>> results = new LinkedHashMap<>();
+    try {
+      for (String serverName : getServerNames(domainSelectors))
+        results.put(serverName, executor.submit(createServerCollectionTask(serverName, domainSelectors)));
+
+      for (Map.Entry<String, Future<List<MetricsBuffer>>> result : results.entrySet())
+        buffers.addAll(getServerResult(result.getKey(), result.getValue(), domainSelectors));
+      return buffers;
+    } finally {
+      results.values().forEach(r -> r.cancel(true));
+      SelectorExecutor.releaseExecutor(executor);
+    }
+  }
+
+  private Set<String> getServerNames(List<MBeanSelector> domainSelectors) {
+    final Set<String> result = new TreeSet<>();
+    domainSelectors.forEach(selector -> result.addAll(selector.getServerNames()));
+    return result;
+  }
+
+  private Callable<List<MetricsBuffer>> createServerCollectionTask(String serverName, List<MBeanSelector> domainSelectors) {
+    final WebClient webClient = createWebClient();
+    final String url = getQueryUrl(domainSelectors.get(0));
+    return () -> {
+      final List<MetricsBuffer> buffers = new ArrayList<>();
+      for (MBeanSelector selector : domainSelectors)
+        buffers.add(collectMetrics(webClient, selector, url, selector.getServerRequest(serverName), serverName));
+      return buffers;
+    };
+  }
+
+  // Each server is allowed the full timeout from the moment the exporter starts to wait for it, unless the scrape
+  // deadline comes first. A request which is abandoned keeps its thread only until its own timeout, which is the same.
+  private List<MetricsBuffer> getServerResult(String serverName, Future<List<MetricsBuffer>> result,
+                                              List<MBeanSelector> domainSelectors) throws IOException {
+    final long startNanos = System.nanoTime();
+    final long serverTimeoutMillis = TimeUnit.SECONDS.toMillis(configuration.getServerTimeout());
+    final boolean deadlineFirst = hasDeadline() && getRemainingMillis() < serverTimeoutMillis;
+    try {
+      return getResult(result, deadlineFirst ? getRemainingMillis() : serverTimeoutMillis);
+    } catch (TimeoutException e) {
+      result.cancel(true);
+      final MetricsBuffer buffer = new MetricsBuffer();
+      buffer.println(withCommentMarkers("Server " + serverName + " did not respond "
+            + (deadlineFirst ? "before the scrape deadline" : "within " + configuration.getServerTimeout() + " seconds")
+            + "; its metrics are omitted."));
+      for (MBeanSelector selector : domainSelectors)
+        printCollectionMetrics(buffer, selector, serverName, false, startNanos);
+      return Collections.singletonList(buffer);
+    }
+  }
+
+  private <T> T getResult(Future<T> result, long timeoutMillis) throws IOException, TimeoutException {
+    try {
+      return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for query results");
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  // Runs the queries on the shared selector executor, each with its own web client, and prints the results
+  // in configuration order. Configuration queries may update the qualifiers used by other queries,
+  // so they are run to completion before any others are started.
+  private List<MetricsBuffer> collectMetricsConcurrently(MBeanSelector[] selectors) throws IOException {
+    final ExecutorService executor = SelectorExecutor.acquireExecutor(configuration.getQueryConcurrency());
+    final List<Future<MetricsBuffer>> results = new ArrayList<>();
+    try {
+      for (MBeanSelector selector : selectors)
+        if (selector.getQueryType() == QueryType.CONFIGURATION)
+          results.add(CompletableFuture.completedFuture(collectMetrics(createWebClient(), selector, getQueryUrl(selector))));
+        else
+          results.add(executor.submit(createCollectionTask(selector)));
+
+      final List<MetricsBuffer> buffers = new ArrayList<>();
+      for (Future<MetricsBuffer> result : results)
+        buffers.add(getResult(result));
+      return buffers;
+    } finally {
+      results.forEach(r -> r.cancel(true));
+      SelectorExecutor.releaseExecutor(executor);
+    }
+  }
+
+  // The web client and URL are created on the calling thread, as neither the cookie cache nor the URL builder
+  // is designed for concurrent use.
+  private Callable<MetricsBuffer> createCollectionTask(MBeanSelector selector) {
+    final WebClient webClient = createWebClient();
+    final String url = getQueryUrl(selector);
+    return () -> collectMetrics(webClient, selector, url);
+  }
+
+  private MetricsBuffer getResult(Future<MetricsBuffer> result) throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for query results");
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  private RuntimeException rethrow(Throwable cause) throws IOException {
+    if (cause instanceof IOException)
+      throw (IOException) cause;
+    else if (cause instanceof RuntimeException)
+      throw (RuntimeException) cause;
+    else if (cause instanceof Error)
+      throw (Error) cause;
+    else
+      throw new IOException(cause);
+  }
+
+  private MetricsBuffer collectMetrics(WebClient webClient, MBeanSelector selector, String url) throws IOException {
+    return collectMetrics(webClient, selector, url, selector.getRequest(), null);
+  }
+
+  private MetricsBuffer collectMetrics(WebClient webClient, MBeanSelector selector, String url, String request,
+                                       String serverName) throws IOException {
+    final long startNanos = System.nanoTime();
+    if (isPastDeadline()) return createFailureBuffer(selector, serverName, new ScrapeDeadlineException(), startNanos);
+    if (keyDiscoveryFailures.containsKey(selector))
+      return createFailureBuffer(selector, serverName, keyDiscoveryFailures.get(selector), startNanos);
+
+    final MetricsBuffer buffer = new MetricsBuffer();
+    boolean collected = false;
+    try {
+      webClient.setRequestTimeout(getRequestTimeoutMillis(serverName));
+      getMetrics(webClient, selector, url, request).forEach(buffer::printMetric);
+      collected = true;
+    } catch (RestQueryException e) {
+      reportProblem(buffer, selector);
+    } catch (AuthenticationChallengeException e) {  // don't add a message for this case
+      throw e;
+    } catch (IOException e) {
+      WlsRestExchanges.addExchange(url, request, e.toString());
+      return createFailureBuffer(selector, serverName, e, startNanos);
+    } catch (RuntimeException e) {
+      WlsRestExchanges.addExchange(url, request, e.toString());
+      throw e;
+    }
+    printCollectionMetrics(buffer, selector, serverName, collected, startNanos);
+    return buffer;
+  }
+
+  // A query to one of the servers of a domain may take no more than the server timeout, even if the scrape has
+  // no deadline, so that a server which does not respond releases the thread on which it is queried.
+  private long getRequestTimeoutMillis(String serverName) {
+    if (serverName == null) return getRemainingMillis();
+
+    final long serverTimeoutMillis = TimeUnit.SECONDS.toMillis(configuration.getServerTimeout());
+    return hasDeadline() ? Math.min(serverTimeoutMillis, getRemainingMillis()) : serverTimeoutMillis;
+  }
+
+  // Reported for a query which was not sent because the scrape deadline had already passed.
+  private static class ScrapeDeadlineException extends InterruptedIOException {
+    ScrapeDeadlineException() {
+      super("the scrape deadline passed before the query could be sent");
+    }
+  }
+
+  private void reportProblem(MetricsBuffer buffer, MBeanSelector selector) {
+    buffer.println(withCommentMarkers(getProblem(selector) + "\n" + selector.getPrintableRequest()));
   }
 
   private String getProblem(MBeanSelector selector) {
@@ -81,34 +519,27 @@ public class ExporterCall extends AuthenticatedCall {
     return sb.toString();
   }
 
-  private Map<String, Object> getMetrics(WebClient webClient, MBeanSelector selector) throws IOException {
-    String jsonResponse = requestMetrics(webClient, selector);
-    if (isNullOrEmptyString(jsonResponse)) return Collections.emptyMap();
-
-    return LiveConfiguration.scrapeMetrics(selector, jsonResponse);
-  }
-
-  private String requestMetrics(WebClient webClient, MBeanSelector selector) throws IOException {
-    if (selector.needsNewKeys()) refreshKeys(webClient, selector);
-
-    final String url = getQueryUrl(selector);
-    final String jsonResponse = webClient.withUrl(url).doPostRequest(selector.getRequest());
-    WlsRestExchanges.addExchange(url, selector.getRequest(), jsonResponse);
-    return jsonResponse;
-  }
-
-  private void refreshKeys(WebClient webClient, MBeanSelector selector) throws IOException {
-    final String url = getQueryUrl(selector);
-    final String keyResponse = webClient.withUrl(url).doPostRequest(selector.getKeyRequest());
-    WlsRestExchanges.addExchange(url, selector.getKeyRequest(), keyResponse);
-    selector.offerKeys(toJsonObject(keyResponse));
+  private Map<String, Object> getMetrics(WebClient webClient, MBeanSelector selector, String url, String request) throws IOException {
+    return RestRequestLimiter.send(url, request,
+          () -> webClient.withUrl(url).doPostRequest(request, body -> scrapeMetrics(selector, url, request, body)));
   }
 
-  private static JsonObject toJsonObject(String response) {
-      return JsonParser.parseString(response).getAsJsonObject();
+  private List<Map<String, Object>> scrapeMetrics(CombinedQuery query, String url, InputStream body) throws IOException {
+    final RecordingInputStream recordingStream = new RecordingInputStream(body);
+    try {
+      return LiveConfiguration.scrapeMetrics(configuration, query, recordingStream);
+    } finally {
+      WlsRestExchanges.addExchange(url, query.getRequest(), recordingStream.getRecording());
+    }
   }
 
-  private TreeMap<String, Object> sort(Map<String, Object> metrics) {
-    return new TreeMap<>(metrics);
+  // The response is scraped as it arrives, so only its beginning is kept for diagnostics.
+  private Map<String, Object> scrapeMetrics(MBeanSelector selector, String url, String request, InputStream body) throws IOException {
+    final RecordingInputStream recordingStream = new RecordingInputStream(body);
+    try {
+      return LiveConfiguration.scrapeMetrics(configuration, selector, recordingStream);
+    } finally {
+      WlsRestExchanges.addExchange(url, request, recordingStream.getRecording());
+    }
   }
 }
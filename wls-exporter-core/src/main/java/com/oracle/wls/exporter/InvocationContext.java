@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -27,16 +27,38 @@ public interface InvocationContext {
    */
   String getAuthenticationHeader();
 
+  /**
+   * Returns true if the container has established the identity of the client, authenticating it with the credentials
+   * it sent if necessary. Metrics which are read in-process are read with that identity.
+   */
+  default boolean authenticate() {
+    return false;
+  }
+
   /**
    * Returns the content type of the client request.
    */
   String getContentType();
 
+  /**
+   * Returns the value of the specified header sent by the client, or null if it was not sent.
+   * @param name the name of the header
+   */
+  String getRequestHeader(String name);
+
   /**
    * Returns an identifier for the WebLogic Server instance. It will be included in generated metrics.
    */
   String getInstanceName();
 
+  /**
+   * Returns the server which the client asked to scrape, as host:port, or null to scrape the configured server.
+   * Each target has its own cookies, keys and shared results.
+   */
+  default String getTarget() {
+    return null;
+  }
+
   /**
    * Returns a stream from which client request contents may be read.
    * @throws IOException if unable to get the stream
@@ -0,0 +1,160 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.oracle.wls.exporter.domain.MBeanSelector;
+
+/**
+ * Discovers the keys of the mbeans selected by queries which filter by key. Each discovery sends a single key query
+ * for all of the selectors which use the same REST URL, and each selector replaces the keys it found previously
+ * with those in the response.
+ *
+ * <p>Keys are discovered during a scrape only for selectors which have never had any, as those could not otherwise
+ * request their filtered mbeans. Thereafter, obsolete keys are refreshed in the background, and scrapes
+ * continue with the previous keys until the new ones are installed.
+ */
+public class KeyDiscovery {
+
+  private static final String THREAD_NAME = "wls-exporter-key-discovery";
+
+  private static ExecutorService executor;
+
+  private KeyDiscovery() {
+    // no-op
+  }
+
+  /**
+   * Ensures that the specified selectors have keys, discovering any which have never had keys at once,
+   * and starting a background refresh of any whose keys are obsolete.
+   * @param call the call which is scraping the selectors
+   * @param webClient the client to use for discovery during the scrape
+   * @param selectors the selectors about to be scraped
+   * @param refreshTimeoutMillis the longest time to wait for the server on each background request
+   * @return the failure of each selector whose initial keys could not be discovered
+   */
+  static Map<MBeanSelector, IOException> discoverKeys(AuthenticatedCall call, WebClient webClient,
+                                                      MBeanSelector[] selectors, long refreshTimeoutMillis) {
+    final Map<MBeanSelector, IOException> failures = new IdentityHashMap<>();
+    final Map<String, List<MBeanSelector>> initialDiscoveries = groupByUrl(call, selectors, MBeanSelector::needsInitialKeys);
+    for (Map.Entry<String, List<MBeanSelector>> entry : initialDiscoveries.entrySet())
+      discoverInitialKeys(webClient, entry.getKey(), entry.getValue(), failures);
+
+    final Map<String, List<MBeanSelector>> refreshes = groupByUrl(call, selectors, MBeanSelector::claimKeyRefresh);
+    if (!refreshes.isEmpty())
+      submit(new Refresh(call.createWebClient(), refreshTimeoutMillis, refreshes));
+    return failures;
+  }
+
+  private static Map<String, List<MBeanSelector>> groupByUrl(
+        AuthenticatedCall call, MBeanSelector[] selectors, Predicate<MBeanSelector> needsKeys) {
+    final Map<String, List<MBeanSelector>> result = new LinkedHashMap<>();
+    for (MBeanSelector selector : selectors)
+      if (needsKeys.test(selector))
+        result.computeIfAbsent(call.getQueryUrl(selector), url -> new ArrayList<>()).add(selector);
+    return result;
+  }
+
+  // A rejected key query leaves the selectors without keys, so that the next scrape will try again. So does one
+  // which fails to complete, which is also reported as the failure of each of its selectors.
+  private static void discoverInitialKeys(WebClient webClient, String url, List<MBeanSelector> selectors,
+                                          Map<MBeanSelector, IOException> failures) {
+    try {
+      requestKeys(webClient, url, selectors);
+    } catch (RestQueryException e) {
+      WlsRestExchanges.addExchange(url, MBeanSelector.getKeyRequest(selectors), e.toString());
+    } catch (IOException e) {
+      WlsRestExchanges.addExchange(url, MBeanSelector.getKeyRequest(selectors), e.toString());
+      selectors.forEach(selector -> failures.put(selector, e));
+    }
+  }
+
+  private static void requestKeys(WebClient webClient, String url, List<MBeanSelector> selectors) throws IOException {
+    final String keyRequest = MBeanSelector.getKeyRequest(selectors);
+    final String keyResponse = RestRequestLimiter.send(url, keyRequest, () -> webClient.withUrl(url).doPostRequest(keyRequest));
+    WlsRestExchanges.addExchange(url, keyRequest, keyResponse);
+
+    final JsonObject keys = JsonParser.parseString(keyResponse).getAsJsonObject();
+    selectors.forEach(selector -> selector.offerKeys(keys));
+  }
+
+  private static synchronized void submit(Refresh refresh) {
+    try {
+      getExecutor().execute(refresh);
+    } catch (RejectedExecutionException e) {
+      // discovery has been stopped
+    }
+  }
+
+  /**
+   * Stops any background discovery and releases its thread.
+   */
+  public static synchronized void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  private static ExecutorService getExecutor() {
+    if (executor == null)
+      executor = createExecutor();
+    return executor;
+  }
+
+  // The single thread exits when idle, as refreshes are needed only once per key update interval.
+  private static ExecutorService createExecutor() {
+    final ThreadPoolExecutor result = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+      final Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    });
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  /**
+   * A background refresh of obsolete keys. The web client is created on the scraping thread, as the cookie cache
+   * is not designed for concurrent use. Each request times out, as a server which never responds would otherwise
+   * hold the only discovery thread, and no other keys would be refreshed.
+   */
+  private static class Refresh implements Runnable {
+    private final WebClient webClient;
+    private final long timeoutMillis;
+    private final Map<String, List<MBeanSelector>> selectorsByUrl;
+
+    Refresh(WebClient webClient, long timeoutMillis, Map<String, List<MBeanSelector>> selectorsByUrl) {
+      this.webClient = webClient;
+      this.timeoutMillis = timeoutMillis;
+      this.selectorsByUrl = selectorsByUrl;
+    }
+
+    // A failure leaves the previous keys in use until the next update interval.
+    @Override
+    public void run() {
+      webClient.setRequestTimeout(timeoutMillis);
+      for (Map.Entry<String, List<MBeanSelector>> entry : selectorsByUrl.entrySet()) {
+        try {
+          requestKeys(webClient, entry.getKey(), entry.getValue());
+        } catch (IOException | RuntimeException e) {
+          WlsRestExchanges.addExchange(entry.getKey(), MBeanSelector.getKeyRequest(entry.getValue()), e.toString());
+        }
+      }
+    }
+  }
+}
@@ -1,26 +1,36 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.oracle.wls.exporter.domain.CombinedQuery;
 import com.oracle.wls.exporter.domain.ExporterConfig;
 import com.oracle.wls.exporter.domain.MBeanSelector;
 import com.oracle.wls.exporter.domain.QuerySyncConfiguration;
 import org.yaml.snakeyaml.Yaml;
 
 /**
- * The repository for the current exporter configuration.
+ * The repository for the current exporter configuration. The configuration and the timestamp of the shared
+ * configuration from which it was last updated are published together as a single immutable object,
+ * so that readers, including scrapes, never lock. Changes, which are rare, are serialized.
  *
  * @author Russell Gold
  */
@@ -36,11 +46,12 @@ public class LiveConfiguration {
     /** The address used to access WLS (cannot use the address found in the request due to potential server-side request forgery. */
     static final String WLS_HOST;
     
-    private static ExporterConfig config;
+    private static volatile VersionedConfig current;
     private static String serverName;
     private static int serverPort;
     private static ConfigurationUpdater updater = new NullConfigurationUpdater();
     private static ErrorLog errorLog = new ErrorLog();
+    private static final Map<String, TargetConfig> targetConfigs = new ConcurrentHashMap<>();
 
     static {
         loadFromString("");
@@ -55,10 +66,26 @@ public class LiveConfiguration {
         }
     }
 
-    private static Long timestamp;
+    /**
+     * Returns the current configuration. A scrape should use the same configuration throughout,
+     * as it may be replaced while the scrape is in progress.
+     * @return the configuration, or null if none has been loaded
+     */
+    static ExporterConfig getConfig() {
+        return Optional.ofNullable(current).map(c -> c.config).orElse(null);
+    }
 
-    private static ExporterConfig getConfig() {
-        return config;
+    /**
+     * Returns the configuration to use when scraping the specified target. Each target has its own copy
+     * of the current configuration, so that the keys found on one server are never used to query another.
+     * @param target the server to scrape, as host:port, or null for the configured server
+     * @return the configuration, or null if none has been loaded
+     */
+    static ExporterConfig getConfig(String target) {
+        final ExporterConfig config = getConfig();
+        if (target == null || config == null) return config;
+
+        return targetConfigs.compute(target, (t, existing) -> TargetConfig.forConfig(existing, config)).copy;
     }
 
     public static String getVersionString() {
@@ -75,7 +102,19 @@ public class LiveConfiguration {
     public static void loadFromString(String yamlString) {
         Map<String, Object> yamlConfig = new Yaml().load(yamlString);
 
-        config = ExporterConfig.loadConfig(yamlConfig);
+        final ExporterConfig newConfig = ExporterConfig.loadConfig(yamlConfig);
+        publish(c -> new VersionedConfig(newConfig, c == null ? null : c.timestamp));
+    }
+
+    // Replaces the current configuration and timestamp as a unit.
+    private static synchronized void publish(UnaryOperator<VersionedConfig> change) {
+        current = change.apply(current);
+    }
+
+    // Replaces the current configuration, keeping its timestamp, and discards metrics collected using the old one.
+    private static void changeConfiguration(UnaryOperator<ExporterConfig> change) {
+        publish(c -> new VersionedConfig(change.apply(c.config), c.timestamp));
+        SnapshotCollector.discardSnapshots();
     }
 
     /**
@@ -90,7 +129,7 @@ public class LiveConfiguration {
     }
 
     static Integer getConfiguredRestPort() {
-        return Optional.ofNullable(config).map(ExporterConfig::getRestPort).orElse(null);
+        return Optional.ofNullable(getConfig()).map(ExporterConfig::getRestPort).orElse(null);
     }
 
     /**
@@ -98,15 +137,77 @@ public class LiveConfiguration {
      * @return a boolean which can be used to decide whether to perform a query
      */
     static boolean hasQueries() {
-        return getConfig() != null && getConfig().getQueries().length > 0;
+        return hasQueries(getConfig());
+    }
+
+    /**
+     * Returns true if the specified configuration has at least one query defined
+     * @param config a configuration, or null
+     * @return a boolean which can be used to decide whether to perform a query
+     */
+    static boolean hasQueries(ExporterConfig config) {
+        return config != null && config.getQueries().length > 0;
+    }
+
+    /**
+     * Returns the interval at which metrics are to be collected in the background.
+     * @return a time in seconds; zero if metrics are to be collected only when requested
+     */
+    static int getCollectionInterval() {
+        return Optional.ofNullable(getConfig()).map(ExporterConfig::getCollectionInterval).orElse(0);
+    }
+
+    /**
+     * Returns the length of time for which the metrics collected for one scrape may be sent in response to others
+     * with the same credentials.
+     * @return a time in seconds; zero if only concurrent scrapes are to share metrics
+     */
+    static int getCoalesceWindow() {
+        return Optional.ofNullable(getConfig()).map(ExporterConfig::getCoalesceWindow).orElse(0);
+    }
+
+    /**
+     * Returns the level at which metrics are to be compressed for clients which accept a compressed response.
+     * @return a number from 1 to 9; zero if metrics are not to be compressed
+     */
+    static int getCompressionLevel() {
+        return Optional.ofNullable(getConfig()).map(ExporterConfig::getCompressionLevel).orElse(0);
+    }
+
+    /**
+     * Returns the number of threads on which the exporter servlet is to run scrapes asynchronously. In-process
+     * collection reads mbeans with the identity of the request thread, and so always runs on that thread.
+     * @return a positive number; zero if scrapes are to run on the request threads
+     */
+    static int getAsyncScrapeThreads() {
+        return Optional.ofNullable(getConfig())
+              .filter(config -> !config.useInProcessCollection())
+              .map(ExporterConfig::getAsyncScrapeThreads)
+              .orElse(0);
+    }
+
+    /**
+     * Returns the greatest number of REST queries which may be sent to any one server at the same time.
+     * @return a positive number; zero if the number of concurrent queries is not limited
+     */
+    static int getRestConcurrencyLimit() {
+        return Optional.ofNullable(getConfig()).map(ExporterConfig::getRestConcurrencyLimit).orElse(0);
     }
 
     /**
-     * Returns the defined queries as top-level selector objects.
-     * @return an array of hierarchical mbean queries
+     * Returns the greatest number of connections which the web client keeps open to any one server.
+     * @return a positive number
      */
-    static MBeanSelector[] getQueries() {
-        return getConfig().getEffectiveQueries();
+    static int getMaxConnectionsPerTarget() {
+        return Optional.ofNullable(getConfig()).orElseGet(ExporterConfig::createEmptyConfig).getMaxConnectionsPerTarget();
+    }
+
+    /**
+     * Returns the greatest number of connections which the web client keeps open to all servers together.
+     * @return a positive number
+     */
+    static int getMaxConnections() {
+        return Optional.ofNullable(getConfig()).orElseGet(ExporterConfig::createEmptyConfig).getMaxConnections();
     }
 
     /**
@@ -118,24 +219,29 @@ public class LiveConfiguration {
     }
 
     public static void initialize(InputStream configurationFile) {
-        if (timestamp != null) return;
+        if (isInitialized()) return;
 
         initialize(Optional.ofNullable(configurationFile)
                 .map(ExporterConfig::loadConfig)
                 .orElse(ExporterConfig.createEmptyConfig()));
     }
 
+    private static boolean isInitialized() {
+        return Optional.ofNullable(current).map(c -> c.timestamp).isPresent();
+    }
+
     private static void initialize(ExporterConfig config) {
-        LiveConfiguration.config = config;
-        installUpdater(LiveConfiguration.config.getQuerySyncConfiguration());
-        timestamp = 0L;
+        publish(c -> new VersionedConfig(config, 0L));
+        installUpdater(config.getQuerySyncConfiguration());
     }
 
     private static void installUpdater(QuerySyncConfiguration syncConfiguration) {
         if (syncConfiguration == null) return;
 
         errorLog = new ErrorLog();
-        updater = new ConfigurationUpdaterImpl(syncConfiguration, errorLog);
+        final ConfigurationUpdaterImpl updaterImpl = new ConfigurationUpdaterImpl(syncConfiguration, errorLog);
+        updater = updaterImpl;
+        ConfigurationRefresher.start(updaterImpl, syncConfiguration.getRefreshInterval());
     }
 
     /**
@@ -148,17 +254,42 @@ public class LiveConfiguration {
     }
 
     /**
-     * Converts a JSON response from the Management RESTful service to Prometheus metrics.
+     * Converts a JSON response from the Management RESTful service to Prometheus metrics as it is read,
+     * without first building the complete response in memory.
+     * @param config the configuration in use by the scrape
      * @param selector an MBean selector describing the metrics to extract
-     * @param jsonResponse an object describing the current values of the desired MBean fields
-     * @return a map of metric names to values
+     * @param jsonResponse a stream containing the current values of the desired MBean fields
+     * @return a map of metric names to values; empty if the response has no content
+     * @throws IOException if unable to read the response
      */
-    static Map<String, Object> scrapeMetrics(MBeanSelector selector, String jsonResponse) {
-        return getConfig().scrapeMetrics(selector, toJsonObject(jsonResponse));
+    static Map<String, Object> scrapeMetrics(ExporterConfig config, MBeanSelector selector, InputStream jsonResponse) throws IOException {
+        final JsonReader reader = new JsonReader(new InputStreamReader(jsonResponse, StandardCharsets.UTF_8));
+        if (isEmpty(reader)) return Collections.emptyMap();
+
+        return config.scrapeMetrics(selector, reader);
     }
 
-    private static JsonObject toJsonObject(String response) {
-        return JsonParser.parseString(response).getAsJsonObject();
+    /**
+     * Converts a JSON response to a combined query to Prometheus metrics for each of its selectors.
+     * @param config the configuration in use by the scrape
+     * @param query the combined query whose response is to be scraped
+     * @param jsonResponse a stream containing the current values of the MBean fields requested by the query
+     * @return the metrics for each of the query's selectors, in order; each empty if the response has no content
+     * @throws IOException if unable to read the response
+     */
+    static List<Map<String, Object>> scrapeMetrics(ExporterConfig config, CombinedQuery query, InputStream jsonResponse) throws IOException {
+        final JsonReader reader = new JsonReader(new InputStreamReader(jsonResponse, StandardCharsets.UTF_8));
+        if (isEmpty(reader)) return Collections.nCopies(query.getSelectors().size(), Collections.emptyMap());
+
+        return config.scrapeMetrics(query, reader);
+    }
+
+    private static boolean isEmpty(JsonReader reader) throws IOException {
+        try {
+            return reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (EOFException e) {
+            return true;
+        }
     }
 
     /**
@@ -170,13 +301,14 @@ public class LiveConfiguration {
      */
     static void appendConfiguration(ExporterConfig uploadedConfig) {
         if (uploadedConfig == null) throw new RuntimeException("No configuration specified");
-        getConfig().append(uploadedConfig);
+        changeConfiguration(config -> config.withAppendedQueries(uploadedConfig));
         shareConfiguration();
     }
 
     private static void shareConfiguration() {
         updater.shareConfiguration(asString());
-        timestamp = updater.getLatestConfigurationTimestamp();
+        final long sharedTimestamp = updater.getLatestConfigurationTimestamp();
+        publish(c -> new VersionedConfig(c.config, sharedTimestamp));
     }
 
     /**
@@ -188,38 +320,73 @@ public class LiveConfiguration {
      */
     static void replaceConfiguration(ExporterConfig uploadedConfig) {
         if (uploadedConfig == null) throw new RuntimeException("No configuration specified");
-        getConfig().replace(uploadedConfig);
+        changeConfiguration(config -> config.withDisplayRulesFrom(uploadedConfig));
         shareConfiguration();
     }
 
     /**
      * Returns the timestamp of the current configuration.
-     * @return a time in milliseconds, since the epoch
+     * @return a time in milliseconds, since the epoch; zero if not yet initialized
      */
     static long getTimestamp() {
-        return timestamp;
+        return Optional.ofNullable(current).map(c -> c.timestamp).orElse(0L);
     }
 
     /**
-     * If a newer shared configuration is available, update it now.
+     * If a newer shared configuration has been retrieved, install it now. Called by the {@link ConfigurationRefresher}
+     * after each poll, so that the configuration is parsed off the scrape path.
      */
     public static void updateConfiguration() {
-        if (timestamp == null) timestamp = 0L;
-        if (updater.getLatestConfigurationTimestamp() > timestamp)
-            installNewConfiguration(updater.getUpdate());
+        final ConfigurationUpdate update = updater.getUpdate();
+        if (update != null && update.getTimestamp() > getTimestamp())
+            installNewConfiguration(update, toConfiguration(update.getConfiguration()));
     }
 
-    private static synchronized void installNewConfiguration(ConfigurationUpdate update) {
-        if (update.getTimestamp() > timestamp) {
-            getConfig().replace(toConfiguration(update.getConfiguration()));
-            timestamp = update.getTimestamp();
-        }
+    // The new configuration is parsed before publishing, so that the lock is held only to swap it in.
+    private static void installNewConfiguration(ConfigurationUpdate update, ExporterConfig newConfig) {
+        publish(c -> update.getTimestamp() <= getTimestamp(c) ? c
+                    : new VersionedConfig(c.config.withDisplayRulesFrom(newConfig), update.getTimestamp()));
+        SnapshotCollector.discardSnapshots();
+    }
+
+    private static long getTimestamp(VersionedConfig versionedConfig) {
+        return Optional.ofNullable(versionedConfig.timestamp).orElse(0L);
     }
 
     private static ExporterConfig toConfiguration(String configuration) {
         return ExporterConfig.loadConfig(new ByteArrayInputStream(configuration.getBytes()));
     }
 
+    /**
+     * A configuration together with the timestamp of the shared configuration from which it was last updated.
+     */
+    private static class VersionedConfig {
+        private final ExporterConfig config;
+        private final Long timestamp;  // null until initialized from the configuration file
+
+        VersionedConfig(ExporterConfig config, Long timestamp) {
+            this.config = config;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * A target's copy of the live configuration, which is replaced once the live configuration is.
+     */
+    private static class TargetConfig {
+        private final ExporterConfig original;
+        private final ExporterConfig copy;
+
+        TargetConfig(ExporterConfig original) {
+            this.original = original;
+            this.copy = original.copyForTarget();
+        }
+
+        static TargetConfig forConfig(TargetConfig existing, ExporterConfig config) {
+            return existing != null && existing.original == config ? existing : new TargetConfig(config);
+        }
+    }
+
     /**
      * A no-op updater used if the original configuration did not specify one.
      */
@@ -0,0 +1,40 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.function.Supplier;
+import javax.management.MBeanServer;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+
+/**
+ * Locates the runtime mbean server of the WebLogic Server instance in which the exporter is running.
+ */
+class LocalMBeanServer {
+
+  private static final String RUNTIME_MBEAN_SERVER_NAME = "java:comp/env/jmx/runtime";
+
+  // Leave as non-final; unit tests may replace this value
+  @SuppressWarnings({"FieldMayBeFinal", "CanBeFinal"})
+  private static Supplier<MBeanServer> locator = LocalMBeanServer::lookUpRuntimeServer;
+
+  private LocalMBeanServer() {
+    // no-op
+  }
+
+  /**
+   * Returns the runtime mbean server, or null if the exporter is not running inside WebLogic Server.
+   */
+  static MBeanServer getServer() {
+    return locator.get();
+  }
+
+  private static MBeanServer lookUpRuntimeServer() {
+    try {
+      return (MBeanServer) new InitialContext().lookup(RUNTIME_MBEAN_SERVER_NAME);
+    } catch (NamingException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the rendered output for a single top-level query. Queries may thus be run concurrently,
+ * while their output is still written to the {@link MetricsStream} in configuration order.
+ *
+ * <p>The buffer records where the series of each metric family begin and end, so that the output of
+ * several queries may be written with the series of each family together, without sorting them.
+ */
+class MetricsBuffer {
+
+  private final Bytes bytes = new Bytes();
+  private final PrometheusTextWriter writer = new PrometheusTextWriter(bytes);
+  private final List<Segment> segments = new ArrayList<>();
+  private String currentFamily;
+  private int metricCount;
+
+  /**
+   * Renders a single metric into the buffer.
+   * @param name the metric name
+   * @param value the metric value
+   */
+  void printMetric(String name, Object value) {
+    writeMetric(name, value);
+    metricCount++;
+  }
+
+  /**
+   * Renders a metric which describes the collection of the query, rather than any mbean, and so is not counted.
+   * @param name the metric name
+   * @param value the metric value
+   */
+  void printCollectionMetric(String name, Object value) {
+    writeMetric(name, value);
+  }
+
+  private void writeMetric(String name, Object value) {
+    try {
+      if (!isInCurrentFamily(name)) startSegment(getFamilyName(name));
+      writer.writeMetric(name, value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);  // not expected, as the writer's destination is in memory
+    }
+  }
+
+  // Series from the scraper arrive grouped by family, so this avoids computing a family name for nearly all of them.
+  private boolean isInCurrentFamily(String name) {
+    return currentFamily != null
+          && name.startsWith(currentFamily)
+          && (name.length() == currentFamily.length() || name.charAt(currentFamily.length()) == '{');
+  }
+
+  private static String getFamilyName(String name) {
+    final int labelStart = name.indexOf('{');
+    return labelStart < 0 ? name : name.substring(0, labelStart);
+  }
+
+  /**
+   * Renders an arbitrary line, such as a comment, into the buffer.
+   * @param line the text to print
+   */
+  void println(String line) {
+    try {
+      startSegment(null);
+      writer.writeLine(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);  // not expected, as the writer's destination is in memory
+    }
+  }
+
+  private void startSegment(String family) throws IOException {
+    writer.flush();
+    endSegment();
+    segments.add(new Segment(family, bytes.size()));
+    currentFamily = family;
+  }
+
+  private void endSegment() {
+    if (!segments.isEmpty()) segments.get(segments.size() - 1).end = bytes.size();
+  }
+
+  /**
+   * Returns the number of metrics rendered into this buffer.
+   */
+  int getMetricCount() {
+    return metricCount;
+  }
+
+  /**
+   * Copies the rendered output of the specified buffers to a writer, grouped by metric family.
+   * Families are written in the order in which they first appear, and the series of each family
+   * in buffer order. Other lines, such as comments, remain in place relative to the families.
+   * @param buffers the buffers to write
+   * @param destination the destination of the output
+   * @throws IOException if unable to write to the destination
+   */
+  static void writeGrouped(List<MetricsBuffer> buffers, PrometheusTextWriter destination) throws IOException {
+    final Map<Object, List<Segment>> groups = new LinkedHashMap<>();
+    for (MetricsBuffer buffer : buffers) {
+      buffer.writer.flush();
+      buffer.endSegment();
+      for (Segment segment : buffer.segments)
+        groups.computeIfAbsent(segment.getGroupKey(), k -> new ArrayList<>()).add(segment);
+    }
+
+    for (List<Segment> group : groups.values())
+      for (Segment segment : group)
+        segment.writeTo(destination);
+  }
+
+  // A contiguous range of the buffer holding either the series of a single family, or other lines.
+  private class Segment {
+    private final String family;
+    private final int start;
+    private int end;
+
+    Segment(String family, int start) {
+      this.family = family;
+      this.start = start;
+    }
+
+    // Lines which are not series are never grouped with others.
+    Object getGroupKey() {
+      return family != null ? family : this;
+    }
+
+    void writeTo(PrometheusTextWriter destination) throws IOException {
+      bytes.writeTo(destination, start, end - start);
+    }
+  }
+
+  // Allows the rendered output to be copied without first copying it to a new array.
+  private static class Bytes extends ByteArrayOutputStream {
+    void writeTo(PrometheusTextWriter destination, int offset, int length) throws IOException {
+      destination.writeBytes(buf, offset, length);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+import java.util.Objects;
+
+import com.oracle.wls.exporter.domain.LabelValues;
+
+/**
+ * The rendered output of a single background collection of metrics. It may be sent to any client
+ * which presents the same credentials that were used to collect it.
+ */
+class MetricsSnapshot {
+  private static final String PROMETHEUS_LINE_SEPARATOR = "\n";
+  private static final double MILLIS_PER_SECOND = 1000.0;
+
+  private final String credentials;
+  private final String instance;
+  private final byte[] metrics;
+  private final OffsetDateTime collectionTime;
+
+  /**
+   * Creates a snapshot.
+   * @param credentials the authentication header used to collect the metrics
+   * @param instance the instance from which metrics were collected
+   * @param metrics the rendered metrics
+   * @param collectionTime the time at which the collection completed
+   */
+  MetricsSnapshot(String credentials, String instance, byte[] metrics, OffsetDateTime collectionTime) {
+    this.credentials = credentials;
+    this.instance = instance;
+    this.metrics = metrics;
+    this.collectionTime = collectionTime;
+  }
+
+  /**
+   * Returns true if this snapshot may be sent to a client which presents the specified credentials.
+   * @param credentials the authentication header sent by the client
+   */
+  boolean isAvailableTo(String credentials) {
+    return Objects.equals(this.credentials, credentials);
+  }
+
+  /**
+   * Returns the time elapsed between the completion of the collection and the specified time.
+   * @param now the current time
+   */
+  Duration getAge(OffsetDateTime now) {
+    return Duration.between(collectionTime, now);
+  }
+
+  /**
+   * Writes the snapshot to the specified stream, followed by a metric reporting its age.
+   * @param out the destination of the snapshot
+   * @param now the current time
+   */
+  void writeTo(PrintStream out, OffsetDateTime now) {
+    out.write(metrics, 0, metrics.length);
+    out.print(getAgeName() + " " + toSecondsString(getAge(now)) + PROMETHEUS_LINE_SEPARATOR);
+  }
+
+  private String getAgeName() {
+    return "wls_scrape_snapshot_age_seconds{instance=\"" + LabelValues.escape(instance) + "\"}";
+  }
+
+  private String toSecondsString(Duration duration) {
+    return String.format(Locale.US, "%.2f", duration.toMillis() / MILLIS_PER_SECOND);
+  }
+}
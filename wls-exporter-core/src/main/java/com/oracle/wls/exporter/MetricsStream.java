@@ -1,31 +1,33 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.lang.management.ManagementFactory;
-import java.util.Locale;
+import java.util.List;
+import java.util.Map;
 import javax.management.MBeanServerConnection;
 
+import com.oracle.wls.exporter.domain.LabelValues;
 import com.sun.management.OperatingSystemMXBean;
 
 /**
- * A PrintStream that computes metrics for the performance of the exporter itself. It does so by tracking the
- * time from its creation until it is instructed to print those metrics.
+ * A stream that computes metrics for the performance of the exporter itself. It does so by tracking the
+ * time from its creation until it is instructed to print those metrics. Metrics are written
+ * through a {@link PrometheusTextWriter}, so that printing them allocates nothing.
  *
  * @author Russell Gold
  */
-class MetricsStream extends PrintStream {
-    private static final String PROMETHEUS_LINE_SEPARATOR = "\n"; // This is not dependent on the platform running the exporter.
-    private static final double NANOSEC_PER_SECONDS = 1000000000;
-
+class MetricsStream implements Closeable {
+    private final PrometheusTextWriter writer;
     private final PerformanceProbe performanceProbe;
     private final long startTime;
     private final long startCpu;
-    private final String instance;
+    private final String platformQualifier;
+    private final String exporterVersionQualifier;
 
     private int scrapeCount;
 
@@ -46,9 +48,11 @@ class MetricsStream extends PrintStream {
      * @param performanceProbe an object which can return performance data
      */
     MetricsStream(String instance, OutputStream outputStream, PerformanceProbe performanceProbe) {
-        super(outputStream);
-        this.instance = instance;
+        this.writer = new PrometheusTextWriter(outputStream);
         this.performanceProbe = performanceProbe;
+        this.platformQualifier = "{instance=\"" + LabelValues.escape(instance) + "\"}";
+        this.exporterVersionQualifier = "{instance=\"" + LabelValues.escape(instance)
+              + "\",version=\"" + LabelValues.escape(LiveConfiguration.getVersionString()) + "\"}";
         startTime = performanceProbe.getCurrentTime();
         startCpu = performanceProbe.getCurrentCpu();
     }
@@ -57,61 +61,116 @@ class MetricsStream extends PrintStream {
      * Prints a single metric, while adding to the count of metrics produced
      * @param name the metric name
      * @param value the metric value
+     * @throws IOException if unable to write the metric
      */
-    void printMetric(String name, Object value) {
-        print(name + " " + value + PROMETHEUS_LINE_SEPARATOR);
+    void printMetric(String name, Object value) throws IOException {
+        writer.writeMetric(name, value);
         scrapeCount++;
     }
 
     /**
-     * Prints the summary performance metrics
+     * Prints an arbitrary line, such as a comment.
+     * @param line the text to print
+     * @throws IOException if unable to write the line
      */
-    void printPlatformMetrics() {
-        printMetric(getCountName(), scrapeCount);
-        printMetric(getDurationName(), toSecondsString(getElapsedTime()));
-        printMetric(getCpuUsageName(), toSecondsString(getCpuUsed()));
-        printMetric(getExporterVersionName(), 1);
+    void println(String line) throws IOException {
+        writer.writeLine(line);
     }
 
-    private String getDurationName() {
-        return "wls_scrape_duration_seconds" + getPlatformQualifier();
+    /**
+     * Prints the contents of the buffers rendered for the top-level queries, grouped by metric family,
+     * while adding to the count of metrics produced.
+     * @param buffers the buffered metrics, in configuration order
+     * @throws IOException if unable to write the metrics
+     */
+    void printMetrics(List<MetricsBuffer> buffers) throws IOException {
+        MetricsBuffer.writeGrouped(buffers, writer);
+        for (MetricsBuffer buffer : buffers)
+            scrapeCount += buffer.getMetricCount();
+    }
+
+    /**
+     * Prints the summary performance metrics. As these end the output, it is then flushed.
+     * @throws IOException if unable to write the metrics
+     */
+    void printPlatformMetrics() throws IOException {
+        printMetric(getCountName(), scrapeCount);
+        writer.writeSecondsMetric(getDurationName(), getElapsedTime());
+        writer.writeSecondsMetric(getCpuUsageName(), getCpuUsed());
+        printMetric(getExporterVersionName(), 1);
+        printMetric(getRestRequestsName(), ConnectionStatistics.getRequestsSent());
+        if (ConnectionStatistics.getConnectionsOpened() > 0)
+            printMetric(getRestConnectionsName(), ConnectionStatistics.getConnectionsOpened());
+        printMetric(getUncompressedBytesName(), ResponseCompression.getUncompressedBytes());
+        printMetric(getCompressedBytesName(), ResponseCompression.getCompressedBytes());
+        printLimiterMetrics();
+        writer.flush();
     }
 
     /**
-     * Returns the qualifiers to add to the platform metrics, specifying the configured server
-     * @return a metrics qualifier string
+     * Writes any buffered metrics to the parent stream.
+     * @throws IOException if unable to write the metrics
      */
-    private String getPlatformQualifier() {
-        return String.format("{instance=\"%s\"}", instance);
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    // Only reported when the number of concurrent REST queries is limited.
+    private void printLimiterMetrics() throws IOException {
+        for (Map.Entry<String, RestRequestLimiter> entry : RestRequestLimiter.getLimiters().entrySet()) {
+            final String qualifier = getTargetQualifier(entry.getKey());
+            printMetric("wls_exporter_rest_concurrency_limit" + qualifier, entry.getValue().getLimit());
+            printMetric("wls_exporter_rest_queued_requests" + qualifier, entry.getValue().getQueued());
+            printMetric("wls_exporter_rest_rejected_requests_total" + qualifier, entry.getValue().getRejected());
+        }
+    }
+
+    private String getTargetQualifier(String target) {
+        return platformQualifier.substring(0, platformQualifier.length() - 1) + ",target=\"" + LabelValues.escape(target) + "\"}";
+    }
+
+    private String getRestRequestsName() {
+        return "wls_exporter_rest_requests_total" + platformQualifier;
+    }
+
+    // Only reported by web clients which can observe the opening of connections.
+    private String getRestConnectionsName() {
+        return "wls_exporter_rest_connections_opened_total" + platformQualifier;
+    }
+
+    private String getUncompressedBytesName() {
+        return "wls_exporter_response_uncompressed_bytes_total" + platformQualifier;
+    }
+
+    private String getCompressedBytesName() {
+        return "wls_exporter_response_compressed_bytes_total" + platformQualifier;
+    }
+
+    private String getDurationName() {
+        return "wls_scrape_duration_seconds" + platformQualifier;
     }
 
     private String getCpuUsageName() {
-        return "wls_scrape_cpu_seconds" + getPlatformQualifier();
+        return "wls_scrape_cpu_seconds" + platformQualifier;
     }
 
     private String getCountName() {
-        return "wls_scrape_mbeans_count_total" + getPlatformQualifier();
+        return "wls_scrape_mbeans_count_total" + platformQualifier;
     }
 
     private String getExporterVersionName() {
-        return "exporter_version" + getExporterVersionQualifier();
-    }
-
-    /**
-     * Returns the qualifiers to add to the version metric.
-     */
-    private String getExporterVersionQualifier() {
-        return String.format("{instance=\"%s\",version=\"%s\"}", instance, LiveConfiguration.getVersionString());
+        return "exporter_version" + exporterVersionQualifier;
     }
 
     private long getElapsedTime() {
         return performanceProbe.getCurrentTime() - startTime;
     }
 
-    private String toSecondsString(long nanoSeconds) {
-        return String.format(Locale.US, "%.2f", nanoSeconds / NANOSEC_PER_SECONDS);
-    }
-
     private long getCpuUsed() {
         return performanceProbe.getCurrentCpu() - startCpu;
     }
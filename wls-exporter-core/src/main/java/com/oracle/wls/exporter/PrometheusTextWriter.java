@@ -0,0 +1,246 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes metrics in the Prometheus text format to a stream. Text is encoded directly as UTF-8 into a reusable
+ * byte buffer, and numbers are formatted without creating intermediate strings, so that writing a series
+ * allocates nothing. The buffer is written to the underlying stream whenever it reaches the flush threshold,
+ * as well as when explicitly flushed.
+ *
+ * <p>Instances are not thread-safe.
+ */
+class PrometheusTextWriter implements Closeable {
+
+  /** The number of buffered bytes at which the buffer is written to the underlying stream. */
+  static final int DEFAULT_FLUSH_THRESHOLD = 8192;
+
+  private static final byte LINE_SEPARATOR = '\n';  // This is not dependent on the platform running the exporter.
+  private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+  private static final byte[] NAN = "NaN".getBytes();
+  private static final byte[] POSITIVE_INFINITY = "+Inf".getBytes();
+  private static final byte[] NEGATIVE_INFINITY = "-Inf".getBytes();
+  private static final int MAX_LONG_DIGITS = 20;
+
+  // Doubles of smaller magnitude which hold integer values are written as such; others fall back to Double.toString,
+  // which switches to scientific notation at this point.
+  private static final double MAX_PLAIN_DOUBLE = 1e7;
+
+  private final OutputStream out;
+  private final int flushThreshold;
+  private final byte[] digits = new byte[MAX_LONG_DIGITS];
+  private final byte[] buffer;
+  private int count;
+
+  /**
+   * Creates a writer with the default flush threshold.
+   * @param out the stream to which the text is to be written
+   */
+  PrometheusTextWriter(OutputStream out) {
+    this(out, DEFAULT_FLUSH_THRESHOLD);
+  }
+
+  /**
+   * Creates a writer.
+   * @param out the stream to which the text is to be written
+   * @param flushThreshold the number of buffered bytes at which the buffer is written to the stream
+   */
+  PrometheusTextWriter(OutputStream out, int flushThreshold) {
+    this.out = out;
+    this.flushThreshold = flushThreshold;
+    this.buffer = new byte[flushThreshold + MAX_LONG_DIGITS];
+  }
+
+  /**
+   * Writes a single series.
+   * @param name the series name, including any labels
+   * @param value the series value, which should be a number or a string
+   * @throws IOException if unable to write to the underlying stream
+   */
+  void writeMetric(String name, Object value) throws IOException {
+    writeText(name);
+    writeByte((byte) ' ');
+    writeValue(value);
+    endLine();
+  }
+
+  /**
+   * Writes a single series whose value is a number of nanoseconds, expressed in seconds with two decimal places.
+   * @param name the series name, including any labels
+   * @param nanoSeconds the value to write
+   * @throws IOException if unable to write to the underlying stream
+   */
+  void writeSecondsMetric(String name, long nanoSeconds) throws IOException {
+    writeText(name);
+    writeByte((byte) ' ');
+    writeSeconds(nanoSeconds);
+    endLine();
+  }
+
+  /**
+   * Writes a line of text, such as a comment.
+   * @param line the text to write, without a line separator
+   * @throws IOException if unable to write to the underlying stream
+   */
+  void writeLine(String line) throws IOException {
+    writeText(line);
+    endLine();
+  }
+
+  /**
+   * Writes bytes which have already been rendered.
+   * @param bytes the bytes to write
+   * @param offset the offset of the first byte to write
+   * @param length the number of bytes to write
+   * @throws IOException if unable to write to the underlying stream
+   */
+  void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+    flushBuffer();
+    out.write(bytes, offset, length);
+  }
+
+  /**
+   * Writes any buffered text to the underlying stream, and flushes it.
+   * @throws IOException if unable to write to the underlying stream
+   */
+  void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    } finally {
+      out.close();
+    }
+  }
+
+  private void endLine() throws IOException {
+    writeByte(LINE_SEPARATOR);
+    if (count >= flushThreshold) flushBuffer();
+  }
+
+  private void flushBuffer() throws IOException {
+    if (count > 0) {
+      out.write(buffer, 0, count);
+      count = 0;
+    }
+  }
+
+  private void writeValue(Object value) throws IOException {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+      writeLong(((Number) value).longValue());
+    else if (value instanceof Double || value instanceof Float)
+      writeDouble(((Number) value).doubleValue());
+    else
+      writeText(String.valueOf(value));
+  }
+
+  private void writeLong(long value) throws IOException {
+    ensureCapacity(MAX_LONG_DIGITS);
+    if (value == Long.MIN_VALUE) {
+      System.arraycopy(MIN_LONG, 0, buffer, count, MIN_LONG.length);
+      count += MIN_LONG.length;
+      return;
+    }
+
+    if (value < 0) {
+      buffer[count++] = '-';
+      value = -value;
+    }
+
+    int numDigits = 0;
+    do {
+      digits[numDigits++] = (byte) ('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+
+    while (numDigits > 0)
+      buffer[count++] = digits[--numDigits];
+  }
+
+  // Integer values are written as Double.toString would, with a trailing ".0"; special values use the spelling
+  // required by Prometheus.
+  private void writeDouble(double value) throws IOException {
+    if (Double.isNaN(value))
+      writeAscii(NAN);
+    else if (Double.isInfinite(value))
+      writeAscii(value > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+    else if (isPlainInteger(value)) {
+      if (value == 0 && 1 / value < 0) writeByte((byte) '-');
+      writeLong((long) value);
+      writeByte((byte) '.');
+      writeByte((byte) '0');
+    } else
+      writeText(Double.toString(value));
+  }
+
+  private boolean isPlainInteger(double value) {
+    return Math.abs(value) < MAX_PLAIN_DOUBLE && value == Math.rint(value);
+  }
+
+  private void writeSeconds(long nanoSeconds) throws IOException {
+    final long hundredths = Math.round(nanoSeconds / 1e7);
+    if (hundredths < 0) writeByte((byte) '-');
+    final long magnitude = Math.abs(hundredths);
+    writeLong(magnitude / 100);
+    writeByte((byte) '.');
+    writeByte((byte) ('0' + (magnitude / 10) % 10));
+    writeByte((byte) ('0' + magnitude % 10));
+  }
+
+  private void writeAscii(byte[] bytes) throws IOException {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, count, bytes.length);
+    count += bytes.length;
+  }
+
+  private void writeByte(byte b) throws IOException {
+    ensureCapacity(1);
+    buffer[count++] = b;
+  }
+
+  // Encodes the text as UTF-8. Metric names are nearly always ASCII, which is copied directly.
+  private void writeText(String text) throws IOException {
+    final int length = text.length();
+    for (int i = 0; i < length; i++) {
+      final char c = text.charAt(i);
+      if (c < 0x80) {
+        writeByte((byte) c);
+      } else if (c < 0x800) {
+        ensureCapacity(2);
+        buffer[count++] = (byte) (0xC0 | (c >> 6));
+        buffer[count++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        writeCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+      } else if (Character.isSurrogate(c)) {
+        writeByte((byte) '?');
+      } else {
+        ensureCapacity(3);
+        buffer[count++] = (byte) (0xE0 | (c >> 12));
+        buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[count++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  private void writeCodePoint(int codePoint) throws IOException {
+    ensureCapacity(4);
+    buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+    buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+    buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+    buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+  }
+
+  // A long line is written out in pieces rather than growing the buffer.
+  private void ensureCapacity(int numBytes) throws IOException {
+    if (count + numBytes > buffer.length) flushBuffer();
+  }
+}
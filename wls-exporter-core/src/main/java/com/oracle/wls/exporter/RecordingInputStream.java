@@ -0,0 +1,57 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An input stream which keeps a copy of the start of the data read through it, so that a response
+ * which is processed as it arrives may still be recorded for diagnostics.
+ */
+class RecordingInputStream extends FilterInputStream {
+
+  static final int MAX_RECORDED_BYTES = 16 * 1024;
+
+  private final ByteArrayOutputStream recording = new ByteArrayOutputStream();
+  private long totalBytes;
+
+  RecordingInputStream(InputStream in) {
+    super(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int result = super.read();
+    if (result >= 0) record(new byte[] {(byte) result}, 0, 1);
+    return result;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    final int numBytes = super.read(b, off, len);
+    if (numBytes > 0) record(b, off, numBytes);
+    return numBytes;
+  }
+
+  private void record(byte[] b, int off, int len) {
+    final int numToRecord = (int) Math.min(len, Math.max(0, MAX_RECORDED_BYTES - totalBytes));
+    recording.write(b, off, numToRecord);
+    totalBytes += len;
+  }
+
+  /**
+   * Returns the data read so far, truncated if it exceeded the maximum recorded size.
+   */
+  String getRecording() {
+    final String recorded = new String(recording.toByteArray(), StandardCharsets.UTF_8);
+    if (totalBytes <= MAX_RECORDED_BYTES)
+      return recorded;
+    else
+      return recorded + String.format("%n... (%d bytes in all)", totalBytes);
+  }
+}
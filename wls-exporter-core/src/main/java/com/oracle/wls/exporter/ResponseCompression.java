@@ -0,0 +1,254 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.oracle.wls.exporter.WebAppConstants.ACCEPT_ENCODING_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.CONTENT_ENCODING_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.VARY_HEADER;
+
+/**
+ * Negotiates the compression of the metrics sent to a client. If the client accepts gzip or deflate encoding
+ * and compression is enabled, the response stream is wrapped in a compressor, so that metrics are compressed
+ * as they are written rather than after they have all been rendered. Compression is only negotiated once metrics
+ * are actually written, so that a scrape which fails first may still send an error, or a plain-text explanation,
+ * without a Content-Encoding header. The number of bytes written to compressed responses, before and after
+ * compression, is recorded.
+ */
+class ResponseCompression {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final String ANY = "*";
+
+  private static final AtomicLong uncompressedBytes = new AtomicLong();
+  private static final AtomicLong compressedBytes = new AtomicLong();
+
+  private ResponseCompression() {
+    // no-op
+  }
+
+  // For unit testing only
+  static void clear() {
+    uncompressedBytes.set(0);
+    compressedBytes.set(0);
+  }
+
+  /**
+   * Returns the number of bytes of metrics written to compressed responses, before compression.
+   */
+  static long getUncompressedBytes() {
+    return uncompressedBytes.get();
+  }
+
+  /**
+   * Returns the number of bytes actually sent in compressed responses.
+   */
+  static long getCompressedBytes() {
+    return compressedBytes.get();
+  }
+
+  /**
+   * Returns a stream to which metrics may be written in response to the client, compressing them
+   * if the client accepts a supported encoding. Any response headers needed are set when the first metrics
+   * are written; if none are, closing the stream leaves the response untouched.
+   * @param context the context of the scrape
+   * @param compressionLevel the level of compression to use, or zero to disable compression
+   * @return a stream which will send its contents to the client
+   * @throws IOException if unable to obtain the response stream
+   */
+  static OutputStream getResponseStream(InvocationContext context, int compressionLevel) throws IOException {
+    if (compressionLevel == 0) return context.getResponseStream();
+
+    return new NegotiatingOutputStream(context, compressionLevel);
+  }
+
+  private static OutputStream negotiateResponseStream(InvocationContext context, int compressionLevel) throws IOException {
+    context.setResponseHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+    final Encoding encoding = selectEncoding(context.getRequestHeader(ACCEPT_ENCODING_HEADER));
+    if (encoding == null) return context.getResponseStream();
+
+    context.setResponseHeader(CONTENT_ENCODING_HEADER, encoding.getName());
+    final OutputStream compressed = new CountingOutputStream(context.getResponseStream(), compressedBytes);
+    return new CountingOutputStream(encoding.createStream(compressed, compressionLevel), uncompressedBytes);
+  }
+
+  /**
+   * Selects the supported encoding most preferred by the specified Accept-Encoding header, preferring gzip
+   * if the client has no preference between them.
+   * @param acceptEncoding the header value sent by the client. May be null.
+   * @return the selected encoding, or null if the response should not be compressed
+   */
+  static Encoding selectEncoding(String acceptEncoding) {
+    if (acceptEncoding == null) return null;
+
+    Encoding selected = null;
+    double selectedQuality = 0;
+    for (Encoding encoding : Encoding.values()) {
+      final double quality = getQuality(acceptEncoding, encoding.getName());
+      if (quality > selectedQuality) {
+        selected = encoding;
+        selectedQuality = quality;
+      }
+    }
+    return selected;
+  }
+
+  // Returns the quality value which the header assigns to the specified encoding, using any wildcard
+  // if the encoding is not named explicitly.
+  private static double getQuality(String acceptEncoding, String name) {
+    Double wildcardQuality = null;
+    for (String element : acceptEncoding.split(",")) {
+      final String[] parts = element.split(";");
+      final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+      if (coding.equals(name))
+        return parseQuality(parts);
+      else if (coding.equals(ANY))
+        wildcardQuality = parseQuality(parts);
+    }
+    return Optional.ofNullable(wildcardQuality).orElse(0.0);
+  }
+
+  private static double parseQuality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      final String parameter = parts[i].trim();
+      if (parameter.startsWith("q="))
+        return toQuality(parameter.substring(2));
+    }
+    return 1.0;
+  }
+
+  private static double toQuality(String value) {
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return 0.0;
+    }
+  }
+
+  /**
+   * The supported compressed encodings, in order of preference.
+   */
+  enum Encoding {
+    GZIP("gzip") {
+      @Override
+      OutputStream createStream(OutputStream out, int level) throws IOException {
+        return new LeveledGzipOutputStream(out, level);
+      }
+    },
+    DEFLATE("deflate") {
+      @Override
+      OutputStream createStream(OutputStream out, int level) {
+        return new LeveledDeflaterOutputStream(out, level);
+      }
+    };
+
+    private final String name;
+
+    Encoding(String name) {
+      this.name = name;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    abstract OutputStream createStream(OutputStream out, int level) throws IOException;
+  }
+
+  private static class LeveledGzipOutputStream extends GZIPOutputStream {
+    LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+  }
+
+  // A deflater stream supplied with its own deflater does not release it when closed, so this one does.
+  private static class LeveledDeflaterOutputStream extends DeflaterOutputStream {
+    LeveledDeflaterOutputStream(OutputStream out, int level) {
+      super(out, new Deflater(level), BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        def.end();
+      }
+    }
+  }
+
+  /**
+   * A stream which selects the encoding of the response, and obtains the response stream, when first written.
+   */
+  private static class NegotiatingOutputStream extends OutputStream {
+    private final InvocationContext context;
+    private final int compressionLevel;
+    private OutputStream out;
+
+    NegotiatingOutputStream(InvocationContext context, int compressionLevel) {
+      this.context = context;
+      this.compressionLevel = compressionLevel;
+    }
+
+    private OutputStream getStream() throws IOException {
+      if (out == null)
+        out = negotiateResponseStream(context, compressionLevel);
+      return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      getStream().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      getStream().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (out != null) out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out != null) out.close();
+    }
+  }
+
+  /**
+   * A stream which adds the number of bytes written through it to a counter.
+   */
+  private static class CountingOutputStream extends FilterOutputStream {
+    private final AtomicLong counter;
+
+    CountingOutputStream(OutputStream out, AtomicLong counter) {
+      super(out);
+      this.counter = counter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      counter.incrementAndGet();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      counter.addAndGet(len);
+    }
+  }
+}
@@ -0,0 +1,298 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of REST queries sent to each server at the same time, so that scrapes neither stack up
+ * expensive searches on a server nor compete with its application traffic. The limit for each server adapts to
+ * the time it takes to respond: it grows by one while responses are prompt and the limit is in use, and is cut
+ * by a quarter whenever a response takes more than twice as long as the usual time for the same query, or the server
+ * reports an error. It never exceeds the configured limit, nor falls below one.
+ *
+ * <p>A scrape is rejected at once if it finds as many queries waiting as the current limit allows to run. Once
+ * admitted, a scrape's queries are never rejected: a query which finds the limit reached waits for one in progress
+ * to complete, and fails only if it waits for more than a few seconds.
+ */
+class RestRequestLimiter {
+
+  /** The factor by which a response may exceed the usual response time before the limit is reduced. */
+  static final double LATENCY_TOLERANCE = 2.0;
+
+  /** The factor by which the limit is reduced when a server is slow to respond. */
+  static final double BACKOFF_RATIO = 0.75;
+
+  /** The longest time for which a query may wait to be sent. */
+  static final long MAX_QUEUE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  /** The most queries to each server whose usual response times are kept. */
+  static final int MAX_BASELINES = 256;
+
+  // The fraction by which the usual response time moves towards a longer one, so that it follows a server
+  // which has become slower for good, but not one which is only briefly overloaded.
+  private static final double BASELINE_DRIFT = 0.05;
+
+  private static final Map<String, RestRequestLimiter> limiters = new TreeMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitReleased = lock.newCondition();
+  private final String target;
+  private final int maxLimit;
+  private int limit;
+  private int inFlight;
+  private int queued;
+  private long rejected;
+
+  // The usual response time of each query, in nanoseconds. Queries differ too much in cost to share one,
+  // and those least recently sent are forgotten first.
+  private final Map<String, Double> baselines = new LinkedHashMap<>(16, 0.75f, true);
+
+  RestRequestLimiter(String target, int maxLimit) {
+    this.target = target;
+    this.maxLimit = maxLimit;
+    this.limit = maxLimit;
+  }
+
+  // For unit testing only
+  static synchronized void clear() {
+    limiters.clear();
+  }
+
+  /**
+   * A REST query to be sent within the limit.
+   * @param <T> the type of result produced from the response
+   */
+  @FunctionalInterface
+  interface Request<T> {
+    T send() throws IOException;
+  }
+
+  /**
+   * Admits a scrape which will send REST queries to the specified URL, if the configuration sets a limit
+   * for its server.
+   * @param url a URL to which the scrape will send queries
+   * @throws RestRequestRejectedException if as many queries are already waiting as the current limit allows to run
+   */
+  static void admit(String url) {
+    final RestRequestLimiter limiter = getLimiter(getTarget(url), LiveConfiguration.getRestConcurrencyLimit());
+    if (limiter != null) limiter.admit();
+  }
+
+  /**
+   * Sends a REST query of an admitted scrape to the specified URL within the limit for its server,
+   * if the configuration sets one.
+   * @param url the URL to which the query is sent
+   * @param query the body of the query, which distinguishes it from other queries to the same URL
+   * @param request an object which sends the query and processes its response
+   * @return the value returned by the request
+   * @throws InterruptedIOException if the query waits too long to be sent
+   * @throws IOException if the request does
+   */
+  static <T> T send(String url, String query, Request<T> request) throws IOException {
+    final RestRequestLimiter limiter = getLimiter(getTarget(url), LiveConfiguration.getRestConcurrencyLimit());
+    return limiter == null ? request.send() : limiter.sendWithinLimit(url + '\n' + query, request);
+  }
+
+  private static String getTarget(String url) {
+    return URI.create(url).getAuthority();
+  }
+
+  // A limiter is replaced when the configured limit changes. Queries already admitted by the old one still run.
+  static synchronized RestRequestLimiter getLimiter(String target, int maxLimit) {
+    if (maxLimit <= 0) {
+      limiters.clear();
+      return null;
+    }
+
+    final RestRequestLimiter limiter = limiters.get(target);
+    if (limiter != null && limiter.maxLimit == maxLimit) return limiter;
+
+    final RestRequestLimiter result = new RestRequestLimiter(target, maxLimit);
+    limiters.put(target, result);
+    return result;
+  }
+
+  /**
+   * Returns the limiters in use, keyed by the host and port of their servers.
+   */
+  static synchronized Map<String, RestRequestLimiter> getLimiters() {
+    return new TreeMap<>(limiters);
+  }
+
+  private <T> T sendWithinLimit(String query, Request<T> request) throws IOException {
+    acquire();
+    final long start = System.nanoTime();
+    try {
+      final T result = request.send();
+      releaseAfterResponse(query, System.nanoTime() - start);
+      return result;
+    } catch (ServerErrorException | InterruptedIOException e) {
+      releaseAfterOverload();
+      throw e;
+    } catch (IOException | RuntimeException | Error e) {
+      release();
+      throw e;
+    }
+  }
+
+  void admit() {
+    lock.lock();
+    try {
+      if (inFlight >= limit && queued >= limit) throw reject();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void acquire() throws InterruptedIOException {
+    lock.lock();
+    try {
+      if (inFlight >= limit) waitForPermit();
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void waitForPermit() throws InterruptedIOException {
+    queued++;
+    try {
+      long remainingNanos = MAX_QUEUE_WAIT_NANOS;
+      while (inFlight >= limit) {
+        if (remainingNanos <= 0) throw new InterruptedIOException("Timed out waiting to query " + target);
+        remainingNanos = permitReleased.awaitNanos(remainingNanos);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to query " + target);
+    } finally {
+      queued--;
+    }
+  }
+
+  private RestRequestRejectedException reject() {
+    rejected++;
+    return new RestRequestRejectedException(target, getRetryAfterSeconds());
+  }
+
+  // A client which retries after the usual response time of the slowest query is likely to find queries completed.
+  private int getRetryAfterSeconds() {
+    final double slowestNanos = baselines.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+    return (int) Math.max(1, Math.ceil(slowestNanos / TimeUnit.SECONDS.toNanos(1)));
+  }
+
+  /**
+   * Releases a permit after a response was received, adapting the limit to the time it took.
+   * @param query a value which identifies the query among those sent to the server
+   * @param latencyNanos the time in nanoseconds from sending the query to processing its response
+   */
+  void releaseAfterResponse(String query, long latencyNanos) {
+    lock.lock();
+    try {
+      final double baselineNanos = updateBaseline(query, latencyNanos);
+      if (latencyNanos > baselineNanos * LATENCY_TOLERANCE)
+        reduceLimit();
+      else if (2 * inFlight >= limit)
+        limit = Math.min(maxLimit, limit + 1);
+      releasePermit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private double updateBaseline(String query, long latencyNanos) {
+    final Double baselineNanos = baselines.get(query);
+    final double result = baselineNanos == null || latencyNanos < baselineNanos
+          ? latencyNanos : baselineNanos + (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+    baselines.put(query, result);
+    if (baselines.size() > MAX_BASELINES) removeLeastRecentBaseline();
+    return result;
+  }
+
+  private void removeLeastRecentBaseline() {
+    final Iterator<String> queries = baselines.keySet().iterator();
+    queries.next();
+    queries.remove();
+  }
+
+  /**
+   * Releases a permit after the server reported an error or failed to respond in time, reducing the limit.
+   */
+  void releaseAfterOverload() {
+    lock.lock();
+    try {
+      reduceLimit();
+      releasePermit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Releases a permit without adapting the limit, as the outcome of the query says nothing about the server's load.
+   */
+  void release() {
+    lock.lock();
+    try {
+      releasePermit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void reduceLimit() {
+    limit = Math.max(1, (int) (limit * BACKOFF_RATIO));
+  }
+
+  private void releasePermit() {
+    inFlight--;
+    permitReleased.signalAll();
+  }
+
+  /**
+   * Returns the number of queries currently allowed to run at the same time.
+   */
+  int getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of queries waiting to be sent.
+   */
+  int getQueued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of queries rejected since this limiter was created.
+   */
+  long getRejected() {
+    lock.lock();
+    try {
+      return rejected;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
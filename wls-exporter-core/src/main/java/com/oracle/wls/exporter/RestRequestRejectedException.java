@@ -0,0 +1,24 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+/**
+ * An exception thrown when a REST query is not sent because too many are already in progress to the same server.
+ */
+public class RestRequestRejectedException extends WebClientException {
+
+  private final int retryAfterSeconds;
+
+  RestRequestRejectedException(String target, int retryAfterSeconds) {
+    super("Too many concurrent REST queries to %s", target);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Returns the number of seconds after which the client may usefully try again.
+   */
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shares the rendered metrics of a scrape with any other scrapes which present the same credentials
+ * while it is in progress, or within a configured window after it completes. Only the first of such scrapes
+ * queries the REST API; the others wait for its result. Results are never shared between different credentials,
+ * as WebLogic may grant different users access to different mbeans.
+ */
+class ScrapeCoalescer {
+
+  private static final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+  private ScrapeCoalescer() {
+    // no-op
+  }
+
+  // For unit testing only
+  static void clear() {
+    flights.clear();
+  }
+
+  /**
+   * Writes the rendered metrics for a scrape, either by performing the specified collection,
+   * or by reusing the result of one performed for another scrape. A scrape which performs the collection
+   * writes the metrics as they are rendered, while retaining a copy to share.
+   * @param credentials a key identifying the credentials presented by the client and the server scraped. May be null.
+   * @param windowSeconds the number of seconds after its completion for which a result may be reused
+   * @param timeoutMillis the longest time to wait for a collection performed for another scrape; zero for no limit
+   * @param out the stream to which the metrics are to be written
+   * @param collection an object which will render the metrics, if needed
+   * @throws IOException if unable to collect or write the metrics
+   */
+  static void writeMetrics(String credentials, int windowSeconds, long timeoutMillis, OutputStream out,
+                           Collection collection) throws IOException {
+    final String key = Optional.ofNullable(credentials).orElse("");
+    while (true) {
+      final Flight existing = flights.get(key);
+      if (existing != null && existing.isCurrent(windowSeconds)) {
+        writeSharedMetrics(existing, timeoutMillis, out, collection);
+        return;
+      }
+
+      final Flight flight = new Flight();
+      if (existing == null ? flights.putIfAbsent(key, flight) == null : flights.replace(key, existing, flight)) {
+        performCollection(key, flight, windowSeconds, out, collection);
+        return;
+      }
+    }
+  }
+
+  // If the shared collection failed, or did not complete in time, this scrape performs its own,
+  // so that it reports its own failure.
+  private static void writeSharedMetrics(Flight flight, long timeoutMillis, OutputStream out, Collection collection)
+        throws IOException {
+    final byte[] metrics = flight.awaitResult(timeoutMillis);
+    if (metrics != null)
+      out.write(metrics);
+    else
+      collection.collect(out);
+  }
+
+  private static void performCollection(String key, Flight flight, int windowSeconds, OutputStream out,
+                                        Collection collection) throws IOException {
+    final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    boolean shareable = false;
+    try {
+      shareable = collection.collect(new CopyingOutputStream(out, copy));
+    } finally {
+      flight.complete(shareable ? copy.toByteArray() : null);
+      if (!shareable || windowSeconds == 0) flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * An action which renders metrics.
+   */
+  @FunctionalInterface
+  interface Collection {
+
+    /**
+     * Renders the metrics to the specified stream.
+     * @param out the destination of the metrics
+     * @return true if all metrics were collected, so that they may be shared with other scrapes
+     * @throws IOException if unable to collect the metrics
+     */
+    boolean collect(OutputStream out) throws IOException;
+  }
+
+  /**
+   * A stream which writes to its destination while retaining a copy of everything written. Closing it
+   * only flushes the destination, which remains owned by the caller.
+   */
+  private static class CopyingOutputStream extends FilterOutputStream {
+    private final OutputStream copy;
+
+    CopyingOutputStream(OutputStream out, OutputStream copy) {
+      super(out);
+      this.copy = copy;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      copy.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      copy.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * A single collection, whose result may be shared.
+   */
+  private static class Flight {
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    private volatile OffsetDateTime completionTime;
+
+    void complete(byte[] metrics) {
+      completionTime = SystemClock.now();
+      result.complete(metrics);
+    }
+
+    // Returns true if the collection is still in progress, or completed within the specified window.
+    boolean isCurrent(int windowSeconds) {
+      final OffsetDateTime completed = completionTime;
+      return completed == null || !completed.plusSeconds(windowSeconds).isBefore(SystemClock.now());
+    }
+
+    // Returns the shared metrics, or null if the collection failed or did not complete in time.
+    byte[] awaitResult(long timeoutMillis) throws IOException {
+      try {
+        return timeoutMillis == 0 ? result.get() : result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for metrics");
+      } catch (ExecutionException | TimeoutException e) {
+        return null;
+      }
+    }
+  }
+}
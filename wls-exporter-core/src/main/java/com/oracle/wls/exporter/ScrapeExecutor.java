@@ -0,0 +1,70 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dedicated, bounded pool of daemon threads on which the exporter servlet runs scrapes asynchronously,
+ * so that they neither hold the container's request threads nor compete with application traffic for them.
+ * Each thread may have one scrape waiting for it; any further scrape is rejected.
+ */
+public class ScrapeExecutor {
+
+  private static final String THREAD_NAME_PREFIX = "wls-exporter-scrape-";
+  private static final long IDLE_THREAD_SECONDS = 60;
+
+  private static ThreadPoolExecutor executor;
+
+  private ScrapeExecutor() {
+    // no-op
+  }
+
+  /**
+   * Returns the executor on which to run scrapes, or null if they are to run on the request threads. The pool is
+   * replaced whenever the configured number of threads changes; scrapes already accepted by the old one still run.
+   */
+  public static synchronized ExecutorService getExecutor() {
+    final int numThreads = LiveConfiguration.getAsyncScrapeThreads();
+    if (executor != null && executor.getMaximumPoolSize() != numThreads)
+      stop();
+    if (executor == null && numThreads > 0)
+      executor = createExecutor(numThreads);
+
+    return executor;
+  }
+
+  /**
+   * Stops accepting scrapes, and releases the threads once those already accepted are complete.
+   */
+  public static synchronized void stop() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  private static ThreadPoolExecutor createExecutor(int numThreads) {
+    final ThreadPoolExecutor result = new ThreadPoolExecutor(numThreads, numThreads,
+          IDLE_THREAD_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(numThreads), new ScrapeThreadFactory());
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  private static class ScrapeThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * A shared, bounded pool of daemon threads on which the exporter runs top-level queries concurrently.
+ * The pool is resized to match the configured query concurrency whenever that changes.
+ * An environment with cheaper threads may instead supply its own executors. A scrape holds the executor it acquires
+ * until it releases it, so that a supplied executor which is replaced is only shut down once no scrape is using it.
+ */
+public class SelectorExecutor {
+
+  private static final String THREAD_NAME_PREFIX = "wls-exporter-query-";
+  private static final long IDLE_THREAD_SECONDS = 60;
+
+  private static ThreadPoolExecutor executor;
+  private static IntFunction<ExecutorService> executorFactory;
+  private static ExecutorService suppliedExecutor;
+  private static int suppliedExecutorLimit;
+  private static final Map<ExecutorService, Integer> leases = new IdentityHashMap<>();
+
+  private SelectorExecutor() {
+    // no-op
+  }
+
+  /**
+   * Returns an executor which will run no more than the specified number of tasks at once, and which will accept
+   * tasks until it is released.
+   * @param maxThreads the maximum number of threads to use
+   */
+  static synchronized ExecutorService acquireExecutor(int maxThreads) {
+    final ExecutorService result = getExecutor(maxThreads);
+    leases.merge(result, 1, Integer::sum);
+    return result;
+  }
+
+  /**
+   * Releases an executor obtained from {@link #acquireExecutor(int)}. If it has since been replaced, and no other
+   * scrape holds it, it is shut down once its tasks complete.
+   * @param executor the executor to release
+   */
+  static synchronized void releaseExecutor(ExecutorService executor) {
+    if (leases.merge(executor, -1, Integer::sum) > 0) return;
+
+    leases.remove(executor);
+    if (executor != suppliedExecutor && executor != SelectorExecutor.executor) executor.shutdown();
+  }
+
+  private static ExecutorService getExecutor(int maxThreads) {
+    if (executorFactory != null)
+      return getSuppliedExecutor(maxThreads);
+    else if (executor == null)
+      executor = createExecutor(maxThreads);
+    else if (executor.getMaximumPoolSize() != maxThreads)
+      resize(maxThreads);
+
+    return executor;
+  }
+
+  /**
+   * Replaces the default thread pool with executors from the specified factory. The factory is given the
+   * configured query concurrency, and must return an executor which runs no more than that number of tasks at once.
+   * A new executor is requested whenever the concurrency changes, and the previous one is shut down
+   * once no scrape holds it.
+   * @param factory a function which creates executors, or null to restore the default pool
+   */
+  public static synchronized void setExecutorFactory(IntFunction<ExecutorService> factory) {
+    executorFactory = factory;
+    retireSuppliedExecutor();
+  }
+
+  private static ExecutorService getSuppliedExecutor(int maxTasks) {
+    if (suppliedExecutor == null || suppliedExecutorLimit != maxTasks) {
+      retireSuppliedExecutor();
+      suppliedExecutor = executorFactory.apply(maxTasks);
+      suppliedExecutorLimit = maxTasks;
+    }
+    return suppliedExecutor;
+  }
+
+  // An executor still held by a scrape is shut down when it is released.
+  private static void retireSuppliedExecutor() {
+    if (suppliedExecutor != null && !leases.containsKey(suppliedExecutor)) suppliedExecutor.shutdown();
+    suppliedExecutor = null;
+  }
+
+  private static ThreadPoolExecutor createExecutor(int maxThreads) {
+    final ThreadPoolExecutor result = new ThreadPoolExecutor(maxThreads, maxThreads,
+          IDLE_THREAD_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new QueryThreadFactory());
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  // The core size may never exceed the maximum size, so the order of the updates depends on the direction of change.
+  private static void resize(int maxThreads) {
+    if (maxThreads > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(maxThreads);
+      executor.setCorePoolSize(maxThreads);
+    } else {
+      executor.setCorePoolSize(maxThreads);
+      executor.setMaximumPoolSize(maxThreads);
+    }
+  }
+
+  private static class QueryThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -8,7 +8,10 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Optional;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -18,6 +21,8 @@ import javax.servlet.http.HttpSession;
  */
 public class ServletInvocationContext implements InvocationContext {
 
+  private static final String BASIC_SCHEME = "Basic ";
+
   private final HttpServletRequest request;
   private final HttpServletResponse response;
   private final String localHostName = getLocalHostName();
@@ -59,11 +64,48 @@ public class ServletInvocationContext implements InvocationContext {
       return request.getHeader(WebAppConstants.AUTHENTICATION_HEADER);
   }
 
+  // The exporter application declares no security constraint, so the container only authenticates a client
+  // when asked to, here with the basic credentials which it sent.
+  @Override
+  public boolean authenticate() {
+    if (request.getUserPrincipal() != null) return true;
+
+    final String[] credentials = getBasicCredentials();
+    if (credentials == null) return false;
+
+    try {
+      request.login(credentials[0], credentials[1]);
+      return request.getUserPrincipal() != null;
+    } catch (ServletException e) {
+      return false;
+    }
+  }
+
+  // Returns the user name and password from a basic authentication header, or null if there are none.
+  private String[] getBasicCredentials() {
+    final String header = getAuthenticationHeader();
+    if (header == null || !header.regionMatches(true, 0, BASIC_SCHEME, 0, BASIC_SCHEME.length())) return null;
+
+    try {
+      final byte[] decoded = Base64.getDecoder().decode(header.substring(BASIC_SCHEME.length()).trim());
+      final String credentials = new String(decoded, StandardCharsets.UTF_8);
+      final int separator = credentials.indexOf(':');
+      return separator < 0 ? null : new String[] {credentials.substring(0, separator), credentials.substring(separator + 1)};
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
   @Override
   public String getContentType() {
       return request.getContentType();
   }
 
+  @Override
+  public String getRequestHeader(String name) {
+      return request.getHeader(name);
+  }
+
   @Override
   public String getInstanceName() {
       return request.getServerName() + ":" + request.getServerPort();
@@ -0,0 +1,295 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+
+/**
+ * Collects metrics in the background when a collection interval is configured, so that scrapes may be answered
+ * from the latest snapshot rather than by querying the REST API each time. Collection starts after a scrape
+ * succeeds, using the credentials presented by that scrape. Each set of credentials has its own collection,
+ * whose snapshots are only sent to clients which present the same credentials. A collection stops if WebLogic
+ * rejects its credentials, or if no client presenting them has asked for metrics for a number of intervals.
+ */
+public class SnapshotCollector {
+
+  /** The number of collection intervals after which a snapshot is considered too old to send. */
+  static final int MAX_SNAPSHOT_INTERVALS = 3;
+
+  /** The number of collection intervals without a scrape after which background collection stops. */
+  static final int MAX_IDLE_INTERVALS = 10;
+
+  private static final String THREAD_NAME = "wls-exporter-snapshot";
+
+  private static ScheduledExecutorService scheduler;
+  private static Map<String, Collection> collections = new HashMap<>();
+
+  private SnapshotCollector() {
+    // no-op
+  }
+
+  /**
+   * Sends the latest snapshot in response to a scrape, if one is available to the client and not too old.
+   * @param context the context of the scrape
+   * @return true if a snapshot was sent, false if metrics must be collected now
+   * @throws IOException if unable to write the response
+   */
+  static boolean sendSnapshot(InvocationContext context) throws IOException {
+    final OffsetDateTime now = SystemClock.now();
+    final String credentials = context.getAuthenticationHeader();
+    final MetricsSnapshot current = getSnapshot(credentials, now);
+    if (!isUsable(current, credentials, now)) return false;
+
+    try (PrintStream out = new PrintStream(ResponseCompression.getResponseStream(context, LiveConfiguration.getCompressionLevel()))) {
+      current.writeTo(out, now);
+    }
+    return true;
+  }
+
+  // Marks the collection which uses the specified credentials, if any, as still wanted, and returns its latest snapshot.
+  private static synchronized MetricsSnapshot getSnapshot(String credentials, OffsetDateTime now) {
+    final Collection collection = collections.get(credentials);
+    if (collection == null) return null;
+
+    collection.lastRequestTime = now;
+    return collection.snapshot;
+  }
+
+  private static boolean isUsable(MetricsSnapshot snapshot, String credentials, OffsetDateTime now) {
+    return snapshot != null
+          && snapshot.isAvailableTo(credentials)
+          && snapshot.getAge(now).compareTo(getMaxSnapshotAge()) < 0;
+  }
+
+  private static Duration getMaxSnapshotAge() {
+    return Duration.ofSeconds((long) LiveConfiguration.getCollectionInterval() * MAX_SNAPSHOT_INTERVALS);
+  }
+
+  /**
+   * Starts collecting metrics in the background with the credentials of a successful scrape,
+   * unless already doing so for those credentials or no collection interval is configured.
+   * @param webClientFactory the factory for the clients which will send queries
+   * @param context the context of the successful scrape
+   */
+  static synchronized void startCollecting(WebClientFactory webClientFactory, InvocationContext context) {
+    if (LiveConfiguration.getCollectionInterval() == 0) return;
+    if (collections.containsKey(context.getAuthenticationHeader())) return;
+
+    final Collection collection = new Collection(webClientFactory, context);
+    collections.put(collection.credentials, collection);
+    collection.schedule(0);
+  }
+
+  /**
+   * Discards the current snapshots, so that the next scrapes will collect metrics directly.
+   * Used when the configured queries change.
+   */
+  static synchronized void discardSnapshots() {
+    collections.values().forEach(collection -> collection.snapshot = null);
+  }
+
+  /**
+   * Stops all background collection and releases its thread.
+   */
+  public static synchronized void stop() {
+    new ArrayList<>(collections.values()).forEach(SnapshotCollector::stopCollecting);
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  private static void stopCollecting(Collection collection) {
+    collection.cancel();
+    collections.remove(collection.credentials, collection);
+  }
+
+  private static synchronized void completeCollection(Collection completed, SnapshotContext context) {
+    if (collections.get(completed.credentials) != completed) return;
+
+    if (context.isAuthenticationFailure())
+      stopCollecting(completed);
+    else {
+      if (context.isSuccessful()) completed.snapshot = context.createSnapshot();
+      scheduleNextCollection(completed);
+    }
+  }
+
+  private static void scheduleNextCollection(Collection collection) {
+    final int interval = LiveConfiguration.getCollectionInterval();
+    if (interval == 0 || collection.isIdle(interval))
+      stopCollecting(collection);
+    else
+      collection.schedule(interval);
+  }
+
+  private static ScheduledExecutorService getScheduler() {
+    if (scheduler == null)
+      scheduler = createScheduler();
+    return scheduler;
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    final ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, THREAD_NAME);
+      thread.setDaemon(true);
+      return thread;
+    });
+    result.setRemoveOnCancelPolicy(true);
+    return result;
+  }
+
+  /**
+   * A repeated collection of metrics using a single set of credentials.
+   */
+  private static class Collection implements Runnable {
+    private final WebClientFactory webClientFactory;
+    private final String credentials;
+    private final String instance;
+    private final String applicationContext;
+    private final UrlBuilder urlBuilder;
+    private ScheduledFuture<?> future;
+    private MetricsSnapshot snapshot;
+    private OffsetDateTime lastRequestTime = SystemClock.now();
+
+    // The details of the scrape are copied, as its context may not be used once the scrape is complete.
+    Collection(WebClientFactory webClientFactory, InvocationContext context) {
+      this.webClientFactory = webClientFactory;
+      this.credentials = context.getAuthenticationHeader();
+      this.instance = context.getInstanceName();
+      this.applicationContext = context.getApplicationContext();
+      this.urlBuilder = context.createUrlBuilder();
+    }
+
+    boolean isIdle(int interval) {
+      return lastRequestTime.plusSeconds((long) interval * MAX_IDLE_INTERVALS).isBefore(SystemClock.now());
+    }
+
+    void schedule(long delaySeconds) {
+      future = getScheduler().schedule(this, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    void cancel() {
+      if (future != null) future.cancel(false);
+    }
+
+    @Override
+    public void run() {
+      final SnapshotContext context = new SnapshotContext(this);
+      try {
+        ExporterCall.createBackgroundCall(webClientFactory, context).doWithAuthentication();
+      } catch (IOException | RuntimeException e) {
+        context.setStatus(HTTP_INTERNAL_ERROR);
+      }
+      completeCollection(this, context);
+    }
+  }
+
+  /**
+   * The context for a single background collection, which renders the metrics into memory.
+   */
+  private static class SnapshotContext implements InvocationContext {
+    private final Collection collection;
+    private final ByteArrayOutputStream metrics = new ByteArrayOutputStream();
+    private int status;
+
+    SnapshotContext(Collection collection) {
+      this.collection = collection;
+    }
+
+    boolean isSuccessful() {
+      return status == 0;
+    }
+
+    boolean isAuthenticationFailure() {
+      return status == HTTP_UNAUTHORIZED || status == HTTP_FORBIDDEN;
+    }
+
+    MetricsSnapshot createSnapshot() {
+      return new MetricsSnapshot(collection.credentials, collection.instance, metrics.toByteArray(), SystemClock.now());
+    }
+
+    @Override
+    public UrlBuilder createUrlBuilder() {
+      return collection.urlBuilder.copy();
+    }
+
+    @Override
+    public String getApplicationContext() {
+      return collection.applicationContext;
+    }
+
+    @Override
+    public String getAuthenticationHeader() {
+      return collection.credentials;
+    }
+
+    @Override
+    public String getContentType() {
+      return null;
+    }
+
+    @Override
+    public String getRequestHeader(String name) {
+      return null;
+    }
+
+    @Override
+    public String getInstanceName() {
+      return collection.instance;
+    }
+
+    @Override
+    public InputStream getRequestStream() {
+      return null;
+    }
+
+    @Override
+    public PrintStream getResponseStream() {
+      metrics.reset();  // discard the output of any failed attempt
+      return new PrintStream(metrics);
+    }
+
+    @Override
+    public void sendError(int status, String msg) {
+      this.status = status;
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+      // not used for metrics collection
+    }
+
+    @Override
+    public void setResponseHeader(String name, String value) {
+      // not used for metrics collection
+    }
+
+    @Override
+    public void setStatus(int status) {
+      this.status = status;
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2020, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2020, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -62,7 +62,11 @@ public class UrlBuilder {
   private WebHost lastCandidate;
 
   private UrlBuilder(boolean secure) {
-    protocol = Protocol.getProtocol(secure);
+    this(Protocol.getProtocol(secure));
+  }
+
+  private UrlBuilder(Protocol protocol) {
+    this.protocol = protocol;
   }
 
   /**
@@ -73,6 +77,16 @@ public class UrlBuilder {
     return new UrlBuilder(secure);
   }
 
+  /**
+   * Creates a new URLBuilder which will try the same hosts and ports as this one, without its record of failures.
+   */
+  UrlBuilder copy() {
+    final UrlBuilder result = new UrlBuilder(protocol);
+    result.hostNames.addAll(hostNames);
+    result.ports.addAll(ports);
+    return result;
+  }
+
   /**
    * Modifies this URLBuilder to add a possible port for the WLS REST API.
    * @param port the port to try. May be null, in which case it will be ignored.
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -40,6 +40,24 @@ public interface WebAppConstants {
     /** The header used by a web client to specify the content type of its data. **/
     String CONTENT_TYPE_HEADER = "Content-Type";
 
+    /** The header used by a web client to specify the content encodings it will accept. **/
+    String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    /** The header used by a web server to specify the encoding of its response. **/
+    String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    /** The header used by a web client to ask for a response only if it differs from the version it has. **/
+    String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    /** The header used by a web server to specify the request headers on which its response depends. **/
+    String VARY_HEADER = "Vary";
+
+    /** The header used by a web server to tell a client how long to wait before trying again. **/
+    String RETRY_AFTER_HEADER = "Retry-After";
+
+    /** The header used by Prometheus to tell an exporter how long it will wait for a scrape. **/
+    String SCRAPE_TIMEOUT_HEADER = "X-Prometheus-Scrape-Timeout-Seconds";
+
     // The field which defines the configuration update action
     String EFFECT_OPTION = "effect";
 
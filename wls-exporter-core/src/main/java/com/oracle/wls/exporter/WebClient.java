@@ -1,9 +1,10 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.function.Consumer;
 
 /**
@@ -37,6 +38,15 @@ public interface WebClient {
    */
   String doPostRequest(String postBody) throws IOException;
 
+  /**
+   * Sends a POST query to the server and passes the body of the reply to the specified handler as it arrives,
+   * rather than first reading it into memory.
+   * @param postBody query data
+   * @param handler an object to process the body of the response
+   * @return the value returned by the handler
+   */
+  <T> T doPostRequest(String postBody, ResponseHandler<T> handler) throws IOException;
+
   /**
    * Converts the specified object to JSON and uses a PUT request to send it to the server.
    * @param putBody query data
@@ -45,6 +55,13 @@ public interface WebClient {
   @SuppressWarnings("UnusedReturnValue")
   <T> String doPutRequest(T putBody) throws IOException;
 
+  /**
+   * Sets the longest time to wait for the server on each later request: to connect, and for each part of its reply.
+   * A request which waits longer fails with an {@link IOException}.
+   * @param timeoutMillis a time in milliseconds; zero to wait indefinitely
+   */
+  void setRequestTimeout(long timeoutMillis);
+
   /**
    * Adds a header to be sent on every query.
    * @param name the header name
@@ -85,4 +102,13 @@ public interface WebClient {
     String getBody() throws IOException;
 
   }
+
+  /**
+   * An object which processes the body of a response as it is read.
+   * @param <T> the type of result produced from the body
+   */
+  @FunctionalInterface
+  interface ResponseHandler<T> {
+    T handleResponse(InputStream body) throws IOException;
+  }
 }
@@ -1,4 +1,4 @@
-// Copyright (c) 2020, Oracle and/or its affiliates.
+// Copyright (c) 2020, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -20,7 +20,10 @@ import java.util.stream.Stream;
 import com.google.gson.Gson;
 
 /**
- * A stripped-down web client that uses classes built into Java 1.8.
+ * A stripped-down web client that uses classes built into Java 1.8. Connections are kept alive and reused
+ * by the JDK's own connection cache, which holds up to {@code http.maxConnections} idle connections per host
+ * and closes them once idle for the time allowed by the server. A connection is only returned to that cache
+ * once its response has been read to the end and closed.
  */
 public class WebClient8Impl extends WebClientCommon {
 
@@ -103,6 +106,13 @@ public class WebClient8Impl extends WebClientCommon {
       defaultHeaders.forEach(h -> h.addHeader(connection));
       sessionHeaders.forEach(h -> h.addHeader(connection));
       connection.setRequestMethod(method);
+      connection.setConnectTimeout(getTimeoutMillis());
+      connection.setReadTimeout(getTimeoutMillis());
+    }
+
+    // A timeout of zero, which the connection treats as infinite, is passed on unchanged.
+    private int getTimeoutMillis() {
+      return (int) Math.min(Integer.MAX_VALUE, getRequestTimeout());
     }
 
   }
@@ -127,9 +137,12 @@ public class WebClient8Impl extends WebClientCommon {
   }
 
   static class Java8WebResponse implements WebResponse {
+    private static final int DRAIN_BUFFER_SIZE = 4096;
+
     private final HttpURLConnection connection;
     private final int responseCode;
     private final Map<String, List<String>> headerFields;
+    private boolean aborted;
 
     Java8WebResponse(HttpURLConnection connection) throws IOException {
       this.connection = connection;
@@ -156,9 +169,35 @@ public class WebClient8Impl extends WebClientCommon {
       return Optional.ofNullable(headerFields.get(headerName)).map(Collection::stream).orElse(Stream.empty());
     }
 
+    // Disconnecting before the response has been read closes the connection, rather than returning it to the cache.
+    @Override
+    public void abort() {
+      aborted = true;
+      connection.disconnect();
+    }
+
+    // The remainder of the response is read so that the connection may be reused. If the stream
+    // was already closed, or cannot be read, the JDK will not reuse the connection.
     @Override
     public void close() {
+      if (aborted) return;
 
+      try (InputStream inputStream = getRemainingContents()) {
+        if (inputStream != null) drain(inputStream);
+      } catch (IOException ignored) {
+        // the connection will not be reused
+      }
+    }
+
+    private InputStream getRemainingContents() throws IOException {
+      return responseCode < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream();
+    }
+
+    private void drain(InputStream inputStream) throws IOException {
+      final byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+      while (inputStream.read(buffer) >= 0) {
+        // discard the remaining content
+      }
     }
   }
 
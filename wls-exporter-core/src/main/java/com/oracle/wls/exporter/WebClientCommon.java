@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -7,6 +7,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.ConnectException;
 import java.net.URI;
 import java.net.UnknownHostException;
@@ -15,11 +16,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.oracle.wls.exporter.WebAppConstants.ACCEPT_ENCODING_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.AUTHENTICATION_CHALLENGE_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.AUTHENTICATION_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.CONTENT_ENCODING_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.CONTENT_TYPE_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.SET_COOKIE_HEADER;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
@@ -33,10 +37,17 @@ import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
  */
 public abstract class WebClientCommon implements WebClient {
 
+    /** The content encoding requested from the server. Responses which use it are decompressed as they are read. */
+    static final String GZIP_ENCODING = "gzip";
+
+    private static final String LEGACY_GZIP_ENCODING = "x-gzip";
+    private static final int DECOMPRESSION_BUFFER_SIZE = 8192;
+
     private String authentication;
     private boolean retryNeeded;
     private String contentType;
     private String url;
+    private long requestTimeoutMillis;
     private final List<Consumer<String>> setCookieHandlers = new ArrayList<>();
 
     interface WebRequest {
@@ -48,6 +59,12 @@ public abstract class WebClientCommon implements WebClient {
         InputStream getContents();
         int getResponseCode();
         Stream<String> getHeadersAsStream(String headerName);
+
+        /**
+         * Releases a response whose body is abandoned, without reading the rest of it. Its connection is not
+         * reused, and a later close does nothing more.
+         */
+        void abort();
     }
 
     interface HttpClientExec extends Closeable {
@@ -108,6 +125,18 @@ public abstract class WebClientCommon implements WebClient {
         return contentType;
     }
 
+    @Override
+    public void setRequestTimeout(long timeoutMillis) {
+        this.requestTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Returns the longest time in milliseconds to wait for the server on each request, or zero to wait indefinitely.
+     */
+    long getRequestTimeout() {
+        return requestTimeoutMillis;
+    }
+
     @Override
     public String doGetRequest() throws IOException {
         defineSessionHeaders();
@@ -121,6 +150,13 @@ public abstract class WebClientCommon implements WebClient {
         return sendRequest(createPostRequest(url, postBody)).getBody();
     }
 
+    @Override
+    public <T> T doPostRequest(String postBody, ResponseHandler<T> handler) throws IOException {
+        if (contentType == null) contentType = APPLICATION_JSON;
+        defineSessionHeaders();
+        return sendRequest(createPostRequest(url, postBody), handler);
+    }
+
     @Override
     public <T> String doPutRequest(T putBody) throws IOException {
         defineSessionHeaders();
@@ -129,8 +165,15 @@ public abstract class WebClientCommon implements WebClient {
 
     // Sends the specified request to the server
     private ResponseImpl sendRequest(WebRequest request) throws IOException {
-        try (HttpClientExec clientExec = createClientExec()) {
-            return new ResponseImpl(clientExec.send(request));
+        return sendRequest(request, ResponseImpl::new);
+    }
+
+    // Sends the specified request to the server, and passes the body of the reply to the handler
+    // while the connection is still open.
+    private <T> T sendRequest(WebRequest request, ResponseHandler<T> handler) throws IOException {
+        try (HttpClientExec clientExec = createClientExec();
+             WebResponse response = send(clientExec, request)) {
+            return new StreamingResponse(response).handleBody(handler);
         } catch (UnknownHostException | ConnectException e) {
             throw new RestPortConnectionException(request.getURI().toString());
         } catch (GeneralSecurityException e) {
@@ -138,10 +181,16 @@ public abstract class WebClientCommon implements WebClient {
         }
     }
 
+    private WebResponse send(HttpClientExec clientExec, WebRequest request) throws IOException {
+        ConnectionStatistics.recordRequest();
+        return clientExec.send(request);
+    }
+
     final void defineSessionHeaders() {
         clearSessionHeaders();
         if (getAuthentication() != null) putSessionHeader(AUTHENTICATION_HEADER, getAuthentication());
         if (getContentType() != null) putSessionHeader(CONTENT_TYPE_HEADER, getContentType());
+        putSessionHeader(ACCEPT_ENCODING_HEADER, GZIP_ENCODING);
     }
 
     static class EmptyInputStream extends InputStream {
@@ -203,20 +252,74 @@ public abstract class WebClientCommon implements WebClient {
         setCookieHandlers.forEach(setCookieHeaders::forEach);
     }
 
-    class ResponseImpl implements WebClient.Response {
-        private final WebResponse response;
+    static class ResponseImpl implements WebClient.Response {
         private final String body;
 
-        ResponseImpl(WebResponse response) throws IOException {
+        ResponseImpl(InputStream contents) throws IOException {
+            body = asString(contents);
+        }
+
+        @Override
+        public String getBody() {
+            return body;
+        }
+    }
+
+    class StreamingResponse {
+        private final WebResponse response;
+
+        StreamingResponse(WebResponse response) {
             this.response = response;
             processStatusCode();
             reportSetCookieHeaders();
+        }
 
-            try (final InputStream contents = response.getContents()) {
-                body = asString(contents);
+        // If the handler fails, or gives up because its deadline has passed, the rest of the body may be large
+        // or slow to arrive, so the connection is aborted before the contents are closed, rather than drained.
+        <T> T handleBody(ResponseHandler<T> handler) throws IOException {
+            final InputStream contents = getDecodedContents();
+            boolean handled = false;
+            try {
+                final T result = handler.handleResponse(contents);
+                handled = true;
+                return result;
+            } finally {
+                if (!handled) response.abort();
+                closeContents(contents, handled);
             }
         }
 
+        private void closeContents(InputStream contents, boolean handled) throws IOException {
+            try {
+                contents.close();
+            } catch (IOException e) {
+                if (handled) throw e;
+            }
+        }
+
+        // The server may ignore the request for compression, in which case the contents are returned as sent.
+        private InputStream getDecodedContents() throws IOException {
+            final InputStream contents = response.getContents();
+            return isGzipEncoded() ? decompress(contents) : contents;
+        }
+
+        private boolean isGzipEncoded() {
+            return response.getHeadersAsStream(CONTENT_ENCODING_HEADER)
+                  .filter(Objects::nonNull)
+                  .map(String::trim)
+                  .anyMatch(e -> e.equalsIgnoreCase(GZIP_ENCODING) || e.equalsIgnoreCase(LEGACY_GZIP_ENCODING));
+        }
+
+        // A gzip stream reads its header on creation, so an empty body is returned without one.
+        private InputStream decompress(InputStream contents) throws IOException {
+            final PushbackInputStream pushbackStream = new PushbackInputStream(contents);
+            final int firstByte = pushbackStream.read();
+            if (firstByte < 0) return pushbackStream;
+
+            pushbackStream.unread(firstByte);
+            return new GZIPInputStream(pushbackStream, DECOMPRESSION_BUFFER_SIZE);
+        }
+
         private void processStatusCode() {
             switch (response.getResponseCode()) {
                 case HTTP_BAD_REQUEST:
@@ -241,7 +344,7 @@ public abstract class WebClientCommon implements WebClient {
 
         private ServerErrorException createServerErrorException() {
             try {
-                return new ServerErrorException(response.getResponseCode(), asString(response.getContents()));
+                return new ServerErrorException(response.getResponseCode(), asString(getDecodedContents()));
             } catch (IOException e) {
                 return new ServerErrorException(response.getResponseCode());
             }
@@ -255,21 +358,16 @@ public abstract class WebClientCommon implements WebClient {
             return response.getHeadersAsStream(AUTHENTICATION_CHALLENGE_HEADER).filter(Objects::nonNull).findFirst().orElse(null);
         }
 
-        private String asString(InputStream inputStream) throws IOException {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[4096];
-            int numBytes = 0;
-            while (numBytes >= 0) {
-                baos.write(buffer, 0, numBytes);
-                numBytes = inputStream.read(buffer);
-            }
-            return baos.toString("UTF8");
-        }
+    }
 
-        @Override
-        public String getBody() {
-            return body;
+    private static String asString(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int numBytes = 0;
+        while (numBytes >= 0) {
+            baos.write(buffer, 0, numBytes);
+            numBytes = inputStream.read(buffer);
         }
-
+        return baos.toString("UTF8");
     }
 }
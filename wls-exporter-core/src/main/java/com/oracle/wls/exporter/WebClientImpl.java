@@ -1,25 +1,30 @@
-// Copyright 2017, 2020, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import javax.net.ssl.SSLContext;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
@@ -32,20 +37,37 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
 import org.apache.http.ssl.TrustStrategy;
+import org.apache.http.util.EntityUtils;
 
 /**
  * A production implementation of the web client interface that uses Apache HttpClient code. Since it is intended
  * to invoke the WebLogic REST API from a web application on the same server, it does not do any enforcement
  * of signed certificates when using https.
  *
+ * <p>All instances share a single pool of persistent connections, so that successive requests, and successive scrapes,
+ * need not open a new connection, nor repeat the TLS handshake, each time. Since cookies and credentials are
+ * managed per instance, the shared client neither stores cookies nor caches authentication. Compressed responses
+ * are handled by the common code, as for the other web clients. The number of connections which the pool keeps open,
+ * both to each server and in total, is taken from the live configuration whenever a client is created.
+ *
  * @author Russell Gold
  */
 public class WebClientImpl extends WebClientCommon {
 
+    /** The number of seconds after which an unused connection is closed. */
+    static final int MAX_IDLE_SECONDS = 60;
+
+    /** The time in milliseconds after which an unused connection is checked before reuse. */
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 1000;
+
+    private static CloseableHttpClient sharedClient;
+    private static PoolingHttpClientConnectionManager connectionManager;
+
     private final List<BasicHeader> addedHeaders = new ArrayList<>();
     private final List<BasicHeader> sessionHeaders = new ArrayList<>();
 
@@ -93,6 +115,7 @@ public class WebClientImpl extends WebClientCommon {
 
     static class HttpResponseImpl implements WebResponse {
         private final CloseableHttpResponse response;
+        private boolean aborted;
 
         public HttpResponseImpl(CloseableHttpResponse response) {
             this.response = response;
@@ -123,9 +146,25 @@ public class WebClientImpl extends WebClientCommon {
             return Arrays.stream(response.getHeaders(headerName)).map(Header::getValue);
         }
 
+        // Closing the response before its content is consumed shuts down the connection, rather than reusing it.
+        @Override
+        public void abort() {
+            aborted = true;
+            try {
+                response.close();
+            } catch (IOException ignored) {
+                // the connection is discarded in any case
+            }
+        }
+
+        // Any unread content is consumed so that the connection may be returned to the pool.
         @Override
         public void close() throws IOException {
-            response.close();
+            try {
+                if (!aborted) EntityUtils.consumeQuietly(response.getEntity());
+            } finally {
+                response.close();
+            }
         }
     }
 
@@ -137,29 +176,67 @@ public class WebClientImpl extends WebClientCommon {
     class ApacheHttpClient implements HttpClientExec {
         private final CloseableHttpClient client;
         public ApacheHttpClient() throws GeneralSecurityException {
-            SelfSignedCertificateAcceptor acceptor = new SelfSignedCertificateAcceptor();
-            client = HttpClientBuilder.create()
-                  .setDefaultHeaders(getDefaultHeaders())
-                  .setSSLSocketFactory(acceptor.getSslConnectionSocketFactory())
-                  .setConnectionManager(acceptor.getConnectionManager())
-                  .build();
+            client = getSharedClient();
         }
 
         @Override
         public WebResponse send(WebRequest request) throws IOException {
+            final HttpUriRequest httpRequest = (HttpUriRequest) request;
+            getDefaultHeaders().forEach(httpRequest::addHeader);
+            if (getRequestTimeout() > 0) ((HttpRequestBase) httpRequest).setConfig(createTimeoutConfig());
             try {
-                return new HttpResponseImpl(client.execute((HttpUriRequest) request));
+                return new HttpResponseImpl(client.execute(httpRequest));
             } catch (HttpHostConnectException e) {
                 throw new RestPortConnectionException(e.getHost().toURI());
             }
         }
 
+        private RequestConfig createTimeoutConfig() {
+            final int timeout = (int) Math.min(Integer.MAX_VALUE, getRequestTimeout());
+            return RequestConfig.custom()
+                  .setConnectTimeout(timeout)
+                  .setConnectionRequestTimeout(timeout)
+                  .setSocketTimeout(timeout)
+                  .build();
+        }
+
+        // The shared client remains open for use by later requests.
         @Override
-        public void close() throws IOException {
-            client.close();
+        public void close() {
+            // no-op
         }
     }
 
+    private static synchronized CloseableHttpClient getSharedClient() throws GeneralSecurityException {
+        if (sharedClient == null)
+            sharedClient = createSharedClient();
+        applyConnectionLimits(LiveConfiguration.getMaxConnectionsPerTarget(), LiveConfiguration.getMaxConnections());
+        return sharedClient;
+    }
+
+    // The pool accepts new limits at any time. Connections beyond a reduced limit are closed as they are released.
+    static synchronized void applyConnectionLimits(int maxPerTarget, int maxTotal) {
+        if (connectionManager.getDefaultMaxPerRoute() != maxPerTarget) connectionManager.setDefaultMaxPerRoute(maxPerTarget);
+        if (connectionManager.getMaxTotal() != maxTotal) connectionManager.setMaxTotal(maxTotal);
+    }
+
+    static synchronized PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    private static CloseableHttpClient createSharedClient() throws GeneralSecurityException {
+        connectionManager = new SelfSignedCertificateAcceptor().getConnectionManager();
+        return HttpClientBuilder.create()
+              .setConnectionManager(connectionManager)
+              .evictIdleConnections(MAX_IDLE_SECONDS, TimeUnit.SECONDS)
+              .evictExpiredConnections()
+              .disableCookieManagement()
+              .disableAuthCaching()
+              .disableConnectionState()
+              .disableContentCompression()
+              .build();
+    }
+
     @Override
     void clearSessionHeaders() {
         sessionHeaders.clear();
@@ -171,7 +248,7 @@ public class WebClientImpl extends WebClientCommon {
     }
 
 
-    private Collection<? extends Header> getDefaultHeaders() {
+    private List<Header> getDefaultHeaders() {
         List<Header> headers = new ArrayList<>(addedHeaders);
         headers.addAll(sessionHeaders);
         return headers;
@@ -186,16 +263,14 @@ public class WebClientImpl extends WebClientCommon {
             socketFactoryRegistry = createSocketFactoryRegistry();
         }
 
-        BasicHttpClientConnectionManager getConnectionManager() {
-            return new BasicHttpClientConnectionManager(socketFactoryRegistry);
-        }
-
-        SSLConnectionSocketFactory getSslConnectionSocketFactory() {
-            return sslConnectionSocketFactory;
+        PoolingHttpClientConnectionManager getConnectionManager() {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+            return connectionManager;
         }
 
         private SSLConnectionSocketFactory createSSLConnectionSocketFactory() throws GeneralSecurityException {
-            return new SSLConnectionSocketFactory(createSSLContext(), NoopHostnameVerifier.INSTANCE);
+            return new CountingSSLConnectionSocketFactory(createSSLContext());
         }
 
         private SSLContext createSSLContext() throws GeneralSecurityException {
@@ -210,10 +285,36 @@ public class WebClientImpl extends WebClientCommon {
 
         private Registry<ConnectionSocketFactory> createSocketFactoryRegistry() {
             return RegistryBuilder.<ConnectionSocketFactory> create()
-                  .register("http", new PlainConnectionSocketFactory())
+                  .register("http", new CountingPlainConnectionSocketFactory())
                   .register("https", sslConnectionSocketFactory)
                   .build();
         }
 
     }
+
+    // The socket factories record each new connection, so that the reuse of pooled connections may be reported.
+
+    static class CountingPlainConnectionSocketFactory extends PlainConnectionSocketFactory {
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            final Socket result = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            ConnectionStatistics.recordConnection();
+            return result;
+        }
+    }
+
+    static class CountingSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+        CountingSSLConnectionSocketFactory(SSLContext sslContext) {
+            super(sslContext, NoopHostnameVerifier.INSTANCE);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            final Socket result = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            ConnectionStatistics.recordConnection();
+            return result;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+/**
+ * A single REST query which retrieves the metrics for all of the selectors of one query type. Where selectors
+ * overlap on the same mbeans, those mbeans are requested once, with the fields needed by any of the selectors,
+ * and each selector is then scraped from the shared response.
+ */
+public class CombinedQuery {
+    private final QueryType queryType;
+    private final List<MBeanSelector> selectors;
+    private final String request;
+
+    private CombinedQuery(QueryType queryType, List<MBeanSelector> selectors) {
+        this.queryType = queryType;
+        this.selectors = Collections.unmodifiableList(selectors);
+        this.request = createRequest(selectors);
+    }
+
+    private static String createRequest(List<MBeanSelector> selectors) {
+        if (selectors.size() == 1) return selectors.get(0).getRequest();
+
+        final JsonQuerySpec spec = selectors.get(0).toQuerySpec();
+        for (MBeanSelector selector : selectors.subList(1, selectors.size()))
+            spec.merge(selector.toQuerySpec());
+        return spec.toJson(new Gson());
+    }
+
+    /**
+     * Plans the queries needed to obtain metrics for the specified selectors: one for each query type in use.
+     * Configuration queries come first, as their results may change the qualifiers used by the others.
+     * @param selectors the selectors for which metrics are needed
+     * @return a list of combined queries
+     */
+    public static List<CombinedQuery> plan(MBeanSelector[] selectors) {
+        final Map<QueryType, List<MBeanSelector>> selectorsByType = new EnumMap<>(QueryType.class);
+        for (MBeanSelector selector : selectors)
+            selectorsByType.computeIfAbsent(selector.getQueryType(), type -> new ArrayList<>()).add(selector);
+
+        final List<CombinedQuery> result = new ArrayList<>();
+        selectorsByType.forEach((type, typeSelectors) -> result.add(new CombinedQuery(type, typeSelectors)));
+        result.sort(Comparator.comparing(query -> query.getQueryType() != QueryType.CONFIGURATION));
+        return result;
+    }
+
+    public QueryType getQueryType() {
+        return queryType;
+    }
+
+    /**
+     * Returns the selectors whose metrics this query retrieves, in configuration order.
+     */
+    public List<MBeanSelector> getSelectors() {
+        return selectors;
+    }
+
+    /**
+     * Returns the JSON string query to be sent to the REST service.
+     */
+    public String getRequest() {
+        return request;
+    }
+}
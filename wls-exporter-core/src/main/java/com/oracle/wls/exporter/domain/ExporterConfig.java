@@ -1,8 +1,9 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,11 +15,14 @@ import java.util.Optional;
 import java.util.stream.Stream;
 
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.scanner.ScannerException;
 
 /**
- * This class represents the configuration for the exporter, created by parsing YAML.
+ * This class represents the configuration for the exporter, created by parsing YAML. A configuration is not changed
+ * once created; appending or replacing queries produces a new one, so that a scrape may continue to use
+ * the configuration with which it started while another replaces it.
  *
  * @author Russell Gold
  */
@@ -33,19 +37,50 @@ public class ExporterConfig implements MetricsProcessor {
     static final String SNAKE_CASE = "metricsNameSnakeCase";
     static final String DOMAIN_QUALIFIER = "domainQualifier";
     static final String REST_PORT = "restPort";
+    static final String QUERY_CONCURRENCY = "queryConcurrency";
+    static final String COLLECTION_INTERVAL = "collectionInterval";
+    static final String COALESCE_WINDOW = "coalesceWindow";
+    static final String COMPRESSION_LEVEL = "compressionLevel";
+    static final String COMBINE_QUERIES = "combineQueries";
+    static final String DOMAIN_RUNTIME = "domainRuntime";
+    static final String SERVER_TIMEOUT = "serverTimeout";
+    static final String IN_PROCESS_COLLECTION = "inProcessCollection";
+    static final String ASYNC_SCRAPE_THREADS = "asyncScrapeThreads";
+    static final String REST_CONCURRENCY_LIMIT = "restConcurrencyLimit";
+    static final String MAX_CONNECTIONS_PER_TARGET = "maxConnectionsPerTarget";
+    static final String MAX_CONNECTIONS = "maxConnections";
     private static final String QUERIES_TAG = "queries";
 
     private static final MBeanSelector[] NO_QUERIES = {};
     private static final String DOMAIN_NAME_QUALIFIER = "domain=\"%s\"";
+    private static final int DEFAULT_QUERY_CONCURRENCY = 1;
+    private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    private static final int DEFAULT_SERVER_TIMEOUT = 10;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_TARGET = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final int MAX_COMPRESSION_LEVEL = 9;
 
     private static boolean defaultSnakeCaseSetting;
 
     private MBeanSelector[] queries = {};
     private Integer restPort;
+    private int queryConcurrency = DEFAULT_QUERY_CONCURRENCY;
+    private int collectionInterval;
+    private int coalesceWindow;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
     private boolean metricsNameSnakeCase = defaultSnakeCaseSetting;
     private QuerySyncConfiguration querySyncConfiguration;
     private boolean useDomainQualifier;
-    private String domainName = System.getProperty(DOMAIN_NAME_PROPERTY);
+    private boolean combineQueries;
+    private boolean domainRuntime;
+    private int serverTimeout = DEFAULT_SERVER_TIMEOUT;
+    private boolean inProcessCollection;
+    private int asyncScrapeThreads;
+    private int restConcurrencyLimit;
+    private int maxConnectionsPerTarget = DEFAULT_MAX_CONNECTIONS_PER_TARGET;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private volatile String domainName = System.getProperty(DOMAIN_NAME_PROPERTY);
+    private final SeriesNameCache seriesNames = new SeriesNameCache();
 
     /**
      * Creates an empty configuration.
@@ -88,15 +123,59 @@ public class ExporterConfig implements MetricsProcessor {
      * @return a map of metric names to values
      */
     public Map<String, Object> scrapeMetrics(MBeanSelector selector, JsonObject response) {
-        MetricsScraper scraper = new MetricsScraper(getGlobalQualifiers());
-        scraper.setMetricNameSnakeCase(metricsNameSnakeCase);
-        Map<String, Object> metrics = scraper.scrape(selector, response);
+        Map<String, Object> metrics = createScraper().scrape(selector, response);
+        selector.postProcessMetrics(metrics, this);
+        return metrics;
+    }
+
+    /**
+     * Creates a set of metrics from a Json stream, reading only those fields needed by the selector.
+     *
+     * @param selector the description of the metrics to scrape.
+     * @param response a reader positioned at the start of a JSON REST response
+     * @return a map of metric names to values
+     * @throws IOException if unable to read the response
+     */
+    public Map<String, Object> scrapeMetrics(MBeanSelector selector, JsonReader response) throws IOException {
+        Map<String, Object> metrics = createScraper().scrape(selector, response);
         selector.postProcessMetrics(metrics, this);
         return metrics;
     }
 
+    /**
+     * Scrapes the metrics for each of the selectors in a combined query from the response to that query.
+     * @param query the combined query
+     * @param response a reader positioned at the start of the response
+     * @return the metrics found for each selector, in the order of the query's selectors
+     * @throws IOException if unable to read the response
+     */
+    public List<Map<String, Object>> scrapeMetrics(CombinedQuery query, JsonReader response) throws IOException {
+        final JsonObject sharedResponse = createSharedResponseScraper().readSharedResponse(response, query.getSelectors());
+
+        final List<Map<String, Object>> result = new ArrayList<>();
+        for (MBeanSelector selector : query.getSelectors()) {
+            final Map<String, Object> metrics = createSharedResponseScraper().scrape(selector, sharedResponse);
+            selector.postProcessMetrics(metrics, this);
+            result.add(metrics);
+        }
+        return result;
+    }
+
+    // A scraper is created for each selector, as the global qualifiers may be changed by an earlier one.
+    private MetricsScraper createSharedResponseScraper() {
+        final MetricsScraper scraper = createScraper();
+        scraper.setResponseShared(true);
+        return scraper;
+    }
+
+    private MetricsScraper createScraper() {
+        MetricsScraper scraper = new MetricsScraper(getGlobalQualifiers(), seriesNames);
+        scraper.setMetricNameSnakeCase(metricsNameSnakeCase);
+        return scraper;
+    }
+
     private String getGlobalQualifiers() {
-        return Optional.ofNullable(domainName).map(n->String.format(DOMAIN_NAME_QUALIFIER, n)).orElse("");
+        return Optional.ofNullable(domainName).map(n->String.format(DOMAIN_NAME_QUALIFIER, LabelValues.escape(n))).orElse("");
     }
 
     @Override
@@ -111,7 +190,11 @@ public class ExporterConfig implements MetricsProcessor {
     public MBeanSelector[] getEffectiveQueries() {
         if (queries == null) return NO_QUERIES;
 
-        return withPossibleDomainNameQuery(Arrays.stream(queries)).toArray(MBeanSelector[]::new);
+        return withPossibleDomainNameQuery(Arrays.stream(queries).map(this::toEffectiveQuery)).toArray(MBeanSelector[]::new);
+    }
+
+    private MBeanSelector toEffectiveQuery(MBeanSelector query) {
+        return domainRuntime ? query.getDomainSelector() : query;
     }
 
     /**
@@ -143,10 +226,44 @@ public class ExporterConfig implements MetricsProcessor {
         if (yaml.containsKey(DOMAIN_QUALIFIER)) setDomainQualifier(yaml);
         if (yaml.containsKey(SNAKE_CASE)) setMetricsNameSnakeCase(yaml);
         if (yaml.containsKey(REST_PORT)) restPort = MapUtils.getIntegerValue(yaml, REST_PORT);
+        if (yaml.containsKey(QUERY_CONCURRENCY)) setQueryConcurrency(yaml);
+        if (yaml.containsKey(COLLECTION_INTERVAL)) setCollectionInterval(yaml);
+        if (yaml.containsKey(COALESCE_WINDOW)) setCoalesceWindow(yaml);
+        if (yaml.containsKey(COMPRESSION_LEVEL)) setCompressionLevel(yaml);
+        if (yaml.containsKey(COMBINE_QUERIES)) setCombineQueries(yaml);
+        if (yaml.containsKey(DOMAIN_RUNTIME)) setDomainRuntime(yaml);
+        if (yaml.containsKey(SERVER_TIMEOUT)) setServerTimeout(yaml);
+        if (yaml.containsKey(IN_PROCESS_COLLECTION)) setInProcessCollection(yaml);
+        if (yaml.containsKey(ASYNC_SCRAPE_THREADS)) setAsyncScrapeThreads(yaml);
+        if (yaml.containsKey(REST_CONCURRENCY_LIMIT)) setRestConcurrencyLimit(yaml);
+        if (yaml.containsKey(MAX_CONNECTIONS_PER_TARGET)) setMaxConnectionsPerTarget(yaml);
+        if (yaml.containsKey(MAX_CONNECTIONS)) setMaxConnections(yaml);
         if (yaml.containsKey(QUERY_SYNC)) querySyncConfiguration = loadQuerySync(yaml.get(QUERY_SYNC));
         if (yaml.containsKey(QUERIES_TAG)) appendQueries(asList(yaml.get(QUERIES_TAG)));
     }
 
+    // Creates a copy of the specified configuration, with its own queries array and an empty series name cache.
+    private ExporterConfig(ExporterConfig original) {
+        this.queries = original.getQueries().clone();
+        this.restPort = original.restPort;
+        this.queryConcurrency = original.queryConcurrency;
+        this.collectionInterval = original.collectionInterval;
+        this.coalesceWindow = original.coalesceWindow;
+        this.compressionLevel = original.compressionLevel;
+        this.metricsNameSnakeCase = original.metricsNameSnakeCase;
+        this.querySyncConfiguration = original.querySyncConfiguration;
+        this.useDomainQualifier = original.useDomainQualifier;
+        this.combineQueries = original.combineQueries;
+        this.domainRuntime = original.domainRuntime;
+        this.serverTimeout = original.serverTimeout;
+        this.inProcessCollection = original.inProcessCollection;
+        this.asyncScrapeThreads = original.asyncScrapeThreads;
+        this.restConcurrencyLimit = original.restConcurrencyLimit;
+        this.maxConnectionsPerTarget = original.maxConnectionsPerTarget;
+        this.maxConnections = original.maxConnections;
+        this.domainName = original.domainName;
+    }
+
     private Object asList(Object value) {
         return Optional.ofNullable(value).orElse(Collections.emptyList());
     }
@@ -160,6 +277,87 @@ public class ExporterConfig implements MetricsProcessor {
         }
     }
 
+    private void setQueryConcurrency(Map<String, Object> yaml) {
+        queryConcurrency = MapUtils.getIntegerValue(yaml, QUERY_CONCURRENCY);
+        if (queryConcurrency < 1)
+            throw MapUtils.createBadTypeException(QUERY_CONCURRENCY, queryConcurrency, "a positive integer");
+    }
+
+    private void setCollectionInterval(Map<String, Object> yaml) {
+        collectionInterval = MapUtils.getIntegerValue(yaml, COLLECTION_INTERVAL);
+        if (collectionInterval < 0)
+            throw MapUtils.createBadTypeException(COLLECTION_INTERVAL, collectionInterval, "a non-negative integer");
+    }
+
+    private void setCoalesceWindow(Map<String, Object> yaml) {
+        coalesceWindow = MapUtils.getIntegerValue(yaml, COALESCE_WINDOW);
+        if (coalesceWindow < 0)
+            throw MapUtils.createBadTypeException(COALESCE_WINDOW, coalesceWindow, "a non-negative integer");
+    }
+
+    private void setCompressionLevel(Map<String, Object> yaml) {
+        compressionLevel = MapUtils.getIntegerValue(yaml, COMPRESSION_LEVEL);
+        if (compressionLevel < 0 || compressionLevel > MAX_COMPRESSION_LEVEL)
+            throw MapUtils.createBadTypeException(COMPRESSION_LEVEL, compressionLevel, "an integer from 0 to 9");
+    }
+
+    private void setCombineQueries(Map<String, Object> yaml) {
+        try {
+            combineQueries = MapUtils.getBooleanValue(yaml, COMBINE_QUERIES);
+        } catch (ConfigurationException e) {
+            e.addContext(COMBINE_QUERIES);
+            throw e;
+        }
+    }
+
+    private void setDomainRuntime(Map<String, Object> yaml) {
+        try {
+            domainRuntime = MapUtils.getBooleanValue(yaml, DOMAIN_RUNTIME);
+        } catch (ConfigurationException e) {
+            e.addContext(DOMAIN_RUNTIME);
+            throw e;
+        }
+    }
+
+    private void setInProcessCollection(Map<String, Object> yaml) {
+        try {
+            inProcessCollection = MapUtils.getBooleanValue(yaml, IN_PROCESS_COLLECTION);
+        } catch (ConfigurationException e) {
+            e.addContext(IN_PROCESS_COLLECTION);
+            throw e;
+        }
+    }
+
+    private void setAsyncScrapeThreads(Map<String, Object> yaml) {
+        asyncScrapeThreads = MapUtils.getIntegerValue(yaml, ASYNC_SCRAPE_THREADS);
+        if (asyncScrapeThreads < 0)
+            throw MapUtils.createBadTypeException(ASYNC_SCRAPE_THREADS, asyncScrapeThreads, "a non-negative integer");
+    }
+
+    private void setRestConcurrencyLimit(Map<String, Object> yaml) {
+        restConcurrencyLimit = MapUtils.getIntegerValue(yaml, REST_CONCURRENCY_LIMIT);
+        if (restConcurrencyLimit < 0)
+            throw MapUtils.createBadTypeException(REST_CONCURRENCY_LIMIT, restConcurrencyLimit, "a non-negative integer");
+    }
+
+    private void setMaxConnectionsPerTarget(Map<String, Object> yaml) {
+        maxConnectionsPerTarget = MapUtils.getIntegerValue(yaml, MAX_CONNECTIONS_PER_TARGET);
+        if (maxConnectionsPerTarget < 1)
+            throw MapUtils.createBadTypeException(MAX_CONNECTIONS_PER_TARGET, maxConnectionsPerTarget, "a positive integer");
+    }
+
+    private void setMaxConnections(Map<String, Object> yaml) {
+        maxConnections = MapUtils.getIntegerValue(yaml, MAX_CONNECTIONS);
+        if (maxConnections < 1)
+            throw MapUtils.createBadTypeException(MAX_CONNECTIONS, maxConnections, "a positive integer");
+    }
+
+    private void setServerTimeout(Map<String, Object> yaml) {
+        serverTimeout = MapUtils.getIntegerValue(yaml, SERVER_TIMEOUT);
+        if (serverTimeout < 1)
+            throw MapUtils.createBadTypeException(SERVER_TIMEOUT, serverTimeout, "a positive integer");
+    }
+
     private void setDomainQualifier(Map<String, Object> yaml) {
         try {
             useDomainQualifier = MapUtils.getBooleanValue(yaml, DOMAIN_QUALIFIER);
@@ -243,6 +441,113 @@ public class ExporterConfig implements MetricsProcessor {
         return restPort;
     }
 
+    /**
+     * Returns the maximum number of top-level queries which may be sent to the REST API at the same time
+     * during a single scrape. A value of one causes the queries to be run in sequence.
+     * @return a positive number
+     */
+    public int getQueryConcurrency() {
+        return queryConcurrency;
+    }
+
+    /**
+     * Returns the interval, in seconds, at which metrics are to be collected in the background. A value of zero
+     * causes metrics to be collected only when requested.
+     * @return a non-negative number
+     */
+    public int getCollectionInterval() {
+        return collectionInterval;
+    }
+
+    /**
+     * Returns the length of time, in seconds, after a scrape completes during which its metrics may be sent
+     * in response to other scrapes with the same credentials. Scrapes which arrive while another is in progress
+     * always share its metrics.
+     * @return a non-negative number
+     */
+    public int getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    /**
+     * Returns the level at which metrics are to be compressed for clients which accept a compressed response,
+     * from 1 (fastest) to 9 (smallest). A value of zero causes metrics never to be compressed.
+     * @return a number from 0 to 9
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns true if all queries of the same type are to be sent to the REST API as a single request,
+     * rather than one request for each query.
+     * @return true if queries should be combined
+     */
+    public boolean combineQueries() {
+        return combineQueries;
+    }
+
+    /**
+     * Returns true if the runtime metrics of every running server in the domain are to be obtained from
+     * the domain runtime mbeans of the admin server, rather than only those of the server being queried.
+     * @return true if metrics should be collected for the domain
+     */
+    public boolean useDomainRuntime() {
+        return domainRuntime;
+    }
+
+    /**
+     * Returns the length of time, in seconds, to wait for the metrics of a single server when collecting
+     * them from the domain runtime. A server which does not respond in time is reported, and its metrics omitted.
+     * @return a positive number
+     */
+    public int getServerTimeout() {
+        return serverTimeout;
+    }
+
+    /**
+     * Returns true if metrics are to be read directly from the mbean server of the WebLogic Server instance
+     * in which the exporter is running, rather than by queries to its REST API.
+     * @return true if metrics should be collected in-process
+     */
+    public boolean useInProcessCollection() {
+        return inProcessCollection;
+    }
+
+    /**
+     * Returns the number of threads on which the exporter servlet runs scrapes asynchronously, releasing
+     * the container's request threads at once. No more than this number of scrapes run at the same time.
+     * @return a positive number; zero if scrapes are to run on the request threads
+     */
+    public int getAsyncScrapeThreads() {
+        return asyncScrapeThreads;
+    }
+
+    /**
+     * Returns the greatest number of REST queries which may be sent to any one server at the same time. Within it,
+     * the number actually allowed adapts to the time the server takes to respond.
+     * @return a positive number; zero if the number of concurrent queries is not limited
+     */
+    public int getRestConcurrencyLimit() {
+        return restConcurrencyLimit;
+    }
+
+    /**
+     * Returns the greatest number of connections which the exporter keeps open to any one server.
+     * @return a positive number
+     */
+    public int getMaxConnectionsPerTarget() {
+        return maxConnectionsPerTarget;
+    }
+
+    /**
+     * Returns the greatest number of connections which the exporter keeps open to all servers together.
+     * @return a positive number
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
     /**
      * Returns true if attribute names should be converted to snake case as metric names
      * @return true if the conversion should be done
@@ -264,26 +569,56 @@ public class ExporterConfig implements MetricsProcessor {
     }
 
     /**
-     * Appends the queries from the specified configuration
+     * Returns a new configuration which combines this one with the queries from the specified configuration.
+     * This configuration is unchanged.
      * @param config2 an additional configuration to combine with this one
+     * @return the combined configuration
      */
-    public void append(ExporterConfig config2) {
+    public ExporterConfig withAppendedQueries(ExporterConfig config2) {
+        final ExporterConfig result = new ExporterConfig(this);
         for (MBeanSelector query : config2.getQueries())
-            appendQuery(query);
+            result.appendQuery(query);
+        return result;
     }
 
     /**
-     * Replaces the display rules from the specified configuration. Display rules in
-     * the queries and the metricsNameSnakeCase setting.
+     * Returns a new configuration which takes its display rules from the specified configuration. Display rules
+     * are the queries and the top-level settings other than query_sync. This configuration is unchanged.
      * @param config2 a new configuration whose display rules will replace those from this one
+     * @return the new configuration
+     */
+    public ExporterConfig withDisplayRulesFrom(ExporterConfig config2) {
+        final ExporterConfig result = new ExporterConfig(this);
+        result.metricsNameSnakeCase = config2.metricsNameSnakeCase;
+        result.useDomainQualifier = config2.useDomainQualifier;
+        result.restPort = config2.restPort;
+        result.queryConcurrency = config2.queryConcurrency;
+        result.collectionInterval = config2.collectionInterval;
+        result.coalesceWindow = config2.coalesceWindow;
+        result.compressionLevel = config2.compressionLevel;
+        result.combineQueries = config2.combineQueries;
+        result.domainRuntime = config2.domainRuntime;
+        result.serverTimeout = config2.serverTimeout;
+        result.inProcessCollection = config2.inProcessCollection;
+        result.asyncScrapeThreads = config2.asyncScrapeThreads;
+        result.restConcurrencyLimit = config2.restConcurrencyLimit;
+        result.maxConnectionsPerTarget = config2.maxConnectionsPerTarget;
+        result.maxConnections = config2.maxConnections;
+        result.queries = config2.getQueries().clone();
+        result.resetDomainName();
+        return result;
+    }
+
+    /**
+     * Returns a copy of this configuration for use with a server other than the configured one. Its queries are
+     * copied without the keys they have found, and any domain name found must be found again.
+     * @return a new configuration
      */
-    public void replace(ExporterConfig config2) {
-        this.metricsNameSnakeCase = config2.metricsNameSnakeCase;
-        this.useDomainQualifier = config2.useDomainQualifier;
-        this.restPort = config2.restPort;
-        MBeanSelector[] newQueries = config2.getQueries();
-        this.queries = Arrays.copyOf(newQueries, newQueries.length);
-        resetDomainName();
+    public ExporterConfig copyForTarget() {
+        final ExporterConfig result = new ExporterConfig(this);
+        result.queries = Arrays.stream(getQueries()).map(MBeanSelector::copy).toArray(MBeanSelector[]::new);
+        result.domainName = System.getProperty(DOMAIN_NAME_PROPERTY);
+        return result;
     }
 
     public void resetDomainName() {
@@ -299,6 +634,27 @@ public class ExporterConfig implements MetricsProcessor {
         if (metricsNameSnakeCase) sb.append("metricsNameSnakeCase: true\n");
         if (useDomainQualifier) sb.append(DOMAIN_QUALIFIER + ": true\n");
         if (restPort != null) sb.append(REST_PORT + ": ").append(restPort).append("\n");
+        if (queryConcurrency != DEFAULT_QUERY_CONCURRENCY)
+            sb.append(QUERY_CONCURRENCY + ": ").append(queryConcurrency).append("\n");
+        if (collectionInterval != 0)
+            sb.append(COLLECTION_INTERVAL + ": ").append(collectionInterval).append("\n");
+        if (coalesceWindow != 0)
+            sb.append(COALESCE_WINDOW + ": ").append(coalesceWindow).append("\n");
+        if (compressionLevel != DEFAULT_COMPRESSION_LEVEL)
+            sb.append(COMPRESSION_LEVEL + ": ").append(compressionLevel).append("\n");
+        if (combineQueries) sb.append(COMBINE_QUERIES + ": true\n");
+        if (domainRuntime) sb.append(DOMAIN_RUNTIME + ": true\n");
+        if (serverTimeout != DEFAULT_SERVER_TIMEOUT)
+            sb.append(SERVER_TIMEOUT + ": ").append(serverTimeout).append("\n");
+        if (inProcessCollection) sb.append(IN_PROCESS_COLLECTION + ": true\n");
+        if (asyncScrapeThreads != 0)
+            sb.append(ASYNC_SCRAPE_THREADS + ": ").append(asyncScrapeThreads).append("\n");
+        if (restConcurrencyLimit != 0)
+            sb.append(REST_CONCURRENCY_LIMIT + ": ").append(restConcurrencyLimit).append("\n");
+        if (maxConnectionsPerTarget != DEFAULT_MAX_CONNECTIONS_PER_TARGET)
+            sb.append(MAX_CONNECTIONS_PER_TARGET + ": ").append(maxConnectionsPerTarget).append("\n");
+        if (maxConnections != DEFAULT_MAX_CONNECTIONS)
+            sb.append(MAX_CONNECTIONS + ": ").append(maxConnections).append("\n");
         sb.append("queries:\n");
 
         for (MBeanSelector query : getQueries())
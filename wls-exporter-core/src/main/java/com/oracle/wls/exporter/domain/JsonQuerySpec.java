@@ -1,11 +1,13 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +56,79 @@ class JsonQuerySpec {
         children.put(name, child);
     }
 
+    /**
+     * Adds the fields and nested queries of another query to this one, so that a single request
+     * will retrieve everything that either would. Where only one of the queries filters its mbeans by key,
+     * the combined query retrieves all of them, along with their keys, so that each query's own filter may be
+     * applied to the response.
+     * @param other the query to combine with this one
+     */
+    void merge(JsonQuerySpec other) {
+        mergeFields(other);
+        mergeFilter(other);
+        if (other.children != null)
+            other.children.forEach(this::mergeChild);
+    }
+
+    // A query without a list of fields retrieves all fields other than those it excludes.
+    private void mergeFields(JsonQuerySpec other) {
+        if (fields != null && other.fields != null)
+            addMissingFields(other.fields);
+        else if (fields == null && other.fields == null)
+            excludeFields = intersection(excludeFields, other.excludeFields);
+        else if (fields == null)
+            excludeFields = difference(excludeFields, other.fields);
+        else {
+            excludeFields = difference(other.excludeFields, fields);
+            fields = null;
+        }
+    }
+
+    private void addMissingFields(List<String> newFields) {
+        newFields.stream().filter(field -> !fields.contains(field)).forEach(fields::add);
+    }
+
+    private static List<String> intersection(List<String> first, List<String> second) {
+        if (first == null || second == null) return null;
+
+        final List<String> result = new ArrayList<>(first);
+        result.retainAll(second);
+        return result.isEmpty() ? null : result;
+    }
+
+    private static List<String> difference(List<String> excluded, List<String> needed) {
+        if (excluded == null) return null;
+
+        final List<String> result = new ArrayList<>(excluded);
+        result.removeAll(needed);
+        return result.isEmpty() ? null : result;
+    }
+
+    private void mergeFilter(JsonQuerySpec other) {
+        if (keyName == null && other.keyName == null) return;
+
+        if (keyName != null && other.keyName != null)
+            selectedKeys = union(selectedKeys, other.selectedKeys);
+        else {
+            keyName = null;
+            selectedKeys = null;
+        }
+        if (fields != null) addMissingFields(Collections.singletonList(MBeanSelector.FILTER_KEY));
+    }
+
+    private static List<String> union(List<String> first, List<String> second) {
+        final Set<String> result = new LinkedHashSet<>(first);
+        result.addAll(second);
+        return new ArrayList<>(result);
+    }
+
+    private void mergeChild(String name, JsonQuerySpec child) {
+        if (children == null || !children.containsKey(name))
+            addChild(name, child);
+        else
+            children.get(name).merge(child);
+    }
+
     void setFilter(Set<String> selectedKeys) {
         this.keyName = MBeanSelector.FILTER_KEY;
         this.selectedKeys = new ArrayList<>(selectedKeys);
@@ -0,0 +1,44 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+/**
+ * Support for label values in the Prometheus text format.
+ */
+public class LabelValues {
+
+  private LabelValues() {
+    // no-op
+  }
+
+  /**
+   * Escapes the backslashes, double quotes and line feeds in a label value, as required by the text format.
+   * As most values need no escaping, such values are returned without creating a new string.
+   * @param value the value to escape
+   * @return a string which may be placed between double quotes in a label
+   */
+  public static String escape(String value) {
+    for (int i = 0; i < value.length(); i++)
+      if (needsEscape(value.charAt(i))) return escapeFrom(value, i);
+    return value;
+  }
+
+  private static boolean needsEscape(char c) {
+    return c == '\\' || c == '"' || c == '\n';
+  }
+
+  private static String escapeFrom(String value, int start) {
+    final StringBuilder sb = new StringBuilder(value.length() + 8).append(value, 0, start);
+    for (int i = start; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '\n')
+        sb.append("\\n");
+      else if (needsEscape(c))
+        sb.append('\\').append(c);
+      else
+        sb.append(c);
+    }
+    return sb.toString();
+  }
+}
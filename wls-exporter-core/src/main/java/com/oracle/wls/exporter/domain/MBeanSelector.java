@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
@@ -6,9 +6,11 @@ package com.oracle.wls.exporter.domain;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,8 +19,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -52,6 +52,12 @@ public class MBeanSelector {
     static final String NESTING = "  ";
     static final long KEY_UPDATE_INTERVAL_SECONDS = 60;
 
+    /** The name of the child of the domain runtime which holds the runtime mbeans of each running server. **/
+    static final String SERVER_RUNTIMES = "serverRuntimes";
+    /** The qualifier which identifies the server from which a domain runtime metric was obtained. **/
+    static final String SERVER_KEY_NAME = "server";
+    private static final String ALL_KEYS = ".*";
+
     private String type;
     private String prefix;
     private String key;
@@ -60,13 +66,16 @@ public class MBeanSelector {
     private String excludedKeys;
     private Pattern includedPattern;
     private Pattern excludedPattern;
-    private final Set<String> filter = new HashSet<>();
+    private volatile Set<String> filter = Collections.emptySet();
     private List<String> values = new ArrayList<>();
     private Map<String, List<String>> stringValues;
     private Map<String, MBeanSelector> nestedSelectors = new LinkedHashMap<>();
     private QueryType queryType = QueryType.RUNTIME;
-    private long lastKeyTime = 0;
+    private volatile long lastKeyTime = 0;
     private String[] forbiddenFields;
+    private volatile SelectorPlan plan;
+    private long planGeneration;
+    private MBeanSelector domainSelector;
 
     private static MBeanSelector createDomainNameSelector() {
         Map<String,Object> yaml = new HashMap<>();
@@ -233,6 +242,7 @@ public class MBeanSelector {
 
     private void setForbiddenFields(String[] forbiddenFields) {
         this.forbiddenFields = forbiddenFields;
+        invalidatePlan();
         nestedSelectors.entrySet().forEach(this::defineNestedForbiddenFields);
     }
 
@@ -332,6 +342,28 @@ public class MBeanSelector {
         return nestedSelectors;
     }
 
+    /**
+     * Returns the names of the nested selectors on the way from this one to the mbeans it selects, separated
+     * by periods, such as "applicationRuntimes.componentRuntimes". Where the selector branches, the names of
+     * the branches are listed, separated by commas.
+     * @return a short description of the selected mbeans
+     */
+    public String getPath() {
+        final StringBuilder sb = new StringBuilder();
+        MBeanSelector selector = this;
+        while (selector.nestedSelectors.size() == 1) {
+            final Map.Entry<String, MBeanSelector> nested = selector.nestedSelectors.entrySet().iterator().next();
+            if (sb.length() > 0) sb.append('.');
+            sb.append(nested.getKey());
+            selector = nested.getValue();
+        }
+        if (!selector.nestedSelectors.isEmpty()) {
+            if (sb.length() > 0) sb.append('.');
+            sb.append(String.join(",", selector.nestedSelectors.keySet()));
+        }
+        return sb.toString();
+    }
+
     /**
      * Returns a JSON string query to be displayed.
      * @return a JSON string
@@ -345,9 +377,44 @@ public class MBeanSelector {
      * @return a JSON string
      */
     public String getRequest() {
+        return getPlan().getRequest();
+    }
+
+    String createRequest() {
         return toQuerySpec().toJson(new Gson());
     }
 
+    /**
+     * Returns the compiled form of this selector, creating it if the selector has changed since it was last needed.
+     */
+    SelectorPlan getPlan() {
+        SelectorPlan result = plan;
+        while (result == null)
+            result = compilePlan();
+        return result;
+    }
+
+    // Keys may be installed while a plan is compiled, so the plan is kept only if the selector has not changed since
+    // compilation began. Otherwise, it returns null, and the plan is compiled again from the new keys.
+    private SelectorPlan compilePlan() {
+        final long generation = getPlanGeneration();
+        final SelectorPlan result = new SelectorPlan(this);
+        synchronized (this) {
+            if (generation != planGeneration) return null;
+            plan = result;
+        }
+        return result;
+    }
+
+    private synchronized long getPlanGeneration() {
+        return planGeneration;
+    }
+
+    private synchronized void invalidatePlan() {
+        planGeneration++;
+        plan = null;
+    }
+
     JsonQuerySpec toQuerySpec() {
         JsonQuerySpec spec = new JsonQuerySpec();
         if (useAllValues()) {
@@ -355,8 +422,9 @@ public class MBeanSelector {
         } else {
             selectQueryFields(spec, getQueryValues());
         }
-        if (currentSelectorHasFilter() && !filter.isEmpty())
-            spec.setFilter(filter);
+        final Set<String> selectedKeys = filter;
+        if (currentSelectorHasFilter() && !selectedKeys.isEmpty())
+            spec.setFilter(selectedKeys);
 
         for (Map.Entry<String, MBeanSelector> entry : nestedSelectors.entrySet())
             if (entry.getValue().isEnabled())
@@ -365,7 +433,7 @@ public class MBeanSelector {
         return spec;
     }
 
-    private List<String> getActiveForbiddenFields() {
+    List<String> getActiveForbiddenFields() {
         if (forbiddenFields == null)
             return Collections.emptyList();
         else
@@ -376,6 +444,13 @@ public class MBeanSelector {
         return !forbiddenField.contains(":");
     }
 
+    /**
+     * Returns the keys of the mbeans selected by this selector, or null if it does not filter by key.
+     */
+    Set<String> getSelectedKeys() {
+        return currentSelectorHasFilter() ? filter : null;
+    }
+
     private boolean isEnabled() {
         return !filter.isEmpty() || !currentSelectorHasFilter();
     }
@@ -395,9 +470,27 @@ public class MBeanSelector {
      * @return a JSON string
      */
     public String getKeyRequest() {
+        return getPlan().getKeyRequest();
+    }
+
+    String createKeyRequest() {
         return toKeyQuerySpec().asTopLevel().toJson(new Gson());
     }
 
+    /**
+     * Returns a single JSON string query for the keys needed by all of the specified selectors, which must
+     * be sent to the same REST URL. Each selector may then be offered the entire response.
+     * @param selectors the selectors whose keys are needed
+     * @return a JSON string
+     */
+    public static String getKeyRequest(Collection<MBeanSelector> selectors) {
+        if (selectors.size() == 1) return selectors.iterator().next().getKeyRequest();
+
+        final JsonQuerySpec spec = new JsonQuerySpec().asTopLevel();
+        selectors.forEach(selector -> spec.merge(selector.toKeyQuerySpec()));
+        return spec.toJson(new Gson());
+    }
+
     JsonQuerySpec toKeyQuerySpec() {
         JsonQuerySpec spec = new JsonQuerySpec();
         if (currentSelectorHasFilter())
@@ -416,7 +509,27 @@ public class MBeanSelector {
      * Returns true if this selector or one of its children needs an updated set of keys.
      */
     public boolean needsNewKeys() {
-        return hasFilter() && (hasNoKeys() || keysAreObsolete());
+        return getPlan().hasFilter() && (hasNoKeys() || keysAreObsolete());
+    }
+
+    /**
+     * Returns true if this selector or one of its children filters by key, but no keys have yet been offered.
+     * Until they are, the selector will not request any filtered mbeans.
+     */
+    public boolean needsInitialKeys() {
+        return getPlan().hasFilter() && hasNoKeys();
+    }
+
+    /**
+     * Claims the refresh of this selector's keys if they are obsolete, so that only one caller will request them.
+     * A failed refresh is thus retried only after another update interval.
+     * @return true if the caller should request new keys, false if they are not needed or already being refreshed
+     */
+    public synchronized boolean claimKeyRefresh() {
+        if (!getPlan().hasFilter() || hasNoKeys() || !keysAreObsolete()) return false;
+
+        lastKeyTime = systemClock.millis();
+        return true;
     }
 
     private boolean hasNoKeys() {
@@ -431,7 +544,7 @@ public class MBeanSelector {
         return (systemClock.millis() - lastKeyTime) / 1000;
     }
 
-    private boolean hasFilter() {
+    boolean hasFilter() {
         return currentSelectorHasFilter() || nestedSelectorHasFilter();
     }
 
@@ -443,17 +556,27 @@ public class MBeanSelector {
         return nestedSelectors.values().stream().anyMatch(MBeanSelector::hasFilter);
     }
 
-    public void offerKeys(JsonObject keyResponse) {
-        this.lastKeyTime = systemClock.millis();
+    /**
+     * Replaces the keys selected by this selector and its children with those found in a response to a key request.
+     * Keys which are no longer present are thus dropped. Updates are serialized, while scrapes which use
+     * the selector continue to see a consistent set of keys.
+     * @param keyResponse the parsed response
+     */
+    public synchronized void offerKeys(JsonObject keyResponse) {
+        lastKeyTime = systemClock.millis();
 
+        final Map<MBeanSelector, Set<String>> foundKeys = new IdentityHashMap<>();
+        collectKeys(keyResponse, foundKeys);
+        installKeys(foundKeys);
+    }
+
+    private void collectKeys(JsonObject keyResponse, Map<MBeanSelector, Set<String>> foundKeys) {
         for (String subElementKey : keyResponse.keySet()) {
             final MBeanSelector mBeanSelector = getSelector(subElementKey);
-            if (mBeanSelector != null) {
-                getItemsAsStream(keyResponse, subElementKey)
-                      .filter(JsonElement::isJsonObject)
-                      .map(JsonElement::getAsJsonObject)
-                      .forEach(mBeanSelector::acceptItem);
-            }
+            if (mBeanSelector != null)
+                for (JsonElement item : getItems(keyResponse, subElementKey))
+                    if (item.isJsonObject())
+                        mBeanSelector.collectItemKeys(item.getAsJsonObject(), foundKeys);
         }
     }
 
@@ -461,32 +584,71 @@ public class MBeanSelector {
         return getNestedSelectors().get(subElementKey);
     }
 
-    private Stream<JsonElement> getItemsAsStream(JsonObject keyResponse, String subElementKey) {
-        JsonArray ja = Optional.ofNullable(keyResponse.get(subElementKey))
+    private JsonArray getItems(JsonObject keyResponse, String subElementKey) {
+        return Optional.ofNullable(keyResponse.get(subElementKey))
               .filter(JsonElement::isJsonObject)
               .map(JsonElement::getAsJsonObject)
               .map(o -> o.get("items"))
               .filter(JsonElement::isJsonArray)
               .map(JsonElement::getAsJsonArray)
               .orElse(new JsonArray());
-
-        return StreamSupport.stream(ja.spliterator(), false);
     }
 
-
-    private void acceptItem(JsonObject entry) {
-        final JsonElement keyElement = entry.get(FILTER_KEY);
-        if (keyElement == null)
-            offerKeys(entry);
-        else if (keyElement.isJsonPrimitive() && keyElement.getAsJsonPrimitive().isString()) {
-            final String offeredKey = keyElement.getAsJsonPrimitive().getAsString();
+    // The keys of nested mbeans are only collected under mbeans which are themselves selected.
+    private void collectItemKeys(JsonObject item, Map<MBeanSelector, Set<String>> foundKeys) {
+        if (!currentSelectorHasFilter()) {
+            collectKeys(item, foundKeys);
+        } else {
+            final String offeredKey = getFilterKey(item);
             if (isSelectedKey(offeredKey)) {
-                filter.add(offeredKey);
-                offerKeys(entry);
+                foundKeys.computeIfAbsent(this, s -> new HashSet<>()).add(offeredKey);
+                collectKeys(item, foundKeys);
             }
         }
     }
 
+    private String getFilterKey(JsonObject item) {
+        final JsonElement keyElement = item.get(FILTER_KEY);
+        if (keyElement == null || !keyElement.isJsonPrimitive() || !keyElement.getAsJsonPrimitive().isString())
+            return null;
+        else
+            return keyElement.getAsString();
+    }
+
+    // Returns true if the keys selected by this selector or its children have changed.
+    private boolean installKeys(Map<MBeanSelector, Set<String>> foundKeys) {
+        boolean changed = currentSelectorHasFilter() && replaceFilter(foundKeys.getOrDefault(this, Collections.emptySet()));
+        for (MBeanSelector selector : nestedSelectors.values())
+            if (selector.hasFilter() && selector.installKeys(foundKeys))
+                changed = true;
+
+        if (changed) invalidatePlan();
+        return changed;
+    }
+
+    // The filter is replaced rather than changed, so that a scrape building its query from it never sees it change.
+    private boolean replaceFilter(Set<String> keys) {
+        if (filter.equals(keys)) return false;
+
+        filter = Collections.unmodifiableSet(keys);
+        return true;
+    }
+
+    /**
+     * Returns true if this selector, rather than one of its children, filters its mbeans by key.
+     */
+    boolean filtersKeys() {
+        return currentSelectorHasFilter();
+    }
+
+    /**
+     * Returns true if this selector filters its mbeans by key, and does not select an mbean with the specified key.
+     * @param filterKey the value of the mbean's filter key field. May be null.
+     */
+    boolean isRejectedKey(String filterKey) {
+        return currentSelectorHasFilter() && !isSelectedKey(filterKey);
+    }
+
     private boolean isSelectedKey(String foundKey) {
         return foundKey != null && isIncluded(foundKey) && !isExcluded(foundKey);
     }
@@ -554,6 +716,75 @@ public class MBeanSelector {
         }
     }
 
+    // Creates a copy of the specified selector and its children, without any of the keys which they have found.
+    private MBeanSelector(MBeanSelector original) {
+        copyScalars(original);
+        values = original.getValuesAsList();
+        stringValues = original.stringValues;
+        forbiddenFields = original.forbiddenFields;
+        queryType = original.queryType;
+        original.nestedSelectors.forEach((k, selector) -> nestedSelectors.put(k, new MBeanSelector(selector)));
+    }
+
+    /**
+     * Returns a copy of this selector and its children which has not yet found any keys.
+     */
+    MBeanSelector copy() {
+        return new MBeanSelector(this);
+    }
+
+    /**
+     * Returns a selector which obtains the metrics selected by this runtime selector for every running server
+     * in the domain, from the domain runtime mbeans of the admin server. Its metrics are qualified by server name.
+     * The servers are found in the same way as other filtered keys, and each may then be queried on its own.
+     * @return a selector of the domain runtime query type
+     */
+    public synchronized MBeanSelector getDomainSelector() {
+        if (domainSelector == null)
+            domainSelector = createDomainSelector();
+        return domainSelector;
+    }
+
+    private MBeanSelector createDomainSelector() {
+        final MBeanSelector serverSelector = new MBeanSelector(this);
+        serverSelector.key = FILTER_KEY;
+        serverSelector.keyName = SERVER_KEY_NAME;
+        serverSelector.excludedKeys = null;
+        serverSelector.excludedPattern = null;
+        serverSelector.setIncludedKeys(ALL_KEYS);
+
+        final MBeanSelector result = new MBeanSelector(Collections.emptyMap());
+        result.nestedSelectors.put(SERVER_RUNTIMES, serverSelector);
+        result.setQueryType(QueryType.DOMAIN_RUNTIME);
+        return result;
+    }
+
+    /**
+     * Returns the names of the servers found by this domain selector, in alphabetical order.
+     * @return a list of server names; empty if none have yet been found
+     */
+    public List<String> getServerNames() {
+        final MBeanSelector serverSelector = nestedSelectors.get(SERVER_RUNTIMES);
+        final List<String> result = new ArrayList<>(serverSelector == null ? Collections.emptySet() : serverSelector.filter);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns a JSON string query for the metrics of a single server, to be sent to the domain runtime.
+     * The response may be scraped with this domain selector.
+     * @param serverName the name of the server
+     * @return a JSON string
+     */
+    public String getServerRequest(String serverName) {
+        final JsonQuerySpec serverSpec = nestedSelectors.get(SERVER_RUNTIMES).toQuerySpec();
+        serverSpec.setFilter(Collections.singleton(serverName));
+
+        final JsonQuerySpec spec = new JsonQuerySpec().asTopLevel();
+        spec.addChild(SERVER_RUNTIMES, serverSpec);
+        return spec.toJson(new Gson());
+    }
+
     boolean mayMergeWith(MBeanSelector other) {
         if (!Objects.equals(keyName, other.keyName)) return false;
         if (!Objects.equals(key, other.key)) return false;
@@ -577,34 +808,29 @@ public class MBeanSelector {
         return queryType;
     }
 
-    @SuppressWarnings("SameParameterValue")
     void setQueryType(QueryType queryType) {
         this.queryType = queryType;
+        invalidatePlan();
     }
 
     boolean acceptsStrings() {
         return queryType.acceptsStrings();
     }
 
-    boolean isStringMetric(String fieldName) {
-        return stringValues != null && stringValues.containsKey(fieldName);
+    /**
+     * Returns the fields whose string values are to be converted to metrics, with the values recognized for each.
+     * @return a map of field names to lists of values; empty if none are defined
+     */
+    Map<String, List<String>> getStringValues() {
+        return stringValues == null ? Collections.emptyMap() : stringValues;
     }
 
-    int getStringMetricValue(String fieldName, String value) {
-        if (!isStringMetric(fieldName))
-            return -1;
-        else {
-            return getIndex(value, stringValues.get(fieldName));
-        }
+    boolean isStringMetric(String fieldName) {
+        return getPlan().isStringMetric(fieldName);
     }
 
-    private int getIndex(String value, List<String> fieldValues) {
-        for (int i = 0; i < fieldValues.size(); i++) {
-            if (value.equalsIgnoreCase(fieldValues.get(i))) {
-                return i;
-            }
-        }
-        return -1;
+    int getStringMetricValue(String fieldName, String value) {
+        return getPlan().getStringMetricValue(fieldName, value);
     }
 
     void postProcessMetrics(Map<String, Object> metrics, MetricsProcessor processor) {
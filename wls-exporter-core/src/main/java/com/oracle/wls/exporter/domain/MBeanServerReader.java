@@ -0,0 +1,187 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Reads the mbeans selected by an {@link MBeanSelector} directly from an mbean server, such as the runtime
+ * mbean server of the WebLogic Server instance in which the exporter is running. The result has the same form
+ * as the REST API's response to the selector's query, and so is scraped into the same metrics, but is built
+ * without an HTTP exchange, authentication, or JSON serialization and parsing.
+ *
+ * <p>Each REST field corresponds to the mbean attribute of the same name with its first letter capitalized.
+ * Child mbeans are found by attribute, rather than by REST children: an attribute holding an object name
+ * is a single child, and one holding an array of object names is a list of them.
+ */
+public class MBeanServerReader {
+
+    /** The name of the mbean from which the runtime and configuration mbeans of the local server are reached. **/
+    public static final ObjectName RUNTIME_SERVICE
+          = createObjectName("com.bea:Name=RuntimeService,Type=weblogic.management.mbeanservers.runtime.RuntimeServiceMBean");
+
+    private static final String ITEMS = "items";
+    private static final String TYPE = "type";
+    private static final Map<QueryType, String> ROOT_ATTRIBUTES = new EnumMap<>(QueryType.class);
+    private static final Set<String> SCALAR_TYPES = new HashSet<>(Arrays.asList(
+          "int", "long", "short", "byte", "double", "float", "boolean",
+          Integer.class.getName(), Long.class.getName(), Short.class.getName(), Byte.class.getName(),
+          Double.class.getName(), Float.class.getName(), Boolean.class.getName(), String.class.getName()));
+
+    static {
+        ROOT_ATTRIBUTES.put(QueryType.RUNTIME, "ServerRuntime");
+        ROOT_ATTRIBUTES.put(QueryType.CONFIGURATION, "DomainConfiguration");
+    }
+
+    private final MBeanServer server;
+
+    public MBeanServerReader(MBeanServer server) {
+        this.server = server;
+    }
+
+    private static ObjectName createObjectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Returns true if the selectors of the specified query type may be read from an mbean server. The domain runtime
+     * mbeans are found only on the admin server's domain runtime mbean server, and so may not.
+     * @param queryType the type of a selector's query
+     */
+    public static boolean canRead(QueryType queryType) {
+        return ROOT_ATTRIBUTES.containsKey(queryType);
+    }
+
+    /**
+     * Reads the mbeans selected by the specified selector, along with the fields it needs.
+     * @param selector a selector whose query type may be read
+     * @return an object of the same form as a REST response to the selector's query
+     * @throws JMException if unable to read the root mbean
+     */
+    public JsonObject read(MBeanSelector selector) throws JMException {
+        if (!canRead(selector.getQueryType()))
+            throw new IllegalArgumentException("Unable to read " + selector.getQueryType() + " mbeans from an mbean server");
+
+        final ObjectName root = (ObjectName) server.getAttribute(RUNTIME_SERVICE, ROOT_ATTRIBUTES.get(selector.getQueryType()));
+        return Optional.ofNullable(readMBean(root, selector)).orElse(new JsonObject());
+    }
+
+    // Returns null if the mbean is no longer registered, or is not selected because of its key.
+    private JsonObject readMBean(ObjectName name, MBeanSelector selector) throws JMException {
+        final Map<String, Object> values = readFields(name, selector);
+        if (values == null || selector.isRejectedKey(asString(values.get(MBeanSelector.FILTER_KEY)))) return null;
+
+        final JsonObject result = new JsonObject();
+        for (Map.Entry<String, Object> entry : values.entrySet())
+            if (selector.getNestedSelectors().containsKey(entry.getKey()))
+                addChild(result, entry.getKey(), entry.getValue(), selector.getNestedSelectors().get(entry.getKey()));
+            else
+                addField(result, entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    // Reads all the attributes needed from the mbean in a single call, returning their values by field name.
+    private Map<String, Object> readFields(ObjectName name, MBeanSelector selector) throws JMException {
+        try {
+            final Map<String, String> fieldNames = getFieldNames(name, selector);
+            final AttributeList attributes = server.getAttributes(name, fieldNames.keySet().toArray(new String[0]));
+
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (Attribute attribute : attributes.asList())
+                result.put(fieldNames.get(attribute.getName()), attribute.getValue());
+            return result;
+        } catch (InstanceNotFoundException e) {
+            return null;
+        }
+    }
+
+    // Returns the names of the fields needed from the mbean, keyed by the names of the corresponding attributes.
+    private Map<String, String> getFieldNames(ObjectName name, MBeanSelector selector) throws JMException {
+        final SelectorPlan plan = selector.getPlan();
+        final Map<String, String> result = new LinkedHashMap<>();
+        Optional.ofNullable(plan.getKey()).ifPresent(key -> addFieldName(result, key));
+        if (plan.hasTypeFilter()) addFieldName(result, TYPE);
+        if (selector.filtersKeys()) addFieldName(result, MBeanSelector.FILTER_KEY);
+        for (String valueName : plan.useAllValues() ? getScalarFieldNames(name) : Arrays.asList(plan.getQueryValues()))
+            if (plan.isSelectedValue(valueName)) addFieldName(result, valueName);
+        selector.getNestedSelectors().keySet().forEach(child -> addFieldName(result, child));
+        return result;
+    }
+
+    private static void addFieldName(Map<String, String> fieldNames, String fieldName) {
+        fieldNames.put(toAttributeName(fieldName), fieldName);
+    }
+
+    private Iterable<String> getScalarFieldNames(ObjectName name) throws JMException {
+        final Set<String> result = new LinkedHashSet<>();
+        for (MBeanAttributeInfo attribute : server.getMBeanInfo(name).getAttributes())
+            if (attribute.isReadable() && SCALAR_TYPES.contains(attribute.getType()))
+                result.add(toFieldName(attribute.getName()));
+        return result;
+    }
+
+    static String toAttributeName(String fieldName) {
+        return Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    // Follows the JavaBeans convention, under which a name that starts with an acronym is left unchanged.
+    static String toFieldName(String attributeName) {
+        if (attributeName.length() > 1 && Character.isUpperCase(attributeName.charAt(1)))
+            return attributeName;
+        else
+            return Character.toLowerCase(attributeName.charAt(0)) + attributeName.substring(1);
+    }
+
+    private void addChild(JsonObject object, String fieldName, Object value, MBeanSelector selector) throws JMException {
+        if (value instanceof ObjectName)
+            Optional.ofNullable(readMBean((ObjectName) value, selector)).ifPresent(child -> object.add(fieldName, child));
+        else if (value instanceof ObjectName[])
+            object.add(fieldName, readList((ObjectName[]) value, selector));
+    }
+
+    private JsonObject readList(ObjectName[] names, MBeanSelector selector) throws JMException {
+        final JsonArray items = new JsonArray();
+        for (ObjectName name : names)
+            Optional.ofNullable(readMBean(name, selector)).ifPresent(items::add);
+
+        final JsonObject result = new JsonObject();
+        result.add(ITEMS, items);
+        return result;
+    }
+
+    private void addField(JsonObject object, String fieldName, Object value) {
+        if (value instanceof Number)
+            object.addProperty(fieldName, (Number) value);
+        else if (value instanceof String)
+            object.addProperty(fieldName, (String) value);
+        else if (value instanceof Boolean)
+            object.addProperty(fieldName, (Boolean) value);
+    }
+}
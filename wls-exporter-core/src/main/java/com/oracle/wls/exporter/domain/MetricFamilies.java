@@ -0,0 +1,125 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of series names to values which iterates over its series grouped by metric family. Families appear in the order
+ * in which their first series was added, and the series of each family in the order in which they were added.
+ * Output built from such a map is thus deterministic for a given response, without needing to be sorted.
+ */
+class MetricFamilies extends AbstractMap<String, Object> {
+
+    private final Map<String, Map<String, Object>> families = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * Adds a series to the specified family.
+     * @param family the family name, which must be the series name without any labels
+     * @param name the series name
+     * @param value the series value
+     */
+    void put(String family, String name, Object value) {
+        if (getFamily(family).put(name, value) == null) size++;
+    }
+
+    private Map<String, Object> getFamily(String family) {
+        return families.computeIfAbsent(family, f -> new LinkedHashMap<>());
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        final Object oldValue = getFamily(getFamilyName(name)).put(name, value);
+        if (oldValue == null) size++;
+        return oldValue;
+    }
+
+    @Override
+    public Object get(Object name) {
+        return getSeries(name).get(name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return getSeries(name).containsKey(name);
+    }
+
+    @Override
+    public Object remove(Object name) {
+        final Map<String, Object> series = getSeries(name);
+        if (!series.containsKey(name)) return null;
+
+        size--;
+        final Object oldValue = series.remove(name);
+        if (series.isEmpty()) families.remove(getFamilyName((String) name));
+        return oldValue;
+    }
+
+    private Map<String, Object> getSeries(Object name) {
+        if (!(name instanceof String)) return Collections.emptyMap();
+        return families.getOrDefault(getFamilyName((String) name), Collections.emptyMap());
+    }
+
+    private static String getFamilyName(String name) {
+        final int labelStart = name.indexOf('{');
+        return labelStart < 0 ? name : name.substring(0, labelStart);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new SeriesIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // A family emptied by this iterator is left in place, and simply contributes no series.
+    private class SeriesIterator implements Iterator<Entry<String, Object>> {
+        private final Iterator<Map<String, Object>> familyIterator = families.values().iterator();
+        private Iterator<Entry<String, Object>> seriesIterator = Collections.emptyIterator();
+        private Iterator<Entry<String, Object>> lastReturnedFrom;
+
+        @Override
+        public boolean hasNext() {
+            while (!seriesIterator.hasNext() && familyIterator.hasNext())
+                seriesIterator = familyIterator.next().entrySet().iterator();
+            return seriesIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            lastReturnedFrom = seriesIterator;
+            return seriesIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturnedFrom == null) throw new IllegalStateException();
+            lastReturnedFrom.remove();
+            lastReturnedFrom = null;
+            size--;
+        }
+    }
+}
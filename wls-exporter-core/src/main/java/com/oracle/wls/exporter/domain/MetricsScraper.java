@@ -1,16 +1,25 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import com.oracle.wls.exporter.domain.SeriesNameCache.Node;
 
 import static com.oracle.wls.exporter.domain.MapUtils.isNullOrEmptyString;
 
@@ -21,12 +30,22 @@ import static com.oracle.wls.exporter.domain.MapUtils.isNullOrEmptyString;
  */
 class MetricsScraper {
     private static final char QUOTE = '"';
+    private static final String ITEMS = "items";
+    private static final String LINKS = "links";
+    private static final String TYPE = "type";
     private final String globalQualifiers;
-    private Map<String, Object> metrics = new HashMap<>();
+    private final SeriesNameCache seriesNames;
+    private MetricFamilies metrics = new MetricFamilies();
     private boolean metricNameSnakeCase;
+    private boolean responseShared;
 
     MetricsScraper(String globalQualifiers) {
+        this(globalQualifiers, new SeriesNameCache());
+    }
+
+    MetricsScraper(String globalQualifiers, SeriesNameCache seriesNames) {
         this.globalQualifiers = globalQualifiers;
+        this.seriesNames = seriesNames;
     }
 
     Map<String, Object> getMetrics() {
@@ -37,48 +56,147 @@ class MetricsScraper {
         this.metricNameSnakeCase = metricNameSnakeCase;
     }
 
+    /**
+     * Specifies that responses are shared by several selectors, and may therefore hold mbeans and fields
+     * which a selector did not request. Each selector then applies its own key filter.
+     * @param responseShared true if responses are shared
+     */
+    void setResponseShared(boolean responseShared) {
+        this.responseShared = responseShared;
+    }
+
     /**
      * Scrapes metrics from a response, in accordance with the rules defined in the selector.
      * @param selector an mbean selector, configured with the metrics we want to find
      * @param response a parsed JSON REST response
+     * @return the metrics found, which iterate grouped by metric family
      */
     Map<String, Object> scrape(MBeanSelector selector, JsonObject response) {
-        metrics = new HashMap<>();
-        createDelegate(selector, response).scrapeItem();
+        metrics = new MetricFamilies();
+        final Node root = seriesNames.startScrape(selector, globalQualifiers, metricNameSnakeCase);
+        new ScrapeDelegate(selector, response, root).scrapeItem();
+        seriesNames.completeScrape(root);
         return metrics;
     }
 
+    /**
+     * Scrapes metrics from a response as it is read, in accordance with the rules defined in the selector.
+     * Fields which the selector does not request are skipped without being parsed.
+     * @param selector an mbean selector, configured with the metrics we want to find
+     * @param reader a reader positioned at the start of a JSON REST response
+     * @return the metrics found, which iterate grouped by metric family
+     * @throws IOException if unable to read the response
+     */
+    Map<String, Object> scrape(MBeanSelector selector, JsonReader reader) throws IOException {
+        metrics = new MetricFamilies();
+        final Node root = seriesNames.startScrape(selector, globalQualifiers, metricNameSnakeCase);
+        new StreamedItem(selector, root).scrape(reader);
+        seriesNames.completeScrape(root);
+        return metrics;
+    }
+
+    /**
+     * Reads a response which is shared by several selectors, keeping only the fields which are needed by at least
+     * one of them, so that each may then be scraped from the result.
+     * @param reader a reader positioned at the start of a JSON REST response
+     * @param selectors the selectors which will be scraped from the response
+     * @return the parsed response
+     * @throws IOException if unable to read the response
+     */
+    JsonObject readSharedResponse(JsonReader reader, List<MBeanSelector> selectors) throws IOException {
+        return readTree(reader, selectors);
+    }
+
     ScrapeDelegate createDelegate(MBeanSelector selector, JsonObject response) {
-        return new ScrapeDelegate(selector, response, globalQualifiers);
+        return new ScrapeDelegate(selector, response, createDetachedNode(globalQualifiers));
+    }
+
+    private Node createDetachedNode(String qualifiers) {
+        return SeriesNameCache.createDetachedNode(qualifiers, metricNameSnakeCase);
+    }
+
+    // Returns the cache node for an mbean, creating it if this is the first time the mbean has been seen.
+    private Node getItemNode(MBeanSelector selector, Node parent, JsonElement keyValue) {
+        final String key = keyValue == null ? null : keyValue.getAsString();
+        final Node node = parent.getChild(selector, key);
+        if (node != null)
+            return node;
+        else
+            return parent.addChild(selector, key, getItemQualifiers(selector.getPlan(), parent.getQualifiers(), keyValue));
+    }
+
+    private String getItemQualifiers(SelectorPlan plan, String qualifiers, JsonElement keyValue) {
+        String result = qualifiers;
+        if (keyValue != null) {
+            if (!isNullOrEmptyString(result)) result += ',';
+            result += plan.getKeyName() + uniqueSuffix(plan, qualifiers) + '=' + asQuotedString(keyValue);
+        }
+        return result;
+    }
+
+    private Object uniqueSuffix(SelectorPlan plan, String qualifiers) {
+        return qualifiers.startsWith(plan.getKeyQualifierPrefix()) ? '2' : "";
+    }
+
+    private String asQuotedString(JsonElement jsonElement) {
+        return QUOTE + LabelValues.escape(jsonElement.getAsString()) + QUOTE;
+    }
+
+    private boolean isExcludedType(SelectorPlan plan, JsonElement typeField) {
+        return plan.hasTypeFilter() && typeField != null && plan.isExcludedType(typeField.getAsString());
+    }
+
+    // Returns true if the named field is needed to compute metrics for the selector.
+    private boolean isNeededField(SelectorPlan plan, String fieldName) {
+        return fieldName.equals(plan.getKey()) || fieldName.equals(TYPE) || plan.isSelectedValue(fieldName)
+              || (responseShared && plan.hasKeyFilter() && fieldName.equals(MBeanSelector.FILTER_KEY));
+    }
+
+    private boolean isExcludedKey(SelectorPlan plan, JsonElement filterKey) {
+        return responseShared && plan.isExcludedKey(isString(filterKey) ? filterKey.getAsString() : null);
+    }
+
+    private static boolean isString(JsonElement element) {
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    private static boolean isPrimitive(JsonToken token) {
+        return token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN;
     }
 
     class ScrapeDelegate {
         private final MBeanSelector selector;
+        private final SelectorPlan plan;
         private final JsonObject object;
-        private final String qualifiers;
+        private final Node parent;
 
-        ScrapeDelegate(MBeanSelector selector, JsonObject object, String qualifiers) {
+        ScrapeDelegate(MBeanSelector selector, JsonObject object, Node parent) {
             this.selector = selector;
+            this.plan = selector.getPlan();
             this.object = object;
-            this.qualifiers = qualifiers;
+            this.parent = parent;
         }
 
         void scrapeSubObjects(String qualifiers) {
+            scrapeSubObjects(createDetachedNode(qualifiers));
+        }
+
+        private void scrapeSubObjects(Node itemNode) {
             for (String selectorKey : selector.getNestedSelectors().keySet()) {
                 final JsonElement value = object.get(selectorKey);
                 if (value instanceof JsonObject) {
                     final MBeanSelector nestedSelector = selector.getNestedSelectors().get(selectorKey);
-                    createForSubObjects(nestedSelector, (JsonObject) value, qualifiers).scrapeItemOrList();
+                    createForSubObjects(nestedSelector, (JsonObject) value, itemNode).scrapeItemOrList();
                 }
             }
         }
 
-        private ScrapeDelegate createForSubObjects(MBeanSelector selector, JsonObject value, String qualifiers) {
-            return new ScrapeDelegate(selector, value, qualifiers);
+        private ScrapeDelegate createForSubObjects(MBeanSelector selector, JsonObject value, Node parent) {
+            return new ScrapeDelegate(selector, value, parent);
         }
 
         private void scrapeItemOrList() {
-            JsonArray items = object.getAsJsonArray("items");
+            JsonArray items = object.getAsJsonArray(ITEMS);
             if (items == null)
                 scrapeItem();
             else
@@ -87,111 +205,336 @@ class MetricsScraper {
         }
 
         private ScrapeDelegate createForItem(JsonObject asJsonObject) {
-            return new ScrapeDelegate(selector, asJsonObject, qualifiers);
+            return new ScrapeDelegate(selector, asJsonObject, parent);
         }
 
         private String[] getValueNames() {
-            return selector.useAllValues() ? getKeysAsArray() : selector.getQueryValues();
+            return plan.useAllValues() ? getKeysAsArray() : plan.getQueryValues();
         }
 
         private String[] getKeysAsArray() {
-            return object.keySet().toArray(new String[0]);
+            return object.keySet().stream().filter(plan::isSelectedValue).toArray(String[]::new);
         }
 
         private void scrapeItem() {
-            if (excludeByType()) return;
-            final String itemQualifiers = getItemQualifiers();
+            if (excludeByType() || isExcludedKey(plan, object.get(MBeanSelector.FILTER_KEY))) return;
+            final Node itemNode = getItemNode(selector, parent, object.get(plan.getKey()));
 
             for (String valueName : getValueNames()) {
-                scrapeValue(itemQualifiers, valueName);
+                scrapeValue(itemNode, valueName);
             }
 
-            scrapeSubObjects(itemQualifiers);
+            scrapeSubObjects(itemNode);
         }
 
-        private void scrapeValue(String itemQualifiers, String valueName) {
-            if (valueName.equals(selector.getKey())) return;
+        private void scrapeValue(Node itemNode, String valueName) {
+            if (valueName.equals(plan.getKey())) return;
 
-            new ScrapedMetric(itemQualifiers, valueName).add();
+            new ScrapedMetric(plan, itemNode, valueName, getPrimitive(valueName)).add();
+        }
+
+        private JsonPrimitive getPrimitive(String valueName) {
+            return Optional.ofNullable(object.get(valueName))
+                  .filter(JsonElement::isJsonPrimitive)
+                  .map(JsonElement::getAsJsonPrimitive)
+                  .orElse(null);
         }
 
         private boolean excludeByType() {
-            final JsonElement typeField = object.get("type");
-            final String typeFilter = selector.getType();
-            return typeFilter != null && typeField != null && !typeFilter.equals(typeField.getAsString());
+            return isExcludedType(plan, object.get(TYPE));
         }
+    }
 
-        private String getItemQualifiers() {
-            String result = qualifiers;
-            if (object.has(selector.getKey())) {
-                if (!isNullOrEmptyString(result)) result += ',';
-                result += selector.getKeyName() + uniqueSuffix() +'=' + asQuotedString(object.get(selector.getKey()));
-            }
-            return result;
+    /**
+     * An mbean whose fields are being read from a JSON stream. Its values are reported as soon as the fields
+     * which determine its qualifiers and type have been read. Until then, values are held, and any nested
+     * objects are read into trees which contain only the fields needed by their selectors.
+     */
+    class StreamedItem {
+        private final MBeanSelector selector;
+        private final SelectorPlan plan;
+        private final Node parent;
+        private final Map<String, JsonPrimitive> pendingValues = new LinkedHashMap<>();
+        private final Map<String, JsonObject> pendingSubObjects = new LinkedHashMap<>();
+        private JsonPrimitive keyValue;
+        private JsonPrimitive typeValue;
+        private Node itemNode;
+        private boolean resolved;
+        private boolean excluded;
+
+        StreamedItem(MBeanSelector selector, Node parent) {
+            this.selector = selector;
+            this.plan = selector.getPlan();
+            this.parent = parent;
+            if (canResolve()) resolve();
         }
 
-        private Object uniqueSuffix() {
-            return qualifiers.startsWith(selector.getKeyName() + '=') ? '2' : "";
+        /**
+         * Reads a complete JSON object as this item.
+         * @param reader a reader positioned at the start of the object
+         */
+        void scrape(JsonReader reader) throws IOException {
+            reader.beginObject();
+            while (reader.hasNext())
+                readField(reader, reader.nextName());
+            reader.endObject();
+            complete();
         }
 
-        private String asQuotedString(JsonElement jsonElement) {
-            return QUOTE + jsonElement.getAsString() + QUOTE;
+        void readField(JsonReader reader, String name) throws IOException {
+            final JsonToken token = reader.peek();
+            if (excluded)
+                reader.skipValue();
+            else if (token == JsonToken.BEGIN_OBJECT && selector.getNestedSelectors().containsKey(name))
+                readSubObject(reader, selector.getNestedSelectors().get(name), name);
+            else if (isPrimitive(token) && isNeededField(plan, name))
+                readPrimitive(name, (JsonPrimitive) JsonParser.parseReader(reader));
+            else
+                reader.skipValue();
         }
 
+        void readHeldField(String name, JsonPrimitive value) {
+            if (!excluded) readPrimitive(name, value);
+        }
 
-        class ScrapedMetric {
-            private final String itemQualifiers;
-            private final String valueName;
-            private final JsonPrimitive jsonPrimitive;
+        private void readSubObject(JsonReader reader, MBeanSelector nestedSelector, String name) throws IOException {
+            if (resolved)
+                scrapeSubObject(reader, nestedSelector, itemNode);
+            else
+                pendingSubObjects.put(name, readTree(reader, nestedSelector));
+        }
 
-            ScrapedMetric(String itemQualifiers, String valueName) {
-                this.itemQualifiers = itemQualifiers;
-                this.valueName = valueName;
+        private void readPrimitive(String name, JsonPrimitive value) {
+            if (name.equals(plan.getKey()))
+                keyValue = value;
+            else if (plan.isSelectedValue(name))
+                addValue(name, value);
 
-                this.jsonPrimitive = Optional.ofNullable(object.get(valueName))
-                      .filter(JsonElement::isJsonPrimitive)
-                      .map(JsonElement::getAsJsonPrimitive)
-                      .orElse(null);
-            }
+            if (name.equals(TYPE)) typeValue = value;
+            if (!resolved && canResolve()) resolve();
+        }
 
-            void add() {
-                Optional.ofNullable(jsonPrimitive).map(this::toMetricValue).ifPresent(v -> metrics.put(getMetricName(), v));
-            }
+        private void addValue(String name, JsonPrimitive value) {
+            if (resolved)
+                reportValue(name, value);
+            else
+                pendingValues.put(name, value);
+        }
 
-            private Object toMetricValue(JsonPrimitive jsonPrimitive) {
-                if (jsonPrimitive.isNumber())
-                    return jsonPrimitive.getAsNumber();
-                else if (isStringMetric())
-                    return selector.getStringMetricValue(valueName, jsonPrimitive.getAsString());
-                else if (selector.acceptsStrings() && jsonPrimitive.isString())
-                    return jsonPrimitive.getAsString();
-                else
-                    return null;
-            }
+        private boolean canResolve() {
+            return (plan.getKey() == null || keyValue != null) && (!plan.hasTypeFilter() || typeValue != null);
+        }
 
-            private boolean isStringMetric() {
-                return selector.isStringMetric(valueName) && jsonPrimitive.isString();
+        // Fixes the qualifiers and type of this item, and reports anything read before they were known.
+        private void resolve() {
+            resolved = true;
+            excluded = isExcludedType(plan, typeValue);
+            if (!excluded) {
+                itemNode = getItemNode(selector, parent, keyValue);
+                pendingValues.forEach(this::reportValue);
+                pendingSubObjects.forEach(this::scrapeTree);
             }
+            pendingValues.clear();
+            pendingSubObjects.clear();
+        }
 
-            private String getMetricName() {
-                StringBuilder sb = new StringBuilder();
-                if (selector.getPrefix() != null) sb.append(getCorrectCase(selector.getPrefix()));
-                sb.append(getCorrectCase(valueName));
-                if (!isNullOrEmptyString(itemQualifiers))
-                    sb.append('{').append(augmented(itemQualifiers)).append('}');
-                return sb.toString();
-            }
+        private void reportValue(String name, JsonPrimitive value) {
+            new ScrapedMetric(plan, itemNode, name, value).add();
+        }
+
+        private void scrapeTree(String name, JsonObject tree) {
+            new ScrapeDelegate(selector.getNestedSelectors().get(name), tree, itemNode).scrapeItemOrList();
+        }
+
+        void complete() {
+            if (!resolved) resolve();
+        }
+    }
+
+    // Reads a nested object, which is either a single item or, in the REST API convention,
+    // an object whose "items" array holds a list of them, wherever that array appears. Until the form of
+    // the object is known, its primitive fields are held. A list has no nested objects other than its items,
+    // so the first nested object which a selector needs shows that this is a single item, which is then streamed.
+    private void scrapeSubObject(JsonReader reader, MBeanSelector selector, Node parent) throws IOException {
+        final JsonObject heldFields = new JsonObject();
+        StreamedItem item = null;
+        boolean isList = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            final JsonToken token = reader.peek();
+            if (isList || (item == null && name.equals(LINKS)))
+                reader.skipValue();
+            else if (item != null)
+                item.readField(reader, name);
+            else if (name.equals(ITEMS) && token == JsonToken.BEGIN_ARRAY) {
+                scrapeItems(reader, selector, parent);
+                isList = true;
+            } else if (token == JsonToken.BEGIN_OBJECT && selector.getNestedSelectors().containsKey(name)) {
+                item = createItem(selector, parent, heldFields);
+                item.readField(reader, name);
+            } else if (isPrimitive(token) && isNeededField(selector.getPlan(), name))
+                heldFields.add(name, JsonParser.parseReader(reader));
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        if (item == null && !isList && heldFields.size() > 0) item = createItem(selector, parent, heldFields);
+        if (item != null) item.complete();
+    }
+
+    private StreamedItem createItem(MBeanSelector selector, Node parent, JsonObject heldFields) {
+        final StreamedItem item = new StreamedItem(selector, parent);
+        heldFields.entrySet().forEach(field -> item.readHeldField(field.getKey(), field.getValue().getAsJsonPrimitive()));
+        return item;
+    }
+
+    private void scrapeItems(JsonReader reader, MBeanSelector selector, Node parent) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext())
+            if (reader.peek() == JsonToken.BEGIN_OBJECT)
+                new StreamedItem(selector, parent).scrape(reader);
+            else
+                reader.skipValue();
+        reader.endArray();
+    }
+
+    // Reads an object into a tree which holds only those fields which are needed by the selector.
+    private JsonObject readTree(JsonReader reader, MBeanSelector selector) throws IOException {
+        return readTree(reader, Collections.singletonList(selector));
+    }
+
+    // Reads an object into a tree which holds only those fields which are needed by at least one of the selectors.
+    private JsonObject readTree(JsonReader reader, List<MBeanSelector> selectors) throws IOException {
+        final JsonObject result = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            final JsonToken token = reader.peek();
+            if (name.equals(ITEMS) && token == JsonToken.BEGIN_ARRAY)
+                result.add(name, readTreeItems(reader, selectors));
+            else if (token == JsonToken.BEGIN_OBJECT && hasNestedSelector(selectors, name))
+                result.add(name, readTree(reader, getNestedSelectors(selectors, name)));
+            else if (isPrimitive(token) && isNeededField(selectors, name))
+                result.add(name, JsonParser.parseReader(reader));
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private boolean hasNestedSelector(List<MBeanSelector> selectors, String name) {
+        for (MBeanSelector selector : selectors)
+            if (selector.getNestedSelectors().containsKey(name)) return true;
+        return false;
+    }
 
-            private String getCorrectCase(String valueName) {
-                return metricNameSnakeCase ? SnakeCaseUtil.convert(valueName) : valueName;
+    private List<MBeanSelector> getNestedSelectors(List<MBeanSelector> selectors, String name) {
+        if (selectors.size() == 1)
+            return Collections.singletonList(selectors.get(0).getNestedSelectors().get(name));
+
+        final List<MBeanSelector> result = new ArrayList<>();
+        for (MBeanSelector selector : selectors)
+            Optional.ofNullable(selector.getNestedSelectors().get(name)).ifPresent(result::add);
+        return result;
+    }
+
+    private boolean isNeededField(List<MBeanSelector> selectors, String fieldName) {
+        for (MBeanSelector selector : selectors)
+            if (isNeededField(selector.getPlan(), fieldName)) return true;
+        return false;
+    }
+
+    private JsonArray readTreeItems(JsonReader reader, List<MBeanSelector> selectors) throws IOException {
+        final JsonArray result = new JsonArray();
+        reader.beginArray();
+        while (reader.hasNext())
+            if (reader.peek() == JsonToken.BEGIN_OBJECT)
+                result.add(readTree(reader, selectors));
+            else
+                reader.skipValue();
+        reader.endArray();
+        return result;
+    }
+
+    class ScrapedMetric {
+        private final SelectorPlan plan;
+        private final Node itemNode;
+        private final String valueName;
+        private final JsonPrimitive jsonPrimitive;
+
+        ScrapedMetric(SelectorPlan plan, Node itemNode, String valueName, JsonPrimitive jsonPrimitive) {
+            this.plan = plan;
+            this.itemNode = itemNode;
+            this.valueName = valueName;
+            this.jsonPrimitive = jsonPrimitive;
+        }
+
+        void add() {
+            Optional.ofNullable(jsonPrimitive).map(this::toMetricValue).ifPresent(v -> metrics.put(getFamilyName(), getMetricName(), v));
+        }
+
+        private Object toMetricValue(JsonPrimitive jsonPrimitive) {
+            if (jsonPrimitive.isNumber())
+                return jsonPrimitive.getAsNumber();
+            else if (isStringMetric())
+                return plan.getStringMetricValue(valueName, jsonPrimitive.getAsString());
+            else if (plan.acceptsStrings() && jsonPrimitive.isString())
+                return jsonPrimitive.getAsString();
+            else
+                return null;
+        }
+
+        private boolean isStringMetric() {
+            return plan.isStringMetric(valueName) && jsonPrimitive.isString();
+        }
+
+        private String getMetricName() {
+            return isStringMetric() ? getStringMetricName(jsonPrimitive.getAsString()) : getNumericMetricName();
+        }
+
+        private String getFamilyName() {
+            return plan.getMetricStem(valueName, metricNameSnakeCase);
+        }
+
+        private String getNumericMetricName() {
+            String name = itemNode.getName(valueName);
+            if (name == null) {
+                name = renderMetricName();
+                itemNode.putName(valueName, name);
             }
+            return name;
+        }
+
+        // Only the names for configured values are cached, as any other value may be unique to one scrape.
+        private String getStringMetricName(String value) {
+            final int valueIndex = plan.getStringMetricValue(valueName, value);
+            if (valueIndex < 0) return renderMetricName();
 
-            private String augmented(String itemQualifiers) {
-                if (isStringMetric())
-                    return itemQualifiers + ",value=\"" + jsonPrimitive.getAsString() + '"';
-                else
-                    return itemQualifiers;
+            String name = itemNode.getStringMetricName(valueName, valueIndex);
+            if (name == null) {
+                name = renderMetricName();
+                itemNode.putStringMetricName(valueName, valueIndex, name);
             }
+            return name;
+        }
+
+        private String renderMetricName() {
+            final String itemQualifiers = itemNode.getQualifiers();
+            StringBuilder sb = new StringBuilder(getFamilyName());
+            if (!isNullOrEmptyString(itemQualifiers))
+                sb.append('{').append(augmented(itemQualifiers)).append('}');
+            return sb.toString();
+        }
+
+        private String augmented(String itemQualifiers) {
+            if (isStringMetric())
+                return itemQualifiers + ",value=\"" + LabelValues.escape(jsonPrimitive.getAsString()) + '"';
+            else
+                return itemQualifiers;
         }
     }
 
@@ -1,4 +1,4 @@
-// Copyright (c) 2019, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2019, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
@@ -37,6 +37,22 @@ public enum QueryType {
         public void postProcessMetrics(Map<String, Object> metrics, MetricsProcessor processor) {
             processor.updateConfiguration(metrics);
         }
+    },
+    DOMAIN_RUNTIME {
+        @Override
+        public String getUrlPattern() {
+            return DOMAIN_RUNTIME_URL_PATTERN;
+        }
+
+        @Override
+        public boolean acceptsStrings() {
+            return false;
+        }
+
+        @Override
+        public void postProcessMetrics(Map<String, Object> metrics, MetricsProcessor processor) {
+            // do nothing
+        }
     };
 
 
@@ -49,6 +65,11 @@ public enum QueryType {
      * The pattern for a URL to which configuration REST queries are made.
      */
     public static final String CONFIGURATION_URL_PATTERN = "%s://%s:%d/management/weblogic/latest/serverConfig/search";
+
+    /**
+     * The pattern for a URL to which queries of the runtime mbeans of all servers in a domain are made.
+     */
+    public static final String DOMAIN_RUNTIME_URL_PATTERN = "%s://%s:%d/management/weblogic/latest/domainRuntime/search";
     static final String DOMAIN_KEY = "name";
 
     /**
@@ -0,0 +1,199 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable form of a single {@link MBeanSelector}, holding everything derived from its configuration that
+ * is needed while scraping, so that none of it has to be recomputed for each scrape or for each mbean scraped.
+ * A selector compiles a new plan whenever its configuration or its set of selected keys changes.
+ */
+class SelectorPlan {
+    private final String request;
+    private final String keyRequest;
+    private final boolean hasFilter;
+    private final String key;
+    private final String keyName;
+    private final String keyQualifierPrefix;
+    private final String typeFilter;
+    private final boolean useAllValues;
+    private final boolean acceptsStrings;
+    private final String[] queryValues;
+    private final Set<String> selectedValues;
+    private final Set<String> excludedValues;
+    private final Set<String> selectedKeys;
+    private final Map<String, Map<String, Integer>> stringValueIndices = new HashMap<>();
+    private final String prefix;
+    private final String snakeCasePrefix;
+    private final Map<String, String> metricStems = new HashMap<>();
+    private final Map<String, String> snakeCaseMetricStems = new HashMap<>();
+
+    SelectorPlan(MBeanSelector selector) {
+        request = selector.createRequest();
+        keyRequest = selector.createKeyRequest();
+        hasFilter = selector.hasFilter();
+        key = selector.getKey();
+        keyName = selector.getKeyName();
+        keyQualifierPrefix = keyName + '=';
+        typeFilter = selector.getType();
+        useAllValues = selector.useAllValues();
+        acceptsStrings = selector.acceptsStrings();
+        queryValues = selector.getQueryValues();
+        selectedValues = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(queryValues)));
+        excludedValues = Collections.unmodifiableSet(new HashSet<>(selector.getActiveForbiddenFields()));
+        selectedKeys = selector.getSelectedKeys();
+        selector.getStringValues().forEach((field, values) -> stringValueIndices.put(field, createIndices(values)));
+        prefix = selector.getPrefix();
+        snakeCasePrefix = prefix == null ? null : SnakeCaseUtil.convert(prefix);
+
+        for (String valueName : queryValues) {
+            metricStems.put(valueName, createMetricStem(valueName, false));
+            snakeCaseMetricStems.put(valueName, createMetricStem(valueName, true));
+        }
+    }
+
+    // Where a value appears more than once in the list, the first occurrence defines its index.
+    private static Map<String, Integer> createIndices(List<String> values) {
+        final Map<String, Integer> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < values.size(); i++)
+            result.putIfAbsent(values.get(i), i);
+        return result;
+    }
+
+    private String createMetricStem(String valueName, boolean snakeCase) {
+        if (!snakeCase)
+            return prefix == null ? valueName : prefix + valueName;
+        else
+            return snakeCasePrefix == null ? SnakeCaseUtil.convert(valueName) : snakeCasePrefix + SnakeCaseUtil.convert(valueName);
+    }
+
+    /**
+     * Returns the JSON query to send to the REST service to obtain metrics.
+     */
+    String getRequest() {
+        return request;
+    }
+
+    /**
+     * Returns the JSON query to send to the REST service to obtain the keys of filtered mbeans.
+     */
+    String getKeyRequest() {
+        return keyRequest;
+    }
+
+    /**
+     * Returns true if this selector or one of its children filters the mbeans it selects by key.
+     */
+    boolean hasFilter() {
+        return hasFilter;
+    }
+
+    /**
+     * Returns the name of the field whose value qualifies the metrics from this selector. May be null.
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the start of a qualifier created from the key field, up to and including the equals sign.
+     */
+    String getKeyQualifierPrefix() {
+        return keyQualifierPrefix;
+    }
+
+    /**
+     * Returns the name to use in qualifiers created from the key field.
+     */
+    String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * Returns true if an mbean of the specified type should not be scraped.
+     * @param type the value of the mbean's type field. May be null.
+     */
+    boolean isExcludedType(String type) {
+        return typeFilter != null && type != null && !typeFilter.equals(type);
+    }
+
+    /**
+     * Returns true if the selector has a type filter, so that the type of each mbean must be known.
+     */
+    boolean hasTypeFilter() {
+        return typeFilter != null;
+    }
+
+    boolean useAllValues() {
+        return useAllValues;
+    }
+
+    boolean acceptsStrings() {
+        return acceptsStrings;
+    }
+
+    /**
+     * Returns the names of the fields to scrape. The caller must not modify the returned array.
+     */
+    String[] getQueryValues() {
+        return queryValues;
+    }
+
+    /**
+     * Returns true if the named field should be reported as a metric.
+     * @param fieldName the name of a field in an mbean
+     */
+    boolean isSelectedValue(String fieldName) {
+        return useAllValues ? !excludedValues.contains(fieldName) : selectedValues.contains(fieldName);
+    }
+
+    /**
+     * Returns true if the selector filters mbeans by key, so that the filter key of each must be known.
+     */
+    boolean hasKeyFilter() {
+        return selectedKeys != null;
+    }
+
+    /**
+     * Returns true if an mbean with the specified filter key is not selected. A response normally holds only
+     * selected mbeans, but one shared with other selectors may hold others.
+     * @param filterKey the value of the mbean's filter key field. May be null.
+     */
+    boolean isExcludedKey(String filterKey) {
+        return selectedKeys != null && !selectedKeys.contains(filterKey);
+    }
+
+    boolean isStringMetric(String fieldName) {
+        return stringValueIndices.containsKey(fieldName);
+    }
+
+    /**
+     * Returns the metric value which corresponds to the specified value of a string field, ignoring case.
+     * @param fieldName the name of a field defined as a string value
+     * @param value the value of the field
+     * @return the index of the value in the configured list, or -1 if it is not present
+     */
+    int getStringMetricValue(String fieldName, String value) {
+        final Map<String, Integer> indices = stringValueIndices.get(fieldName);
+        return indices == null ? -1 : indices.getOrDefault(value, -1);
+    }
+
+    /**
+     * Returns the name of the metric for the specified field, without any qualifiers.
+     * @param valueName the name of the field
+     * @param snakeCase true if the name is to be converted to snake case
+     */
+    String getMetricStem(String valueName, boolean snakeCase) {
+        final String stem = (snakeCase ? snakeCaseMetricStems : metricStems).get(valueName);
+        return stem != null ? stem : createMetricStem(valueName, snakeCase);
+    }
+}
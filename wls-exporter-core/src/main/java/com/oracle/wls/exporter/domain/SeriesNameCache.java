@@ -0,0 +1,168 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of rendered series names, so that the name of a series seen in an earlier scrape is looked up
+ * rather than built again. The cache is a tree which mirrors the scraped mbeans: each node represents an mbean,
+ * identified by its selector and the value of its key field, and holds its qualifiers and the names of its metrics.
+ * A node which has not been used in several scrapes, such as one for an undeployed application, is evicted.
+ */
+class SeriesNameCache {
+
+    /** The number of scrapes of a top-level selector after which an unused node is evicted. */
+    static final int MAX_IDLE_SCRAPES = 3;
+
+    private final Map<MBeanSelector, Root> roots = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a scrape of a top-level selector, returning the node for the top-level mbean.
+     * @param selector the top-level selector
+     * @param qualifiers the qualifiers to apply to all metrics found by the selector
+     * @param snakeCase true if metric names are to be converted to snake case
+     */
+    Node startScrape(MBeanSelector selector, String qualifiers, boolean snakeCase) {
+        Root root = roots.get(selector);
+        if (root == null || !root.matches(qualifiers, snakeCase)) {
+            root = new Root(qualifiers, snakeCase);
+            roots.put(selector, root);
+        }
+        root.generation.incrementAndGet();
+        root.touch();
+        return root;
+    }
+
+    /**
+     * Completes a scrape of a top-level selector, evicting any nodes which have been idle for too long.
+     * @param node the node returned by {@link #startScrape}
+     */
+    void completeScrape(Node node) {
+        node.evictIdleChildren(node.root.generation.get() - MAX_IDLE_SCRAPES);
+    }
+
+    /**
+     * Discards all cached names. Used when the configured queries change.
+     */
+    void clear() {
+        roots.clear();
+    }
+
+    /**
+     * Creates a node for the specified qualifiers which is not retained by the cache.
+     * @param qualifiers the qualifiers to apply to all metrics below the node
+     * @param snakeCase true if metric names are to be converted to snake case
+     */
+    static Node createDetachedNode(String qualifiers, boolean snakeCase) {
+        return new Root(qualifiers, snakeCase);
+    }
+
+    static class Node {
+        private final Root root;
+        private final String qualifiers;
+        private final Map<MBeanSelector, Map<String, Node>> keyedChildren = new ConcurrentHashMap<>();
+        private final Map<MBeanSelector, Node> unkeyedChildren = new ConcurrentHashMap<>();
+        private final Map<String, String> names = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, String>> stringMetricNames = new ConcurrentHashMap<>();
+        private volatile long lastUsed;
+
+        private Node(Root root, String qualifiers) {
+            this.root = root == null ? (Root) this : root;
+            this.qualifiers = qualifiers;
+        }
+
+        /**
+         * Returns the qualifiers for metrics reported for this node's mbean.
+         */
+        String getQualifiers() {
+            return qualifiers;
+        }
+
+        /**
+         * Returns the child node for the specified selector and key, if any, marking it as used.
+         * @param selector the selector for the child mbean
+         * @param key the value of the key field of the child mbean, or null if it has none
+         */
+        Node getChild(MBeanSelector selector, String key) {
+            final Node child = key == null ? unkeyedChildren.get(selector) : getKeyedChildren(selector).get(key);
+            if (child != null) child.touch();
+            return child;
+        }
+
+        private Map<String, Node> getKeyedChildren(MBeanSelector selector) {
+            return keyedChildren.computeIfAbsent(selector, s -> new ConcurrentHashMap<>());
+        }
+
+        /**
+         * Creates and returns a child node for the specified selector and key.
+         * @param selector the selector for the child mbean
+         * @param key the value of the key field of the child mbean, or null if it has none
+         * @param qualifiers the qualifiers for metrics reported for the child mbean
+         */
+        Node addChild(MBeanSelector selector, String key, String qualifiers) {
+            final Node child = new Node(root, qualifiers);
+            child.touch();
+            if (key == null)
+                unkeyedChildren.put(selector, child);
+            else
+                getKeyedChildren(selector).put(key, child);
+            return child;
+        }
+
+        String getName(String valueName) {
+            return names.get(valueName);
+        }
+
+        void putName(String valueName, String name) {
+            names.put(valueName, name);
+        }
+
+        /**
+         * Returns the name of a string metric, identified by the index of its value among those configured for it,
+         * so that the names held are bounded by the configuration rather than by the values reported.
+         * @param valueName the name of the field
+         * @param valueIndex the index of the field's value in its configured string values
+         */
+        String getStringMetricName(String valueName, int valueIndex) {
+            return getStringMetricNames(valueName).get(valueIndex);
+        }
+
+        void putStringMetricName(String valueName, int valueIndex, String name) {
+            getStringMetricNames(valueName).put(valueIndex, name);
+        }
+
+        private Map<Integer, String> getStringMetricNames(String valueName) {
+            return stringMetricNames.computeIfAbsent(valueName, v -> new ConcurrentHashMap<>());
+        }
+
+        void touch() {
+            lastUsed = root.generation.get();
+        }
+
+        private void evictIdleChildren(long oldestRetained) {
+            unkeyedChildren.values().removeIf(child -> child.lastUsed < oldestRetained);
+            unkeyedChildren.values().forEach(child -> child.evictIdleChildren(oldestRetained));
+            keyedChildren.values().forEach(children -> children.values().removeIf(child -> child.lastUsed < oldestRetained));
+            keyedChildren.values().forEach(children -> children.values().forEach(child -> child.evictIdleChildren(oldestRetained)));
+        }
+    }
+
+    static class Root extends Node {
+        private final boolean snakeCase;
+        private final AtomicLong generation = new AtomicLong();
+
+        private Root(String qualifiers, boolean snakeCase) {
+            super(null, qualifiers);
+            this.snakeCase = snakeCase;
+        }
+
+        private boolean matches(String qualifiers, boolean snakeCase) {
+            return Objects.equals(getQualifiers(), qualifiers) && this.snakeCase == snakeCase;
+        }
+    }
+}
@@ -1,17 +1,24 @@
-// Copyright (c) 2017, 2021, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.webapp;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.oracle.wls.exporter.ConfigurationRefresher;
 import com.oracle.wls.exporter.ExporterCall;
+import com.oracle.wls.exporter.KeyDiscovery;
+import com.oracle.wls.exporter.ScrapeExecutor;
 import com.oracle.wls.exporter.ServletInvocationContext;
+import com.oracle.wls.exporter.SnapshotCollector;
 import com.oracle.wls.exporter.WebAppConstants;
 import com.oracle.wls.exporter.WebClientFactory;
 import com.oracle.wls.exporter.WebClientFactoryImpl;
@@ -21,7 +28,7 @@ import com.oracle.wls.exporter.WebClientFactoryImpl;
  *
  * @author Russell Gold
  */
-@WebServlet(value = "/" + WebAppConstants.METRICS_PAGE)
+@WebServlet(value = "/" + WebAppConstants.METRICS_PAGE, asyncSupported = true)
 public class ExporterServlet extends HttpServlet {
 
     private final WebClientFactory webClientFactory;
@@ -40,11 +47,50 @@ public class ExporterServlet extends HttpServlet {
         ServletUtils.initializeConfiguration(servletConfig);
     }
 
+    @Override
+    public void destroy() {
+        SnapshotCollector.stop();
+        ConfigurationRefresher.stop();
+        KeyDiscovery.stop();
+        ScrapeExecutor.stop();
+    }
+
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         ServletUtils.setServer(req);
+        final ExecutorService executor = ScrapeExecutor.getExecutor();
+        if (executor != null && req.isAsyncSupported())
+            startAsyncScrape(executor, req.startAsync());
+        else
+            scrape(req, resp);
+    }
+
+    private void scrape(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         ExporterCall call = new ExporterCall(webClientFactory, new ServletInvocationContext(req, resp));
         call.doWithAuthentication();
     }
 
+    // The request thread returns to the container at once, and the response is completed by the scrape thread.
+    // As when it runs on the request thread, the scrape is not timed out by the container.
+    private void startAsyncScrape(ExecutorService executor, AsyncContext asyncContext) throws IOException {
+        asyncContext.setTimeout(0);
+        try {
+            executor.execute(() -> scrapeAsynchronously(asyncContext));
+        } catch (RejectedExecutionException e) {
+            ((HttpServletResponse) asyncContext.getResponse())
+                  .sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many scrapes in progress");
+            asyncContext.complete();
+        }
+    }
+
+    private void scrapeAsynchronously(AsyncContext asyncContext) {
+        try {
+            scrape((HttpServletRequest) asyncContext.getRequest(), (HttpServletResponse) asyncContext.getResponse());
+        } catch (IOException e) {
+            // the client is no longer waiting for the response
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
 }
@@ -1,26 +1,41 @@
-// Copyright (c) 2020, Oracle and/or its affiliates.
+// Copyright (c) 2020, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Stream;
-import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
 
+import com.google.gson.Gson;
+
+/**
+ * A web client that uses the HTTP client built into Java 11. All instances share a single client, and therefore
+ * its pool of persistent connections and its TLS sessions. HTTP/1.1 is used, as the REST API is not expected
+ * to support an upgrade to HTTP/2 over plain connections, and attempting one would prevent connection reuse.
+ */
 public class WebClient11Impl extends WebClientCommon {
 
+  private static final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .proxy(ProxySelector.getDefault())
+        .build();
+
   static class Header {
 
     private final String name;
@@ -47,13 +62,6 @@ public class WebClient11Impl extends WebClientCommon {
 
   class Java11HttpClientExec implements HttpClientExec {
 
-    private final HttpClient httpClient
-          = HttpClient.newBuilder()
-          .version(HttpClient.Version.HTTP_2)
-          .followRedirects(HttpClient.Redirect.NORMAL)
-          .proxy(ProxySelector.getDefault())
-          .build();
-
     @Override
     public WebResponse send(WebRequest request) throws IOException {
       try {
@@ -61,6 +69,8 @@ public class WebClient11Impl extends WebClientCommon {
         return new Java11WebResponse(httpClient.send(webRequest.getRequest(), BodyHandlers.ofInputStream()));
       } catch (ConnectException e) {
         throw new RestPortConnectionException(request.getURI().toString());
+      } catch (HttpTimeoutException e) {
+        throw new SocketTimeoutException(e.getMessage());  // reported as by the other clients
       } catch (InterruptedException e) {
         throw new IOException(e);
       }
@@ -80,10 +90,11 @@ public class WebClient11Impl extends WebClientCommon {
 
     private final HttpRequest request;
 
-    Java11WebRequest(Function<HttpRequest.Builder, HttpRequest.Builder> requestType) {
-      final HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(getUrl()));
+    Java11WebRequest(String url, Function<HttpRequest.Builder, HttpRequest.Builder> requestType) {
+      final HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url));
       defaultHeaders.forEach(h -> builder.header(h.name, h.value));
       sessionHeaders.forEach(h -> builder.header(h.name, h.value));
+      if (getRequestTimeout() > 0) builder.timeout(Duration.ofMillis(getRequestTimeout()));
       request = requestType.apply(builder).build();
     }
 
@@ -105,6 +116,7 @@ public class WebClient11Impl extends WebClientCommon {
   static class Java11WebResponse implements WebResponse {
 
     private final HttpResponse<InputStream> httpResponse;
+    private boolean aborted;
 
     Java11WebResponse(HttpResponse<InputStream> httpResponse) {
       this.httpResponse = httpResponse;
@@ -125,24 +137,43 @@ public class WebClient11Impl extends WebClientCommon {
       return httpResponse.headers().allValues(headerName).stream();
     }
 
+    // Closing the body before it has been read cancels the exchange, and the connection is not reused.
+    @Override
+    public void abort() {
+      aborted = true;
+      try {
+        httpResponse.body().close();
+      } catch (IOException ignored) {
+        // the connection is discarded in any case
+      }
+    }
+
+    // The remainder of the body is read so that the connection may be returned to the pool.
     @Override
     public void close() {
+      if (aborted) return;
+
+      try (InputStream body = httpResponse.body()) {
+        body.transferTo(OutputStream.nullOutputStream());
+      } catch (IOException ignored) {
+        // the connection will not be reused
+      }
     }
   }
 
   @Override
   WebRequest createGetRequest(String url) {
-    return new Java11WebRequest(HttpRequest.Builder::GET);
+    return new Java11WebRequest(url, HttpRequest.Builder::GET);
   }
 
   @Override
   WebRequest createPostRequest(String url, String postBody) {
-    return new Java11WebRequest(b -> b.POST(HttpRequest.BodyPublishers.ofString(postBody)));
+    return new Java11WebRequest(url, b -> b.POST(HttpRequest.BodyPublishers.ofString(postBody)));
   }
 
   @Override
-  WebRequest createPutRequest(String url, String putBody) {
-    return new Java11WebRequest(b -> b.PUT(HttpRequest.BodyPublishers.ofString(putBody)));
+  <T> WebRequest createPutRequest(String url, T putBody) {
+    return new Java11WebRequest(url, b -> b.PUT(HttpRequest.BodyPublishers.ofString(new Gson().toJson(putBody))));
   }
 
   @Override
@@ -1,4 +1,4 @@
-// Copyright (c) 2023, Oracle and/or its affiliates.
+// Copyright (c) 2023, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -82,6 +82,16 @@ class AuthenticatedCallTest {
     assertThat(callStub.getCookies("other credentials"), empty());
   }
 
+  @Test
+  void whenCallHasTarget_dontSendCookiesFromConfiguredServer() throws IOException {
+    callStub.handleNewCookie("cookie1=value1; http-only");
+    webClientFactory.forJson("{}").addResponse();
+
+    new AuthenticatedCallStub(webClientFactory, InvocationContextStub.create().withTarget("server2:7001")).doWithAuthentication();
+
+    assertThat(webClientFactory.getSentHeaders(COOKIE_HEADER), empty());
+  }
+
   @Test
   void whenInvocationContextContainsCookieHeaders_forwardThemToTheServer() throws IOException {
     callStub.handleNewCookie("cookie1=value1; http-only");
@@ -0,0 +1,176 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.meterware.simplestub.Memento;
+import com.meterware.simplestub.StaticStubSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.meterware.simplestub.Stub.createStrictStub;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+class ConfigurationRefresherTest {
+
+  private static final long SHARED_TIMESTAMP = 17;
+  private static final String SHARED_RESPONSE =
+        "{\"timestamp\":" + SHARED_TIMESTAMP + ",\"configuration\":\"queries:\\n- groups:\\n    key: name\\n    values: [a]\\n\"}";
+
+  private final WebClientFactoryStub factory = new WebClientFactoryStub();
+  private final ClockStub clock = createStrictStub(ClockStub.class);
+  private final List<Memento> mementos = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException {
+    mementos.add(StaticStubSupport.install(LiveConfiguration.class, "current", null));
+    LiveConfiguration.loadFromString("");
+  }
+
+  @AfterEach
+  void tearDown() {
+    ConfigurationRefresher.stop();
+    mementos.forEach(Memento::revert);
+  }
+
+  private void installUpdater(ConfigurationUpdaterImpl updater) throws NoSuchFieldException {
+    updater.configure("http://coordinator/", 1);
+    mementos.add(StaticStubSupport.install(LiveConfiguration.class, "updater", updater));
+  }
+
+  @Test
+  void whenNewerConfigurationShared_installItInBackground() throws Exception {
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory);
+    installUpdater(updater);
+    factory.addJsonResponse(SHARED_RESPONSE);
+
+    ConfigurationRefresher.start(updater, 1);
+
+    awaitTimestamp(SHARED_TIMESTAMP);
+    assertThat(LiveConfiguration.hasQueries(), is(true));
+  }
+
+  private void awaitTimestamp(long expected) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (LiveConfiguration.getTimestamp() != expected && System.nanoTime() < deadline)
+      Thread.sleep(1);
+  }
+
+  @Test
+  void pollOnNamedDaemonThread() throws Exception {
+    final CountDownLatch polled = new CountDownLatch(1);
+    final Thread[] pollingThread = new Thread[1];
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory) {
+      @Override
+      boolean refresh() {
+        pollingThread[0] = Thread.currentThread();
+        polled.countDown();
+        return false;
+      }
+    };
+    installUpdater(updater);
+
+    ConfigurationRefresher.start(updater, 1);
+
+    assertThat(polled.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(pollingThread[0].getName(), equalTo("wls-exporter-config-sync"));
+    assertThat(pollingThread[0].isDaemon(), is(true));
+  }
+
+  @Test
+  void whenPollFails_continuePolling() throws Exception {
+    final AtomicInteger polls = new AtomicInteger();
+    final CountDownLatch polledAgain = new CountDownLatch(2);
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory) {
+      @Override
+      boolean refresh() {
+        polledAgain.countDown();
+        if (polls.getAndIncrement() == 0) throw new IllegalStateException("first poll fails");
+        return false;
+      }
+    };
+    installUpdater(updater);
+    updater.setErrorLog(new ErrorLog());
+
+    ConfigurationRefresher.start(updater, 1);
+
+    assertThat(polledAgain.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  void whenPollFindsNewConfiguration_pollAgainAtOnce() throws Exception {
+    final CountDownLatch polledAgain = new CountDownLatch(2);
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory) {
+      @Override
+      boolean refresh() {
+        polledAgain.countDown();
+        return true;
+      }
+    };
+    installUpdater(updater);
+
+    ConfigurationRefresher.start(updater, 60);
+
+    assertThat(polledAgain.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  void whenPollFindsNoChange_waitForInterval() throws Exception {
+    final CountDownLatch polledAgain = new CountDownLatch(2);
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory) {
+      @Override
+      boolean refresh() {
+        polledAgain.countDown();
+        return false;
+      }
+    };
+    installUpdater(updater);
+
+    ConfigurationRefresher.start(updater, 60);
+
+    assertThat(polledAgain.await(100, TimeUnit.MILLISECONDS), is(false));
+  }
+
+  @Test
+  void whenStopped_waitForPollInProgress() throws Exception {
+    final CountDownLatch polling = new CountDownLatch(1);
+    final CountDownLatch pollCompleted = new CountDownLatch(1);
+    final ConfigurationUpdaterImpl updater = new ConfigurationUpdaterImpl(clock, factory) {
+      @Override
+      boolean refresh() {
+        polling.countDown();
+        sleepUninterruptibly(100);
+        pollCompleted.countDown();
+        return false;
+      }
+    };
+    installUpdater(updater);
+    ConfigurationRefresher.start(updater, 60);
+    assertThat(polling.await(5, TimeUnit.SECONDS), is(true));
+
+    ConfigurationRefresher.stop();
+
+    assertThat(pollCompleted.getCount(), equalTo(0L));
+  }
+
+  // Simulates a request which, like a blocking socket read, ignores the interrupt sent when polling stops.
+  private static void sleepUninterruptibly(long millis) {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    while (System.nanoTime() < deadline) {
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException ignored) {
+        // keep waiting
+      }
+    }
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -9,8 +9,11 @@ import org.junit.jupiter.api.Test;
 import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath;
 import static com.meterware.simplestub.Stub.createStrictStub;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 class ConfigurationUpdaterImplTest {
 
@@ -49,6 +52,8 @@ class ConfigurationUpdaterImplTest {
     void whenUnableToReachServer_returnedTimestampIsZero() {
         factory.throwWebClientException(new WebClientException());
 
+        impl.refresh();
+
         assertThat(impl.getLatestConfigurationTimestamp(), equalTo(0L));
     }
 
@@ -57,7 +62,7 @@ class ConfigurationUpdaterImplTest {
         factory.throwWebClientException(new WebClientException("Unable to reach server"));
         impl.setErrorLog(errorLog);
 
-        impl.getLatestConfigurationTimestamp();
+        impl.refresh();
 
         assertThat(errorLog.getErrors(), containsString("Unable to reach server"));
     }
@@ -66,6 +71,8 @@ class ConfigurationUpdaterImplTest {
     void extractTimestampFromReply() {
         factory.addJsonResponse(RESPONSE_1);
 
+        impl.refresh();
+
         assertThat(impl.getLatestConfigurationTimestamp(), equalTo(TIMESTAMP_1));
     }
 
@@ -73,31 +80,37 @@ class ConfigurationUpdaterImplTest {
     void whenUpdateFetched_specifyConfiguredUrl() {
         impl.configure("http://repeater/", 0);
 
-        impl.getLatestConfigurationTimestamp();
+        impl.refresh();
 
         assertThat(factory.getClientUrl(), equalTo("http://repeater/"));
     }
 
     @Test
-    void whenAskedForConfigurationWithinUpdateInterval_returnCachedValue() {
-        clock.setCurrentMsec(0);
+    void whenNotRefreshed_dontContactServer() {
+        factory.addJsonResponse(RESPONSE_1);
+
+        assertThat(impl.getLatestConfigurationTimestamp(), equalTo(0L));
+        assertThat(impl.getUpdate(), nullValue());
+        assertThat(factory.getClientUrl(), nullValue());
+    }
+
+    @Test
+    void betweenRefreshes_returnCachedValue() {
         factory.addJsonResponse(RESPONSE_1);
-        impl.getLatestConfigurationTimestamp();
+        impl.refresh();
 
-        clock.incrementSeconds(REFRESH_INTERVAL / 2);
         factory.addJsonResponse(RESPONSE_2);
 
         assertThat(impl.getLatestConfigurationTimestamp(), equalTo(TIMESTAMP_1));
     }
 
     @Test
-    void whenAskedForConfigurationAfterUpdateInterval_returnNewValue() {
-        clock.setCurrentMsec(0);
+    void afterNextRefresh_returnNewValue() {
         factory.addJsonResponse(RESPONSE_1);
-        impl.getLatestConfigurationTimestamp();
+        impl.refresh();
 
-        clock.incrementSeconds(REFRESH_INTERVAL);
         factory.addJsonResponse(RESPONSE_2);
+        impl.refresh();
 
         assertThat(impl.getLatestConfigurationTimestamp(), equalTo(TIMESTAMP_2));
     }
@@ -106,9 +119,81 @@ class ConfigurationUpdaterImplTest {
     void afterRetrieveUpdate_returnIt() {
         factory.addJsonResponse(RESPONSE_1);
 
+        impl.refresh();
+
         assertThat(impl.getUpdate().getConfiguration(), equalTo(CONFIGURATION_1));
     }
 
+    @Test
+    void whenNewerConfigurationRetrieved_reportChange() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+        factory.addJsonResponse(RESPONSE_2);
+
+        assertThat(impl.refresh(), is(true));
+    }
+
+    @Test
+    void whenSameConfigurationRetrieved_reportNoChange() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+        factory.addJsonResponse(RESPONSE_1);
+
+        assertThat(impl.refresh(), is(false));
+    }
+
+    @Test
+    void afterConfigurationRetrieved_askRepeaterToWaitForNewerOne() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+
+        impl.refresh();
+
+        assertThat(factory.getClientUrl(), equalTo("url?after=" + TIMESTAMP_1 + "&wait=" + REFRESH_INTERVAL));
+    }
+
+    @Test
+    void whenRepeaterUrlHasQuery_appendWaitParameters() {
+        impl.configure("http://repeater/?domain=one", REFRESH_INTERVAL);
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+
+        impl.refresh();
+
+        assertThat(factory.getClientUrl(),
+              equalTo("http://repeater/?domain=one&after=" + TIMESTAMP_1 + "&wait=" + REFRESH_INTERVAL));
+    }
+
+    @Test
+    void afterConfigurationRetrieved_sendItsTimestampAsEntityTag() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+
+        impl.refresh();
+
+        assertThat(factory.getSentHeaders("If-None-Match"), contains("\"" + TIMESTAMP_1 + '"'));
+    }
+
+    @Test
+    void whenConfigurationNotModified_keepCurrentOne() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+        factory.addJsonResponse("");
+
+        assertThat(impl.refresh(), is(false));
+        assertThat(impl.getUpdate().getConfiguration(), equalTo(CONFIGURATION_1));
+    }
+
+    @Test
+    void onShareConfiguration_retrieveWithoutWaiting() {
+        factory.addJsonResponse(RESPONSE_1);
+        impl.refresh();
+
+        impl.shareConfiguration(CONFIGURATION_2);
+
+        assertThat(factory.getClientUrl(), equalTo("url"));
+    }
+
     @Test
     void onShareConfiguration_connectToConfiguredUrl() {
         impl.configure("http://posttarget", 0);
@@ -134,6 +219,16 @@ class ConfigurationUpdaterImplTest {
         assertThat(factory.getPostedString(), hasJsonPath("$.timestamp", equalTo(23)));
     }
 
+    @Test
+    void afterShareConfiguration_retrieveSharedUpdate() {
+        factory.addJsonResponse("{}");
+        factory.addJsonResponse(RESPONSE_1);
+
+        impl.shareConfiguration(CONFIGURATION_1);
+
+        assertThat(impl.getLatestConfigurationTimestamp(), equalTo(TIMESTAMP_1));
+    }
+
     @Test
     void whenUnableToShareConfiguration_logProblem() {
         factory.throwWebClientException(new WebClientException("Unable to reach server"));
@@ -1,23 +1,64 @@
-// Copyright (c) 2021, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.meterware.simplestub.Memento;
+import com.meterware.simplestub.StaticStubSupport;
+import com.oracle.wls.exporter.domain.FakeMBean;
+import com.oracle.wls.exporter.domain.MBeanServerReader;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath;
+import static com.meterware.simplestub.Stub.createStrictStub;
+import static com.meterware.simplestub.Stub.createStub;
 import static com.oracle.wls.exporter.InvocationContextStub.HOST_NAME;
 import static com.oracle.wls.exporter.InvocationContextStub.PORT;
+import static com.oracle.wls.exporter.InvocationContextStub.REST_PORT;
+import static com.oracle.wls.exporter.WebAppConstants.ACCEPT_ENCODING_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.AUTHENTICATION_CHALLENGE_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.CONTENT_ENCODING_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.COOKIE_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.RETRY_AFTER_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.SCRAPE_TIMEOUT_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.SET_COOKIE_HEADER;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.Matchers.stringContainsInOrder;
 
 class ExporterCallTest {
   private static final String URL_PATTERN = "http://%s:%d/management/weblogic/latest/serverRuntime/search";
@@ -32,6 +73,16 @@ class ExporterCallTest {
   private static final String DUAL_QUERY_CONFIG = ONE_VALUE_CONFIG +
         "\n- clubs:\n    key: name\n    values: testSample2";
 
+  private static final String CONCURRENT_QUERY_CONFIG = "queryConcurrency: 2\n" + DUAL_QUERY_CONFIG;
+  private static final String COMBINED_QUERY_CONFIG = "combineQueries: true\n" + DUAL_QUERY_CONFIG;
+  private static final String DOMAIN_RUNTIME_CONFIG = "domainRuntime: true\n" + ONE_VALUE_CONFIG;
+  private static final String COALESCING_CONFIG = "coalesceWindow: 5\n" + ONE_VALUE_CONFIG;
+  private static final int GZIP_HEADER_LENGTH = 10;
+  private static final int GZIP_TRAILER_LENGTH = 8;
+  private static final String UNCOMPRESSED_CONFIG = "compressionLevel: 0\n" + ONE_VALUE_CONFIG;
+  private static final String IN_PROCESS_CONFIG = "inProcessCollection: true\n" + ONE_VALUE_CONFIG;
+  private static final String LIMITED_CONFIG = "restConcurrencyLimit: 3\n" + ONE_VALUE_CONFIG;
+
   private static final String KEY_RESPONSE_JSON = "{\"groups\": {\"items\": [\n" +
               "     {\"name\": \"alpha\"},\n" +
               "     {\"name\": \"beta\" },\n" +
@@ -44,19 +95,48 @@ class ExporterCallTest {
               "     {\"name\": \"gamma\", \"testSample1\": \"third\"}\n" +
               "]}}";
 
+  private static final String COMBINED_RESPONSE_JSON = "{\"groups\": {\"items\": [\n" +
+              "     {\"name\": \"alpha\", \"testSample1\": 1}\n" +
+              "]},\n" +
+              " \"clubs\": {\"items\": [\n" +
+              "     {\"name\": \"aleph\", \"testSample2\": 2}\n" +
+              "]}}";
+
   private static final String QUERY_RESPONSE2_JSON = "{\"clubs\": {\"items\": [\n" +
               "     {\"name\": \"aleph\", \"testSample2\": \"first\"},\n" +
               "     {\"name\": \"bet\", \"testSample2\": \"second\"},\n" +
               "     {\"name\": \"gimel\", \"testSample2\": \"third\"}\n" +
               "]}}";
 
+  private static final String SERVER_KEY_RESPONSE_JSON =
+        "{\"serverRuntimes\": {\"items\": [{\"name\": \"ms1\"}, {\"name\": \"ms2\"}]}}";
+  private static final String SERVER1_RESPONSE_JSON = "{\"serverRuntimes\": {\"items\": [{\"name\": \"ms1\"," +
+        " \"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 1}]}}]}}";
+  private static final String SERVER2_RESPONSE_JSON = "{\"serverRuntimes\": {\"items\": [{\"name\": \"ms2\"," +
+        " \"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 2}]}}]}}";
+
   private final WebClientFactoryStub factory = new WebClientFactoryStub();
   private final InvocationContextStub context = InvocationContextStub.create();
+  private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+  private final List<ObjectName> registeredNames = new ArrayList<>();
+  private final List<Memento> mementos = new ArrayList<>();
 
   @BeforeEach
   public void setUp() {
     LiveConfiguration.setServer(HOST_NAME, PORT);
     AuthenticatedCall.clearCookies();
+    ScrapeCoalescer.clear();
+    UrlBuilder.clearHistory();
+  }
+
+  @AfterEach
+  public void tearDown() throws JMException {
+    mementos.forEach(Memento::revert);
+    for (ObjectName name : registeredNames)
+      if (mbeanServer.isRegistered(name)) mbeanServer.unregisterMBean(name);
+    ScrapeCoalescer.clear();
+    SelectorExecutor.setExecutorFactory(null);
+    RestRequestLimiter.clear();
   }
 
   @Test
@@ -121,6 +201,74 @@ class ExporterCallTest {
     assertThat(factory.getNumQueriesSent(), equalTo(2));
   }
 
+  @Test
+  void whenTargetScraped_discoverItsOwnKeys() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(CONFIG_WITH_FILTER);
+    handleMetricsCall(context);
+
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall(InvocationContextStub.create().withTarget("server2:7001"));
+
+    assertThat(factory.getNumQueriesSent(), equalTo(4));
+  }
+
+  @Test
+  void whenInProcessCollectionConfiguredInsideWebLogic_readLocalMBeans() throws Exception {
+    installLocalMBeanServer();
+    LiveConfiguration.loadFromString(IN_PROCESS_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(0));
+    assertThat(context.getResponse(), containsString("testSample1{name=\"alpha\"} 7"));
+  }
+
+  @Test
+  void whenInProcessCollectionClientNotAuthenticated_challengeIt() throws Exception {
+    installLocalMBeanServer();
+    LiveConfiguration.loadFromString(IN_PROCESS_CONFIG);
+
+    handleMetricsCall(context.withUnauthenticatedClient());
+
+    assertThat(context.getResponseStatus(), equalTo(401));
+    assertThat(context.getResponseHeader(AUTHENTICATION_CHALLENGE_HEADER), equalTo(ExporterCall.IN_PROCESS_CHALLENGE));
+    assertThat(context.getResponse(), not(containsString("testSample1")));
+  }
+
+  @Test
+  void whenInProcessCollectionConfiguredForBackgroundCollection_queryRestApi() throws Exception {
+    installLocalMBeanServer();
+    LiveConfiguration.loadFromString(IN_PROCESS_CONFIG);
+
+    ExporterCall.createBackgroundCall(factory, context).doWithAuthentication();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(1));
+  }
+
+  private void installLocalMBeanServer() throws Exception {
+    final ObjectName serverRuntime = new ObjectName("com.bea:Name=ms1,Type=ServerRuntime");
+    final ObjectName group = new ObjectName("com.bea:Name=alpha,Type=Group");
+    register(MBeanServerReader.RUNTIME_SERVICE, new FakeMBean("ServerRuntime", serverRuntime));
+    register(serverRuntime, new FakeMBean("Name", "ms1", "Groups", new ObjectName[] {group}));
+    register(group, new FakeMBean("Name", "alpha", "TestSample1", 7));
+    mementos.add(StaticStubSupport.install(LocalMBeanServer.class, "locator", (Supplier<MBeanServer>) () -> mbeanServer));
+  }
+
+  private void register(ObjectName name, FakeMBean mbean) throws JMException {
+    mbeanServer.registerMBean(mbean, name);
+    registeredNames.add(name);
+  }
+
+  @Test
+  void whenInProcessCollectionConfiguredOutsideWebLogic_queryRestApi() throws IOException {
+    LiveConfiguration.loadFromString(IN_PROCESS_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(1));
+  }
+
   @Test
   void whenBadQueryReceivedAndConfigurationSelectsPrivilegedPropertiesProperty_explainProblem() throws IOException {
     factory.reportBadQuery();
@@ -151,4 +299,487 @@ class ExporterCallTest {
 
     assertThat(factory.getSentHeaders(COOKIE_HEADER), Matchers.hasItem("cookieName=newValue"));
   }
-}
\ No newline at end of file
+
+  @Test
+  void whenQueriesRunConcurrently_sendAllQueries() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(CONCURRENT_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(2));
+  }
+
+  @Test
+  void whenQueriesRunConcurrently_printMetricsInConfigurationOrder() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(CONCURRENT_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(),
+          stringContainsInOrder("testSample1{name=\"alpha\"} 1", "testSample2{name=\"aleph\"} 2"));
+  }
+
+  @Test
+  void whenQueriesRunConcurrently_countAllMetrics() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(CONCURRENT_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("wls_scrape_mbeans_count_total{instance=\"unit test\"} 2"));
+  }
+
+  @Test
+  void whenQueriesCombined_sendSingleQuery() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(COMBINED_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(1));
+    assertThat(factory.getSentQuery(),
+          Matchers.allOf(hasJsonPath("$.children.groups.fields"), hasJsonPath("$.children.clubs.fields")));
+  }
+
+  @Test
+  void whenQueriesCombined_printMetricsInConfigurationOrder() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(COMBINED_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(),
+          stringContainsInOrder("testSample1{name=\"alpha\"} 1", "testSample2{name=\"aleph\"} 2"));
+  }
+
+  @Test
+  void whenCombinedQueryRejected_sendQueriesSeparately() throws IOException {
+    factory.reportBadQuery();
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(COMBINED_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    assertThat(context.getResponse(),
+          stringContainsInOrder("testSample1{name=\"alpha\"} 1", "testSample2{name=\"aleph\"} 2"));
+  }
+
+  @Test
+  void whenDomainRuntimeUsed_findServersFromAdminServer() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.serverRuntimes.fields", contains("name")));
+  }
+
+  @Test
+  void whenDomainRuntimeUsed_queryEachServerSeparately() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    factory.getSentQuery();
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.serverRuntimes.name", contains("ms1")));
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.serverRuntimes.name", contains("ms2")));
+  }
+
+  @Test
+  void whenDomainRuntimeUsed_qualifyMetricsByServer() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    factory.addJsonResponse(SERVER1_RESPONSE_JSON);
+    factory.addJsonResponse(SERVER2_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), stringContainsInOrder(
+          "testSample1{server=\"ms1\",name=\"alpha\"} 1", "testSample1{server=\"ms2\",name=\"alpha\"} 2"));
+  }
+
+  @Test
+  void whenServerDoesNotRespondInTime_reportItAndCollectOtherServers() throws IOException {
+    final ExecutorStub executor = createStrictStub(ExecutorStub.class);
+    SelectorExecutor.setExecutorFactory(limit -> executor);
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    factory.addJsonResponse(SERVER2_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("# Server ms1 did not respond within 10 seconds"));
+    assertThat(context.getResponse(), containsString("testSample1{server=\"ms2\",name=\"alpha\"} 2"));
+  }
+
+  @Test
+  void whenDomainRuntimeUsedWithoutDeadline_limitServerQueriesByServerTimeout() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    factory.addJsonResponse(SERVER1_RESPONSE_JSON);
+    LiveConfiguration.loadFromString("serverTimeout: 3\n" + DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getRequestTimeout(), equalTo(3000L));
+  }
+
+  @Test
+  void whenScrapeDeadlineBeforeServerTimeout_limitServerQueriesByDeadline() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    factory.addJsonResponse(SERVER1_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(SCRAPE_TIMEOUT_HEADER, "5"));
+
+    assertThat(factory.getRequestTimeout(), both(greaterThan(0L)).and(lessThanOrEqualTo(4500L)));
+  }
+
+  @Test
+  void whenServerHangsWithoutDeadline_releaseThreadForOtherServers() throws IOException {
+    factory.addJsonResponse(SERVER_KEY_RESPONSE_JSON);
+    factory.addHungResponse();
+    factory.addJsonResponse(SERVER2_RESPONSE_JSON);
+    LiveConfiguration.loadFromString("serverTimeout: 1\n" + DOMAIN_RUNTIME_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("testSample1{server=\"ms2\",name=\"alpha\"} 2"));
+  }
+
+  // Runs each submitted task at once, except the first, which never completes.
+  abstract static class ExecutorStub implements ExecutorService {
+    private boolean hungTaskSubmitted;
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+      if (!hungTaskSubmitted) {
+        hungTaskSubmitted = true;
+        return createStub(HungFuture.class);
+      }
+
+      try {
+        return CompletableFuture.completedFuture(task.call());
+      } catch (Exception e) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(e);
+        return result;
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      // nothing to release
+    }
+  }
+
+  abstract static class HungFuture<T> implements Future<T> {
+    @Override
+    public T get(long timeout, TimeUnit unit) throws TimeoutException {
+      throw new TimeoutException();
+    }
+  }
+
+  @Test
+  void whenConcurrentQueryFailsWithBadQuery_reportProblemAndContinue() throws IOException {
+    factory.reportBadQuery();
+    factory.reportBadQuery();
+    LiveConfiguration.loadFromString(CONCURRENT_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("wls_scrape_mbeans_count_total"));
+  }
+
+  @Test
+  void whenScrapedAgainWithinCoalesceWindow_reuseMetrics() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(COALESCING_CONFIG);
+    handleMetricsCall(context);
+
+    final InvocationContextStub context2 = InvocationContextStub.create();
+    handleMetricsCall(context2);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(1));
+    assertThat(context2.getResponse(), equalTo(context.getResponse()));
+  }
+
+  @Test
+  void whenQueryFailedWithinCoalesceWindow_queryAgain() throws IOException {
+    factory.reportBadQuery();
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(COALESCING_CONFIG);
+    handleMetricsCall(context);
+
+    final InvocationContextStub context2 = InvocationContextStub.create();
+    handleMetricsCall(context2);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(2));
+    assertThat(context2.getResponse(), not(equalTo(context.getResponse())));
+  }
+
+  @Test
+  void whenScrapedWithOtherCredentialsWithinCoalesceWindow_queryAgain() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(COALESCING_CONFIG);
+    handleMetricsCall(context);
+
+    final InvocationContextStub context2 = InvocationContextStub.create();
+    context2.setAuthenticationHeader("Basic otherStuff");
+    handleMetricsCall(context2);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(2));
+  }
+
+  @Test
+  void whenClientAcceptsGzip_sendCompressedMetrics() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), equalTo("gzip"));
+    assertThat(gunzip(context.getResponseBytes()), containsString("testSample1{name=\"alpha\"} 1"));
+  }
+
+  private String gunzip(byte[] bytes) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[1024];
+      int numRead;
+      while ((numRead = in.read(buffer)) >= 0)
+        out.write(buffer, 0, numRead);
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  void whenClientAcceptsGzipAndRestApiUnreachable_sendUncompressedExplanation() throws IOException {
+    factory.throwConnectionFailure(HOST_NAME, PORT);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(context.getResponse(), startsWith("# Unable to contact the REST API"));
+  }
+
+  @Test
+  void whenClientAcceptsGzipAndRetryNeeded_sendSingleCompressedResponse() throws Exception {
+    factory.throwConnectionFailure(HOST_NAME, PORT);
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withAlternatePort(REST_PORT).withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseHeaders(CONTENT_ENCODING_HEADER), contains("gzip"));
+    assertThat(gunzipSingleMember(context.getResponseBytes()), containsString("testSample1{name=\"alpha\"} 1"));
+  }
+
+  // Returns the contents of a response which must hold exactly one gzip member, as written by GZIPOutputStream.
+  private String gunzipSingleMember(byte[] bytes) throws DataFormatException {
+    final Inflater inflater = new Inflater(true);
+    inflater.setInput(bytes, GZIP_HEADER_LENGTH, bytes.length - GZIP_HEADER_LENGTH);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[1024];
+    while (!inflater.finished() && !inflater.needsInput())
+      out.write(buffer, 0, inflater.inflate(buffer));
+    assertThat(inflater.getRemaining(), equalTo(GZIP_TRAILER_LENGTH));
+    inflater.end();
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void whenClientAcceptsGzipAndAuthenticationRequired_dontSetContentEncoding() throws IOException {
+    factory.reportAuthenticationRequired("Test-Realm");
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseStatus(), equalTo(401));
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+  }
+
+  @Test
+  void whenClientAcceptsGzipAndNotAuthorized_dontSetContentEncoding() throws IOException {
+    factory.reportNotAuthorized();
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseStatus(), equalTo(403));
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+  }
+
+  @Test
+  void whenCompressionDisabled_sendUncompressedMetrics() throws IOException {
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(UNCOMPRESSED_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(context.getResponse(), containsString("testSample1{name=\"alpha\"} 1"));
+  }
+
+  @Test
+  void whenRestQueriesLimited_reportLimiterMetrics() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(LIMITED_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(),
+          containsString("wls_exporter_rest_concurrency_limit{instance=\"unit test\",target=\"" + HOST_NAME + ":" + PORT + "\"} 3"));
+  }
+
+  @Test
+  void whenRestQueriesNotLimited_dontReportLimiterMetrics() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), not(containsString("wls_exporter_rest_concurrency_limit")));
+  }
+
+  @Test
+  void whenRestQueryLimitAndQueueFull_rejectScrapeWithRetryAfter() throws Exception {
+    LiveConfiguration.loadFromString("restConcurrencyLimit: 1\n" + ONE_VALUE_CONFIG);
+    final RestRequestLimiter limiter = RestRequestLimiter.getLimiter(HOST_NAME + ":" + PORT, 1);
+    limiter.acquire();
+    final Thread waitingQuery = new Thread(this::acquireAndRelease);
+    waitingQuery.start();
+    awaitQueuedQueries(limiter, 1);
+
+    try {
+      handleMetricsCall(context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip"));
+    } finally {
+      limiter.release();
+      waitingQuery.join();
+    }
+
+    assertThat(context.getResponseStatus(), equalTo(503));
+    assertThat(context.getResponseHeader(RETRY_AFTER_HEADER), equalTo("1"));
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(factory.getNumQueriesSent(), equalTo(0));
+  }
+
+  @Test
+  void whenAdmittedScrapeQueuesMoreQueriesThanLimit_sendThemAll() throws Exception {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    factory.addJsonResponse(QUERY_RESPONSE2_JSON);
+    LiveConfiguration.loadFromString("restConcurrencyLimit: 1\n" + CONCURRENT_QUERY_CONFIG);
+    final RestRequestLimiter limiter = RestRequestLimiter.getLimiter(HOST_NAME + ":" + PORT, 1);
+    limiter.acquire();
+    final Thread scrape = new Thread(this::handleMetricsCallQuietly);
+    scrape.start();
+    awaitQueuedQueries(limiter, 2);
+
+    limiter.release();
+    scrape.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(context.getResponseStatus(), not(equalTo(503)));
+    assertThat(factory.getNumQueriesSent(), equalTo(2));
+  }
+
+  private void handleMetricsCallQuietly() {
+    try {
+      handleMetricsCall(context);
+    } catch (IOException ignored) {
+      // the test will fail
+    }
+  }
+
+  @Test
+  void whenClientSetsScrapeTimeout_limitRequestTimeoutToScrapeDeadline() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context.withRequestHeader(SCRAPE_TIMEOUT_HEADER, "10"));
+
+    assertThat(factory.getRequestTimeout(), both(greaterThan(0L)).and(lessThanOrEqualTo(9000L)));
+  }
+
+  @Test
+  void whenClientSetsNoScrapeTimeout_dontLimitRequestTimeout() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getRequestTimeout(), equalTo(0L));
+  }
+
+  @Test
+  void whenScrapeDeadlinePassedBeforeQuery_skipQueryAndReportItDown() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    context.withRequestHeader(SCRAPE_TIMEOUT_HEADER, "0.000000001");  // the deadline passes as soon as it is set
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(0));
+    assertThat(context.getResponse(),
+          containsString("wls_exporter_query_up{instance=\"unit test\",query=\"0\",path=\"groups\"} 0"));
+  }
+
+  @Test
+  void whenQueryCollected_reportItUpWithDuration() throws IOException {
+    factory.addJsonResponse(QUERY_RESPONSE1_JSON);
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), stringContainsInOrder(
+          "wls_exporter_query_up{instance=\"unit test\",query=\"0\",path=\"groups\"} 1",
+          "wls_exporter_query_duration_seconds{instance=\"unit test\",query=\"0\",path=\"groups\"}"));
+  }
+
+  @Test
+  void whenQueryTimesOut_reportItDownAndKeepOtherMetrics() throws IOException {
+    factory.reportReadTimeout();
+    factory.addJsonResponse(COMBINED_RESPONSE_JSON);
+    LiveConfiguration.loadFromString(DUAL_QUERY_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("testSample2{name=\"aleph\"} 2"));
+    assertThat(context.getResponse(), stringContainsInOrder(
+          "wls_exporter_query_up{instance=\"unit test\",query=\"0\",path=\"groups\"} 0",
+          "wls_exporter_query_up{instance=\"unit test\",query=\"1\",path=\"clubs\"} 1"));
+  }
+
+  @Test
+  void whenQueryTimesOut_dontCountItsMetrics() throws IOException {
+    factory.reportReadTimeout();
+    LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
+
+    handleMetricsCall(context);
+
+    assertThat(context.getResponse(), containsString("wls_scrape_mbeans_count_total{instance=\"unit test\"} 0"));
+  }
+
+  private void acquireAndRelease() {
+    try {
+      final RestRequestLimiter limiter = RestRequestLimiter.getLimiter(HOST_NAME + ":" + PORT, 1);
+      limiter.acquire();
+      limiter.release();
+    } catch (InterruptedIOException ignored) {
+      // the test will fail
+    }
+  }
+
+  private void awaitQueuedQueries(RestRequestLimiter limiter, int numQueries) throws InterruptedException {
+    for (int i = 0; i < 500 && limiter.getQueued() < numQueries; i++)
+      Thread.sleep(10);
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -42,6 +42,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
 
 /**
  * @author Russell Gold
@@ -86,6 +87,7 @@ class ExporterServletTest {
         Locale.setDefault(locale);
         InMemoryFileSystem.uninstall();
         ConfigurationUpdaterStub.uninstall();
+        ScrapeExecutor.stop();
     }
 
     @Test
@@ -105,6 +107,13 @@ class ExporterServletTest {
         assertThat(annotation.value(), arrayContaining("/metrics"));
     }
 
+    @Test
+    void servletAnnotationSupportsAsyncProcessing() {
+        WebServlet annotation = ExporterServlet.class.getAnnotation(WebServlet.class);
+
+        assertThat(annotation.asyncSupported(), is(true));
+    }
+
     @Test
     void whenConfigParamNotFound_configurationHasNoQueries() throws Exception {
         servlet.init(withNoParams());
@@ -284,16 +293,28 @@ class ExporterServletTest {
     }
 
     @Test
-    void whenNewConfigAvailable_loadBeforeGeneratingMetrics() throws Exception {
+    void whenNewConfigInstalled_useItToGenerateMetrics() throws Exception {
         factory.addJsonResponse(getGroupResponseMap());
         initServlet(ONE_VALUE_CONFIG);
         ConfigurationUpdaterStub.newConfiguration(1, TWO_VALUE_CONFIG);
+        LiveConfiguration.updateConfiguration();
 
         servlet.doGet(request, response);
 
         assertThat(toHtml(response), containsString("groupValue_testSample2{name=\"second\"} 71.0"));
     }
 
+    @Test
+    void whenNewConfigAvailable_dontLoadItWhileGeneratingMetrics() throws Exception {
+        factory.addJsonResponse(getGroupResponseMap());
+        initServlet(ONE_VALUE_CONFIG);
+        ConfigurationUpdaterStub.newConfiguration(1, TWO_VALUE_CONFIG);
+
+        servlet.doGet(request, response);
+
+        assertThat(toHtml(response), not(containsString("groupValue_testSample2")));
+    }
+
     @Test
     void onGet_displayMetricsInSnakeCase() throws Exception {
         factory.addJsonResponse(getGroupResponseMap());
@@ -305,6 +326,51 @@ class ExporterServletTest {
         assertThat(toHtml(this.response), usesSnakeCase());
     }
 
+    @Test
+    void whenAsyncScrapeThreadsConfigured_completeScrapeOnScrapeThread() throws Exception {
+        factory.addJsonResponse(getGroupResponseMap());
+        initServlet("asyncScrapeThreads: 1\n" + TWO_VALUE_CONFIG);
+        request.withAsyncSupport(response);
+
+        servlet.doGet(request, response);
+
+        assertThat(request.getAsyncContext().awaitCompletion(), is(true));
+        assertThat(request.getAsyncContext().getCompletingThreadName(), startsWith("wls-exporter-scrape-"));
+        assertThat(toHtml(response), containsString("groupValue_testSample1{name=\"first\"} 12"));
+    }
+
+    @Test
+    void whenAsyncScrapeThreadsConfiguredButRequestDoesNotSupportAsync_scrapeOnRequestThread() throws Exception {
+        factory.addJsonResponse(getGroupResponseMap());
+        initServlet("asyncScrapeThreads: 1\n" + TWO_VALUE_CONFIG);
+
+        servlet.doGet(request, response);
+
+        assertThat(toHtml(response), containsString("groupValue_testSample1{name=\"first\"} 12"));
+    }
+
+    @Test
+    void whenAsyncScrapeThreadsNotConfigured_dontStartAsync() throws Exception {
+        factory.addJsonResponse(getGroupResponseMap());
+        initServlet(TWO_VALUE_CONFIG);
+        request.withAsyncSupport(response);
+
+        servlet.doGet(request, response);
+
+        assertThat(request.isAsyncStarted(), is(false));
+    }
+
+    @Test
+    void whenInProcessCollectionConfigured_dontStartAsync() throws Exception {
+        factory.addJsonResponse(getGroupResponseMap());
+        initServlet("inProcessCollection: true\nasyncScrapeThreads: 1\n" + TWO_VALUE_CONFIG);
+        request.withAsyncSupport(response);
+
+        servlet.doGet(request, response);
+
+        assertThat(request.isAsyncStarted(), is(false));
+    }
+
     @Test
     void onGet_metricsArePrometheusCompliant() throws Exception {
         factory.addJsonResponse(getGroupResponseMap());
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -28,8 +28,7 @@ public class InMemoryFileSystem {
 
     public static void install() throws NoSuchFieldException {
         resources = new HashMap<>();
-        mementos.add(StaticStubSupport.install(LiveConfiguration.class, "config", null));
-        mementos.add(StaticStubSupport.install(LiveConfiguration.class, "timestamp", null));
+        mementos.add(StaticStubSupport.install(LiveConfiguration.class, "current", null));
     }
 
     public static void uninstall() {
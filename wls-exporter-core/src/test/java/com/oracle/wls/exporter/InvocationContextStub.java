@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -32,6 +32,11 @@ abstract class InvocationContextStub implements InvocationContext {
   private InputStream requestStream = null;
   private int responseStatus = 0;
   private boolean secure;
+  private String target;
+  private Integer alternatePort;
+  private boolean authenticated = true;
+  private String instanceName = "unit test";
+  private final Map<String, String> requestHeaders = new HashMap<>();
   private final Map<String, List<String>> responseHeaders = new HashMap<>();
   private final Map<String, String> cookies = new HashMap<>();
 
@@ -39,6 +44,16 @@ abstract class InvocationContextStub implements InvocationContext {
     return createStrictStub(InvocationContextStub.class);
   }
 
+  InvocationContextStub withAlternatePort(int alternatePort) {
+    this.alternatePort = alternatePort;
+    return this;
+  }
+
+  InvocationContextStub withUnauthenticatedClient() {
+    authenticated = false;
+    return this;
+  }
+
   InvocationContextStub withHttps() {
     secure = true;
     return this;
@@ -56,6 +71,21 @@ abstract class InvocationContextStub implements InvocationContext {
     return this;
   }
 
+  InvocationContextStub withTarget(String target) {
+    this.target = target;
+    return this;
+  }
+
+  InvocationContextStub withInstanceName(String instanceName) {
+    this.instanceName = instanceName;
+    return this;
+  }
+
+  InvocationContextStub withRequestHeader(String name, String value) {
+    requestHeaders.put(name, value);
+    return this;
+  }
+
   void addCookie(String name, String value) {
     cookies.put(name, value);
   }
@@ -68,6 +98,10 @@ abstract class InvocationContextStub implements InvocationContext {
     return responseStream.toString();
   }
 
+  byte[] getResponseBytes() {
+    return responseStream.toByteArray();
+  }
+
   @SuppressWarnings("SameParameterValue")
   String getResponseHeader(String name) {
     return Optional.ofNullable(responseHeaders.get(name)).map(h-> h.get(0)).orElse(null);
@@ -92,7 +126,7 @@ abstract class InvocationContextStub implements InvocationContext {
 
   @Override
   public UrlBuilder createUrlBuilder() {
-    return UrlBuilder.create(secure).withHostName(HOST_NAME).withPort(PORT);
+    return UrlBuilder.create(secure).withHostName(HOST_NAME).withPort(PORT).withPort(alternatePort);
   }
 
   @Override
@@ -105,14 +139,29 @@ abstract class InvocationContextStub implements InvocationContext {
     return authenticationHeader;
   }
 
+  @Override
+  public boolean authenticate() {
+    return authenticated;
+  }
+
   @Override
   public String getContentType() {
     return contentType;
   }
 
+  @Override
+  public String getRequestHeader(String name) {
+    return requestHeaders.get(name);
+  }
+
   @Override
   public String getInstanceName() {
-    return "unit test";
+    return instanceName;
+  }
+
+  @Override
+  public String getTarget() {
+    return target;
   }
 
   @Override
@@ -0,0 +1,217 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import com.meterware.simplestub.Memento;
+import com.meterware.simplestub.StaticStubSupport;
+import com.oracle.wls.exporter.domain.MBeanSelector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath;
+import static com.meterware.simplestub.Stub.createStrictStub;
+import static com.meterware.simplestub.Stub.createStub;
+import static com.oracle.wls.exporter.InvocationContextStub.HOST_NAME;
+import static com.oracle.wls.exporter.InvocationContextStub.PORT;
+import static com.oracle.wls.exporter.WebAppConstants.SCRAPE_TIMEOUT_HEADER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class KeyDiscoveryTest {
+  private static final long KEY_UPDATE_INTERVAL_SECONDS = 60;
+  private static final String FILTERED_CONFIG = "queries:" +
+        "\n- groups:\n    key: name\n    includedKeyValues: alpha|beta\n    values: testSample1";
+  private static final String DUAL_FILTERED_CONFIG = FILTERED_CONFIG +
+        "\n- clubs:\n    key: name\n    excludedKeyValues: bet\n    values: testSample2";
+  private static final String KEY_RESPONSE_JSON =
+        "{\"groups\": {\"items\": [{\"name\": \"alpha\"}, {\"name\": \"beta\"}, {\"name\": \"gamma\"}]}}";
+  private static final String REDUCED_KEY_RESPONSE_JSON = "{\"groups\": {\"items\": [{\"name\": \"beta\"}]}}";
+  private static final String FILTERED_AND_UNFILTERED_CONFIG = FILTERED_CONFIG +
+        "\n- clubs:\n    key: name\n    values: testSample2";
+  private static final String CLUBS_RESPONSE_JSON = "{\"clubs\": {\"items\": [{\"name\": \"aleph\", \"testSample2\": 2}]}}";
+  private static final String METRICS_RESPONSE_JSON = "{\"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 1}]}}";
+
+  private final WebClientFactoryStub factory = new WebClientFactoryStub();
+  private final ExecutorStub executor = createStrictStub(ExecutorStub.class);
+  private final ClockStub clock = createStub(ClockStub.class);
+  private final List<Memento> mementos = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException {
+    mementos.add(StaticStubSupport.install(KeyDiscovery.class, "executor", executor));
+    mementos.add(StaticStubSupport.install(MBeanSelector.class, "systemClock", clock));
+    LiveConfiguration.setServer(HOST_NAME, PORT);
+    LiveConfiguration.loadFromString(FILTERED_CONFIG);
+    AuthenticatedCall.clearCookies();
+  }
+
+  @AfterEach
+  void tearDown() {
+    mementos.forEach(Memento::revert);
+  }
+
+  private void handleMetricsCall() throws IOException {
+    handleMetricsCall(InvocationContextStub.create());
+  }
+
+  private InvocationContextStub handleMetricsCall(InvocationContextStub context) throws IOException {
+    new ExporterCall(factory, context).doWithAuthentication();
+    return context;
+  }
+
+  // Returns the query sent after skipping the specified number of earlier queries
+  private String getSentQuery(int numToSkip) {
+    for (int i = 0; i < numToSkip; i++)
+      factory.getSentQuery();
+    return factory.getSentQuery();
+  }
+
+  @Test
+  void whenKeysNeverDiscovered_requestThemBeforeMetrics() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+
+    handleMetricsCall();
+
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.groups.fields", contains("name")));
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.groups.name", containsInAnyOrder("alpha", "beta")));
+  }
+
+  @Test
+  void whenSeveralQueriesFiltered_requestAllTheirKeysAtOnce() throws IOException {
+    LiveConfiguration.loadFromString(DUAL_FILTERED_CONFIG);
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+
+    handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    assertThat(factory.getSentQuery(), hasJsonPath("$.children.clubs.fields", contains("name")));
+  }
+
+  @Test
+  void whenInitialKeyQueryFails_reportItAndCollectOtherQueries() throws IOException {
+    LiveConfiguration.loadFromString(FILTERED_AND_UNFILTERED_CONFIG);
+    factory.reportReadTimeout();
+    factory.addJsonResponse(CLUBS_RESPONSE_JSON);
+
+    final InvocationContextStub context = handleMetricsCall(InvocationContextStub.create());
+
+    assertThat(context.getResponse(), containsString("Query failed with java.net.SocketTimeoutException"));
+    assertThat(context.getResponse(), containsString("testSample2{name=\"aleph\"} 2"));
+  }
+
+  @Test
+  void whenScrapeHasDeadline_keyQueryTimesOutByIt() throws IOException {
+    factory.addHungResponse();
+
+    handleMetricsCall(InvocationContextStub.create().withRequestHeader(SCRAPE_TIMEOUT_HEADER, "1"));
+
+    assertThat(factory.getRequestTimeout(), both(greaterThan(0L)).and(lessThanOrEqualTo(900L)));
+  }
+
+  @Test
+  void whenKeysUpToDate_dontRequestThemAgain() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+
+    handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    assertThat(executor.tasks, empty());
+  }
+
+  @Test
+  void whenKeysObsolete_scrapeWithoutWaitingForNewKeys() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+    clock.incrementSeconds(KEY_UPDATE_INTERVAL_SECONDS);
+
+    handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    assertThat(getSentQuery(2), hasJsonPath("$.children.groups.name", containsInAnyOrder("alpha", "beta")));
+    assertThat(executor.tasks, hasSize(1));
+  }
+
+  @Test
+  void whenKeysObsolete_refreshThemOnlyOnce() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+    clock.incrementSeconds(KEY_UPDATE_INTERVAL_SECONDS);
+
+    handleMetricsCall();
+    handleMetricsCall();
+
+    assertThat(executor.tasks, hasSize(1));
+  }
+
+  @Test
+  void afterKeysRefreshed_replacePreviousKeys() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+    clock.incrementSeconds(KEY_UPDATE_INTERVAL_SECONDS);
+    handleMetricsCall();
+
+    factory.addJsonResponse(REDUCED_KEY_RESPONSE_JSON);
+    executor.runNextTask();
+    handleMetricsCall();
+
+    assertThat(getSentQuery(4), hasJsonPath("$.children.groups.name", contains("beta")));
+  }
+
+  @Test
+  void whenKeyRefreshFails_keepPreviousKeys() throws IOException {
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+    clock.incrementSeconds(KEY_UPDATE_INTERVAL_SECONDS);
+    handleMetricsCall();
+
+    factory.throwWebClientException(new RestQueryException());
+    factory.addJsonResponse(METRICS_RESPONSE_JSON);
+    executor.runNextTask();
+    handleMetricsCall();
+
+    assertThat(getSentQuery(4), hasJsonPath("$.children.groups.name", containsInAnyOrder("alpha", "beta")));
+  }
+
+  @Test
+  void whenKeysRefreshed_timeOutAfterServerTimeout() throws IOException {
+    LiveConfiguration.loadFromString("serverTimeout: 3\n" + FILTERED_CONFIG);
+    factory.addJsonResponse(KEY_RESPONSE_JSON);
+    handleMetricsCall();
+    clock.incrementSeconds(KEY_UPDATE_INTERVAL_SECONDS);
+    handleMetricsCall();
+
+    factory.addJsonResponse(REDUCED_KEY_RESPONSE_JSON);
+    executor.runNextTask();
+
+    assertThat(factory.getRequestTimeout(), equalTo(3000L));
+  }
+
+  abstract static class ExecutorStub implements ExecutorService {
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    void runNextTask() {
+      tasks.remove(0).run();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
@@ -22,6 +22,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * @author Russell Gold
@@ -68,15 +70,21 @@ class LiveConfigurationTest {
             "    key: name\n" +
             "    values: [sample1, sample2]\n";
 
+    private Memento errorLogMemento;
+
     @BeforeEach
     public void setUp() throws Exception {
         InMemoryFileSystem.install();
         ConfigurationUpdaterStub.install();
         ServletUtils.setServer(HttpServletRequestStub.createPostRequest());
+        errorLogMemento = StaticStubSupport.preserve(LiveConfiguration.class, "errorLog");
     }
 
+    // Configurations which synchronize queries start polling, which reports failures to a new error log.
     @AfterEach
     public void tearDown() {
+        ConfigurationRefresher.stop();
+        errorLogMemento.revert();
         InMemoryFileSystem.uninstall();
         ConfigurationUpdaterStub.uninstall();
     }
@@ -93,6 +101,46 @@ class LiveConfigurationTest {
         ServletUtils.initializeConfiguration(withNoParams());
     }
 
+    @Test
+    void withoutTarget_useLiveConfiguration() {
+        init(CONFIGURATION);
+
+        assertThat(LiveConfiguration.getConfig(null), sameInstance(LiveConfiguration.getConfig()));
+    }
+
+    @Test
+    void withTarget_useCopyWithOwnQueries() {
+        init(CONFIGURATION);
+
+        final ExporterConfig targetConfig = LiveConfiguration.getConfig("server2:7001");
+
+        assertThat(targetConfig.getQueries()[0], not(sameInstance(LiveConfiguration.getConfig().getQueries()[0])));
+    }
+
+    @Test
+    void whileConfigurationUnchanged_reuseTargetCopy() {
+        init(CONFIGURATION);
+
+        assertThat(LiveConfiguration.getConfig("server2:7001"), sameInstance(LiveConfiguration.getConfig("server2:7001")));
+    }
+
+    @Test
+    void afterConfigurationReplaced_replaceTargetCopy() {
+        init(CONFIGURATION);
+        final ExporterConfig original = LiveConfiguration.getConfig("server2:7001");
+
+        LiveConfiguration.loadFromString(ADDED_CONFIGURATION);
+
+        assertThat(LiveConfiguration.getConfig("server2:7001"), not(sameInstance(original)));
+    }
+
+    @Test
+    void eachTargetHasItsOwnCopy() {
+        init(CONFIGURATION);
+
+        assertThat(LiveConfiguration.getConfig("server2:7001"), not(sameInstance(LiveConfiguration.getConfig("server3:7001"))));
+    }
+
     @Test
     void whenInitNotCalled_haveNoQueries() {
         assertThat(LiveConfiguration.hasQueries(), is(false));
@@ -136,6 +184,29 @@ class LiveConfigurationTest {
         assertThat(LiveConfiguration.asString(), equalTo(ADDED_CONFIGURATION));
     }
 
+    @Test
+    void afterReplaceQueryCalled_configurationInUseIsUnchanged() {
+        init(CONFIGURATION);
+        final ExporterConfig inUse = LiveConfiguration.getConfig();
+        final String originalQueries = inUse.toString();
+
+        LiveConfiguration.replaceConfiguration(toConfiguration(ADDED_CONFIGURATION));
+
+        assertThat(inUse.toString(), equalTo(originalQueries));
+        assertThat(LiveConfiguration.getConfig(), not(sameInstance(inUse)));
+    }
+
+    @Test
+    void afterAppendQueryCalled_configurationInUseIsUnchanged() {
+        init(CONFIGURATION);
+        final ExporterConfig inUse = LiveConfiguration.getConfig();
+        final String originalQueries = inUse.toString();
+
+        LiveConfiguration.appendConfiguration(toConfiguration(ADDED_CONFIGURATION));
+
+        assertThat(inUse.toString(), equalTo(originalQueries));
+    }
+
     @SuppressWarnings("SameParameterValue")
     private ExporterConfig toConfiguration(String configuration) {
         return ExporterConfig.loadConfig(new ByteArrayInputStream(configuration.getBytes()));
@@ -1,9 +1,10 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,6 +30,8 @@ import static com.oracle.wls.exporter.matchers.PrometheusMetricsMatcher.followsP
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.stringContainsInOrder;
 
 /**
  * @author Russell Gold
@@ -51,6 +54,8 @@ class MetricsStreamTest {
 
     @BeforeEach
     public void setUp() throws NoSuchFieldException {
+        ConnectionStatistics.clear();
+        ResponseCompression.clear();
         initMetricsStream();
         ServletUtils.setServer(postRequest);
         mementos.add(SystemPropertySupport.preserve(LINE_SEPARATOR));
@@ -68,18 +73,18 @@ class MetricsStreamTest {
     }
 
     @Test
-    void whenNoMetricsScraped_reportNoneScraped() {
+    void whenNoMetricsScraped_reportNoneScraped() throws IOException {
         assertThat(getPrintedMetrics(),
                 containsString(getQualifiedPlatformMetricName("wls_scrape_mbeans_count_total") + " 0"));
     }
 
-    private String getPrintedMetrics() {
+    private String getPrintedMetrics() throws IOException {
         metrics.printPlatformMetrics();
         return baos.toString();
     }
 
     @Test
-    void whenMetricsPrinted_eachHasItsOwnLineSeparatedByLinuxLineSeparators() {
+    void whenMetricsPrinted_eachHasItsOwnLineSeparatedByLinuxLineSeparators() throws IOException {
         metrics.printMetric("a", 12);
         metrics.printMetric("b", 120);
         metrics.printMetric("c", 0);
@@ -88,7 +93,7 @@ class MetricsStreamTest {
     }
 
     @Test
-    void whenMetricsPrintedOnWindows_eachHasItsOwnLineSeparatedByLinuxLineSeparators() throws NoSuchFieldException {
+    void whenMetricsPrintedOnWindows_eachHasItsOwnLineSeparatedByLinuxLineSeparators() throws NoSuchFieldException, IOException {
         simulateWindows();
 
         metrics.printMetric("a", 12);
@@ -104,7 +109,7 @@ class MetricsStreamTest {
         initMetricsStream();
     }
 
-    private List<String> getPrintedMetricValues() {
+    private List<String> getPrintedMetricValues() throws IOException {
         return Arrays.stream(getPrintedMetrics()
               .split(Linux_LINE_SEPARATOR))
               .map(this::getMetricValue)
@@ -116,7 +121,7 @@ class MetricsStreamTest {
     }
 
     @Test
-    void afterMetricsScraped_reportScrapedCount() {
+    void afterMetricsScraped_reportScrapedCount() throws IOException {
         metrics.printMetric("a", 12);
         metrics.printMetric("b", 120);
         metrics.printMetric("c", 0);
@@ -125,6 +130,43 @@ class MetricsStreamTest {
                 containsString(getQualifiedPlatformMetricName("wls_scrape_mbeans_count_total") + " 3"));
     }
 
+    @Test
+    void whenBuffersPrinted_groupSeriesByFamily() throws IOException {
+        final MetricsBuffer buffer1 = createBuffer("a{s=\"1\"}", "b{s=\"1\"}");
+        final MetricsBuffer buffer2 = createBuffer("c", "b{s=\"2\"}", "a{s=\"2\"}");
+
+        metrics.printMetrics(Arrays.asList(buffer1, buffer2));
+
+        assertThat(getPrintedMetrics(), stringContainsInOrder(
+                "a{s=\"1\"} 1\na{s=\"2\"} 1\nb{s=\"1\"} 1\nb{s=\"2\"} 1\nc 1\n",
+                getQualifiedPlatformMetricName("wls_scrape_mbeans_count_total") + " 5"));
+    }
+
+    private MetricsBuffer createBuffer(String... names) {
+        final MetricsBuffer buffer = new MetricsBuffer();
+        for (String name : names)
+            buffer.printMetric(name, 1);
+        return buffer;
+    }
+
+    @Test
+    void whenBuffersPrinted_dontGroupFamiliesSharingAPrefix() throws IOException {
+        metrics.printMetrics(Arrays.asList(createBuffer("ab", "a"), createBuffer("a{s=\"2\"}")));
+
+        assertThat(getPrintedMetrics(), containsString("ab 1\na 1\na{s=\"2\"} 1\n"));
+    }
+
+    @Test
+    void whenBuffersPrinted_keepCommentsInPlace() throws IOException {
+        final MetricsBuffer buffer1 = createBuffer("a");
+        buffer1.println("# problem");
+        final MetricsBuffer buffer2 = createBuffer("a{s=\"2\"}");
+
+        metrics.printMetrics(Arrays.asList(buffer1, buffer2));
+
+        assertThat(getPrintedMetrics(), containsString("a 1\na{s=\"2\"} 1\n# problem\n"));
+    }
+
 
     private String getQualifiedPlatformMetricName(String metricName) {
         return metricName + '{' + QUALIFICATIONS.entrySet().stream().map(this::toQualification).collect(Collectors.joining(",")) + '}';
@@ -135,7 +177,7 @@ class MetricsStreamTest {
     }
 
     @Test
-    void afterTimePasses_reportScrapeDuration() {
+    void afterTimePasses_reportScrapeDuration() throws IOException {
         performanceProbe.incrementElapsedTime(12.4);
 
         assertThat(getPrintedMetrics(),
@@ -143,7 +185,7 @@ class MetricsStreamTest {
     }
 
     @Test
-    void afterProcessing_reportCpuPercent() {
+    void afterProcessing_reportCpuPercent() throws IOException {
         performanceProbe.incrementCpuTime(3.2);
 
         assertThat(getPrintedMetrics(),
@@ -151,14 +193,47 @@ class MetricsStreamTest {
     }
 
     @Test
-    void includeVersionStringInMetrics() {
+    void afterRestRequestsSent_reportRequestCount() throws IOException {
+        ConnectionStatistics.recordRequest();
+        ConnectionStatistics.recordRequest();
+
+        assertThat(getPrintedMetrics(),
+                containsString(getQualifiedPlatformMetricName("wls_exporter_rest_requests_total") + " 2"));
+    }
+
+    @Test
+    void whenNoConnectionsRecorded_dontReportConnectionCount() throws IOException {
+        ConnectionStatistics.recordRequest();
+
+        assertThat(getPrintedMetrics(), not(containsString("wls_exporter_rest_connections_opened_total")));
+    }
+
+    @Test
+    void afterConnectionsOpened_reportConnectionCount() throws IOException {
+        ConnectionStatistics.recordRequest();
+        ConnectionStatistics.recordRequest();
+        ConnectionStatistics.recordConnection();
+
+        assertThat(getPrintedMetrics(),
+                containsString(getQualifiedPlatformMetricName("wls_exporter_rest_connections_opened_total") + " 1"));
+    }
+
+    @Test
+    void reportCompressedResponseByteCounts() throws IOException {
+        assertThat(getPrintedMetrics(), stringContainsInOrder(
+                getQualifiedPlatformMetricName("wls_exporter_response_uncompressed_bytes_total") + " 0",
+                getQualifiedPlatformMetricName("wls_exporter_response_compressed_bytes_total") + " 0"));
+    }
+
+    @Test
+    void includeVersionStringInMetrics() throws IOException {
         metrics.printPlatformMetrics();
 
         assertThat(baos.toString(), containsString(LiveConfiguration.getVersionString()));
      }
 
     @Test
-    void producedMetricsAreCompliant() {
+    void producedMetricsAreCompliant() throws IOException {
         performanceProbe.incrementElapsedTime(20);
         performanceProbe.incrementCpuTime(3);
 
@@ -166,16 +241,17 @@ class MetricsStreamTest {
     }
 
     @Test
-    void alwaysUseUSEncodingForMetrics() {
+    void alwaysUseUSEncodingForMetrics() throws IOException {
         mementos.add(setFrenchLocale());
 
         metrics.printMetric("scraped value", 3.14);
+        metrics.flush();
 
         assertThat(baos.toString(), containsString("."));
     }
 
     @Test
-    void alwaysUseUSEncodingForPlatformMetrics() {
+    void alwaysUseUSEncodingForPlatformMetrics() throws IOException {
         mementos.add(setFrenchLocale());
 
         metrics.printPlatformMetrics();
@@ -0,0 +1,148 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class PrometheusTextWriterTest {
+  private static final int FLUSH_THRESHOLD = 64;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final PrometheusTextWriter writer = new PrometheusTextWriter(out, FLUSH_THRESHOLD);
+
+  private String getWrittenText() throws IOException {
+    writer.flush();
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private String writeValue(Object value) throws IOException {
+    writer.writeMetric("a", value);
+    return getWrittenText();
+  }
+
+  @Test
+  void writeIntegers() throws IOException {
+    assertThat(writeValue(0), equalTo("a 0\n"));
+    assertThat(writeValue(-12), equalTo("a 0\na -12\n"));
+  }
+
+  @Test
+  void writeLongs() throws IOException {
+    assertThat(writeValue(Long.MAX_VALUE), equalTo("a 9223372036854775807\n"));
+  }
+
+  @Test
+  void writeMinimumLong() throws IOException {
+    assertThat(writeValue(Long.MIN_VALUE), equalTo("a -9223372036854775808\n"));
+  }
+
+  @Test
+  void writeIntegralDoublesAsJavaWould() throws IOException {
+    assertThat(writeValue(12.0), equalTo("a 12.0\n"));
+  }
+
+  @Test
+  void writeNegativeZero() throws IOException {
+    assertThat(writeValue(-0.0), equalTo("a -0.0\n"));
+  }
+
+  @Test
+  void writeFractionalDoubles() throws IOException {
+    assertThat(writeValue(3.14), equalTo("a 3.14\n"));
+  }
+
+  @Test
+  void writeLargeDoublesInScientificNotation() throws IOException {
+    assertThat(writeValue(1.5e10), equalTo("a 1.5E10\n"));
+  }
+
+  @Test
+  void writeSpecialDoublesAsPrometheusExpects() throws IOException {
+    writer.writeMetric("a", Double.NaN);
+    writer.writeMetric("b", Double.POSITIVE_INFINITY);
+    writer.writeMetric("c", Double.NEGATIVE_INFINITY);
+
+    assertThat(getWrittenText(), equalTo("a NaN\nb +Inf\nc -Inf\n"));
+  }
+
+  @Test
+  void writeParsedJsonNumbersAsReceived() throws IOException {
+    assertThat(writeValue(JsonParser.parseString("17.250").getAsNumber()), equalTo("a 17.250\n"));
+  }
+
+  @Test
+  void writeOtherNumbersUsingToString() throws IOException {
+    assertThat(writeValue(new BigDecimal("1.5")), equalTo("a 1.5\n"));
+  }
+
+  @Test
+  void encodeNonAsciiTextAsUtf8() throws IOException {
+    writer.writeMetric("m{name=\"café € 😀\"}", 1);
+
+    assertThat(getWrittenText(), equalTo("m{name=\"café € 😀\"} 1\n"));
+  }
+
+  @Test
+  void writeSecondsWithTwoDecimalPlaces() throws IOException {
+    writer.writeSecondsMetric("a", 12_345_000_000L);
+    writer.writeSecondsMetric("b", 7_000_000L);
+
+    assertThat(getWrittenText(), equalTo("a 12.35\nb 0.01\n"));
+  }
+
+  @Test
+  void writeLinesWithLinuxSeparator() throws IOException {
+    writer.writeLine("# comment");
+
+    assertThat(getWrittenText(), equalTo("# comment\n"));
+  }
+
+  @Test
+  void beforeFlushThresholdReached_dontWriteToStream() throws IOException {
+    writer.writeMetric("a", 1);
+
+    assertThat(out.size(), equalTo(0));
+  }
+
+  @Test
+  void whenFlushThresholdReached_writeToStream() throws IOException {
+    for (int i = 0; i < FLUSH_THRESHOLD / 4; i++)
+      writer.writeMetric("a", 1);
+
+    assertThat(out.size(), equalTo(FLUSH_THRESHOLD));
+  }
+
+  @Test
+  void whenLineLongerThanBuffer_writeItAll() throws IOException {
+    final String name = repeat('x', 3 * FLUSH_THRESHOLD);
+
+    writer.writeMetric(name, 1);
+
+    assertThat(getWrittenText(), equalTo(name + " 1\n"));
+  }
+
+  private String repeat(char c, int count) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++)
+      sb.append(c);
+    return sb.toString();
+  }
+
+  @Test
+  void whenBytesWritten_precedeThemWithBufferedText() throws IOException {
+    writer.writeMetric("a", 1);
+    writer.writeBytes("b 2\n".getBytes(StandardCharsets.UTF_8), 0, 4);
+
+    assertThat(getWrittenText(), equalTo("a 1\nb 2\n"));
+  }
+}
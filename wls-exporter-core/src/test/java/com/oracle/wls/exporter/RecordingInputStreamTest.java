@@ -0,0 +1,66 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static com.oracle.wls.exporter.RecordingInputStream.MAX_RECORDED_BYTES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+
+class RecordingInputStreamTest {
+
+  @Test
+  void whenStreamRead_recordingContainsData() throws IOException {
+    final RecordingInputStream stream = new RecordingInputStream(toStream("{\"name\": \"value\"}"));
+
+    readAll(stream);
+
+    assertThat(stream.getRecording(), equalTo("{\"name\": \"value\"}"));
+  }
+
+  private InputStream toStream(String contents) {
+    return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void readAll(InputStream stream) throws IOException {
+    final byte[] buffer = new byte[100];
+    while (stream.read() >= 0 && stream.read(buffer) >= 0) {
+      // keep reading
+    }
+  }
+
+  @Test
+  void whenStreamOnlyPartlyRead_recordingContainsOnlyDataRead() throws IOException {
+    final RecordingInputStream stream = new RecordingInputStream(toStream("abcdefg"));
+
+    stream.read(new byte[3]);
+
+    assertThat(stream.getRecording(), equalTo("abc"));
+  }
+
+  @Test
+  void whenStreamExceedsMaximumSize_truncateRecording() throws IOException {
+    final RecordingInputStream stream = new RecordingInputStream(toStream(createString(MAX_RECORDED_BYTES + 10)));
+
+    readAll(stream);
+
+    assertThat(stream.getRecording(), startsWith(createString(MAX_RECORDED_BYTES)));
+    assertThat(stream.getRecording(), endsWith("(" + (MAX_RECORDED_BYTES + 10) + " bytes in all)"));
+  }
+
+  private String createString(int length) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++)
+      sb.append((char) ('a' + i % 26));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,177 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.oracle.wls.exporter.ResponseCompression.Encoding.DEFLATE;
+import static com.oracle.wls.exporter.ResponseCompression.Encoding.GZIP;
+import static com.oracle.wls.exporter.WebAppConstants.ACCEPT_ENCODING_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.CONTENT_ENCODING_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.VARY_HEADER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+class ResponseCompressionTest {
+  private static final String METRICS = repeat("wls_server_state_val{name=\"managed-server\"} 2\n", 200);
+  private static final int COMPRESSION_LEVEL = 6;
+
+  private final InvocationContextStub context = InvocationContextStub.create();
+
+  private static String repeat(String s, int count) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++)
+      sb.append(s);
+    return sb.toString();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ResponseCompression.clear();
+  }
+
+  @Test
+  void whenNoAcceptEncoding_dontCompress() {
+    assertThat(ResponseCompression.selectEncoding(null), nullValue());
+  }
+
+  @Test
+  void whenGzipAccepted_selectGzip() {
+    assertThat(ResponseCompression.selectEncoding("gzip"), equalTo(GZIP));
+  }
+
+  @Test
+  void whenOnlyDeflateAccepted_selectDeflate() {
+    assertThat(ResponseCompression.selectEncoding("deflate, br"), equalTo(DEFLATE));
+  }
+
+  @Test
+  void whenBothAcceptedEqually_preferGzip() {
+    assertThat(ResponseCompression.selectEncoding("deflate, gzip"), equalTo(GZIP));
+  }
+
+  @Test
+  void whenDeflatePreferred_selectDeflate() {
+    assertThat(ResponseCompression.selectEncoding("gzip;q=0.5, deflate;q=0.8"), equalTo(DEFLATE));
+  }
+
+  @Test
+  void whenGzipRefused_dontSelectIt() {
+    assertThat(ResponseCompression.selectEncoding("gzip;q=0, identity"), nullValue());
+  }
+
+  @Test
+  void whenWildcardAccepted_selectGzip() {
+    assertThat(ResponseCompression.selectEncoding("*"), equalTo(GZIP));
+  }
+
+  @Test
+  void whenWildcardAcceptedButGzipRefused_selectDeflate() {
+    assertThat(ResponseCompression.selectEncoding("*, GZIP;q=0"), equalTo(DEFLATE));
+  }
+
+  @Test
+  void whenCompressionDisabled_dontSetEncodingHeaders() throws IOException {
+    context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip");
+
+    writeMetrics(0);
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(context.getResponse(), equalTo(METRICS));
+  }
+
+  private void writeMetrics(int compressionLevel) throws IOException {
+    try (OutputStream out = ResponseCompression.getResponseStream(context, compressionLevel)) {
+      out.write(METRICS.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void whenNothingWritten_leaveResponseUntouched() throws IOException {
+    context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip");
+
+    ResponseCompression.getResponseStream(context, COMPRESSION_LEVEL).close();
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(context.getResponseBytes().length, equalTo(0));
+  }
+
+  @Test
+  void whenEncodingNotAccepted_sendUncompressedMetrics() throws IOException {
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), nullValue());
+    assertThat(context.getResponse(), equalTo(METRICS));
+  }
+
+  @Test
+  void whenCompressionEnabled_responseVariesByAcceptEncoding() throws IOException {
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(context.getResponseHeader(VARY_HEADER), equalTo(ACCEPT_ENCODING_HEADER));
+  }
+
+  @Test
+  void whenGzipAccepted_sendGzippedMetrics() throws IOException {
+    context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip");
+
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), equalTo("gzip"));
+    assertThat(readAll(new GZIPInputStream(getResponseStream())), equalTo(METRICS));
+  }
+
+  private InputStream getResponseStream() {
+    return new ByteArrayInputStream(context.getResponseBytes());
+  }
+
+  private String readAll(InputStream in) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[1024];
+    int numRead;
+    while ((numRead = in.read(buffer)) >= 0)
+      out.write(buffer, 0, numRead);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void whenDeflateAccepted_sendDeflatedMetrics() throws IOException {
+    context.withRequestHeader(ACCEPT_ENCODING_HEADER, "deflate");
+
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(context.getResponseHeader(CONTENT_ENCODING_HEADER), equalTo("deflate"));
+    assertThat(readAll(new InflaterInputStream(getResponseStream())), equalTo(METRICS));
+  }
+
+  @Test
+  void afterCompressedResponse_recordBytesBeforeAndAfterCompression() throws IOException {
+    context.withRequestHeader(ACCEPT_ENCODING_HEADER, "gzip");
+
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(ResponseCompression.getUncompressedBytes(), equalTo((long) METRICS.length()));
+    assertThat(ResponseCompression.getCompressedBytes(), equalTo((long) context.getResponseBytes().length));
+    assertThat(ResponseCompression.getCompressedBytes(), lessThan(ResponseCompression.getUncompressedBytes() / 10));
+  }
+
+  @Test
+  void afterUncompressedResponse_dontRecordBytes() throws IOException {
+    writeMetrics(COMPRESSION_LEVEL);
+
+    assertThat(ResponseCompression.getUncompressedBytes(), equalTo(0L));
+  }
+}
@@ -0,0 +1,186 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RestRequestLimiterTest {
+
+  private static final long PROMPT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  private static final String QUERY = "search";
+
+  private final RestRequestLimiter limiter = new RestRequestLimiter("myhost:7001", 8);
+
+  @Test
+  void initialLimitIsConfiguredLimit() {
+    assertThat(limiter.getLimit(), equalTo(8));
+  }
+
+  @Test
+  void whenResponseMuchSlowerThanUsual_reduceLimit() throws InterruptedIOException {
+    sendQuery(QUERY, PROMPT_NANOS);
+    sendQuery(QUERY, SLOW_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(6));
+  }
+
+  private void sendQuery(String query, long latencyNanos) throws InterruptedIOException {
+    limiter.acquire();
+    limiter.releaseAfterResponse(query, latencyNanos);
+  }
+
+  @Test
+  void whenResponseSlowerThanThatOfCheaperQuery_dontReduceLimit() throws InterruptedIOException {
+    sendQuery("keys", PROMPT_NANOS);
+    sendQuery(QUERY, SLOW_NANOS);
+    sendQuery("keys", PROMPT_NANOS);
+    sendQuery(QUERY, SLOW_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(8));
+  }
+
+  @Test
+  void whenManyQueriesSent_forgetLeastRecentBaselines() throws InterruptedIOException {
+    sendQuery(QUERY, PROMPT_NANOS);
+    for (int i = 0; i < RestRequestLimiter.MAX_BASELINES; i++)
+      sendQuery("query" + i, PROMPT_NANOS);
+
+    sendQuery(QUERY, SLOW_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(8));
+  }
+
+  @Test
+  void whenServerOverloaded_reduceLimit() throws InterruptedIOException {
+    limiter.acquire();
+    limiter.releaseAfterOverload();
+
+    assertThat(limiter.getLimit(), equalTo(6));
+  }
+
+  @Test
+  void whenServerRepeatedlyOverloaded_limitIsNeverBelowOne() throws InterruptedIOException {
+    for (int i = 0; i < 20; i++) {
+      limiter.acquire();
+      limiter.releaseAfterOverload();
+    }
+
+    assertThat(limiter.getLimit(), equalTo(1));
+  }
+
+  @Test
+  void whenPromptResponseReceivedWhileLimitInUse_raiseLimit() throws InterruptedIOException {
+    limiter.acquire();
+    limiter.releaseAfterOverload();
+    for (int i = 0; i < 3; i++)
+      limiter.acquire();
+
+    limiter.releaseAfterResponse(QUERY, PROMPT_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(7));
+  }
+
+  @Test
+  void whenPromptResponseReceivedWhileLimitLittleUsed_dontRaiseLimit() throws InterruptedIOException {
+    limiter.acquire();
+    limiter.releaseAfterOverload();
+
+    sendQuery(QUERY, PROMPT_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(6));
+  }
+
+  @Test
+  void limitIsNeverAboveConfiguredLimit() throws InterruptedIOException {
+    for (int i = 0; i < 8; i++)
+      limiter.acquire();
+
+    limiter.releaseAfterResponse(QUERY, PROMPT_NANOS);
+
+    assertThat(limiter.getLimit(), equalTo(8));
+  }
+
+  @Test
+  void whenLimitReachedAndQueueFull_rejectScrapeAtOnce() throws Exception {
+    final RestRequestLimiter singleLimiter = new RestRequestLimiter("myhost:7001", 1);
+    singleLimiter.acquire();
+    final Thread waitingQuery = new Thread(() -> acquireAndRelease(singleLimiter));
+    waitingQuery.start();
+    awaitQueuedQueries(singleLimiter, 1);
+
+    try {
+      assertThrows(RestRequestRejectedException.class, singleLimiter::admit);
+    } finally {
+      singleLimiter.release();
+      waitingQuery.join();
+    }
+
+    assertThat(singleLimiter.getRejected(), equalTo(1L));
+  }
+
+  @Test
+  void whenLimitReachedAndQueueNotFull_admitScrape() throws Exception {
+    final RestRequestLimiter singleLimiter = new RestRequestLimiter("myhost:7001", 1);
+    singleLimiter.acquire();
+
+    singleLimiter.admit();
+
+    assertThat(singleLimiter.getRejected(), equalTo(0L));
+  }
+
+  @Test
+  void whenMoreQueriesWaitThanLimit_dontRejectThem() throws Exception {
+    final RestRequestLimiter singleLimiter = new RestRequestLimiter("myhost:7001", 1);
+    singleLimiter.acquire();
+    final Thread firstQuery = new Thread(() -> acquireAndRelease(singleLimiter));
+    final Thread secondQuery = new Thread(() -> acquireAndRelease(singleLimiter));
+    firstQuery.start();
+    secondQuery.start();
+    awaitQueuedQueries(singleLimiter, 2);
+
+    singleLimiter.release();
+    firstQuery.join(TimeUnit.SECONDS.toMillis(5));
+    secondQuery.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(singleLimiter.getQueued(), equalTo(0));
+    assertThat(singleLimiter.getRejected(), equalTo(0L));
+  }
+
+  private void acquireAndRelease(RestRequestLimiter limiter) {
+    try {
+      limiter.acquire();
+      limiter.release();
+    } catch (InterruptedIOException ignored) {
+      // the test will fail
+    }
+  }
+
+  private void awaitQueuedQueries(RestRequestLimiter limiter, int numQueries) throws InterruptedException {
+    for (int i = 0; i < 500 && limiter.getQueued() < numQueries; i++)
+      Thread.sleep(10);
+  }
+
+  @Test
+  void whenPermitReleased_queuedQueryProceeds() throws Exception {
+    final RestRequestLimiter singleLimiter = new RestRequestLimiter("myhost:7001", 1);
+    singleLimiter.acquire();
+    final Thread waitingQuery = new Thread(() -> acquireAndRelease(singleLimiter));
+    waitingQuery.start();
+    awaitQueuedQueries(singleLimiter, 1);
+
+    singleLimiter.release();
+    waitingQuery.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertThat(singleLimiter.getQueued(), equalTo(0));
+    assertThat(singleLimiter.getRejected(), equalTo(0L));
+  }
+}
@@ -0,0 +1,173 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.meterware.simplestub.Memento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScrapeCoalescerTest {
+  private static final String CREDENTIALS = "Basic stuff";
+  private static final String OTHER_CREDENTIALS = "Basic otherStuff";
+  private static final int WINDOW_SECONDS = 5;
+
+  private final List<Memento> mementos = new ArrayList<>();
+  private final AtomicInteger numCollections = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException {
+    mementos.add(SystemClockTestSupport.installClock());
+    ScrapeCoalescer.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    mementos.forEach(Memento::revert);
+  }
+
+  private String getMetrics(String credentials, int windowSeconds) throws IOException {
+    return getMetrics(credentials, windowSeconds, this::collect);
+  }
+
+  private String getMetrics(String credentials, int windowSeconds, ScrapeCoalescer.Collection collection)
+        throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ScrapeCoalescer.writeMetrics(credentials, windowSeconds, 0, out, collection);
+    return toString(out);
+  }
+
+  private boolean collect(OutputStream out) throws IOException {
+    out.write(("collection " + numCollections.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+    return true;
+  }
+
+  @Test
+  void whenNoWindow_eachScrapeCollectsMetrics() throws IOException {
+    getMetrics(CREDENTIALS, 0);
+
+    assertThat(getMetrics(CREDENTIALS, 0), equalTo("collection 2"));
+  }
+
+  @Test
+  void whenCollecting_writeMetricsAsRendered() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    ScrapeCoalescer.writeMetrics(CREDENTIALS, 0, 0, out, o -> {
+      collect(o);
+      assertThat(toString(out), equalTo("collection 1"));
+      return true;
+    });
+  }
+
+  private String toString(ByteArrayOutputStream out) {
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void whenWithinWindow_reuseMetrics() throws IOException {
+    getMetrics(CREDENTIALS, WINDOW_SECONDS);
+    SystemClockTestSupport.increment(WINDOW_SECONDS);
+
+    assertThat(getMetrics(CREDENTIALS, WINDOW_SECONDS), equalTo("collection 1"));
+  }
+
+  @Test
+  void afterWindowExpires_collectMetricsAgain() throws IOException {
+    getMetrics(CREDENTIALS, WINDOW_SECONDS);
+    SystemClockTestSupport.increment(WINDOW_SECONDS + 1);
+
+    assertThat(getMetrics(CREDENTIALS, WINDOW_SECONDS), equalTo("collection 2"));
+  }
+
+  @Test
+  void whenCredentialsDiffer_dontShareMetrics() throws IOException {
+    getMetrics(CREDENTIALS, WINDOW_SECONDS);
+
+    assertThat(getMetrics(OTHER_CREDENTIALS, WINDOW_SECONDS), equalTo("collection 2"));
+  }
+
+  @Test
+  void whenCollectionIncomplete_dontShareMetrics() throws IOException {
+    getMetrics(CREDENTIALS, WINDOW_SECONDS, out -> !collect(out));
+
+    assertThat(getMetrics(CREDENTIALS, WINDOW_SECONDS), equalTo("collection 2"));
+  }
+
+  @Test
+  void whenCollectionFails_rethrowExceptionAndDontShare() throws IOException {
+    assertThrows(IOException.class, () -> getMetrics(CREDENTIALS, WINDOW_SECONDS, this::fail));
+
+    assertThat(getMetrics(CREDENTIALS, WINDOW_SECONDS), equalTo("collection 1"));
+  }
+
+  private boolean fail(OutputStream out) throws IOException {
+    throw new IOException("collection failed");
+  }
+
+  @Test
+  void whenScrapeArrivesDuringCollection_shareItsResult() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> getMetricsBlocking(started, release));
+    started.await(5, TimeUnit.SECONDS);
+
+    final CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> getMetricsBlocking(started, release));
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS), equalTo("collection 1"));
+    assertThat(second.get(5, TimeUnit.SECONDS), equalTo("collection 1"));
+  }
+
+  @Test
+  void whenSharedCollectionDoesNotCompleteInTime_collectMetricsSeparately() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> getMetricsBlocking(started, release));
+    started.await(5, TimeUnit.SECONDS);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ScrapeCoalescer.writeMetrics(CREDENTIALS, WINDOW_SECONDS, 10, out, this::collect);
+    release.countDown();
+
+    assertThat(toString(out), equalTo("collection 1"));
+    assertThat(first.get(5, TimeUnit.SECONDS), equalTo("collection 2"));
+  }
+
+  // A window is used so that the second scrape shares the result even if it arrives after the first completes.
+  private String getMetricsBlocking(CountDownLatch started, CountDownLatch release) {
+    try {
+      return getMetrics(CREDENTIALS, WINDOW_SECONDS, out -> {
+        started.countDown();
+        awaitRelease(release);
+        return collect(out);
+      });
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void awaitRelease(CountDownLatch release) throws IOException {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+  }
+}
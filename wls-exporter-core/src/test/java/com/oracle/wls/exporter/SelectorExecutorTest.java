@@ -0,0 +1,147 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class SelectorExecutorTest {
+
+  private final List<Integer> requestedLimits = new ArrayList<>();
+  private final List<ExecutorService> createdExecutors = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    SelectorExecutor.setExecutorFactory(null);
+    createdExecutors.forEach(ExecutorService::shutdownNow);
+  }
+
+  // Acquires an executor as a scrape would, and releases it as the scrape completes.
+  private ExecutorService getExecutor(int limit) {
+    final ExecutorService executor = SelectorExecutor.acquireExecutor(limit);
+    SelectorExecutor.releaseExecutor(executor);
+    return executor;
+  }
+
+  private ExecutorService createExecutor(int limit) {
+    requestedLimits.add(limit);
+    final ExecutorService executor = Executors.newFixedThreadPool(limit);
+    createdExecutors.add(executor);
+    return executor;
+  }
+
+  @Test
+  void byDefault_useThreadPoolWithConfiguredSize() {
+    final ExecutorService executor = getExecutor(3);
+
+    assertThat(executor, instanceOf(ThreadPoolExecutor.class));
+    assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize(), equalTo(3));
+  }
+
+  @Test
+  void whenFactorySet_useItsExecutor() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+
+    assertThat(getExecutor(4), sameInstance(createdExecutors.get(0)));
+    assertThat(requestedLimits, contains(4));
+  }
+
+  @Test
+  void whileConcurrencyUnchanged_reuseSuppliedExecutor() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+
+    final ExecutorService executor = getExecutor(4);
+
+    assertThat(getExecutor(4), sameInstance(executor));
+  }
+
+  @Test
+  void whenConcurrencyChanges_replaceSuppliedExecutor() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    final ExecutorService original = getExecutor(4);
+
+    getExecutor(2);
+
+    assertThat(requestedLimits, contains(4, 2));
+    assertThat(original.isShutdown(), is(true));
+  }
+
+  @Test
+  void whileScrapeHoldsReplacedExecutor_dontShutItDown() throws Exception {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    final ExecutorService original = SelectorExecutor.acquireExecutor(4);
+
+    getExecutor(2);
+
+    assertThat(original.isShutdown(), is(false));
+    assertThat(original.submit(() -> "done").get(), equalTo("done"));
+    SelectorExecutor.releaseExecutor(original);
+  }
+
+  @Test
+  void afterScrapeReleasesReplacedExecutor_shutItDown() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    final ExecutorService original = SelectorExecutor.acquireExecutor(4);
+    getExecutor(2);
+
+    SelectorExecutor.releaseExecutor(original);
+
+    assertThat(original.isShutdown(), is(true));
+  }
+
+  @Test
+  void whileOtherScrapeHoldsReplacedExecutor_dontShutItDown() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    final ExecutorService original = SelectorExecutor.acquireExecutor(4);
+    SelectorExecutor.acquireExecutor(4);
+    getExecutor(2);
+
+    SelectorExecutor.releaseExecutor(original);
+
+    assertThat(original.isShutdown(), is(false));
+    SelectorExecutor.releaseExecutor(original);
+  }
+
+  @Test
+  void whenFactoryClearedWhileExecutorHeld_shutItDownWhenReleased() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    final ExecutorService original = SelectorExecutor.acquireExecutor(4);
+
+    SelectorExecutor.setExecutorFactory(null);
+
+    assertThat(original.isShutdown(), is(false));
+    SelectorExecutor.releaseExecutor(original);
+    assertThat(original.isShutdown(), is(true));
+  }
+
+  @Test
+  void whenCurrentExecutorReleased_dontShutItDown() {
+    final ExecutorService executor = getExecutor(3);
+
+    assertThat(executor.isShutdown(), is(false));
+  }
+
+  @Test
+  void whenFactoryCleared_restoreThreadPool() {
+    SelectorExecutor.setExecutorFactory(this::createExecutor);
+    getExecutor(4);
+
+    SelectorExecutor.setExecutorFactory(null);
+
+    assertThat(getExecutor(4), instanceOf(ThreadPoolExecutor.class));
+  }
+}
@@ -0,0 +1,268 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.meterware.simplestub.Memento;
+import com.meterware.simplestub.StaticStubSupport;
+import com.oracle.wls.exporter.domain.ExporterConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.meterware.simplestub.Stub.createStrictStub;
+import static com.oracle.wls.exporter.InvocationContextStub.HOST_NAME;
+import static com.oracle.wls.exporter.InvocationContextStub.PORT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+class SnapshotCollectorTest {
+  private static final String QUERIES = "queries:\n- groups:\n    key: name\n    values: testSample1";
+  private static final String SNAPSHOT_CONFIG = "collectionInterval: 10\n" + QUERIES;
+  private static final String LIVE_RESPONSE_JSON = "{\"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 1}]}}";
+  private static final String SNAPSHOT_RESPONSE_JSON = "{\"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 2}]}}";
+  private static final String SNAPSHOT_METRIC = "testSample1{name=\"alpha\"} 2";
+
+  private final WebClientFactoryStub factory = new WebClientFactoryStub();
+  private final SchedulerStub scheduler = createStrictStub(SchedulerStub.class);
+  private final List<Memento> mementos = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException {
+    mementos.add(SystemClockTestSupport.installClock());
+    mementos.add(StaticStubSupport.install(SnapshotCollector.class, "scheduler", scheduler));
+    mementos.add(StaticStubSupport.install(SnapshotCollector.class, "collections", new HashMap<>()));
+    LiveConfiguration.setServer(HOST_NAME, PORT);
+    LiveConfiguration.loadFromString(SNAPSHOT_CONFIG);
+    AuthenticatedCall.clearCookies();
+  }
+
+  @AfterEach
+  void tearDown() {
+    mementos.forEach(Memento::revert);
+  }
+
+  private InvocationContextStub handleMetricsCall() throws IOException {
+    return handleMetricsCall(InvocationContextStub.create());
+  }
+
+  private InvocationContextStub handleMetricsCall(InvocationContextStub context) throws IOException {
+    new ExporterCall(factory, context).doWithAuthentication();
+    return context;
+  }
+
+  // Performs a scrape, which starts background collection, and then the first background collection.
+  private void collectSnapshot() throws IOException {
+    collectSnapshot(InvocationContextStub.create());
+  }
+
+  private void collectSnapshot(InvocationContextStub context) throws IOException {
+    factory.addJsonResponse(LIVE_RESPONSE_JSON);
+    factory.addJsonResponse(SNAPSHOT_RESPONSE_JSON);
+    handleMetricsCall(context);
+    scheduler.runNextTask();
+  }
+
+  private InvocationContextStub createContextWithOtherCredentials() {
+    final InvocationContextStub context = InvocationContextStub.create();
+    context.setAuthenticationHeader("Basic otherStuff");
+    return context;
+  }
+
+  @Test
+  void whenCollectionIntervalNotConfigured_dontScheduleCollection() throws IOException {
+    LiveConfiguration.loadFromString(QUERIES);
+
+    handleMetricsCall();
+
+    assertThat(scheduler.tasks, empty());
+  }
+
+  @Test
+  void afterSuccessfulScrape_scheduleImmediateCollection() throws IOException {
+    handleMetricsCall();
+
+    assertThat(scheduler.tasks.size(), equalTo(1));
+    assertThat(scheduler.lastDelaySeconds, equalTo(0L));
+  }
+
+  @Test
+  void whenScrapeFails_dontScheduleCollection() throws IOException {
+    factory.reportNotAuthorized();
+
+    handleMetricsCall();
+
+    assertThat(scheduler.tasks, empty());
+  }
+
+  @Test
+  void afterBackgroundCollection_scheduleNextAfterInterval() throws IOException {
+    collectSnapshot();
+
+    assertThat(scheduler.tasks.size(), equalTo(1));
+    assertThat(scheduler.lastDelaySeconds, equalTo(10L));
+  }
+
+  @Test
+  void afterBackgroundCollection_sendSnapshotWithoutQueryingRestApi() throws IOException {
+    collectSnapshot();
+
+    final InvocationContextStub context = handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(2));
+    assertThat(context.getResponse(), containsString(SNAPSHOT_METRIC));
+  }
+
+  @Test
+  void whenSnapshotSent_reportItsAge() throws IOException {
+    collectSnapshot();
+    SystemClockTestSupport.increment(4);
+
+    final InvocationContextStub context = handleMetricsCall();
+
+    assertThat(context.getResponse(), containsString("wls_scrape_snapshot_age_seconds{instance=\"unit test\"} 4.00"));
+  }
+
+  @Test
+  void whenInstanceNameHasSpecialCharacters_escapeItInAgeMetric() throws IOException {
+    collectSnapshot(InvocationContextStub.create().withInstanceName("my \"test\\"));
+
+    final InvocationContextStub context = handleMetricsCall();
+
+    assertThat(context.getResponse(), containsString("wls_scrape_snapshot_age_seconds{instance=\"my \\\"test\\\\\"}"));
+  }
+
+  @Test
+  void whenClientPresentsOtherCredentials_collectMetricsDirectly() throws IOException {
+    collectSnapshot();
+    final InvocationContextStub context = createContextWithOtherCredentials();
+
+    handleMetricsCall(context);
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+    assertThat(context.getResponse(), not(containsString(SNAPSHOT_METRIC)));
+  }
+
+  @Test
+  void whenClientPresentsOtherCredentials_keepExistingCollection() throws IOException {
+    collectSnapshot();
+    factory.addJsonResponse(LIVE_RESPONSE_JSON);
+
+    handleMetricsCall(createContextWithOtherCredentials());
+
+    assertThat(scheduler.tasks.size(), equalTo(2));
+    assertThat(handleMetricsCall().getResponse(), containsString(SNAPSHOT_METRIC));
+  }
+
+  @Test
+  void whenClientsPresentDifferentCredentials_sendEachItsOwnSnapshot() throws IOException {
+    collectSnapshot();
+    factory.addJsonResponse(LIVE_RESPONSE_JSON);
+    factory.addJsonResponse(SNAPSHOT_RESPONSE_JSON);
+    factory.addJsonResponse("{\"groups\": {\"items\": [{\"name\": \"alpha\", \"testSample1\": 3}]}}");
+    handleMetricsCall(createContextWithOtherCredentials());
+    scheduler.runNextTask();  // the next collection with the first credentials, already scheduled
+    scheduler.runNextTask();
+
+    assertThat(handleMetricsCall(createContextWithOtherCredentials()).getResponse(),
+          containsString("testSample1{name=\"alpha\"} 3"));
+    assertThat(handleMetricsCall().getResponse(), containsString(SNAPSHOT_METRIC));
+  }
+
+  @Test
+  void whenOnlyOtherCredentialsScraped_stopIdleCollection() throws IOException {
+    collectSnapshot();
+    factory.addJsonResponse(LIVE_RESPONSE_JSON);
+    handleMetricsCall(createContextWithOtherCredentials());
+    SystemClockTestSupport.increment(10L * SnapshotCollector.MAX_IDLE_INTERVALS + 1);
+    handleMetricsCall(createContextWithOtherCredentials());
+
+    scheduler.runNextTask();
+
+    assertThat(scheduler.tasks.size(), equalTo(1));
+  }
+
+  @Test
+  void whenSnapshotTooOld_collectMetricsDirectly() throws IOException {
+    collectSnapshot();
+    SystemClockTestSupport.increment(10L * SnapshotCollector.MAX_SNAPSHOT_INTERVALS);
+
+    handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+  }
+
+  @Test
+  void whenBackgroundCollectionRejected_stopCollecting() throws IOException {
+    collectSnapshot();
+    factory.reportNotAuthorized();
+
+    scheduler.runNextTask();
+
+    assertThat(scheduler.tasks, empty());
+    assertThat(handleMetricsCall().getResponse(), not(containsString(SNAPSHOT_METRIC)));
+  }
+
+  @Test
+  void whenNotScrapedForMaxIdleIntervals_stopCollecting() throws IOException {
+    handleMetricsCall();
+    SystemClockTestSupport.increment(10L * SnapshotCollector.MAX_IDLE_INTERVALS + 1);
+
+    scheduler.runNextTask();
+
+    assertThat(scheduler.tasks, empty());
+  }
+
+  @Test
+  void whenConfigurationReplaced_collectMetricsDirectly() throws IOException {
+    collectSnapshot();
+
+    LiveConfiguration.replaceConfiguration(ExporterConfig.loadConfig(new ByteArrayInputStream(SNAPSHOT_CONFIG.getBytes())));
+    handleMetricsCall();
+
+    assertThat(factory.getNumQueriesSent(), equalTo(3));
+  }
+
+  abstract static class SchedulerStub implements ScheduledExecutorService {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private long lastDelaySeconds;
+
+    void runNextTask() {
+      tasks.remove(0).run();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      tasks.add(command);
+      lastDelaySeconds = unit.toSeconds(delay);
+      return createStrictStub(ScheduledFutureStub.class, this, command);
+    }
+  }
+
+  abstract static class ScheduledFutureStub implements ScheduledFuture<Object> {
+    private final SchedulerStub scheduler;
+    private final Runnable command;
+
+    ScheduledFutureStub(SchedulerStub scheduler, Runnable command) {
+      this.scheduler = scheduler;
+      this.command = command;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return scheduler.tasks.remove(command);
+    }
+  }
+}
@@ -1,8 +1,11 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -93,13 +96,27 @@ public class WebClientFactoryStub implements WebClientFactory {
         webClient.addExceptionResponse(e);
     }
 
+    void reportReadTimeout() {
+        webClient.addResponse(new TimeoutResponse());
+    }
+
+    void addHungResponse() {
+        webClient.addResponse(new HungResponse());
+    }
+
+    long getRequestTimeout() {
+        return webClient.getRequestTimeout();
+    }
+
     static abstract class WebClientStub extends WebClientCommon {
         private final static String WLS_SEARCH_PATH = "/management/weblogic/latest/serverRuntime/search";
+        private final static long UNLIMITED_HANG_MILLIS = 5000;
 
         private String url;
         private final List<String> jsonQueries = new ArrayList<>();
         private final List<TestResponse> testResponses = new ArrayList<>();
         private Iterator<TestResponse> responses;
+        private TestResponse lastResponse;
         private final Map<String, List<String>> addedHeaders = new HashMap<>();
         private Map<String, List<String>> sentHeaders;
         private String postedString;
@@ -179,18 +196,46 @@ public class WebClientFactoryStub implements WebClientFactory {
         }
 
         @Override
-        public String doPostRequest(String postBody) {
+        public synchronized String doPostRequest(String postBody) throws IOException {
             if (url == null) throw new NullPointerException("No URL specified");
             sentHeaders = Collections.unmodifiableMap(addedHeaders);
             this.jsonQueries.add(postBody);
 
-            return getResult(getNextResponse());
+            final String response = getResult(getNextResponse());
+            if (lastResponse instanceof HungResponse) awaitRequestTimeout();
+            if (lastResponse instanceof TimeoutResponse) throw new SocketTimeoutException("Read timed out");
+            return response;
+        }
+
+        @Override
+        public synchronized <T> T doPostRequest(String postBody, ResponseHandler<T> handler) throws IOException {
+            final String response = doPostRequest(postBody);
+            return handler.handleResponse(new ByteArrayInputStream(Optional.ofNullable(response).orElse("").getBytes()));
+        }
+
+        // Waits as a client would for a server which never responds, giving up only when its request times out.
+        // Like a socket read, the wait cannot be interrupted. Without a timeout, it ends after a few seconds,
+        // so that the thread is not lost to later tests.
+        private void awaitRequestTimeout() throws SocketTimeoutException {
+            final long timeout = getRequestTimeout() > 0 ? getRequestTimeout() : UNLIMITED_HANG_MILLIS;
+            final long giveUpTime = System.currentTimeMillis() + timeout;
+            boolean interrupted = false;
+            for (long remaining = timeout; remaining > 0; remaining = giveUpTime - System.currentTimeMillis()) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            throw new SocketTimeoutException("Read timed out");
         }
 
         @Override
         public String doGetRequest() {
             if (url == null) throw new NullPointerException("No URL specified");
             if (url.contains(WLS_SEARCH_PATH)) throw new AssertionError("GET to search paths is not supported");
+            sentHeaders = Collections.unmodifiableMap(addedHeaders);
 
             return getResult(getNextResponse());
         }
@@ -205,7 +250,8 @@ public class WebClientFactoryStub implements WebClientFactory {
 
         private TestResponse getNextResponse() {
             if (responses == null) responses = testResponses.iterator();
-            return !responses.hasNext() ? new JsonResponse(null) : responses.next();
+            lastResponse = !responses.hasNext() ? new JsonResponse(null) : responses.next();
+            return lastResponse;
         }
 
         private String getResult(TestResponse response) {
@@ -279,4 +325,18 @@ public class WebClientFactoryStub implements WebClientFactory {
         }
     }
 
+    // A response which the server fails to send before the request times out.
+    static class TimeoutResponse extends JsonResponse {
+        TimeoutResponse() {
+            super(null);
+        }
+    }
+
+    // A response which the server never sends.
+    static class HungResponse extends JsonResponse {
+        HungResponse() {
+            super(null);
+        }
+    }
+
 }
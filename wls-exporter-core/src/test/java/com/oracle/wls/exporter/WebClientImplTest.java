@@ -1,11 +1,62 @@
-// Copyright (c) 2019, Oracle and/or its affiliates.  All rights reserved.
+// Copyright (c) 2019, 2026, Oracle and/or its affiliates.  All rights reserved.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class WebClientImplTest extends WebClientTestBase {
 
   public WebClientImplTest() {
     super(WebClientImpl::new);
   }
+
+  @AfterEach
+  void restoreConnectionLimits() {
+    LiveConfiguration.loadFromString("");
+  }
+
+  @Test
+  void successiveRequests_reusePooledConnection() throws Exception {
+    defineResource("unprotected", createTextResource("sent this back"));
+    sendGetRequest("unprotected");
+    final long connectionsOpened = ConnectionStatistics.getConnectionsOpened();
+
+    sendGetRequest("unprotected");
+    sendGetRequest("unprotected");
+
+    assertThat(connectionsOpened, greaterThan(0L));
+    assertThat(ConnectionStatistics.getConnectionsOpened(), equalTo(connectionsOpened));
+  }
+
+  @Test
+  void whenHandlerAbandonsResponse_dontReuseConnection() throws Exception {
+    defineResource("query", createPostResource("sent this back"));
+    withWebClient("query").doPostRequest("abced");
+    final long connectionsOpened = ConnectionStatistics.getConnectionsOpened();
+
+    assertThrows(IOException.class, () -> withWebClient("query").doPostRequest("abced", this::abandonResponse));
+    withWebClient("query").doPostRequest("abced");
+
+    assertThat(ConnectionStatistics.getConnectionsOpened(), equalTo(connectionsOpened + 1));
+  }
+
+  @Test
+  void whenConnectionLimitsConfigured_applyThemToPool() throws Exception {
+    LiveConfiguration.loadFromString("maxConnectionsPerTarget: 3\nmaxConnections: 7");
+    defineResource("query", createPostResource("sent this back"));
+
+    withWebClient("query").doPostRequest("abced");
+
+    assertThat(WebClientImpl.getConnectionManager().getDefaultMaxPerRoute(), equalTo(3));
+    assertThat(WebClientImpl.getConnectionManager().getMaxTotal(), equalTo(7));
+  }
 }
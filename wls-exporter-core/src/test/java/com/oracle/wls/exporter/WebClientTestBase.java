@@ -1,13 +1,24 @@
-// Copyright 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonParser;
@@ -18,7 +29,9 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static com.oracle.wls.exporter.WebAppConstants.ACCEPT_ENCODING_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.AUTHENTICATION_HEADER;
+import static com.oracle.wls.exporter.WebAppConstants.CONTENT_ENCODING_HEADER;
 import static com.oracle.wls.exporter.WebAppConstants.CONTENT_TYPE_HEADER;
 import static com.oracle.wls.exporter.WebClient.X_REQUESTED_BY_HEADER;
 import static javax.servlet.http.HttpServletResponse.SC_BAD_GATEWAY;
@@ -100,6 +113,36 @@ abstract class WebClientTestBase {
         assertThat(response, equalTo(RESPONSE));
     }
 
+    PseudoServlet createTextResource(String response) {
+        return new PseudoServlet() {
+            public WebResource getGetResponse() {
+                return new WebResource(response, "text/plain");
+            }
+        };
+    }
+
+    PseudoServlet createPostResource(String response) {
+        return new PseudoServlet() {
+            public WebResource getPostResponse() {
+                return new WebResource(response, "text/plain");
+            }
+        };
+    }
+
+    String sendGetRequest(String resourceName) throws IOException {
+        return withWebClient(resourceName).doGetRequest();
+    }
+
+    @Test
+    public void whenRequestSent_countIt() throws Exception {
+        defineResource("unprotected", createTextResource("sent this back"));
+        final long requestsSent = ConnectionStatistics.getRequestsSent();
+
+        sendGetRequest("unprotected");
+
+        assertThat(ConnectionStatistics.getRequestsSent(), equalTo(requestsSent + 1));
+    }
+
     private String getHostPath() {
         return _hostPath;
     }
@@ -124,7 +167,7 @@ abstract class WebClientTestBase {
         assertThat(sentInfo, equalTo(QUERY));
     }
 
-    private WebClient withWebClient(String path) {
+    WebClient withWebClient(String path) {
         return factory.get().withUrl(getHostPath() + "/" + path);
     }
 
@@ -207,6 +250,59 @@ abstract class WebClientTestBase {
         assertThat(sentHeaders, hasKey(X_REQUESTED_BY_HEADER));
     }
 
+    @Test
+    public void whenPostCreated_acceptGzipEncoding() throws IOException {
+        defineResource("headers", new PseudoServlet() {
+            public WebResource getPostResponse() {
+                sentHeaders.put(ACCEPT_ENCODING_HEADER, getHeader(ACCEPT_ENCODING_HEADER));
+                return new WebResource("", "text/plain");
+            }
+        });
+
+        WebClient webClient = withWebClient("headers");
+        webClient.doPostRequest("abced");
+
+        assertThat(sentHeaders, hasEntry(ACCEPT_ENCODING_HEADER, "gzip"));
+    }
+
+    @Test
+    public void whenResponseCompressed_passDecompressedValueToHandler() throws Exception {
+        final String RESPONSE = "returned this compressed";
+
+        defineResource("query", new PseudoServlet() {
+            public WebResource getPostResponse() throws IOException {
+                return createGzippedResource(RESPONSE);
+            }
+        });
+
+        WebClient webClient = withWebClient("query");
+        assertThat(webClient.doPostRequest("abced", this::readAll), equalTo(RESPONSE));
+    }
+
+    private WebResource createGzippedResource(String contents) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(out)) {
+            gzipStream.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+        final WebResource resource = new WebResource(out.toByteArray(), "application/json");
+        resource.addHeader(CONTENT_ENCODING_HEADER + ": gzip");
+        return resource;
+    }
+
+    @Test
+    public void whenResponseCompressed_returnDecompressedValue() throws Exception {
+        final String RESPONSE = "returned this compressed";
+
+        defineResource("query", new PseudoServlet() {
+            public WebResource getPostResponse() throws IOException {
+                return createGzippedResource(RESPONSE);
+            }
+        });
+
+        WebClient webClient = withWebClient("query");
+        assertThat(webClient.doPostRequest("abced"), equalTo(RESPONSE));
+    }
+
     @Test
     public void whenAuthorizationHeaderDefinedOnGet_sendIt() throws Exception {
         defineResource("headers", new PseudoServlet() {
@@ -253,6 +349,81 @@ abstract class WebClientTestBase {
         assertThat(webClient.doPostRequest("abced"), equalTo(RESPONSE));
     }
 
+    @Test
+    public void passStreamedValueFromServerToHandler() throws Exception {
+        final String RESPONSE = "returned this";
+
+        defineResource("query", new PseudoServlet() {
+            public WebResource getPostResponse() {
+                return new WebResource(RESPONSE, "text/plain");
+            }
+        });
+
+        WebClient webClient = withWebClient("query");
+        assertThat(webClient.doPostRequest("abced", this::readAll), equalTo(RESPONSE));
+    }
+
+    @Test
+    public void whenServerRespondsAfterRequestTimeout_throwSocketTimeoutException() {
+        defineResource("slowQuery", new PseudoServlet() {
+            public WebResource getPostResponse() throws IOException {
+                delay(TimeUnit.SECONDS.toMillis(2));
+                return new WebResource("too late", "text/plain");
+            }
+        });
+
+        WebClient webClient = withWebClient("slowQuery");
+        webClient.setRequestTimeout(200);
+
+        assertThrows(SocketTimeoutException.class, () -> webClient.doPostRequest("abced", this::readAll));
+    }
+
+    @Test
+    public void whenHandlerAbandonsResponse_reportFailureAndSendLaterRequests() throws Exception {
+        defineResource("query", createPostResource(createLargeResponse()));
+        final WebClient webClient = withWebClient("query");
+
+        assertThrows(IOException.class, () -> webClient.doPostRequest("abced", this::abandonResponse));
+
+        assertThat(webClient.doPostRequest("abced", this::readAll), equalTo(createLargeResponse()));
+    }
+
+    private String createLargeResponse() {
+        return String.join("\n", Collections.nCopies(10_000, "a line of the response which is not read"));
+    }
+
+    String abandonResponse(InputStream contents) throws IOException {
+        contents.read();
+        throw new IOException("deadline passed");
+    }
+
+    private void delay(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private String readAll(InputStream inputStream) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    @Test
+    public void when400StatusReceivedOnStreamedPost_throwsRestQueryExceptionWithoutCallingHandler() {
+        defineResource("badRestQuery", new PseudoServlet() {
+            @Override
+            public WebResource getPostResponse() {
+                return new WebResource("bad query", "text/plain", SC_BAD_REQUEST);
+            }
+        });
+
+        assertThrows(RestQueryException.class,
+              () -> withWebClient("badRestQuery").doPostRequest("abced", body -> fail("Handler should not be called")));
+    }
+
     @Test
     public void when400StatusReceived_throwsRestQueryException() {
         defineResource("badRestQuery", new PseudoServlet() {
@@ -0,0 +1,157 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import static com.google.gson.JsonParser.parseString;
+import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath;
+import static com.jayway.jsonpath.matchers.JsonPathMatchers.hasNoJsonPath;
+import static com.oracle.wls.exporter.domain.MetricMatcher.hasMetric;
+import static com.oracle.wls.exporter.domain.MetricMatcher.hasNoSuchMetric;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+
+class CombinedQueryTest {
+
+    private static final MBeanSelector SERVLET_SELECTOR = MBeanSelector.create(ImmutableMap.of("servlets",
+          ImmutableMap.of(MBeanSelector.QUERY_KEY, "servletName", MBeanSelector.VALUES_KEY, new String[] {"invocations"})));
+
+    private static final String SHARED_RESPONSE = "{'servlets': {'items': [\n" +
+          "    {'name': 'alpha', 'servletName': 'alpha', 'invocations': 1, 'errors': 2},\n" +
+          "    {'name': 'beta', 'servletName': 'beta', 'invocations': 3, 'errors': 4}\n" +
+          "]}}";
+
+    private static MBeanSelector createServletSelector(Map<String, Object> servletSpec) {
+        return MBeanSelector.create(ImmutableMap.of("servlets", servletSpec));
+    }
+
+    private static MBeanSelector createConfigurationSelector() {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("clusters",
+              ImmutableMap.of(MBeanSelector.QUERY_KEY, "name", MBeanSelector.VALUES_KEY, new String[] {"size"})));
+        selector.setQueryType(QueryType.CONFIGURATION);
+        return selector;
+    }
+
+    private static MBeanSelector createServletErrorSelector() {
+        return createServletSelector(
+              ImmutableMap.of(MBeanSelector.QUERY_KEY, "servletName", MBeanSelector.VALUES_KEY, new String[] {"errors"}));
+    }
+
+    private static MBeanSelector createFilteredServletSelector(String... keys) {
+        final MBeanSelector selector = createServletSelector(ImmutableMap.of(MBeanSelector.QUERY_KEY, "servletName",
+              MBeanSelector.INCLUDED_KEYS_KEY, String.join("|", keys), MBeanSelector.VALUES_KEY, new String[] {"errors"}));
+        selector.offerKeys(parseString(SHARED_RESPONSE.replace("'", "\"")).getAsJsonObject());
+        return selector;
+    }
+
+    private static String getCombinedRequest(MBeanSelector... selectors) {
+        final List<CombinedQuery> queries = CombinedQuery.plan(selectors);
+        assertThat(queries, hasSize(1));
+        return queries.get(0).getRequest();
+    }
+
+    @Test
+    void whenSelectorsHaveDifferentQueryTypes_planOneQueryForEach() {
+        final MBeanSelector errorSelector = createServletErrorSelector();
+        final MBeanSelector configurationSelector = createConfigurationSelector();
+
+        final List<CombinedQuery> queries = CombinedQuery.plan(new MBeanSelector[] {SERVLET_SELECTOR, configurationSelector, errorSelector});
+
+        assertThat(queries, hasSize(2));
+        assertThat(queries.get(1).getSelectors(), contains(SERVLET_SELECTOR, errorSelector));
+    }
+
+    @Test
+    void whenPlanIncludesConfigurationQuery_sendItFirst() {
+        final MBeanSelector configurationSelector = createConfigurationSelector();
+
+        final List<CombinedQuery> queries = CombinedQuery.plan(new MBeanSelector[] {SERVLET_SELECTOR, configurationSelector});
+
+        assertThat(queries.get(0).getSelectors(), contains(configurationSelector));
+    }
+
+    @Test
+    void whenOnlyOneSelector_useItsOwnRequest() {
+        assertThat(getCombinedRequest(SERVLET_SELECTOR), sameInstance(SERVLET_SELECTOR.getRequest()));
+    }
+
+    @Test
+    void whenSelectorsRequestDifferentMBeans_requestAllOfThem() {
+        final MBeanSelector workManagerSelector = MBeanSelector.create(ImmutableMap.of("workManagers",
+              ImmutableMap.of(MBeanSelector.QUERY_KEY, "name", MBeanSelector.VALUES_KEY, new String[] {"pending"})));
+
+        final String request = getCombinedRequest(SERVLET_SELECTOR, workManagerSelector);
+
+        assertThat(request, hasJsonPath("$.children.servlets.fields", containsInAnyOrder("servletName", "invocations")));
+        assertThat(request, hasJsonPath("$.children.workManagers.fields", containsInAnyOrder("name", "pending")));
+    }
+
+    @Test
+    void whenSelectorsRequestSameMBeans_requestAllFieldsOnce() {
+        final String request = getCombinedRequest(SERVLET_SELECTOR, createServletErrorSelector());
+
+        assertThat(request, hasJsonPath("$.children.servlets.fields", containsInAnyOrder("servletName", "invocations", "errors")));
+    }
+
+    @Test
+    void whenOneSelectorRequestsAllValues_requestAllFields() {
+        final MBeanSelector allValuesSelector = createServletSelector(
+              ImmutableMap.of(MBeanSelector.QUERY_KEY, "servletName", MBeanSelector.PREFIX_KEY, "servlet_"));
+
+        final String request = getCombinedRequest(SERVLET_SELECTOR, allValuesSelector);
+
+        assertThat(request, hasNoJsonPath("$.children.servlets.fields"));
+    }
+
+    @Test
+    void whenOnlyOneSelectorFiltersKeys_requestAllMBeansWithTheirKeys() {
+        final String request = getCombinedRequest(SERVLET_SELECTOR, createFilteredServletSelector("alpha"));
+
+        assertThat(request, hasNoJsonPath("$.children.servlets.name"));
+        assertThat(request, hasJsonPath("$.children.servlets.fields", hasItem(MBeanSelector.FILTER_KEY)));
+    }
+
+    @Test
+    void whenAllSelectorsFilterKeys_requestAllSelectedMBeans() {
+        final String request = getCombinedRequest(createFilteredServletSelector("alpha"), createFilteredServletSelector("beta"));
+
+        assertThat(request, hasJsonPath("$.children.servlets.name", containsInAnyOrder("alpha", "beta")));
+    }
+
+    private List<Map<String, Object>> scrapeSharedResponse(MBeanSelector... selectors) throws IOException {
+        final CombinedQuery query = CombinedQuery.plan(selectors).get(0);
+        final JsonReader reader = new JsonReader(new StringReader(SHARED_RESPONSE.replace("'", "\"")));
+
+        return ExporterConfig.createEmptyConfig().scrapeMetrics(query, reader);
+    }
+
+    @Test
+    void whenResponseShared_scrapeOnlyRequestedValuesForEachSelector() throws IOException {
+        final List<Map<String, Object>> metrics = scrapeSharedResponse(SERVLET_SELECTOR, createServletErrorSelector());
+
+        assertThat(metrics.get(0), allOf(hasMetric("invocations{servletName=\"alpha\"}", 1), hasNoSuchMetric("errors{servletName=\"alpha\"}")));
+        assertThat(metrics.get(1), allOf(hasMetric("errors{servletName=\"beta\"}", 4), hasNoSuchMetric("invocations{servletName=\"beta\"}")));
+    }
+
+    @Test
+    void whenResponseShared_applyEachSelectorsKeyFilter() throws IOException {
+        final List<Map<String, Object>> metrics = scrapeSharedResponse(SERVLET_SELECTOR, createFilteredServletSelector("alpha"));
+
+        assertThat(metrics.get(0), allOf(hasMetric("invocations{servletName=\"alpha\"}", 1), hasMetric("invocations{servletName=\"beta\"}", 3)));
+        assertThat(metrics.get(1), allOf(hasMetric("errors{servletName=\"alpha\"}", 2), hasNoSuchMetric("errors{servletName=\"beta\"}")));
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
@@ -25,7 +25,9 @@ import static com.oracle.wls.exporter.domain.ExporterConfig.DOMAIN_NAME_PROPERTY
 import static com.oracle.wls.exporter.domain.ExporterConfigTest.QueryHierarchyMatcher.hasQueryFor;
 import static com.oracle.wls.exporter.domain.MetricMatcher.hasMetric;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
@@ -318,11 +320,347 @@ class ExporterConfigTest {
     private static final String JUNK_REST_PORT_CONFIG =
           "restPort: One\nqueries:";
 
+    @Test
+    void whenNotSpecified_queryConcurrencyIsOne() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getQueryConcurrency(), equalTo(1));
+    }
+
+    @Test
+    void whenSpecified_readQueryConcurrencyFromYaml() {
+        yamlConfig.put(ExporterConfig.QUERY_CONCURRENCY, 4);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getQueryConcurrency(), equalTo(4));
+    }
+
+    @Test
+    void whenQueryConcurrencyNotPositive_reportError() {
+        yamlConfig.put(ExporterConfig.QUERY_CONCURRENCY, 0);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void includeQueryConcurrencySettingInToString() {
+        ExporterConfig config = loadFromString(QUERY_CONCURRENCY_CONFIG);
+
+        assertThat(config.toString(), equalToCompressingWhiteSpace(QUERY_CONCURRENCY_CONFIG));
+    }
+
+    private static final String QUERY_CONCURRENCY_CONFIG =
+            "queryConcurrency: 3\n" +
+            "queries:\n" +
+            "- applicationRuntimes:\n" +
+            "    key: name\n" +
+            "    workManagerRuntimes:\n" +
+            "      prefix: workmanager_\n" +
+            "      key: applicationName\n" +
+            "      values: [pendingRequests, completedRequests, stuckThreadCount]\n";
+
+    @Test
+    void afterReplace_configHasChangedQueryConcurrency() {
+        assertThat(getReplacedConfiguration(SERVLET_CONFIG, QUERY_CONCURRENCY_CONFIG).getQueryConcurrency(), equalTo(3));
+        assertThat(getReplacedConfiguration(QUERY_CONCURRENCY_CONFIG, SERVLET_CONFIG).getQueryConcurrency(), equalTo(1));
+    }
+
+    @Test
+    void whenNotSpecified_collectionIntervalIsZero() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCollectionInterval(), equalTo(0));
+    }
+
+    @Test
+    void whenSpecified_readCollectionIntervalFromYaml() {
+        yamlConfig.put(ExporterConfig.COLLECTION_INTERVAL, 15);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCollectionInterval(), equalTo(15));
+    }
+
+    @Test
+    void whenCollectionIntervalNegative_reportError() {
+        yamlConfig.put(ExporterConfig.COLLECTION_INTERVAL, -1);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void includeCollectionIntervalSettingInToString() {
+        ExporterConfig config = loadFromString(COLLECTION_INTERVAL_CONFIG);
+
+        assertThat(config.toString(), equalToCompressingWhiteSpace(COLLECTION_INTERVAL_CONFIG));
+    }
+
+    private static final String COLLECTION_INTERVAL_CONFIG =
+            "collectionInterval: 30\n" +
+            "queries:\n" +
+            "- applicationRuntimes:\n" +
+            "    key: name\n" +
+            "    values: pendingRequests\n";
+
+    @Test
+    void afterReplace_configHasChangedCollectionInterval() {
+        assertThat(getReplacedConfiguration(SERVLET_CONFIG, COLLECTION_INTERVAL_CONFIG).getCollectionInterval(), equalTo(30));
+        assertThat(getReplacedConfiguration(COLLECTION_INTERVAL_CONFIG, SERVLET_CONFIG).getCollectionInterval(), equalTo(0));
+    }
+
+    @Test
+    void whenNotSpecified_coalesceWindowIsZero() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCoalesceWindow(), equalTo(0));
+    }
+
+    @Test
+    void whenSpecified_readCoalesceWindowFromYaml() {
+        yamlConfig.put(ExporterConfig.COALESCE_WINDOW, 2);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCoalesceWindow(), equalTo(2));
+    }
+
+    @Test
+    void whenCoalesceWindowNegative_reportError() {
+        yamlConfig.put(ExporterConfig.COALESCE_WINDOW, -1);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void whenNotSpecified_compressionLevelIsDefault() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCompressionLevel(), equalTo(6));
+    }
+
+    @Test
+    void whenSpecified_readCompressionLevelFromYaml() {
+        yamlConfig.put(ExporterConfig.COMPRESSION_LEVEL, 1);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getCompressionLevel(), equalTo(1));
+    }
+
+    @Test
+    void whenCompressionLevelOutOfRange_reportError() {
+        yamlConfig.put(ExporterConfig.COMPRESSION_LEVEL, 10);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void whenCompressionLevelSpecified_includeInToString() {
+        yamlConfig.put(ExporterConfig.COMPRESSION_LEVEL, 0);
+
+        assertThat(ExporterConfig.loadConfig(yamlConfig).toString(), containsString("compressionLevel: 0"));
+    }
+
+    @Test
+    void whenNotSpecified_dontCombineQueries() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.combineQueries(), is(false));
+    }
+
+    @Test
+    void whenSpecified_readCombineQueriesFromYaml() {
+        yamlConfig.put(ExporterConfig.COMBINE_QUERIES, true);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.combineQueries(), is(true));
+    }
+
+    @Test
+    void whenCombineQueriesSpecified_includeInToString() {
+        yamlConfig.put(ExporterConfig.COMBINE_QUERIES, true);
+
+        assertThat(ExporterConfig.loadConfig(yamlConfig).toString(), containsString("combineQueries: true"));
+    }
+
+    @Test
+    void afterReplace_configHasChangedCombineQueries() {
+        yamlConfig.put(ExporterConfig.COMBINE_QUERIES, true);
+        final ExporterConfig combiningConfig = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(ExporterConfig.createEmptyConfig().withDisplayRulesFrom(combiningConfig).combineQueries(), is(true));
+    }
+
+    @Test
+    void whenNotSpecified_dontUseDomainRuntime() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.useDomainRuntime(), is(false));
+    }
+
+    @Test
+    void whenDomainRuntimeSpecified_effectiveQueriesUseDomainRuntime() {
+        ExporterConfig config = loadFromString("domainRuntime: true\n" + QUERY_CONCURRENCY_CONFIG);
+
+        assertThat(config.useDomainRuntime(), is(true));
+        assertThat(config.getEffectiveQueries()[0].getQueryType(), equalTo(QueryType.DOMAIN_RUNTIME));
+    }
+
+    @Test
+    void whenDomainRuntimeSpecified_includeInToString() {
+        yamlConfig.put(ExporterConfig.DOMAIN_RUNTIME, true);
+
+        assertThat(ExporterConfig.loadConfig(yamlConfig).toString(), containsString("domainRuntime: true"));
+    }
+
+    @Test
+    void whenNotSpecified_serverTimeoutIsTenSeconds() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getServerTimeout(), equalTo(10));
+    }
+
+    @Test
+    void whenSpecified_readServerTimeoutFromYaml() {
+        yamlConfig.put(ExporterConfig.SERVER_TIMEOUT, 3);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getServerTimeout(), equalTo(3));
+    }
+
+    @Test
+    void whenServerTimeoutNotPositive_reportError() {
+        yamlConfig.put(ExporterConfig.SERVER_TIMEOUT, 0);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void afterReplace_configHasChangedDomainRuntimeSettings() {
+        yamlConfig.put(ExporterConfig.DOMAIN_RUNTIME, true);
+        yamlConfig.put(ExporterConfig.SERVER_TIMEOUT, 3);
+        final ExporterConfig domainConfig = ExporterConfig.loadConfig(yamlConfig);
+
+        final ExporterConfig replaced = ExporterConfig.createEmptyConfig().withDisplayRulesFrom(domainConfig);
+
+        assertThat(replaced.useDomainRuntime(), is(true));
+        assertThat(replaced.getServerTimeout(), equalTo(3));
+    }
+
+    @Test
+    void whenNotSpecified_dontUseInProcessCollection() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.useInProcessCollection(), is(false));
+    }
+
+    @Test
+    void whenInProcessCollectionSpecified_useIt() {
+        yamlConfig.put(ExporterConfig.IN_PROCESS_COLLECTION, true);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.useInProcessCollection(), is(true));
+        assertThat(config.toString(), containsString("inProcessCollection: true"));
+    }
+
+    @Test
+    void afterReplace_configHasChangedInProcessCollectionSetting() {
+        yamlConfig.put(ExporterConfig.IN_PROCESS_COLLECTION, true);
+        final ExporterConfig inProcessConfig = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(ExporterConfig.createEmptyConfig().withDisplayRulesFrom(inProcessConfig).useInProcessCollection(), is(true));
+    }
+
+    @Test
+    void whenNotSpecified_runScrapesOnRequestThreads() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getAsyncScrapeThreads(), equalTo(0));
+    }
+
+    @Test
+    void whenAsyncScrapeThreadsSpecified_useIt() {
+        yamlConfig.put(ExporterConfig.ASYNC_SCRAPE_THREADS, 4);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getAsyncScrapeThreads(), equalTo(4));
+        assertThat(config.toString(), containsString("asyncScrapeThreads: 4"));
+    }
+
+    @Test
+    void whenAsyncScrapeThreadsNegative_reportError() {
+        yamlConfig.put(ExporterConfig.ASYNC_SCRAPE_THREADS, -1);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void whenNotSpecified_dontLimitRestConcurrency() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getRestConcurrencyLimit(), equalTo(0));
+    }
+
+    @Test
+    void whenRestConcurrencyLimitSpecified_useIt() {
+        yamlConfig.put(ExporterConfig.REST_CONCURRENCY_LIMIT, 6);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getRestConcurrencyLimit(), equalTo(6));
+        assertThat(config.toString(), containsString("restConcurrencyLimit: 6"));
+    }
+
+    @Test
+    void whenRestConcurrencyLimitNegative_reportError() {
+        yamlConfig.put(ExporterConfig.REST_CONCURRENCY_LIMIT, -2);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void whenNotSpecified_useDefaultConnectionLimits() {
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getMaxConnectionsPerTarget(), equalTo(20));
+        assertThat(config.getMaxConnections(), equalTo(50));
+    }
+
+    @Test
+    void whenConnectionLimitsSpecified_useThem() {
+        yamlConfig.put(ExporterConfig.MAX_CONNECTIONS_PER_TARGET, 4);
+        yamlConfig.put(ExporterConfig.MAX_CONNECTIONS, 12);
+
+        ExporterConfig config = ExporterConfig.loadConfig(yamlConfig);
+
+        assertThat(config.getMaxConnectionsPerTarget(), equalTo(4));
+        assertThat(config.getMaxConnections(), equalTo(12));
+        assertThat(config.toString(), both(containsString("maxConnectionsPerTarget: 4")).and(containsString("maxConnections: 12")));
+    }
+
+    @Test
+    void whenMaxConnectionsPerTargetNotPositive_reportError() {
+        yamlConfig.put(ExporterConfig.MAX_CONNECTIONS_PER_TARGET, 0);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
+    @Test
+    void whenMaxConnectionsNotPositive_reportError() {
+        yamlConfig.put(ExporterConfig.MAX_CONNECTIONS, -1);
+
+        assertThrows(ConfigurationException.class, () -> ExporterConfig.loadConfig(yamlConfig));
+    }
+
     private ExporterConfig getAppendedConfiguration(String firstConfiguration, String secondConfiguration) {
         ExporterConfig config = loadFromString(firstConfiguration);
         ExporterConfig config2 = loadFromString(secondConfiguration);
-        config.append(config2);
-        return config;
+        return config.withAppendedQueries(config2);
     }
 
     private static final String WORK_MANAGER_CONFIG = "---\n" +
@@ -378,8 +716,7 @@ class ExporterConfigTest {
     private ExporterConfig getReplacedConfiguration(String firstConfiguration, String secondConfiguration) {
         ExporterConfig config = loadFromString(firstConfiguration);
         ExporterConfig config2 = loadFromString(secondConfiguration);
-        config.replace(config2);
-        return config;
+        return config.withDisplayRulesFrom(config2);
     }
 
     @Test
@@ -588,22 +925,39 @@ class ExporterConfigTest {
 
     @Test
     void afterReplaceEmptyConfig_haveReplacementConfig() {
-        ExporterConfig config = ExporterConfig.createEmptyConfig();
-
-        config.replace(loadFromString(PARTITION_CONFIG));
+        ExporterConfig config = ExporterConfig.createEmptyConfig().withDisplayRulesFrom(loadFromString(PARTITION_CONFIG));
 
         assertThat(config.toString(), equalTo(PARTITION_CONFIG));
     }
 
     @Test
     void afterAppendEmptyConfig_haveAppendedConfig() {
-        ExporterConfig config = ExporterConfig.createEmptyConfig();
-
-        config.append(loadFromString(PARTITION_CONFIG));
+        ExporterConfig config = ExporterConfig.createEmptyConfig().withAppendedQueries(loadFromString(PARTITION_CONFIG));
 
         assertThat(config.toString(), equalTo(PARTITION_CONFIG));
     }
 
+    @Test
+    void afterAppend_originalConfigIsUnchanged() {
+        ExporterConfig config = loadFromString(SERVLET_CONFIG);
+        final String original = config.toString();
+
+        config.withAppendedQueries(loadFromString(WORK_MANAGER_CONFIG));
+
+        assertThat(config.toString(), equalTo(original));
+    }
+
+    @Test
+    void afterReplace_originalConfigIsUnchanged() {
+        ExporterConfig config = loadFromString(SERVLET_CONFIG);
+        final MBeanSelector[] originalQueries = config.getQueries().clone();
+
+        config.withDisplayRulesFrom(loadFromString(WORK_MANAGER_CONFIG));
+
+        assertThat(config.getQueries(), arrayContaining(originalQueries));
+        assertThat(config.getMetricsNameSnakeCase(), is(false));
+    }
+
     @Test
     void whenEnvironmentVariableDefined_configHasDomainName() {
         System.setProperty(DOMAIN_NAME_PROPERTY, "envDomain");
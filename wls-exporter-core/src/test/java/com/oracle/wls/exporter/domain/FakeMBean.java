@@ -0,0 +1,62 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+
+/**
+ * An mbean whose read-only attributes are defined by alternating names and values.
+ */
+public class FakeMBean implements DynamicMBean {
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    public FakeMBean(Object... namesAndValues) {
+        for (int i = 0; i < namesAndValues.length; i += 2)
+            attributes.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if (!attributes.containsKey(attribute)) throw new AttributeNotFoundException(attribute);
+        return attributes.get(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        final AttributeList result = new AttributeList();
+        for (String name : names)
+            if (attributes.containsKey(name)) result.add(new Attribute(name, attributes.get(name)));
+        return result;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final MBeanAttributeInfo[] infos = attributes.entrySet().stream()
+              .map(e -> new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(), true, false, false))
+              .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(getClass().getName(), "fake", infos, null, null, null);
+    }
+}
@@ -0,0 +1,35 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+class LabelValuesTest {
+
+  @Test
+  void whenNoSpecialCharacters_returnSameString() {
+    final String value = "managed-server1";
+
+    assertThat(LabelValues.escape(value), sameInstance(value));
+  }
+
+  @Test
+  void escapeBackslashes() {
+    assertThat(LabelValues.escape("C:\\domains"), equalTo("C:\\\\domains"));
+  }
+
+  @Test
+  void escapeDoubleQuotes() {
+    assertThat(LabelValues.escape("say \"hi\""), equalTo("say \\\"hi\\\""));
+  }
+
+  @Test
+  void escapeLineFeeds() {
+    assertThat(LabelValues.escape("two\nlines"), equalTo("two\\nlines"));
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
@@ -6,9 +6,13 @@ package com.oracle.wls.exporter.domain;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonObject;
@@ -40,6 +44,8 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -85,6 +91,22 @@ class MBeanSelectorTest {
                    equalTo(String.format(QueryType.CONFIGURATION_URL_PATTERN, "http", "myhost", 1234)));
     }
 
+    @Test
+    void whenSelectorsNestedSingly_pathJoinsTheirNames() {
+        MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("JDBCServiceRuntime",
+              ImmutableMap.of("JDBCDataSourceRuntimeMBeans", ImmutableMap.of(MBeanSelector.KEY_NAME, "name"))));
+
+        assertThat(selector.getPath(), equalTo("JDBCServiceRuntime.JDBCDataSourceRuntimeMBeans"));
+    }
+
+    @Test
+    void whenSelectorBranches_pathListsBranches() {
+        MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("applicationRuntimes",
+              ImmutableMap.of("componentRuntimes", ImmutableMap.of(), "workManagerRuntimes", ImmutableMap.of())));
+
+        assertThat(selector.getPath(), equalTo("applicationRuntimes.componentRuntimes,workManagerRuntimes"));
+    }
+
     @Test
     void whenNoTypeInMap_selectorHasNoType() {
         MBeanSelector selector = MBeanSelector.create(ImmutableMap.of());
@@ -369,6 +391,194 @@ class MBeanSelectorTest {
         assertThat(selector.needsNewKeys(), is(true));
     }
 
+    @Test
+    void whenKeysNeverOffered_needInitialKeys() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+
+        assertThat(selector.needsInitialKeys(), is(true));
+    }
+
+    @Test
+    void whenKeysOutOfDate_dontNeedInitialKeys() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(KEY_RESPONSE);
+        clockStub.incrementSeconds(MBeanSelector.KEY_UPDATE_INTERVAL_SECONDS);
+
+        assertThat(selector.needsInitialKeys(), is(false));
+    }
+
+    @Test
+    void whenKeysUpToDate_dontClaimRefresh() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(KEY_RESPONSE);
+
+        assertThat(selector.claimKeyRefresh(), is(false));
+    }
+
+    @Test
+    void whenKeysNeverOffered_dontClaimRefresh() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+
+        assertThat(selector.claimKeyRefresh(), is(false));
+    }
+
+    @Test
+    void whenKeysOutOfDate_claimRefreshOnlyOnce() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(KEY_RESPONSE);
+        clockStub.incrementSeconds(MBeanSelector.KEY_UPDATE_INTERVAL_SECONDS);
+
+        assertThat(selector.claimKeyRefresh(), is(true));
+        assertThat(selector.claimKeyRefresh(), is(false));
+        assertThat(selector.needsNewKeys(), is(false));
+    }
+
+    @Test
+    void whenKeysNoLongerReported_removeThemFromQuery() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(KEY_RESPONSE);
+
+        selector.offerKeys(REDUCED_KEY_RESPONSE);
+
+        assertThat(selector.getRequest(), hasJsonPath("$.children.servlets.name", contains("beta")));
+    }
+
+    private static final JsonObject REDUCED_KEY_RESPONSE =
+          JsonParser.parseString("{\"servlets\": {\"items\": [{\"name\": \"beta\"}]}}").getAsJsonObject();
+
+    @Test
+    void whenKeysChangeWhileQueryIsBuilt_queryUsesLatestKeys() throws Exception {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        final AtomicBoolean done = new AtomicBoolean();
+        final CompletableFuture<Void> scrapes = CompletableFuture.runAsync(() -> {
+            while (!done.get())
+                selector.getRequest();
+        });
+
+        for (int i = 0; i < 1000; i++) {
+            selector.offerKeys(KEY_RESPONSE);
+            selector.offerKeys(REDUCED_KEY_RESPONSE);
+        }
+        done.set(true);
+        scrapes.get(5, TimeUnit.SECONDS);
+
+        assertThat(selector.getRequest(), hasJsonPath("$.children.servlets.name", contains("beta")));
+    }
+
+    @Test
+    void whenNestedKeysNoLongerReported_removeThemFromQuery() {
+        MBeanSelector selector = MBeanSelector.create(DEEP_MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(DEEP_KEY_RESPONSE);
+
+        selector.offerKeys(MISMATCHED_DEEP_KEY_RESPONSE);
+
+        assertThat(selector.getRequest(), hasNoJsonPath("$.children.groups.children.subgroup2"));
+    }
+
+    @Test
+    void whenSingleKeyRequestCombined_useSelectorKeyRequest() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+
+        assertThat(MBeanSelector.getKeyRequest(Collections.singletonList(selector)), sameInstance(selector.getKeyRequest()));
+    }
+
+    @Test
+    void whenKeyRequestsCombined_requestKeysForAllSelectors() {
+        MBeanSelector servletSelector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        MBeanSelector groupSelector = MBeanSelector.create(DEEP_MAP_WITH_INCLUDED_KEYS);
+
+        final String keyRequest = MBeanSelector.getKeyRequest(Arrays.asList(servletSelector, groupSelector));
+
+        assertThat(keyRequest, hasJsonPath("$.children.servlets.fields", contains(FILTER_KEY)));
+        assertThat(keyRequest, hasJsonPath("$.children.groups.fields", contains(FILTER_KEY)));
+        assertThat(keyRequest, hasJsonPath("$.children.groups.children.subgroup2.fields", contains(FILTER_KEY)));
+    }
+
+    @Test
+    void whenKeyRequestsWithSameChildCombined_mergeChildRequests() {
+        MBeanSelector first = MBeanSelector.create(DEEP_MAP_WITH_NESTED_INCLUDED_KEYS);
+        MBeanSelector second = MBeanSelector.create(DEEP_MAP_WITH_ASSYMETRIC_KEYS);
+
+        final String keyRequest = MBeanSelector.getKeyRequest(Arrays.asList(first, second));
+
+        assertThat(keyRequest, hasJsonPath("$.children.groups.fields", contains(FILTER_KEY)));
+        assertThat(keyRequest, hasJsonPath("$.children.groups.children.middle.children.subgroup2.fields", contains(FILTER_KEY)));
+        assertThat(keyRequest, hasJsonPath("$.children.groups.children.subgroup1.fields", contains(FILTER_KEY)));
+    }
+
+    @Test
+    void whenCombinedKeyResponseOffered_eachSelectorTakesItsOwnKeys() {
+        MBeanSelector servletSelector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        MBeanSelector groupSelector = MBeanSelector.create(DEEP_MAP_WITH_INCLUDED_KEYS);
+        final JsonObject combinedResponse = DEEP_KEY_RESPONSE.deepCopy();
+        combinedResponse.add("servlets", KEY_RESPONSE.get("servlets"));
+
+        servletSelector.offerKeys(combinedResponse);
+        groupSelector.offerKeys(combinedResponse);
+
+        assertThat(servletSelector.getRequest(), hasJsonPath("$.children.servlets.name", containsInAnyOrder("alpha", "beta")));
+        assertThat(groupSelector.getRequest(), hasJsonPath("$.children.groups.name", containsInAnyOrder("alpha", "beta")));
+        assertThat(groupSelector.getRequest(), hasNoJsonPath("$.children.servlets"));
+    }
+
+    private static final Map<String, Object> SERVLET_MAP = ImmutableMap.of("servlets",
+          ImmutableMap.of(MBeanSelector.QUERY_KEY, "servletName", MBeanSelector.VALUES_KEY, new String[] {"invocationTotalCount"}));
+
+    private static final JsonObject SERVER_KEY_RESPONSE = JsonParser.parseString(
+          "{\"serverRuntimes\": {\"items\": [{\"name\": \"ms2\"}, {\"name\": \"ms1\"}]}}").getAsJsonObject();
+
+    @Test
+    void domainSelector_usesDomainRuntimeQueryType() {
+        MBeanSelector selector = MBeanSelector.create(SERVLET_MAP);
+
+        assertThat(selector.getDomainSelector().getQueryType(), equalTo(QueryType.DOMAIN_RUNTIME));
+    }
+
+    @Test
+    void domainSelector_isReused() {
+        MBeanSelector selector = MBeanSelector.create(SERVLET_MAP);
+
+        assertThat(selector.getDomainSelector(), sameInstance(selector.getDomainSelector()));
+    }
+
+    @Test
+    void domainSelectorKeyRequest_requestsServerNamesWithNestedKeys() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS).getDomainSelector();
+
+        assertThat(selector.getKeyRequest(), hasJsonPath("$.children.serverRuntimes.fields", contains(FILTER_KEY)));
+        assertThat(selector.getKeyRequest(),
+              hasJsonPath("$.children.serverRuntimes.children.servlets.fields", contains(FILTER_KEY)));
+    }
+
+    @Test
+    void afterServerKeysOffered_domainSelectorReportsServerNamesInOrder() {
+        MBeanSelector selector = MBeanSelector.create(SERVLET_MAP).getDomainSelector();
+        selector.offerKeys(SERVER_KEY_RESPONSE);
+
+        assertThat(selector.getServerNames(), contains("ms1", "ms2"));
+    }
+
+    @Test
+    void serverRequest_selectsOnlyThatServer() {
+        MBeanSelector selector = MBeanSelector.create(SERVLET_MAP).getDomainSelector();
+        selector.offerKeys(SERVER_KEY_RESPONSE);
+
+        final String request = selector.getServerRequest("ms2");
+
+        assertThat(request, hasJsonPath("$.children.serverRuntimes.name", contains("ms2")));
+        assertThat(request, hasJsonPath("$.children.serverRuntimes.children.servlets.fields",
+              containsInAnyOrder("servletName", "invocationTotalCount")));
+    }
+
+    @Test
+    void whenDomainSelectorOfferedKeys_originalSelectorStillNeedsKeys() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+
+        selector.getDomainSelector().offerKeys(SERVER_KEY_RESPONSE);
+
+        assertThat(selector.needsInitialKeys(), is(true));
+    }
+
     @Test
     void afterKeysOffered_selectorHasIncludedKeys() {
         MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
@@ -393,6 +603,47 @@ class MBeanSelectorTest {
         assertThat(selector.getRequest(), hasJsonPath("$.fields", hasSize(0)));
     }
 
+    @Test
+    void whenSelectorUnchanged_reuseCompiledPlan() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+
+        assertThat(selector.getPlan(), sameInstance(selector.getPlan()));
+        assertThat(selector.getRequest(), sameInstance(selector.getRequest()));
+    }
+
+    @Test
+    void whenNewKeysOffered_recompilePlan() {
+        MBeanSelector selector = MBeanSelector.create(MAP_WITH_INCLUDED_KEYS);
+        final SelectorPlan originalPlan = selector.getPlan();
+
+        selector.offerKeys(KEY_RESPONSE);
+
+        assertThat(selector.getPlan(), not(sameInstance(originalPlan)));
+    }
+
+    @Test
+    void whenSameKeysOfferedAgain_reuseCompiledPlan() {
+        MBeanSelector selector = MBeanSelector.create(DEEP_MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(DEEP_KEY_RESPONSE);
+        final SelectorPlan plan = selector.getPlan();
+
+        selector.offerKeys(DEEP_KEY_RESPONSE);
+
+        assertThat(selector.getPlan(), sameInstance(plan));
+    }
+
+    @Test
+    void whenNestedKeysChange_recompileTopLevelPlan() {
+        MBeanSelector selector = MBeanSelector.create(DEEP_MAP_WITH_INCLUDED_KEYS);
+        selector.offerKeys(MISMATCHED_DEEP_KEY_RESPONSE);
+        final SelectorPlan plan = selector.getPlan();
+
+        selector.offerKeys(DEEP_KEY_RESPONSE);
+
+        assertThat(selector.getPlan(), not(sameInstance(plan)));
+        assertThat(selector.getRequest(), hasJsonPath("$.children.groups.children.subgroup2.name", hasItem("def678")));
+    }
+
     private static final String MISMATCHED_KEY_RESPONSE_JSON = "{\"servlets\": {\"items\": [\n" +
                 "     {\"servletName\": \"delta\"},\n" +
                 "     {\"servletName\": \"epsilon\" },\n" +
@@ -630,6 +881,15 @@ class MBeanSelectorTest {
         assertThat(selector.getStringMetricValue("color", "yellow"), equalTo(-1));
     }
 
+    @Test
+    void whenStringValuesRepeatedIgnoringCase_useFirstIndex() {
+        MBeanSelector selector = MBeanSelector.create(ImmutableMap.of(MBeanSelector.STRING_VALUES_KEY,
+              ImmutableMap.of("state", Arrays.asList("open", "closed", "OPEN"))));
+
+        assertThat(selector.getStringMetricValue("state", "Open"), equalTo(0));
+        assertThat(selector.getStringMetricValue("state", "closeD"), equalTo(1));
+    }
+
     // todo catch bad type
 
     @Test
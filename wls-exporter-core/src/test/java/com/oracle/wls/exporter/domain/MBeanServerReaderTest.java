@@ -0,0 +1,187 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.google.gson.JsonParser.parseString;
+import static com.oracle.wls.exporter.domain.MetricMatcher.hasMetric;
+import static com.oracle.wls.exporter.domain.MetricMatcher.hasNoSuchMetric;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+class MBeanServerReaderTest {
+
+    private static final String SERVER_RUNTIME = "com.bea:Name=ms1,Type=ServerRuntime";
+    private static final String DOMAIN_CONFIGURATION = "com.bea:Name=mydomain,Type=Domain";
+    private static final String JVM_RUNTIME = "com.bea:Name=ms1,Type=JVMRuntime";
+    private static final String APP1 = "com.bea:Name=app1,Type=ApplicationRuntime";
+    private static final String APP2 = "com.bea:Name=app2,Type=ApplicationRuntime";
+    private static final String SERVLET1 = "com.bea:Name=servlet1,Type=ServletRuntime";
+    private static final String SERVLET2 = "com.bea:Name=servlet2,Type=ServletRuntime";
+    private static final String SESSION1 = "com.bea:Name=sessions1,Type=SessionRuntime";
+
+    private static final String REST_RESPONSE = "{'applicationRuntimes': {'items': [\n" +
+          "  {'name': 'app1', 'healthState': 'OK', 'componentRuntimes': {'items': [\n" +
+          "    {'name': 'servlet1', 'type': 'ServletRuntime', 'invocationTotalCount': 12, 'executionTimeAverage': 3.5},\n" +
+          "    {'name': 'sessions1', 'type': 'SessionRuntime', 'invocationTotalCount': 99}\n" +
+          "  ]}},\n" +
+          "  {'name': 'app2', 'healthState': 'WARN', 'componentRuntimes': {'items': [\n" +
+          "    {'name': 'servlet2', 'type': 'ServletRuntime', 'invocationTotalCount': 7, 'executionTimeAverage': 1.0}\n" +
+          "  ]}}\n" +
+          "]}}";
+
+    private static final MBeanSelector SERVLET_SELECTOR = MBeanSelector.create(ImmutableMap.of("applicationRuntimes",
+          ImmutableMap.of(MBeanSelector.QUERY_KEY, "name", MBeanSelector.KEY_NAME, "app",
+                "componentRuntimes", ImmutableMap.of(MBeanSelector.QUERY_KEY, "name", MBeanSelector.TYPE_KEY, "ServletRuntime",
+                      MBeanSelector.PREFIX_KEY, "servlet_",
+                      MBeanSelector.VALUES_KEY, new String[] {"invocationTotalCount", "executionTimeAverage"}))));
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final MBeanServerReader reader = new MBeanServerReader(server);
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws JMException {
+        register(MBeanServerReader.RUNTIME_SERVICE.getCanonicalName(),
+              "ServerRuntime", name(SERVER_RUNTIME), "DomainConfiguration", name(DOMAIN_CONFIGURATION));
+        register(DOMAIN_CONFIGURATION, "Name", "mydomain");
+        register(SERVER_RUNTIME, "Name", "ms1", "State", "RUNNING", "OpenSocketsCurrentCount", 4,
+              "JVMRuntime", name(JVM_RUNTIME), "ApplicationRuntimes", new ObjectName[] {name(APP1), name(APP2)});
+        register(JVM_RUNTIME, "Name", "ms1", "HeapFreeCurrent", 12345L, "HeapSizeMax", 67890L);
+        register(APP1, "Name", "app1", "HealthState", "OK", "ComponentRuntimes", new ObjectName[] {name(SERVLET1), name(SESSION1)});
+        register(APP2, "Name", "app2", "HealthState", "WARN", "ComponentRuntimes", new ObjectName[] {name(SERVLET2)});
+        register(SERVLET1, "Name", "servlet1", "Type", "ServletRuntime", "InvocationTotalCount", 12, "ExecutionTimeAverage", 3.5);
+        register(SERVLET2, "Name", "servlet2", "Type", "ServletRuntime", "InvocationTotalCount", 7, "ExecutionTimeAverage", 1.0);
+        register(SESSION1, "Name", "sessions1", "Type", "SessionRuntime", "InvocationTotalCount", 99);
+    }
+
+    private static ObjectName name(String name) throws JMException {
+        return new ObjectName(name);
+    }
+
+    private void register(String name, Object... attributes) throws JMException {
+        final ObjectName objectName = name(name);
+        server.registerMBean(new FakeMBean(attributes), objectName);
+        registeredNames.add(objectName);
+    }
+
+    @AfterEach
+    void tearDown() throws JMException {
+        for (ObjectName name : registeredNames)
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+    }
+
+    private Map<String, Object> scrapeInProcess(MBeanSelector selector) throws JMException {
+        return ExporterConfig.createEmptyConfig().scrapeMetrics(selector, reader.read(selector));
+    }
+
+    @Test
+    void whenRuntimeMBeansRead_produceSameMetricsAsRestResponse() throws JMException {
+        final Map<String, Object> restMetrics
+              = ExporterConfig.createEmptyConfig().scrapeMetrics(SERVLET_SELECTOR, parseString(REST_RESPONSE.replace("'", "\"")).getAsJsonObject());
+
+        assertThat(asText(scrapeInProcess(SERVLET_SELECTOR)), equalTo(asText(restMetrics)));
+    }
+
+    // Numbers parsed from JSON are not equal to those read from mbeans, but should be rendered in the same way.
+    private Map<String, String> asText(Map<String, Object> metrics) {
+        final Map<String, String> result = new LinkedHashMap<>();
+        metrics.forEach((name, value) -> result.put(name, value.toString()));
+        return result;
+    }
+
+    @Test
+    void whenChildAttributeHoldsArrayOfNames_readEachChild() throws JMException {
+        assertThat(scrapeInProcess(SERVLET_SELECTOR), allOf(
+              hasMetric("servlet_invocationTotalCount{app=\"app1\",name=\"servlet1\"}", 12),
+              hasMetric("servlet_invocationTotalCount{app=\"app2\",name=\"servlet2\"}", 7)));
+    }
+
+    @Test
+    void whenChildAttributeHoldsSingleName_readChild() throws JMException {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("JVMRuntime",
+              ImmutableMap.of(MBeanSelector.PREFIX_KEY, "jvm_", MBeanSelector.VALUES_KEY, new String[] {"heapFreeCurrent"})));
+
+        assertThat(scrapeInProcess(selector), allOf(hasMetric("jvm_heapFreeCurrent", 12345), hasNoSuchMetric("jvm_heapSizeMax")));
+    }
+
+    @Test
+    void whenSelectorFiltersKeys_readOnlySelectedMBeans() throws JMException {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("applicationRuntimes",
+              ImmutableMap.of(MBeanSelector.QUERY_KEY, "name", MBeanSelector.INCLUDED_KEYS_KEY, "app2",
+                    "componentRuntimes", ImmutableMap.of(MBeanSelector.QUERY_KEY, "name",
+                          MBeanSelector.VALUES_KEY, new String[] {"invocationTotalCount"}))));
+
+        assertThat(scrapeInProcess(selector), allOf(
+              hasMetric("invocationTotalCount{name=\"app2\",name2=\"servlet2\"}", 7),
+              hasNoSuchMetric("invocationTotalCount{name=\"app1\",name2=\"servlet1\"}")));
+    }
+
+    @Test
+    void whenSelectorUsesAllValues_readOnlyScalarAttributes() throws JMException {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("JVMRuntime",
+              ImmutableMap.of(MBeanSelector.PREFIX_KEY, "jvm_")));
+
+        assertThat(scrapeInProcess(selector), allOf(hasMetric("jvm_heapFreeCurrent", 12345), hasMetric("jvm_heapSizeMax", 67890)));
+    }
+
+    @Test
+    void whenValueAttributeNotFound_omitIt() throws JMException {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("JVMRuntime",
+              ImmutableMap.of(MBeanSelector.VALUES_KEY, new String[] {"heapFreeCurrent", "noSuchValue"})));
+
+        assertThat(scrapeInProcess(selector), allOf(hasMetric("heapFreeCurrent", 12345), hasNoSuchMetric("noSuchValue")));
+    }
+
+    @Test
+    void whenChildMBeanNoLongerRegistered_omitIt() throws JMException {
+        server.unregisterMBean(name(SERVLET2));
+
+        assertThat(scrapeInProcess(SERVLET_SELECTOR), hasNoSuchMetric("servlet_invocationTotalCount{app=\"app2\",name=\"servlet2\"}"));
+    }
+
+    @Test
+    void whenConfigurationSelectorRead_useDomainConfiguration() throws JMException {
+        final ExporterConfig config = ExporterConfig.loadConfig(ImmutableMap.of(ExporterConfig.DOMAIN_QUALIFIER, true));
+
+        config.scrapeMetrics(MBeanSelector.DOMAIN_NAME_SELECTOR, reader.read(MBeanSelector.DOMAIN_NAME_SELECTOR));
+
+        assertThat(config.getDomainName(), equalTo("mydomain"));
+    }
+
+    @Test
+    void whenRootMBeanHasNoSelectedChildren_returnNoMetrics() throws JMException {
+        final MBeanSelector selector = MBeanSelector.create(ImmutableMap.of("workManagerRuntimes",
+              ImmutableMap.of(MBeanSelector.VALUES_KEY, new String[] {"pendingRequests"})));
+
+        assertThat(scrapeInProcess(selector), anEmptyMap());
+    }
+
+    @Test
+    void domainRuntimeSelectorsCannotBeRead() {
+        assertThat(MBeanServerReader.canRead(QueryType.DOMAIN_RUNTIME), is(false));
+    }
+
+    @Test
+    void whenAttributeNameBeginsWithAcronym_useItAsFieldName() {
+        assertThat(MBeanServerReader.toFieldName("JDBCServiceRuntime"), equalTo("JDBCServiceRuntime"));
+        assertThat(MBeanServerReader.toFieldName("HeapFreeCurrent"), equalTo("heapFreeCurrent"));
+    }
+}
@@ -0,0 +1,73 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class MetricFamiliesTest {
+
+    private final MetricFamilies metrics = new MetricFamilies();
+
+    @Test
+    void iterateSeriesGroupedByFamilyInOrderAdded() {
+        metrics.put("b", "b{s=\"1\"}", 1);
+        metrics.put("a", "a{s=\"1\"}", 2);
+        metrics.put("b", "b{s=\"2\"}", 3);
+        metrics.put("a", "a{s=\"2\"}", 4);
+
+        assertThat(new ArrayList<>(metrics.keySet()),
+                   contains("b{s=\"1\"}", "b{s=\"2\"}", "a{s=\"1\"}", "a{s=\"2\"}"));
+    }
+
+    @Test
+    void whenSeriesAddedWithoutFamily_deriveItFromName() {
+        metrics.put("b{s=\"1\"}", 1);
+        metrics.put("a", 2);
+        metrics.put("b{s=\"2\"}", 3);
+
+        assertThat(new ArrayList<>(metrics.keySet()), contains("b{s=\"1\"}", "b{s=\"2\"}", "a"));
+    }
+
+    @Test
+    void whenSeriesReplaced_countItOnce() {
+        metrics.put("a", "a{s=\"1\"}", 1);
+        metrics.put("a", "a{s=\"1\"}", 2);
+
+        assertThat(metrics.size(), equalTo(1));
+        assertThat(metrics.get("a{s=\"1\"}"), equalTo(2));
+    }
+
+    @Test
+    void whenSeriesRemoved_returnItsValue() {
+        metrics.put("name", "mydomain");
+        metrics.put("a", "a{s=\"1\"}", 1);
+
+        assertThat(metrics.remove("name"), equalTo("mydomain"));
+        assertThat(metrics.size(), equalTo(1));
+        assertThat(metrics.get("name"), nullValue());
+    }
+
+    @Test
+    void whenSeriesRemovedByIterator_dontIterateIt() {
+        metrics.put("a", "a{s=\"1\"}", 1);
+        metrics.put("a", "a{s=\"2\"}", 2);
+        metrics.put("b", "b", 3);
+
+        final Iterator<Map.Entry<String, Object>> iterator = metrics.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertThat(new ArrayList<>(metrics.keySet()), contains("a{s=\"2\"}", "b"));
+        assertThat(metrics.size(), equalTo(2));
+    }
+}
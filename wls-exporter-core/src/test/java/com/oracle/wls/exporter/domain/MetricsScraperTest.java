@@ -1,14 +1,18 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import org.junit.jupiter.api.Test;
 
 import static com.google.gson.JsonParser.parseString;
@@ -17,7 +21,10 @@ import static com.oracle.wls.exporter.domain.MetricMatcher.hasNoSuchMetric;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * @author Russell Gold
@@ -173,6 +180,27 @@ class MetricsScraperTest {
         return ImmutableMap.of("servlets", leafMap);
     }
 
+    @Test
+    void whenKeyValueContainsSpecialCharacters_escapeIt() {
+        generateNestedMetrics(getServletsMap(), SERVLET_RESPONSE.replace("FileServlet", "File\\\\\\\"Servlet\\\""));
+
+        assertThat(scraper.getMetrics(),
+                   hasMetric("servlet_invocationTotalCount{servletName=\"File\\\\\\\"Servlet\\\"\"}", 1));
+    }
+
+    @Test
+    void whenMultipleValuesScraped_groupSeriesByFamily() {
+        generateNestedMetrics(getAllValuesServletsMap(), SERVLET_RESPONSE);
+
+        assertThat(new ArrayList<>(scraper.getMetrics().keySet()), contains(
+              "servlet_invocationHighCount{servletName=\"JspServlet\"}",
+              "servlet_invocationHighCount{servletName=\"FileServlet\"}",
+              "servlet_invocationHighCount{servletName=\"ready\"}",
+              "servlet_invocationTotalCount{servletName=\"JspServlet\"}",
+              "servlet_invocationTotalCount{servletName=\"FileServlet\"}",
+              "servlet_invocationTotalCount{servletName=\"ready\"}"));
+    }
+
     private void generateNestedMetrics(Map<String,Object> map, String jsonString) {
         generateNestedMetrics(map, jsonString, "");
     }
@@ -382,6 +410,136 @@ class MetricsScraperTest {
     }
 
 
+    @Test
+    void whenStreamingFullResponse_generateSameMetricsAsFromParsedResponse() throws IOException {
+        final MBeanSelector selector = MBeanSelector.create(getFullMap());
+
+        assertThat(scrapeStream(selector, RESPONSE), equalTo(new MetricsScraper("").scrape(selector, getJsonResponse(RESPONSE))));
+    }
+
+    private Map<String, Object> scrapeStream(MBeanSelector selector, String jsonString) throws IOException {
+        return scraper.scrape(selector, new JsonReader(new StringReader(jsonString)));
+    }
+
+    @Test
+    void whenStreamingWithTypeFilter_selectOnlyWebApps() throws IOException {
+        componentMap.put(MBeanSelector.TYPE_KEY, "WebAppComponentRuntime");
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getFullMap()), RESPONSE);
+
+        assertThat(metrics, hasMetric("component_deploymentState{application=\"weblogic\",component=\"ejb30_weblogic\"}", 2));
+        assertThat(metrics, hasNoSuchMetric("component_deploymentState{application=\"mbeans\",component=\"EjbStatusBean\"}"));
+    }
+
+    @Test
+    void whenStreamingAndKeyFollowsNestedObjects_qualifyNestedMetrics() throws IOException {
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getFullMap()), KEY_LAST_RESPONSE);
+
+        assertThat(metrics, hasMetric("component_deploymentState{application=\"weblogic\",component=\"ejb30_weblogic\"}", 2));
+        assertThat(metrics, hasMetric("servlet_invocationTotalCount{application=\"weblogic\",component=\"ejb30_weblogic\",servletName=\"JspServlet\"}", 3));
+    }
+
+    @Test
+    void whenStreamingAndTypeFollowsNestedObjects_excludeUnwantedTypes() throws IOException {
+        componentMap.put(MBeanSelector.TYPE_KEY, "EJBComponentRuntime");
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getFullMap()), KEY_LAST_RESPONSE);
+
+        assertThat(metrics, anEmptyMap());
+    }
+
+    @Test
+    void whenStreaming_ignoreUnselectedObjectsAndArrays() throws IOException {
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getFullMap()), KEY_LAST_RESPONSE);
+
+        assertThat(metrics, hasNoSuchMetric("component_unrelatedCount{application=\"weblogic\",component=\"ejb30_weblogic\"}"));
+        assertThat(metrics.size(), equalTo(2));
+    }
+
+    @Test
+    void whenStreamingAndItemsFollowOtherFields_scrapeList() throws IOException {
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getFullMap()), ITEMS_LAST_RESPONSE);
+
+        assertThat(metrics, hasMetric("component_deploymentState{application=\"weblogic\",component=\"ejb30_weblogic\"}", 2));
+        assertThat(metrics, hasNoSuchMetric("component_deploymentState{application=\"weblogic\"}"));
+    }
+
+    @Test
+    void whenStreamingAndItemsFollowOtherFields_generateSameMetricsAsFromParsedResponse() throws IOException {
+        final MBeanSelector selector = MBeanSelector.create(getFullMap());
+
+        assertThat(scrapeStream(selector, ITEMS_LAST_RESPONSE),
+                   equalTo(new MetricsScraper("").scrape(selector, getJsonResponse(ITEMS_LAST_RESPONSE))));
+    }
+
+    @Test
+    void whenStreamingValuesAtTopLevel_scrapeThem() throws IOException {
+        Map<String, Object> metrics = scrapeStream(MBeanSelector.create(getMetricsMap()), METRICS_RESPONSE);
+
+        assertThat(metrics, hasMetric("heapSizeCurrent", 123456));
+        assertThat(metrics, hasMetric("processCpuLoad", .0028));
+    }
+
+    @Test
+    void whenStreamingConfigurationQuery_acceptStringValues() throws IOException {
+        assertThat(scrapeStream(MBeanSelector.DOMAIN_NAME_SELECTOR, CONFIG_RESPONSE), hasMetric("name", "mydomain"));
+    }
+
+    @Test
+    void whenScrapedAgain_reuseMetricNames() {
+        final MBeanSelector selector = MBeanSelector.create(getFullMap());
+        final String first = getMetricName(scraper.scrape(selector, getJsonResponse(RESPONSE)), "servlet_invocationTotalCount");
+        final String second = getMetricName(scraper.scrape(selector, getJsonResponse(RESPONSE)), "servlet_invocationTotalCount");
+
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    void whenUnconfiguredStringValuesChange_nameEachByItsValue() {
+        final MBeanSelector selector = MBeanSelector.create(getStringValuedServletsMap());
+        scraper.scrape(selector, getJsonResponse(SERVLET_RESPONSE.replace("confused", "starting")));
+
+        assertThat(scraper.scrape(selector, getJsonResponse(SERVLET_RESPONSE.replace("confused", "stopping"))),
+                   hasMetric("servlet_state{servletName=\"ready\",value=\"stopping\"}", -1));
+    }
+
+    private String getMetricName(Map<String, Object> metrics, String stem) {
+        return metrics.keySet().stream().filter(name -> name.startsWith(stem)).findFirst().orElse(null);
+    }
+
+    @Test
+    void whenSnakeCaseSelectedAfterScrape_generateSnakeCaseNames() {
+        final MBeanSelector selector = MBeanSelector.create(getFullMap());
+        scraper.scrape(selector, getJsonResponse(RESPONSE));
+
+        scraper.setMetricNameSnakeCase(true);
+        Map<String, Object> metrics = scraper.scrape(selector, getJsonResponse(RESPONSE));
+
+        assertThat(metrics, hasMetric("component_deployment_state{application=\"weblogic\",component=\"ejb30_weblogic\"}", 2));
+    }
+
+    private static final String KEY_LAST_RESPONSE =
+            "{\"applicationRuntimes\": {\"links\": [], \"items\": [{\n" +
+            "    \"componentRuntimes\": {\"items\": [{\n" +
+            "        \"servlets\": {\"items\": [\n" +
+            "            {\"invocationTotalCount\": 3, \"unrelated\": {\"count\": 1}, \"servletName\": \"JspServlet\"}\n" +
+            "        ]},\n" +
+            "        \"unrelated\": [{\"unrelatedCount\": 4}],\n" +
+            "        \"deploymentState\": 2,\n" +
+            "        \"name\": \"ejb30_weblogic\",\n" +
+            "        \"type\": \"WebAppComponentRuntime\"\n" +
+            "    }]},\n" +
+            "    \"name\": \"weblogic\"\n" +
+            "}]}}";
+
+    private static final String ITEMS_LAST_RESPONSE =
+            "{\"applicationRuntimes\": {\"totalResults\": 1, \"items\": [{\n" +
+            "    \"name\": \"weblogic\",\n" +
+            "    \"componentRuntimes\": {\"deploymentState\": 7, \"links\": [], \"items\": [{\n" +
+            "        \"deploymentState\": 2,\n" +
+            "        \"name\": \"ejb30_weblogic\",\n" +
+            "        \"type\": \"WebAppComponentRuntime\"\n" +
+            "    }]}\n" +
+            "}]}}";
+
     private static final String METRICS_RESPONSE =
             "{\"JVMRuntime\": {\n" +
             "    \"uptime\": 137762378,\n" +
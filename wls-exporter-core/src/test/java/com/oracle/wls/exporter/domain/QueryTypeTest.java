@@ -1,4 +1,4 @@
-// Copyright (c) 2019, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2019, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.domain;
@@ -9,6 +9,7 @@ import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 import static com.oracle.wls.exporter.domain.QueryType.CONFIGURATION;
+import static com.oracle.wls.exporter.domain.QueryType.DOMAIN_RUNTIME;
 import static com.oracle.wls.exporter.domain.QueryType.RUNTIME;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -31,6 +32,16 @@ class QueryTypeTest implements MetricsProcessor {
         assertThat(CONFIGURATION.getUrlPattern(), equalTo(QueryType.CONFIGURATION_URL_PATTERN));
     }
 
+    @Test
+    void domainRuntimeQueryType_usesDomainRuntimeMbeanUrl() {
+        assertThat(DOMAIN_RUNTIME.getUrlPattern(), equalTo(QueryType.DOMAIN_RUNTIME_URL_PATTERN));
+    }
+
+    @Test
+    void domainRuntimeQueryType_ignoresStrings() {
+        assertThat(DOMAIN_RUNTIME.acceptsStrings(), is(false));
+    }
+
     @Test
     void runtimeQueryType_ignoresStrings() {
         assertThat(RUNTIME.acceptsStrings(), is(false));
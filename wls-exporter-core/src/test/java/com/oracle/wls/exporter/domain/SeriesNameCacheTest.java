@@ -0,0 +1,113 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.domain;
+
+import java.util.Collections;
+
+import com.oracle.wls.exporter.domain.SeriesNameCache.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class SeriesNameCacheTest {
+
+    private final SeriesNameCache cache = new SeriesNameCache();
+    private final MBeanSelector selector = MBeanSelector.create(Collections.emptyMap());
+    private final MBeanSelector childSelector = MBeanSelector.create(Collections.emptyMap());
+
+    @Test
+    void whenScrapeStartedAgain_returnSameRoot() {
+        final Node root = scrape();
+
+        assertThat(scrape(), sameInstance(root));
+    }
+
+    private Node scrape() {
+        final Node root = cache.startScrape(selector, "domain=\"d1\"", false);
+        cache.completeScrape(root);
+        return root;
+    }
+
+    @Test
+    void whenQualifiersChange_returnNewRoot() {
+        final Node root = scrape();
+
+        assertThat(cache.startScrape(selector, "domain=\"d2\"", false), not(sameInstance(root)));
+    }
+
+    @Test
+    void whenSnakeCaseSettingChanges_returnNewRoot() {
+        final Node root = scrape();
+
+        assertThat(cache.startScrape(selector, "domain=\"d1\"", true), not(sameInstance(root)));
+    }
+
+    @Test
+    void afterChildAdded_retrieveItByKey() {
+        final Node root = cache.startScrape(selector, "", false);
+        final Node child = root.addChild(childSelector, "app1", "application=\"app1\"");
+
+        assertThat(root.getChild(childSelector, "app1"), sameInstance(child));
+        assertThat(root.getChild(childSelector, "app1").getQualifiers(), equalTo("application=\"app1\""));
+        assertThat(root.getChild(childSelector, "app2"), nullValue());
+    }
+
+    @Test
+    void afterNameStored_retrieveIt() {
+        final Node root = cache.startScrape(selector, "", false);
+        root.putName("openSessionsCurrentCount", "webapp_openSessionsCurrentCount");
+        root.putStringMetricName("state", 0, "server_state");
+
+        assertThat(root.getName("openSessionsCurrentCount"), equalTo("webapp_openSessionsCurrentCount"));
+        assertThat(root.getStringMetricName("state", 0), equalTo("server_state"));
+        assertThat(root.getStringMetricName("state", 1), nullValue());
+    }
+
+    @Test
+    void whenChildUnusedForMaxIdleScrapes_retainIt() {
+        cache.startScrape(selector, "", false).addChild(childSelector, "app1", "application=\"app1\"");
+        for (int i = 0; i < SeriesNameCache.MAX_IDLE_SCRAPES; i++)
+            scrapeWithoutChildren();
+
+        assertThat(cache.startScrape(selector, "", false).getChild(childSelector, "app1"), notNullValue());
+    }
+
+    private void scrapeWithoutChildren() {
+        cache.completeScrape(cache.startScrape(selector, "", false));
+    }
+
+    @Test
+    void whenChildUnusedForMoreThanMaxIdleScrapes_evictIt() {
+        cache.startScrape(selector, "", false).addChild(childSelector, "app1", "application=\"app1\"");
+        for (int i = 0; i <= SeriesNameCache.MAX_IDLE_SCRAPES; i++)
+            scrapeWithoutChildren();
+
+        assertThat(cache.startScrape(selector, "", false).getChild(childSelector, "app1"), nullValue());
+    }
+
+    @Test
+    void whenChildUsedDuringScrapes_retainIt() {
+        cache.startScrape(selector, "", false).addChild(childSelector, "app1", "application=\"app1\"");
+        for (int i = 0; i <= SeriesNameCache.MAX_IDLE_SCRAPES; i++) {
+            final Node root = cache.startScrape(selector, "", false);
+            root.getChild(childSelector, "app1");
+            cache.completeScrape(root);
+        }
+
+        assertThat(cache.startScrape(selector, "", false).getChild(childSelector, "app1"), notNullValue());
+    }
+
+    @Test
+    void afterClear_returnNewRoot() {
+        final Node root = scrape();
+        cache.clear();
+
+        assertThat(scrape(), not(sameInstance(root)));
+    }
+}
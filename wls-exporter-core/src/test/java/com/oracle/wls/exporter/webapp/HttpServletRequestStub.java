@@ -1,4 +1,4 @@
-// Copyright (c) 2017, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.webapp;
@@ -7,6 +7,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -14,7 +15,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
@@ -47,6 +54,10 @@ public abstract class HttpServletRequestStub implements HttpServletRequest {
     private boolean secure;
     private String hostName = HOST_NAME;
     private int port = PORT;
+    private ServletResponse asyncResponse;
+    private AsyncContextStub asyncContext;
+    private final Map<String,String> passwords = new HashMap<>();
+    private Principal userPrincipal;
 
     public static HttpServletRequestStub createGetRequest() {
         return createStrictStub(HttpServletRequestStub.class, "GET");
@@ -77,6 +88,30 @@ public abstract class HttpServletRequestStub implements HttpServletRequest {
         return this;
     }
 
+    /**
+     * Allows asynchronous processing of this request, which will complete with the specified response.
+     * @param response the response to the request
+     */
+    public HttpServletRequestStub withAsyncSupport(ServletResponse response) {
+        this.asyncResponse = response;
+        return this;
+    }
+
+    /**
+     * Allows the specified user to log in to the container with this request.
+     * @param user the name of the user
+     * @param password the user's password
+     */
+    public HttpServletRequestStub withUser(String user, String password) {
+        passwords.put(user, password);
+        return this;
+    }
+
+    public HttpServletRequestStub withUserPrincipal(String user) {
+        userPrincipal = () -> user;
+        return this;
+    }
+
     HttpServletRequestStub(String method) {
         this.method = method;
     }
@@ -127,6 +162,19 @@ public abstract class HttpServletRequestStub implements HttpServletRequest {
         return "HTTP/1.1";
     }
 
+    @Override
+    public Principal getUserPrincipal() {
+        return userPrincipal;
+    }
+
+    @Override
+    public void login(String username, String password) throws ServletException {
+        if (userPrincipal != null) throw new ServletException("Already logged in");
+        if (!password.equals(passwords.get(username))) throw new ServletException("Login failed");
+
+        withUserPrincipal(username);
+    }
+
     @Override
     public String getHeader(String name) {
         return headers.get(name);
@@ -198,6 +246,29 @@ public abstract class HttpServletRequestStub implements HttpServletRequest {
         return secure;
     }
 
+    @Override
+    public boolean isAsyncSupported() {
+        return asyncResponse != null;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        if (!isAsyncSupported()) throw new IllegalStateException("Async processing not supported");
+        asyncContext = createStrictStub(AsyncContextStub.class, this, asyncResponse);
+        return asyncContext;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return asyncContext != null;
+    }
+
+    @Override
+    public AsyncContextStub getAsyncContext() {
+        if (asyncContext == null) throw new IllegalStateException("Async processing not started");
+        return asyncContext;
+    }
+
     public boolean hasInvalidatedSession() {
         return session != null && !session.valid;
     }
@@ -229,4 +300,54 @@ public abstract class HttpServletRequestStub implements HttpServletRequest {
             return inputStream.read();
         }
     }
+
+    public abstract static class AsyncContextStub implements AsyncContext {
+        private final CountDownLatch completion = new CountDownLatch(1);
+        private final ServletRequest request;
+        private final ServletResponse response;
+        private long timeout = 30000;
+        private String completingThreadName;
+
+        public AsyncContextStub(ServletRequest request, ServletResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        /**
+         * Waits briefly for the asynchronous processing to complete, returning true if it did.
+         */
+        public boolean awaitCompletion() throws InterruptedException {
+            return completion.await(5, TimeUnit.SECONDS);
+        }
+
+        public String getCompletingThreadName() {
+            return completingThreadName;
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return request;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public long getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public void complete() {
+            completingThreadName = Thread.currentThread().getName();
+            completion.countDown();
+        }
+    }
 }
@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.webapp;
@@ -7,6 +7,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 import com.oracle.wls.exporter.ServletInvocationContext;
 import org.junit.jupiter.api.Test;
@@ -42,6 +44,46 @@ class ServletInvocationContextTest {
     assertThat(context.getAuthenticationHeader(), equalTo("A value"));
   }
 
+  @Test
+  void whenContainerHasIdentifiedClient_isAuthenticated() {
+    request.withUserPrincipal("user");
+
+    assertThat(context.authenticate(), is(true));
+  }
+
+  @Test
+  void whenClientSendsNoCredentials_isNotAuthenticated() {
+    assertThat(context.authenticate(), is(false));
+  }
+
+  @Test
+  void whenClientSendsValidBasicCredentials_logInWithThem() {
+    request.withUser("user", "pass:word");
+    request.setHeader(AUTHENTICATION_HEADER, createBasicHeader("user", "pass:word"));
+
+    assertThat(context.authenticate(), is(true));
+    assertThat(request.getUserPrincipal().getName(), equalTo("user"));
+  }
+
+  @Test
+  void whenClientSendsInvalidBasicCredentials_isNotAuthenticated() {
+    request.withUser("user", "password");
+    request.setHeader(AUTHENTICATION_HEADER, createBasicHeader("user", "guess"));
+
+    assertThat(context.authenticate(), is(false));
+  }
+
+  @Test
+  void whenClientSendsMalformedBasicCredentials_isNotAuthenticated() {
+    request.setHeader(AUTHENTICATION_HEADER, "Basic not*base64");
+
+    assertThat(context.authenticate(), is(false));
+  }
+
+  private String createBasicHeader(String user, String password) {
+    return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+  }
+
   @Test
   void obtainContentType() {
     request.setContent("text/plain", "Abcedef");
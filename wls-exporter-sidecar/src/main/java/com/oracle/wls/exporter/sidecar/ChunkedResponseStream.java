@@ -0,0 +1,216 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.sidecar;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.helidon.common.http.DataChunk;
+
+/**
+ * An output stream which sends what is written to it as a series of chunks, published to the web server
+ * as they fill. The response is thus sent as it is produced, rather than being held in memory until complete.
+ *
+ * <p>The writing thread blocks until the server has requested another chunk, so that no more than the chunks
+ * requested are ever held in memory, however slowly the client reads. The response is started on the first
+ * chunk, so that the status and headers may be set until then, and is completed by {@link #complete()}.
+ * If the client goes away, anything further written is discarded.
+ */
+class ChunkedResponseStream extends OutputStream implements Flow.Publisher<DataChunk> {
+
+    static final int DEFAULT_CHUNK_SIZE = 8192;
+    static final long DEFAULT_TIMEOUT_SECONDS = 60;
+
+    private static final Flow.Subscription REJECTED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+            // no-op
+        }
+
+        @Override
+        public void cancel() {
+            // no-op
+        }
+    };
+
+    private final Consumer<Flow.Publisher<DataChunk>> sender;
+    private final int chunkSize;
+    private final long timeoutNanos;
+
+    private byte[] chunk;
+    private int count;
+    private boolean started;
+    private boolean completed;
+
+    // guarded by this
+    private Flow.Subscriber<? super DataChunk> subscriber;
+    private boolean subscribed;
+    private long demand;
+    private boolean cancelled;
+
+    /**
+     * Creates a stream with the default chunk size and timeout.
+     * @param sender a function which starts the response, given the publisher of its content
+     */
+    ChunkedResponseStream(Consumer<Flow.Publisher<DataChunk>> sender) {
+        this(sender, DEFAULT_CHUNK_SIZE, TimeUnit.SECONDS.toNanos(DEFAULT_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Creates a stream.
+     * @param sender a function which starts the response, given the publisher of its content
+     * @param chunkSize the maximum number of bytes to send in a single chunk
+     * @param timeoutNanos the time to wait for the server to request a chunk before abandoning the response
+     */
+    ChunkedResponseStream(Consumer<Flow.Publisher<DataChunk>> sender, int chunkSize, long timeoutNanos) {
+        this.sender = sender;
+        this.chunkSize = chunkSize;
+        this.timeoutNanos = timeoutNanos;
+        this.chunk = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunkSize) sendChunk(false);
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == chunkSize) sendChunk(false);
+            final int numToCopy = Math.min(length, chunkSize - count);
+            System.arraycopy(bytes, offset, chunk, count, numToCopy);
+            count += numToCopy;
+            offset += numToCopy;
+            length -= numToCopy;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) sendChunk(true);
+    }
+
+    /**
+     * Does nothing, as callers close their response streams even when failing, and the response must remain
+     * unstarted in case an error is then to be sent instead.
+     */
+    @Override
+    public void close() {
+        // no-op
+    }
+
+    /**
+     * Sends anything still buffered, and completes the response.
+     * @throws IOException if the client did not accept the response in time
+     */
+    void complete() throws IOException {
+        if (completed) return;
+
+        completed = true;
+        flush();
+        startResponse();
+        if (awaitSubscription()) subscriber.onComplete();
+    }
+
+    // Each chunk is handed to the server in its own array, as the server may still be writing it after onNext returns.
+    private void sendChunk(boolean flush) throws IOException {
+        startResponse();
+        if (awaitDemand())
+            subscriber.onNext(DataChunk.create(flush, ByteBuffer.wrap(chunk, 0, count)));
+        chunk = new byte[chunkSize];
+        count = 0;
+    }
+
+    private void startResponse() {
+        if (!started) {
+            started = true;
+            sender.accept(this);
+        }
+    }
+
+    private synchronized boolean awaitSubscription() throws IOException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (!cancelled && !subscribed)
+            waitUntil(deadline);
+        return !cancelled;
+    }
+
+    // Returns true if a chunk may be sent, or false if the client is gone.
+    private synchronized boolean awaitDemand() throws IOException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (!cancelled && (!subscribed || demand == 0))
+            waitUntil(deadline);
+        if (cancelled) return false;
+
+        demand--;
+        return true;
+    }
+
+    private void waitUntil(long deadline) throws IOException {
+        final long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            cancelled = true;
+            throw new IOException("Timed out waiting for the client to accept the response");
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending the response");
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DataChunk> subscriber) {
+        if (!acceptSubscriber(subscriber)) {
+            subscriber.onSubscribe(REJECTED);
+            subscriber.onError(new IllegalStateException("The response may only be sent once"));
+            return;
+        }
+
+        subscriber.onSubscribe(new ChunkSubscription());
+        synchronized (this) {
+            subscribed = true;
+            notifyAll();
+        }
+    }
+
+    private synchronized boolean acceptSubscriber(Flow.Subscriber<? super DataChunk> subscriber) {
+        if (this.subscriber != null) return false;
+
+        this.subscriber = subscriber;
+        return true;
+    }
+
+    private class ChunkSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            synchronized (ChunkedResponseStream.this) {
+                if (n <= 0)
+                    cancelled = true;
+                else
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                ChunkedResponseStream.this.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (ChunkedResponseStream.this) {
+                cancelled = true;
+                ChunkedResponseStream.this.notifyAll();
+            }
+        }
+    }
+}
@@ -1,10 +1,10 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.net.URI;
@@ -13,10 +13,8 @@ import java.util.concurrent.TimeUnit;
 import com.oracle.wls.exporter.InvocationContext;
 import com.oracle.wls.exporter.UrlBuilder;
 import com.oracle.wls.exporter.WebAppConstants;
-import io.helidon.common.http.DataChunk;
 import io.helidon.common.http.Http;
 import io.helidon.common.http.MediaType;
-import io.helidon.common.reactive.Single;
 import io.helidon.webserver.ServerRequest;
 import io.helidon.webserver.ServerResponse;
 
@@ -24,17 +22,37 @@ public class HelidonInvocationContext implements InvocationContext {
 
     private final ServerRequest request;
     private final ServerResponse response;
-    private final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-    private final PrintStream printStream = new PrintStream(baos);
+    private final ChunkedResponseStream responseStream;
+    private final PrintStream printStream;
     private final SidecarConfiguration configuration = new SidecarConfiguration();
+    private final String target;
+    private boolean responseSent;
 
     public HelidonInvocationContext(ServerRequest request, ServerResponse response) {
+        this(request, response, null);
+    }
+
+    /**
+     * Creates a context for a request which scrapes the specified server, rather than the configured one.
+     * @param request the client request
+     * @param response the response to the client
+     * @param target the server to scrape, as host:port, or null for the configured server
+     */
+    public HelidonInvocationContext(ServerRequest request, ServerResponse response, String target) {
+        this.target = target;
         this.request = request;
         this.response = response;
+        this.responseStream = new ChunkedResponseStream(response::send);
+        this.printStream = new PrintStream(responseStream);
     }
 
     @Override
     public UrlBuilder createUrlBuilder() {
+        if (target != null)
+            return UrlBuilder.create(configuration.useWebLogicSsl())
+                  .withHostName(target.substring(0, target.lastIndexOf(':')))
+                  .withPort(Integer.parseInt(target.substring(target.lastIndexOf(':') + 1)));
+
         return UrlBuilder.create(configuration.useWebLogicSsl())
               .withHostName(configuration.getWebLogicHost())
               .withPort(configuration.getWebLogicPort());
@@ -55,9 +73,19 @@ public class HelidonInvocationContext implements InvocationContext {
         return request.headers().contentType().map(MediaType::toString).orElse("application/json");
     }
 
+    @Override
+    public String getRequestHeader(String name) {
+        return request.headers().first(name).orElse(null);
+    }
+
     @Override
     public String getInstanceName() {
-        return configuration.getPodName();
+        return target != null ? target : configuration.getPodName();
+    }
+
+    @Override
+    public String getTarget() {
+        return target;
     }
 
     @Override
@@ -75,12 +103,14 @@ public class HelidonInvocationContext implements InvocationContext {
 
     @Override
     public void sendError(int status, String msg) {
+        responseSent = true;
         response.status(status).send(msg);
     }
 
     @Override
     public void sendRedirect(String location) {
         response.headers().location(URI.create(location));
+        responseSent = true;
 
         response.status(Http.Status.FOUND_302).send();
     }
@@ -97,6 +127,13 @@ public class HelidonInvocationContext implements InvocationContext {
 
     @Override
     public void close() {
-        response.send(Single.just(DataChunk.create(baos.toByteArray())));
+        if (responseSent) return;
+
+        try {
+            printStream.flush();
+            responseStream.complete();
+        } catch (IOException e) {
+            // the client has stopped reading the response, so there is no one to tell
+        }
     }
 }
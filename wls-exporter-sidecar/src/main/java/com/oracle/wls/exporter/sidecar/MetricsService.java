@@ -1,10 +1,13 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.function.BiFunction;
 
 import com.oracle.wls.exporter.AuthenticatedCall;
@@ -14,8 +17,10 @@ import com.oracle.wls.exporter.ExporterCall;
 import com.oracle.wls.exporter.InvocationContext;
 import com.oracle.wls.exporter.LiveConfiguration;
 import com.oracle.wls.exporter.MessagesCall;
+import com.oracle.wls.exporter.SelectorExecutor;
 import com.oracle.wls.exporter.WebClientFactory;
 import io.helidon.common.configurable.ThreadPoolSupplier;
+import io.helidon.common.http.Http;
 import io.helidon.webserver.Routing;
 import io.helidon.webserver.ServerRequest;
 import io.helidon.webserver.ServerResponse;
@@ -23,23 +28,42 @@ import io.helidon.webserver.Service;
 
 class MetricsService implements Service {
 
+    private static final String THREAD_NAME_PREFIX = "wls-exporter-sidecar-";
+    private static final String QUERY_THREAD_NAME_PREFIX = "wls-exporter-query-";
+    private static final int PLATFORM_POOL_SIZE = 10;
+    private static final String TARGET_PARAMETER = "target";
+
     private final WebClientFactory webClientFactory;
     private final ExecutorService executorService;
+    private final SidecarConfiguration configuration;
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
 
     private final AuthenticatedHandler metricsHandler = new AuthenticatedHandler(ExporterCall::new);
     private final AuthenticatedHandler configurationHandler = new AuthenticatedHandler(ConfigurationPutCall::new);
     private final MainHandler mainHandler = new MainHandler();
     private final AuthenticatedHandler messagesHandler = new AuthenticatedHandler(MessagesCall::new);
+    private final ProbeHandler probeHandler = new ProbeHandler();
     private final int listenPort;
 
     MetricsService(SidecarConfiguration configuration, WebClientFactory webClientFactory) {
+        this.configuration = configuration;
         this.listenPort = configuration.getListenPort();
         this.webClientFactory = webClientFactory;
         LiveConfiguration.setServer(configuration.getWebLogicHost(), configuration.getWebLogicPort());
 
-        this.executorService = ThreadPoolSupplier.builder()
-                .threadNamePrefix("wls-exporter-sidecar-")
-                .corePoolSize(10)
+        if (configuration.useVirtualThreads()) {
+            this.executorService = new VirtualThreadExecutor(THREAD_NAME_PREFIX, configuration.getMaxConcurrentRequests());
+            SelectorExecutor.setExecutorFactory(limit -> new VirtualThreadExecutor(QUERY_THREAD_NAME_PREFIX, limit));
+        } else {
+            this.executorService = createPlatformThreadPool();
+            SelectorExecutor.setExecutorFactory(null);
+        }
+    }
+
+    private ExecutorService createPlatformThreadPool() {
+        return ThreadPoolSupplier.builder()
+                .threadNamePrefix(THREAD_NAME_PREFIX)
+                .corePoolSize(PLATFORM_POOL_SIZE)
                 .prestart(true)
                 .build()
                 .get();
@@ -51,6 +75,7 @@ class MetricsService implements Service {
               .get("/", mainHandler::dispatch)
               .get("/metrics", metricsHandler::dispatch)
               .get("/messages", messagesHandler::dispatch)
+              .get("/probe", probeHandler::dispatch)
               .put("/configuration", configurationHandler::dispatch);
     }
 
@@ -58,15 +83,25 @@ class MetricsService implements Service {
         return listenPort;
     }
 
+    /**
+     * Returns the permits for probes of the specified target. Each target has its own, so that a slow target
+     * can occupy no more than its share of the threads which handle requests.
+     */
+    Semaphore getBulkhead(String target) {
+        return bulkheads.computeIfAbsent(target, t -> new Semaphore(configuration.getMaxProbesPerTarget()));
+    }
+
     abstract class Handler {
         void dispatch(ServerRequest request, ServerResponse response) {
-            executorService.submit(() -> {
-                try {
-                    invoke(new HelidonInvocationContext(request, response));
-                } catch (IOException e) {
-                    reportServerFailure(response, e);
-                }
-            });
+            executorService.submit(() -> handle(new HelidonInvocationContext(request, response), response));
+        }
+
+        void handle(InvocationContext context, ServerResponse response) {
+            try {
+                invoke(context);
+            } catch (IOException e) {
+                reportServerFailure(response, e);
+            }
         }
 
         void reportServerFailure(ServerResponse response, IOException e) {
@@ -89,6 +124,35 @@ class MetricsService implements Service {
         }
     }
 
+    /**
+     * Scrapes the server named by the target parameter, in the style of the Prometheus blackbox exporter.
+     * Only listed targets may be probed, and a probe is refused while its target has too many in progress.
+     */
+    class ProbeHandler extends AuthenticatedHandler {
+        ProbeHandler() {
+            super(ExporterCall::new);
+        }
+
+        @Override
+        void dispatch(ServerRequest request, ServerResponse response) {
+            final String target = request.queryParams().first(TARGET_PARAMETER).orElse("");
+            if (!configuration.isProbeTarget(target))
+                response.status(Http.Status.FORBIDDEN_403).send("Target '" + target + "' may not be probed");
+            else if (!getBulkhead(target).tryAcquire())
+                response.status(Http.Status.SERVICE_UNAVAILABLE_503).send("Too many probes of " + target + " in progress");
+            else
+                executorService.submit(() -> probe(target, request, response));
+        }
+
+        private void probe(String target, ServerRequest request, ServerResponse response) {
+            try {
+                handle(new HelidonInvocationContext(request, response, target), response);
+            } finally {
+                getBulkhead(target).release();
+            }
+        }
+    }
+
     class MainHandler extends Handler {
         void invoke(InvocationContext context) throws IOException {
             ConfigurationDisplay.displayConfiguration(context.getResponseStream());
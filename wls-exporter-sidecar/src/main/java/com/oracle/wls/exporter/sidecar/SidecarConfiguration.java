@@ -1,10 +1,14 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class SidecarConfiguration {
 
@@ -13,16 +17,28 @@ public class SidecarConfiguration {
   static final String WLS_PORT_PROPERTY = "WLS_PORT";
   static final String WLS_SECURE_PROPERTY = "WLS_SECURE";
   static final String POD_NAME_PROPERTY = "POD_NAME";
+  static final String VIRTUAL_THREADS_PROPERTY = "VIRTUAL_THREADS";
+  static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "MAX_CONCURRENT_REQUESTS";
+  static final String PROBE_TARGETS_PROPERTY = "PROBE_TARGETS";
+  static final String MAX_PROBES_PER_TARGET_PROPERTY = "MAX_PROBES_PER_TARGET";
 
   static final int DEFAULT_LISTEN_PORT = 8080;
   static final int DEFAULT_WLS_PORT = 7001;
   static final String DEFAULT_POD_NAME = "<unknown>";
+  static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 100;
+  static final int DEFAULT_MAX_PROBES_PER_TARGET = 2;
+
+  private static final Pattern TARGET_PATTERN = Pattern.compile("[^:\\s]+:\\d+");
 
   private final int listenPort;
   private final String webLogicHost;
   private final int webLogicPort;
   private final String podName;
   private final boolean secure;
+  private final boolean virtualThreads;
+  private final int maxConcurrentRequests;
+  private final Set<String> probeTargets;
+  private final int maxProbesPerTarget;
 
   public SidecarConfiguration() {
     listenPort = Integer.getInteger(LISTEN_PORT_PROPERTY, DEFAULT_LISTEN_PORT);
@@ -30,6 +46,18 @@ public class SidecarConfiguration {
     webLogicPort = Integer.getInteger(WLS_PORT_PROPERTY, DEFAULT_WLS_PORT);
     podName = System.getProperty(POD_NAME_PROPERTY, DEFAULT_POD_NAME);
     secure = Boolean.getBoolean(WLS_SECURE_PROPERTY);
+    virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY);
+    maxConcurrentRequests = Integer.getInteger(MAX_CONCURRENT_REQUESTS_PROPERTY, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    probeTargets = parseProbeTargets(System.getProperty(PROBE_TARGETS_PROPERTY, ""));
+    maxProbesPerTarget = Integer.getInteger(MAX_PROBES_PER_TARGET_PROPERTY, DEFAULT_MAX_PROBES_PER_TARGET);
+  }
+
+  // Entries which are not of the form host:port are ignored.
+  private static Set<String> parseProbeTargets(String property) {
+    return Arrays.stream(property.split(","))
+          .map(String::trim)
+          .filter(target -> TARGET_PATTERN.matcher(target).matches())
+          .collect(Collectors.toSet());
   }
 
   static String getDefaultWlsHostName() {
@@ -59,4 +87,34 @@ public class SidecarConfiguration {
   public boolean useWebLogicSsl() {
     return secure;
   }
+
+  /**
+   * Returns true if requests, and the queries they run, are to be handled on virtual threads
+   * rather than on a fixed pool of platform threads.
+   */
+  public boolean useVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Returns the maximum number of requests to handle at once when using virtual threads.
+   */
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  /**
+   * Returns true if the specified server, given as host:port, may be scraped with a probe request.
+   * No server may be probed unless it is listed.
+   */
+  public boolean isProbeTarget(String target) {
+    return probeTargets.contains(target);
+  }
+
+  /**
+   * Returns the maximum number of probes of a single target to handle at once.
+   */
+  public int getMaxProbesPerTarget() {
+    return maxProbesPerTarget;
+  }
 }
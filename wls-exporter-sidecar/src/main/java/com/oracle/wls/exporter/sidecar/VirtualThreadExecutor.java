@@ -0,0 +1,71 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.sidecar;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor which runs each task on its own virtual thread, while limiting the number of tasks which run at once.
+ * A task beyond the limit waits for a permit on its virtual thread, which costs little, rather than in a queue.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    /**
+     * Creates an executor.
+     * @param threadNamePrefix the prefix for the names of the virtual threads
+     * @param maxConcurrentTasks the maximum number of tasks to run at once
+     */
+    VirtualThreadExecutor(String threadNamePrefix, int maxConcurrentTasks) {
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 1).factory());
+        this.permits = new Semaphore(maxConcurrentTasks);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> runWithPermit(command));
+    }
+
+    // Waiting is uninterruptible so that a task which is cancelled while waiting still runs, and thus completes its future.
+    private void runWithPermit(Runnable command) {
+        permits.acquireUninterruptibly();
+        try {
+            command.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
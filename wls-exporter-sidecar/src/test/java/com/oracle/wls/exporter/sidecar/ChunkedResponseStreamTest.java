@@ -0,0 +1,212 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.sidecar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import io.helidon.common.http.DataChunk;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedResponseStreamTest {
+
+  private static final int CHUNK_SIZE = 8;
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final TestSubscriber subscriber = new TestSubscriber();
+  private Flow.Publisher<DataChunk> sentPublisher;
+  private ChunkedResponseStream stream = new ChunkedResponseStream(this::send, CHUNK_SIZE, TIMEOUT_NANOS);
+
+  private void send(Flow.Publisher<DataChunk> publisher) {
+    sentPublisher = publisher;
+    publisher.subscribe(subscriber);
+  }
+
+  private void write(String text) throws IOException {
+    stream.write(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void whenLessThanChunkWritten_dontStartResponse() throws IOException {
+    write("abc");
+
+    assertThat(sentPublisher, nullValue());
+  }
+
+  @Test
+  void whenStreamClosed_dontStartResponse() throws IOException {
+    write("abc");
+
+    stream.close();
+
+    assertThat(sentPublisher, nullValue());
+  }
+
+  @Test
+  void whenChunkFilled_sendItBeforeCompletion() throws IOException {
+    write("0123456789");
+
+    assertThat(subscriber.getChunks(), equalTo(List.of("01234567")));
+    assertThat(subscriber.completed, is(false));
+  }
+
+  @Test
+  void whenCompleted_sendRemainderAndComplete() throws IOException {
+    write("0123456789");
+
+    stream.complete();
+
+    assertThat(subscriber.getChunks(), equalTo(List.of("01234567", "89")));
+    assertThat(subscriber.completed, is(true));
+  }
+
+  @Test
+  void whenCompletedTwice_completeOnce() throws IOException {
+    stream.complete();
+    stream.complete();
+
+    assertThat(subscriber.completionCount, equalTo(1));
+  }
+
+  @Test
+  void whenNothingWritten_completeEmptyResponse() throws IOException {
+    stream.complete();
+
+    assertThat(subscriber.getChunks(), equalTo(List.of()));
+    assertThat(subscriber.completed, is(true));
+  }
+
+  @Test
+  void whenFlushed_sendPartialChunk() throws IOException {
+    write("abc");
+
+    stream.flush();
+
+    assertThat(subscriber.getChunks(), equalTo(List.of("abc")));
+  }
+
+  @Test
+  void whenNoDemand_blockWriterUntilChunkRequested() throws Exception {
+    subscriber.initialDemand = 0;
+    final Thread writer = new Thread(this::writeTwoChunks);
+    writer.start();
+
+    awaitBlocked(writer);
+    assertThat(subscriber.getChunks(), equalTo(List.of()));
+
+    subscriber.subscription.request(1);
+    awaitChunks(1);
+    awaitBlocked(writer);
+    assertThat(subscriber.getChunks(), equalTo(List.of("01234567")));
+
+    subscriber.subscription.request(1);
+    writer.join(TimeUnit.NANOSECONDS.toMillis(TIMEOUT_NANOS));
+    assertThat(subscriber.getChunks(), equalTo(List.of("01234567", "89abcdef")));
+  }
+
+  private void writeTwoChunks() {
+    try {
+      write("0123456789abcdefg");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void awaitBlocked(Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.TIMED_WAITING)
+      Thread.sleep(1);
+  }
+
+  private void awaitChunks(int count) throws InterruptedException {
+    while (subscriber.getChunks().size() < count)
+      Thread.sleep(1);
+  }
+
+  @Test
+  void whenClientCancels_discardFurtherOutput() throws IOException {
+    write("0123456789");
+    subscriber.subscription.cancel();
+
+    write("abcdefghijk");
+    stream.complete();
+
+    assertThat(subscriber.getChunks(), equalTo(List.of("01234567")));
+    assertThat(subscriber.completed, is(false));
+  }
+
+  @Test
+  void whenChunkNotRequestedInTime_throwException() {
+    subscriber.initialDemand = 0;
+    stream = new ChunkedResponseStream(this::send, CHUNK_SIZE, TimeUnit.MILLISECONDS.toNanos(10));
+
+    assertThrows(IOException.class, () -> write("0123456789"));
+  }
+
+  @Test
+  void whenSubscribedTwice_rejectSecondSubscriber() throws IOException {
+    final TestSubscriber second = new TestSubscriber();
+    write("0123456789");
+
+    sentPublisher.subscribe(second);
+
+    assertThat(second.error, instanceOf(IllegalStateException.class));
+  }
+
+  static class TestSubscriber implements Flow.Subscriber<DataChunk> {
+    private final List<byte[]> chunks = new ArrayList<>();
+    private long initialDemand = Long.MAX_VALUE;
+    private Flow.Subscription subscription;
+    private boolean completed;
+    private int completionCount;
+    private Throwable error;
+
+    synchronized List<String> getChunks() {
+      final List<String> result = new ArrayList<>();
+      for (byte[] chunk : chunks)
+        result.add(new String(chunk, StandardCharsets.UTF_8));
+      return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialDemand > 0) subscription.request(initialDemand);
+    }
+
+    @Override
+    public synchronized void onNext(DataChunk item) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      for (ByteBuffer buffer : item.data()) {
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        bytes.write(data, 0, data.length);
+      }
+      chunks.add(bytes.toByteArray());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      completionCount++;
+    }
+  }
+}
@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2023, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
@@ -65,7 +65,10 @@ class MetricsServiceTest {
           "  ]\n" +
           "}";
 
+    private static final String PROBE_TARGET = "managed1:8001";
+
     private final WebClientFactoryStub clientFactory = new WebClientFactoryStub();
+    private MetricsService metricsService;
     private TestClient client;
     private final List<Memento> mementos = new ArrayList<>();
 
@@ -74,7 +77,9 @@ class MetricsServiceTest {
         mementos.add(StaticStubSupport.install(ExporterConfig.class, "defaultSnakeCaseSetting", true));
         SidecarConfigurationTestSupport.preserveConfigurationProperties(mementos);
         LiveConfiguration.loadFromString(ONE_VALUE_CONFIG);
-        client = TestClient.create(Routing.builder().register(createMetricsService()));
+        System.setProperty(SidecarConfiguration.PROBE_TARGETS_PROPERTY, PROBE_TARGET);
+        metricsService = createMetricsService();
+        client = TestClient.create(Routing.builder().register(metricsService));
     }
 
     @AfterEach
@@ -193,6 +198,16 @@ class MetricsServiceTest {
         ));
     }
 
+    @Test
+    void whenUsingVirtualThreads_displayMetrics() throws Exception {
+        System.setProperty(SidecarConfiguration.VIRTUAL_THREADS_PROPERTY, "true");
+        client = TestClient.create(Routing.builder().register(createMetricsService()));
+        LiveConfiguration.loadFromString(TWO_VALUE_CONFIG);
+        clientFactory.addJsonResponse(getGroupResponseMap());
+
+        assertThat(getMetrics(), containsString("group_value_test_sample1{name=\"first\"} 12"));
+    }
+
     @Test
     void testMetricsEndpoint() throws TimeoutException, InterruptedException, ExecutionException {
         TestResponse testResponse = getMetricsResponse();
@@ -212,6 +227,53 @@ class MetricsServiceTest {
     }
 
 
+    // -------------- probes ---------
+
+    @Test
+    void whenProbeHasNoTarget_refuseIt() throws Exception {
+        final TestResponse testResponse = client.path("/probe").get();
+
+        assertEquals(Http.Status.FORBIDDEN_403, testResponse.status());
+    }
+
+    @Test
+    void whenProbeTargetNotListed_refuseIt() throws Exception {
+        final TestResponse testResponse = getProbeResponse("intruder:7001");
+
+        assertEquals(Http.Status.FORBIDDEN_403, testResponse.status());
+    }
+
+    private TestResponse getProbeResponse(String target) throws InterruptedException, TimeoutException {
+        return client.path("/probe").queryParameter("target", target).get();
+    }
+
+    @Test
+    void whenProbeTargetListed_queryIt() throws Exception {
+        getProbeResponse(PROBE_TARGET);
+
+        assertThat(clientFactory.getClientUrl(), startsWith("http://" + PROBE_TARGET + "/"));
+    }
+
+    @Test
+    void whenProbeTargetListed_displayItsMetrics() throws Exception {
+        LiveConfiguration.loadFromString(TWO_VALUE_CONFIG);
+        clientFactory.addJsonResponse(getGroupResponseMap());
+
+        final String metrics = getProbeResponse(PROBE_TARGET).asString().get();
+
+        assertThat(metrics, containsString("group_value_test_sample1{name=\"first\"} 12"));
+        assertThat(metrics, containsString("wls_scrape_duration_seconds{instance=\"" + PROBE_TARGET + "\"}"));
+    }
+
+    @Test
+    void whenTargetHasTooManyProbesInProgress_refuseAnother() throws Exception {
+        metricsService.getBulkhead(PROBE_TARGET).drainPermits();
+
+        final TestResponse testResponse = getProbeResponse(PROBE_TARGET);
+
+        assertEquals(Http.Status.SERVICE_UNAVAILABLE_503, testResponse.status());
+    }
+
     // -------------- put configuration  ---------
 
     @Test
@@ -1,4 +1,4 @@
-// Copyright (c) 2021, 2022, Oracle and/or its affiliates.
+// Copyright (c) 2021, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
@@ -12,10 +12,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.DEFAULT_LISTEN_PORT;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.DEFAULT_MAX_PROBES_PER_TARGET;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.DEFAULT_POD_NAME;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.DEFAULT_WLS_PORT;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.LISTEN_PORT_PROPERTY;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.MAX_CONCURRENT_REQUESTS_PROPERTY;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.MAX_PROBES_PER_TARGET_PROPERTY;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.POD_NAME_PROPERTY;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.PROBE_TARGETS_PROPERTY;
+import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.VIRTUAL_THREADS_PROPERTY;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.WLS_HOST_PROPERTY;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.WLS_PORT_PROPERTY;
 import static com.oracle.wls.exporter.sidecar.SidecarConfiguration.WLS_SECURE_PROPERTY;
@@ -46,6 +52,17 @@ class SidecarConfigurationTest {
     assertThat(configuration.getWebLogicHost(), equalTo(SidecarConfiguration.getDefaultWlsHostName()));
     assertThat(configuration.useWebLogicSsl(), is(false));
     assertThat(configuration.getPodName(), equalTo(DEFAULT_POD_NAME));
+    assertThat(configuration.useVirtualThreads(), is(false));
+    assertThat(configuration.getMaxConcurrentRequests(), equalTo(DEFAULT_MAX_CONCURRENT_REQUESTS));
+    assertThat(configuration.getMaxProbesPerTarget(), equalTo(DEFAULT_MAX_PROBES_PER_TARGET));
+  }
+
+  @Test
+  void withoutProbeTargetsProperty_allowNoProbes() {
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.isProbeTarget(""), is(false));
+    assertThat(configuration.isProbeTarget("myhost:7001"), is(false));
   }
 
   @Test
@@ -96,4 +113,52 @@ class SidecarConfigurationTest {
 
     assertThat(configuration.getPodName(), equalTo(podName));
   }
+
+  @Test
+  void whenVirtualThreadsPropertySpecified_useIt() {
+    System.setProperty(VIRTUAL_THREADS_PROPERTY, "true");
+
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.useVirtualThreads(), is(true));
+  }
+
+  @Test
+  void whenMaxConcurrentRequestsPropertySpecified_useIt() {
+    System.setProperty(MAX_CONCURRENT_REQUESTS_PROPERTY, "25");
+
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.getMaxConcurrentRequests(), equalTo(25));
+  }
+
+  @Test
+  void whenProbeTargetsPropertySpecified_allowListedTargets() {
+    System.setProperty(PROBE_TARGETS_PROPERTY, "server1:7001, server2:7002");
+
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.isProbeTarget("server1:7001"), is(true));
+    assertThat(configuration.isProbeTarget("server2:7002"), is(true));
+    assertThat(configuration.isProbeTarget("server3:7003"), is(false));
+  }
+
+  @Test
+  void whenProbeTargetLacksPort_ignoreIt() {
+    System.setProperty(PROBE_TARGETS_PROPERTY, "server1,server2:7002");
+
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.isProbeTarget("server1"), is(false));
+    assertThat(configuration.isProbeTarget("server2:7002"), is(true));
+  }
+
+  @Test
+  void whenMaxProbesPerTargetPropertySpecified_useIt() {
+    System.setProperty(MAX_PROBES_PER_TARGET_PROPERTY, "5");
+
+    final SidecarConfiguration configuration = new SidecarConfiguration();
+
+    assertThat(configuration.getMaxProbesPerTarget(), equalTo(5));
+  }
 }
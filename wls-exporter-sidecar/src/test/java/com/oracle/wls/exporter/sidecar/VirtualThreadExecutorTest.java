@@ -0,0 +1,70 @@
+// Copyright (c) 2026, Oracle and/or its affiliates.
+// Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
+
+package com.oracle.wls.exporter.sidecar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+class VirtualThreadExecutorTest {
+
+  private static final int MAX_TASKS = 2;
+
+  private final VirtualThreadExecutor executor = new VirtualThreadExecutor("test-", MAX_TASKS);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void runTasksOnVirtualThreads() throws Exception {
+    assertThat(executor.submit(() -> Thread.currentThread().isVirtual()).get(), is(true));
+  }
+
+  @Test
+  void nameThreadsWithPrefix() throws Exception {
+    assertThat(executor.submit(() -> Thread.currentThread().getName()).get(), startsWith("test-"));
+  }
+
+  @Test
+  void runNoMoreThanMaximumTasksAtOnce() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final List<Future<?>> results = new ArrayList<>();
+
+    for (int i = 0; i < 2 * MAX_TASKS; i++)
+      results.add(executor.submit(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        release.await(5, TimeUnit.SECONDS);
+        running.decrementAndGet();
+        return null;
+      }));
+
+    awaitRunning(running);
+    release.countDown();
+    for (Future<?> result : results)
+      result.get(5, TimeUnit.SECONDS);
+
+    assertThat(maxRunning.get(), equalTo(MAX_TASKS));
+  }
+
+  private void awaitRunning(AtomicInteger running) throws InterruptedException {
+    while (running.get() < MAX_TASKS)
+      Thread.sleep(1);
+    Thread.sleep(20);
+  }
+}
@@ -1,14 +1,17 @@
-// Copyright (c) 2017, 2021, Oracle and/or its affiliates.
+// Copyright (c) 2017, 2026, Oracle and/or its affiliates.
 // Licensed under the Universal Permissive License v 1.0 as shown at https://oss.oracle.com/licenses/upl.
 
 package com.oracle.wls.exporter.sidecar;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import com.google.gson.Gson;
 import com.oracle.wls.exporter.AuthenticationChallengeException;
@@ -38,6 +41,10 @@ public class WebClientFactoryStub implements WebClientFactory {
         return webClient.sentHeaders;
     }
 
+    String getClientUrl() {
+        return webClient.url;
+    }
+
     String getSentAuthentication() {
         return webClient.getAuthentication();
     }
@@ -110,6 +117,12 @@ public class WebClientFactoryStub implements WebClientFactory {
             return getResult(getNextResponse());
         }
 
+        @Override
+        public <T> T doPostRequest(String postBody, ResponseHandler<T> handler) throws IOException {
+            final String response = doPostRequest(postBody);
+            return handler.handleResponse(new ByteArrayInputStream(Optional.ofNullable(response).orElse("").getBytes()));
+        }
+
         @Override
         public String doGetRequest() {
             if (url == null) throw new NullPointerException("No URL specified");